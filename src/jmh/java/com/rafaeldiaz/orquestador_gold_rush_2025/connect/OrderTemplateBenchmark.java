@@ -0,0 +1,110 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.connect;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import okhttp3.Request;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ BENCHMARK: CONSTRUCCIÓN DE ÓRDENES (String.format + HMAC por orden vs PLANTILLA)
+ * "legacy*" reproduce el buildOrderRequest anterior (formateo con Locale, concatenación,
+ * Mac.getInstance + init y hex con String.format por byte). "template*" solo parchea slots.
+ * Ejecutar: ./gradlew jmh -Pjmh.includes=OrderTemplateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderTemplateBenchmark {
+
+    private static final String KEY = "benchmarkApiKey0123456789";
+    private static final String SECRET = "benchmarkSecret0123456789abcdef";
+
+    private OrderTemplate bybitLimit;
+    private OrderTemplate binanceLimit;
+    private double qty;
+    private double price;
+    private FixedDecimal fixedQty;
+    private FixedDecimal fixedPrice;
+
+    @Setup
+    public void setup() throws Exception {
+        bybitLimit = OrderTemplate.bybit("https://api.bybit.com/v5/order/create", KEY, mac(), "SOLUSDT", true, true);
+        binanceLimit = OrderTemplate.queryString("https://api.binance.com/api/v3/order", "X-MBX-APIKEY",
+                KEY, mac(), "SOLUSDT", true, true);
+        qty = 0.73512;
+        price = 142.3187;
+        fixedQty = FixedDecimal.parse("0.73512");
+        fixedPrice = FixedDecimal.parse("142.3187");
+    }
+
+    private static Mac mac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac;
+    }
+
+    @Benchmark
+    public Request legacyBybit() {
+        String priceStr = String.format(Locale.US, "%.8f", price);
+        String qtyStr = String.format(Locale.US, "%.8f", qty);
+        String json = String.format(Locale.US,
+                "{\"category\":\"spot\",\"symbol\":\"%s\",\"side\":\"%s\",\"orderType\":\"%s\",\"qty\":\"%s\"%s%s}",
+                "SOLUSDT".replace("-", "").toUpperCase(), "Buy", "Limit", qtyStr,
+                ",\"price\":\"" + priceStr + "\"", ",\"timeInForce\":\"FOK\"");
+        long timestamp = System.currentTimeMillis();
+        String signature = legacyHmac(timestamp + KEY + "5000" + json);
+        return new Request.Builder()
+                .url("https://api.bybit.com/v5/order/create")
+                .header("X-BAPI-API-KEY", KEY)
+                .header("X-BAPI-SIGN", signature)
+                .header("X-BAPI-TIMESTAMP", String.valueOf(timestamp))
+                .header("X-BAPI-RECV-WINDOW", "5000")
+                .header("X-BAPI-SIGN-TYPE", "2")
+                .header("Content-Type", "application/json")
+                .post(okhttp3.RequestBody.create(json, okhttp3.MediaType.get("application/json")))
+                .build();
+    }
+
+    @Benchmark
+    public Request templateBybit() {
+        return bybitLimit.render(fixedQty, fixedPrice, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Request legacyBinance() {
+        String qtyStr = String.format(Locale.US, "%.8f", qty);
+        String query = "symbol=" + "SOLUSDT".replace("-", "").toUpperCase() + "&side=" + "buy".toUpperCase()
+                + "&type=" + "limit".toUpperCase() + "&quantity=" + qtyStr;
+        query += "&price=" + String.format(Locale.US, "%.8f", price) + "&timeInForce=FOK";
+        query += "&timestamp=" + System.currentTimeMillis() + "&recvWindow=5000";
+        String signature = legacyHmac(query);
+        return new Request.Builder()
+                .url("https://api.binance.com/api/v3/order?" + query + "&signature=" + signature)
+                .header("X-MBX-APIKEY", KEY)
+                .post(okhttp3.RequestBody.create("", okhttp3.MediaType.parse("application/x-www-form-urlencoded")))
+                .build();
+    }
+
+    @Benchmark
+    public Request templateBinance() {
+        return binanceLimit.render(fixedQty, fixedPrice, System.currentTimeMillis());
+    }
+
+    private static String legacyHmac(String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : raw) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ BENCHMARK: FILTRO ESPACIAL (MAP vs ESCALAR vs SIMD)
+ * Compara el barrido min-ask / max-bid del motor anterior (Map por activo)
+ * contra los dos kernels de {@link SpatialSpreadMatrix}.
+ * Ejecutar: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialSpreadBenchmark {
+
+    @Param({"64", "512", "2048"})
+    public int assetCount;
+
+    @Param({"3", "6"})
+    public int exchangeCount;
+
+    private List<String> exchanges;
+    private String[] pairs;
+    private Map<String, Map<String, Double>> marketData;
+
+    private double[] asks, bids, fees;
+    private double[][] out;
+
+    private final SpatialSpreadMatrix.Kernel scalar = new ScalarSpreadKernel();
+    private final SpatialSpreadMatrix.Kernel vector = new VectorSpreadKernel();
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        exchanges = new ArrayList<>();
+        for (int e = 0; e < exchangeCount; e++) exchanges.add("ex" + e);
+
+        pairs = new String[assetCount];
+        for (int a = 0; a < assetCount; a++) pairs[a] = "A" + a + "USDT";
+
+        int cells = assetCount * exchangeCount;
+        asks = new double[cells];
+        bids = new double[cells];
+        fees = new double[cells];
+        marketData = new HashMap<>();
+
+        for (int e = 0; e < exchangeCount; e++) {
+            Map<String, Double> prices = new HashMap<>();
+            for (int a = 0; a < assetCount; a++) {
+                double px = 100 + rnd.nextDouble();
+                prices.put(pairs[a], px);
+                asks[e * assetCount + a] = px;
+                bids[e * assetCount + a] = px;
+                fees[e * assetCount + a] = 0.001;
+            }
+            marketData.put(exchanges.get(e), prices);
+        }
+        out = new double[6][assetCount];
+    }
+
+    /** Motor anterior: lookups de Map por activo y exchange. */
+    @Benchmark
+    public void legacyMapScan(Blackhole bh) {
+        for (int a = 0; a < assetCount; a++) {
+            double minAsk = Double.MAX_VALUE;
+            double maxBid = -1.0;
+            for (String ex : exchanges) {
+                Map<String, Double> prices = marketData.get(ex);
+                if (prices == null || !prices.containsKey(pairs[a])) continue;
+                double price = prices.get(pairs[a]);
+                if (price < minAsk) minAsk = price;
+                if (price > maxBid) maxBid = price;
+            }
+            bh.consume((maxBid - minAsk) / minAsk);
+        }
+    }
+
+    @Benchmark
+    public void scalarKernel(Blackhole bh) {
+        scalar.compute(assetCount, exchangeCount, assetCount, asks, bids, fees,
+                out[0], out[1], out[2], out[3], out[4], out[5]);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void vectorKernel(Blackhole bh) {
+        vector.compute(assetCount, exchangeCount, assetCount, asks, bids, fees,
+                out[0], out[1], out[2], out[3], out[4], out[5]);
+        bh.consume(out);
+    }
+}
@@ -79,7 +79,7 @@ public class BinanceAdapter implements ExchangeAdapter {
 
         if (typeUpper.equals("LIMIT")) {
             query.append("&price=").append(price);
-            query.append("&timeInForce=GTC");
+            query.append("&timeInForce=FOK"); // Tope de taker: nada queda vivo en el libro
         }
 
         query.append("&timestamp=").append(timestamp);
@@ -25,6 +25,9 @@ public class BybitStreamer extends MarketStreamer implements MarketListener { //
 
     // Guardamos suscripciones para reconexión automática y gestión de targets
     private final Set<String> subscribedPairs = Collections.synchronizedSet(new HashSet<>());
+    // Tópicos de datos enriquecidos (kline / orderbook.1 / tickers) para el motor de indicadores
+    private final Set<String> dataTopics = Collections.synchronizedSet(new LinkedHashSet<>());
+    private static final int MAX_ARGS_PER_REQUEST = 10; // Límite de Bybit spot por mensaje de suscripción
 
     // Executor para Heartbeat y Reconexión
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -121,6 +124,73 @@ public class BybitStreamer extends MarketStreamer implements MarketListener { //
         }
     }
 
+    /**
+     * 📊 Suscribe velas (uno o más intervalos), mejor bid/ask y ticker 24h de cada par.
+     * Los mensajes se agrupan de a 10 tópicos (límite del WS spot de Bybit).
+     * @param intervals formato del bot ("1m", "15m", "1h")
+     */
+    public void subscribeMarketData(Collection<String> pairs, Collection<String> intervals) {
+        List<String> fresh = new ArrayList<>();
+        for (String pair : pairs) {
+            for (String interval : intervals) {
+                String topic = "kline." + toBybitInterval(interval) + "." + pair;
+                if (dataTopics.add(topic)) fresh.add(topic);
+            }
+            if (dataTopics.add("orderbook.1." + pair)) fresh.add("orderbook.1." + pair);
+            if (dataTopics.add("tickers." + pair)) fresh.add("tickers." + pair);
+        }
+        if (webSocket != null && isActive) sendSubscribe(webSocket, fresh);
+        BotLogger.info("📊 [WS] Datos de mercado: " + pairs.size() + " pares, " + fresh.size() + " tópicos nuevos");
+    }
+
+    /** Baja de los tópicos de datos de los pares que salieron de la watchlist. */
+    public void unsubscribeMarketData(Collection<String> pairs, Collection<String> intervals) {
+        List<String> gone = new ArrayList<>();
+        for (String pair : pairs) {
+            for (String interval : intervals) {
+                String topic = "kline." + toBybitInterval(interval) + "." + pair;
+                if (dataTopics.remove(topic)) gone.add(topic);
+            }
+            if (dataTopics.remove("orderbook.1." + pair)) gone.add("orderbook.1." + pair);
+            if (dataTopics.remove("tickers." + pair)) gone.add("tickers." + pair);
+        }
+        if (webSocket != null && isActive) sendOp(webSocket, "unsubscribe", gone);
+    }
+
+    private static void sendSubscribe(WebSocket ws, List<String> topics) {
+        sendOp(ws, "subscribe", topics);
+    }
+
+    private static void sendOp(WebSocket ws, String op, List<String> topics) {
+        for (int i = 0; i < topics.size(); i += MAX_ARGS_PER_REQUEST) {
+            List<String> chunk = topics.subList(i, Math.min(i + MAX_ARGS_PER_REQUEST, topics.size()));
+            ws.send("{\"op\": \"" + op + "\", \"args\": [\"" + String.join("\", \"", chunk) + "\"]}");
+        }
+    }
+
+    static String toBybitInterval(String interval) {
+        return switch (interval) {
+            case "1m" -> "1";
+            case "3m" -> "3";
+            case "5m" -> "5";
+            case "15m" -> "15";
+            case "30m" -> "30";
+            case "1h" -> "60";
+            case "4h" -> "240";
+            case "1d" -> "D";
+            default -> interval;
+        };
+    }
+
+    static String fromBybitInterval(String interval) {
+        return switch (interval) {
+            case "60" -> "1h";
+            case "240" -> "4h";
+            case "D" -> "1d";
+            default -> interval + "m";
+        };
+    }
+
     @Override
     public void unsubscribe(String pair) {
         if (subscribedPairs.remove(pair)) { // Solo enviar si existía
@@ -172,6 +242,9 @@ public class BybitStreamer extends MarketStreamer implements MarketListener { //
                     webSocket.send(msg);
                 }
             }
+            synchronized (dataTopics) {
+                sendSubscribe(webSocket, new ArrayList<>(dataTopics));
+            }
         }
 
         @Override
@@ -185,19 +258,45 @@ public class BybitStreamer extends MarketStreamer implements MarketListener { //
                     if (op.equals("pong") || op.equals("subscribe") || op.equals("unsubscribe")) return;
                 }
 
+                if (!root.has("topic")) return;
+                String topic = root.get("topic").asText();
+                long ts = root.has("ts") ? root.get("ts").asLong() : System.currentTimeMillis();
+
                 // Parsear Ticker Update
-                // { "topic": "tickers.BTCUSDT", "data": { "lastPrice": "..." } }
-                if (root.has("topic") && root.get("topic").asText().startsWith("tickers.")) {
-                    String topic = root.get("topic").asText();
+                // { "topic": "tickers.BTCUSDT", "data": { "lastPrice": "...", "turnover24h": "..." } }
+                if (topic.startsWith("tickers.")) {
                     String pair = topic.replace("tickers.", "");
 
                     JsonNode data = root.get("data");
                     if (data != null && data.has("lastPrice")) {
                         double price = data.get("lastPrice").asDouble();
-                        long ts = root.has("ts") ? root.get("ts").asLong() : System.currentTimeMillis();
 
                         // 🔥 MAGIA PURA: Usamos el método del padre para notificar a todo el sistema
                         notifyListeners("bybit", pair, price, ts);
+                        if (data.has("turnover24h")) {
+                            notifyTicker24h("bybit", pair, price, data.get("turnover24h").asDouble(), ts);
+                        }
+                    }
+                }
+                // Velas: { "topic": "kline.1.BTCUSDT", "data": [{ "start", "high", "low", "close", "confirm" }] }
+                else if (topic.startsWith("kline.")) {
+                    int dot = topic.indexOf('.', 6);
+                    String interval = fromBybitInterval(topic.substring(6, dot));
+                    String pair = topic.substring(dot + 1);
+                    for (JsonNode k : root.path("data")) {
+                        notifyKline("bybit", pair, interval,
+                                k.path("high").asDouble(), k.path("low").asDouble(), k.path("close").asDouble(),
+                                k.path("start").asLong(), k.path("confirm").asBoolean(false));
+                    }
+                }
+                // Mejor bid/ask: { "topic": "orderbook.1.BTCUSDT", "data": { "b": [["p","q"]], "a": [["p","q"]] } }
+                else if (topic.startsWith("orderbook.1.")) {
+                    JsonNode data = root.path("data");
+                    JsonNode b = data.path("b");
+                    JsonNode a = data.path("a");
+                    if (b.size() > 0 && a.size() > 0) {
+                        notifyQuote("bybit", topic.substring(12),
+                                b.get(0).get(0).asDouble(), a.get(0).get(0).asDouble(), ts);
                     }
                 }
             } catch (Exception e) {
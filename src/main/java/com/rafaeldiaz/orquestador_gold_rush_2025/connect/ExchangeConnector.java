@@ -3,7 +3,15 @@ package com.rafaeldiaz.orquestador_gold_rush_2025.connect;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.NetworkInfo;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.MetricsRegistry;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.CacheMissEvent;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.HttpCallEvent;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.OrderStageEvent;
 import io.github.cdimascio.dotenv.Dotenv;
 import okhttp3.*;
 import org.jetbrains.annotations.NotNull;
@@ -26,7 +34,13 @@ public class ExchangeConnector {
     // 📦 ESTRUCTURA DE DATOS PARA EL LIBRO DE ÓRDENES
     public record OrderBook(List<double[]> bids, List<double[]> asks) {}
 
+    /** Ticker 24h de un par (símbolo normalizado sin guion). turnover = volumen en moneda cotizada. */
+    public record Ticker24h(String symbol, double last, double bid, double ask,
+                            double high, double low, double turnover) {}
+
     private final Map<String, Long> exchangeRTT = new ConcurrentHashMap<>();
+    private final Map<TemplateKey, OrderTemplate> orderTemplates = new ConcurrentHashMap<>();
+    private final Map<String, Mac> macPrototypes = new ConcurrentHashMap<>();
     private final OkHttpClient client;
     private final ObjectMapper mapper;
     private final EnvProvider envProvider;
@@ -36,17 +50,90 @@ public class ExchangeConnector {
     private static final String BINANCE_URL = "https://api.binance.com";
     private static final String MEXC_URL = "https://api.mexc.com";
     private static final String KUCOIN_URL = "https://api.kucoin.com";
+    // Clave comodín de fetchAllTradingFees: fee de cuenta que aplica a todos los pares
+    public static final String ALL_SYMBOLS = "*";
 
     public ExchangeConnector() {
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(5, TimeUnit.SECONDS)
                 .readTimeout(5, TimeUnit.SECONDS)
+                .addInterceptor(ExchangeConnector::recordVenueMetrics)
                 .build();
         this.mapper = new ObjectMapper();
         Dotenv dotenvInstance = Dotenv.load();
         String currentIp = com.rafaeldiaz.orquestador_gold_rush_2025.utils.ExternalIpFetcher.getMyPublicIp();
         BotLogger.info("🌐 IP PÚBLICA DETECTADA: " + currentIp + " (Asegúrate de que esta IP esté en Bybit)");
         this.envProvider = dotenvInstance::get;
+        for (String venue : List.of("binance", "bybit", "mexc", "kucoin")) {
+            METRICS.gauge("goldrush_venue_rtt_seconds", "venue", venue, () -> getRTT(venue) / 1000.0);
+        }
+    }
+
+    // =========================================================================
+    // 📈 MÉTRICAS POR VENUE (interceptor: cubre TODAS las llamadas del cliente)
+    // =========================================================================
+    private static final MetricsRegistry METRICS = MetricsRegistry.GLOBAL
+            .describe("goldrush_venue_requests_total", MetricsRegistry.Type.COUNTER, "Requests REST por venue")
+            .describe("goldrush_venue_request_seconds", MetricsRegistry.Type.SUMMARY, "Latencia de request REST por venue")
+            .describe("goldrush_venue_rate_limited_total", MetricsRegistry.Type.COUNTER, "Respuestas HTTP 429 por venue")
+            .describe("goldrush_venue_http_errors_total", MetricsRegistry.Type.COUNTER, "Respuestas HTTP >= 400 por venue y código")
+            .describe("goldrush_venue_network_errors_total", MetricsRegistry.Type.COUNTER, "Fallos de red (sin respuesta) por venue")
+            .describe("goldrush_orders_total", MetricsRegistry.Type.COUNTER, "Órdenes enviadas por cuenta y estado final");
+    private static final MetricsRegistry.Counter RULES_HIT =
+            METRICS.counter("goldrush_cache_requests_total", "cache", "instrument_rules", "result", "hit");
+    private static final MetricsRegistry.Counter RULES_MISS =
+            METRICS.counter("goldrush_cache_requests_total", "cache", "instrument_rules", "result", "miss");
+
+    private static Response recordVenueMetrics(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        String venue = venueOf(request.url().host());
+        METRICS.counter("goldrush_venue_requests_total", "venue", venue).inc();
+        HttpCallEvent event = new HttpCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int code = 0;
+        long bytes = -1;
+        try {
+            Response response = chain.proceed(request);
+            METRICS.summary("goldrush_venue_request_seconds", "venue", venue).record(System.nanoTime() - start);
+            code = response.code();
+            if (response.body() != null) bytes = response.body().contentLength();
+            if (code == 429) METRICS.counter("goldrush_venue_rate_limited_total", "venue", venue).inc();
+            if (code >= 400) {
+                METRICS.counter("goldrush_venue_http_errors_total", "venue", venue, "code", String.valueOf(code)).inc();
+            }
+            return response;
+        } catch (IOException e) {
+            METRICS.counter("goldrush_venue_network_errors_total", "venue", venue).inc();
+            throw e;
+        } finally {
+            commitHttpEvent(event, venue, request, code, bytes);
+        }
+    }
+
+    /** 🔭 JFR: los campos solo se arman si la grabación está activa para el evento. */
+    private static void commitHttpEvent(HttpCallEvent event, String venue, Request request, int code, long bytes) {
+        if (!event.shouldCommit()) return;
+        event.exchange = venue;
+        event.endpointClass = HttpCallEvent.endpointClass(request.url().encodedPath());
+        event.method = request.method();
+        event.status = code;
+        event.bytes = bytes;
+        event.commit();
+    }
+
+    private static String venueOf(String host) {
+        if (host.contains("binance")) return "binance";
+        if (host.contains("bybit")) return "bybit";
+        if (host.contains("mexc")) return "mexc";
+        if (host.contains("kucoin")) return "kucoin";
+        return host;
+    }
+
+    private static com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult countOrder(
+            String exchange, String outcome, com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult result) {
+        METRICS.counter("goldrush_orders_total", "account", exchange, "outcome", outcome).inc();
+        return result;
     }
 
     public ExchangeConnector(OkHttpClient client, EnvProvider envProvider) {
@@ -145,24 +232,50 @@ public class ExchangeConnector {
 
     /**
      * Ejecuta una orden y ESPERA la confirmación de la verdad.
-     * NO devuelve hasta saber exactamente qué pasó.
+     * Cantidad y precio se alinean aquí al step / tick del instrumento (caché de metadatos):
+     * ningún ejecutor envía decimales que el exchange vaya a rechazar por precisión.
      */
     public com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult placeOrder(String exchange, String pair, String side, String type, double qty, double price) {
+        InstrumentRules rules = getInstrumentRules(exchange, pair);
+        boolean limit = type.equalsIgnoreCase("LIMIT");
+        FixedDecimal fixedQty = rules.quantity(qty);
+        FixedDecimal fixedPrice = limit ? rules.price(price, side.equalsIgnoreCase("BUY")) : FixedDecimal.ZERO;
+        if (fixedQty.isZero() || (limit && fixedPrice.isZero())) {
+            BotLogger.error("🚫 Cantidad/precio bajo el step del instrumento (" + exchange + " " + pair + "): qty="
+                    + qty + " step=" + rules.qtyStep());
+            return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
+                    "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE");
+        }
+        return placeOrder(exchange, pair, side, type, fixedQty, fixedPrice);
+    }
+
+    /**
+     * Ejecuta una orden ya expresada en punto fijo y ESPERA la confirmación de la verdad.
+     * NO devuelve hasta saber exactamente qué pasó.
+     */
+    public com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult placeOrder(String exchange, String pair, String side, String type,
+                                                                                  FixedDecimal qty, FixedDecimal price) {
         String orderId = null;
+        OrderStageEvent stage = OrderStageEvent.start("BUILD");
         try {
             // 1. DISPARAR LA ORDEN
             Request request = buildOrderRequest(exchange, pair, side, type, qty, price);
             if (request == null) throw new RuntimeException("Request malformado para " + exchange);
+            TradeTrace.markCurrent(TradeTrace.Stage.BUILT);
+            stage.end(exchange, pair, side, null, "BUILT");
 
+            stage = OrderStageEvent.start("ACK");
+            TradeTrace.markCurrent(TradeTrace.Stage.SENT);
             try (Response response = client.newCall(request).execute()) {
                 String body = response.body().string();
 
                 // Manejo de rechazos HTTP
                 if (!response.isSuccessful()) {
                     BotLogger.error("❌ RECHAZO HTTP (" + exchange + "): " + body);
+                    stage.end(exchange, pair, side, null, "REJECTED_HTTP");
                     // Devolvemos un resultado fallido vacío
-                    return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
-                            "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE");
+                    return countOrder(exchange, "REJECTED_HTTP", new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
+                            "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE"));
                 }
 
                 JsonNode root = mapper.readTree(body);
@@ -172,8 +285,9 @@ public class ExchangeConnector {
                     if (root.get("retCode").asInt() != 0) {
                         String msg = root.get("retMsg").asText();
                         BotLogger.error("❌ RECHAZO API BYBIT: " + msg);
-                        return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
-                                "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE");
+                        stage.end(exchange, pair, side, null, "REJECTED_API");
+                        return countOrder(exchange, "REJECTED_API", new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
+                                "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE"));
                     }
                     orderId = root.get("result").get("orderId").asText();
                 }
@@ -181,20 +295,68 @@ public class ExchangeConnector {
             }
 
             if (orderId == null) throw new RuntimeException("No se obtuvo Order ID");
+            TradeTrace.markCurrent(TradeTrace.Stage.ACKED);
+            stage.end(exchange, pair, side, orderId, "ACKED");
+            stage = OrderStageEvent.start("FILL");
 
-            // 2. VERIFICAR LA VERDAD (Polling inmediato)
-            return fetchOrderResult(exchange, orderId, pair);
+            // 2. VERIFICAR LA VERDAD (reporte de fill: sondeo corto de la orden viva)
+            com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult fill =
+                    awaitFill(exchange, orderId, pair, BotConfig.FILL_WAIT_TIMEOUT_MS);
+            TradeTrace.markCurrent(TradeTrace.Stage.FILLED);
+            stage.end(exchange, pair, side, orderId, fill.status());
+            return countOrder(exchange, fill.status(), fill);
 
         } catch (Exception e) {
             BotLogger.error("💥 CRITICAL PLACE ORDER: " + e.getMessage());
-            return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
-                    "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE");
+            stage.end(exchange, pair, side, orderId, "ERROR");
+            return countOrder(exchange, "ERROR", new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
+                    "ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE"));
         }
     }
 
+    // Estados finales de una orden spot en Bybit V5 (ya no va a recibir más fills)
+    private static final Set<String> BYBIT_TERMINAL_STATUS =
+            Set.of("Filled", "Cancelled", "PartiallyFilledCanceled", "Rejected", "Deactivated");
+    private static final long FILL_POLL_START_MS = 15;
+    private static final long FILL_POLL_MAX_MS = 120;
+
     /**
-     * Consulta el estado post-mortem de la orden para llenar el certificado.
+     * ⚡ REPORTE DE FILL: sondea la orden viva (/v5/order/realtime) con backoff corto (15ms → 120ms)
+     * y devuelve en cuanto llega a un estado final. Una FOK / MARKET suele quedar final en el primer
+     * sondeo: la confirmación cuesta una ida y vuelta, no un sleep fijo de 200ms + historial.
+     * Si vence el tope se consulta el historial (fetchOrderResult).
      */
+    public com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult awaitFill(String exchange, String orderId, String pair, long timeoutMs) {
+        if (!exchange.startsWith("bybit")) return fetchOrderResult(exchange, orderId, pair);
+
+        String endpoint = "/v5/order/realtime?category=spot&orderId=" + orderId;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long pause = FILL_POLL_START_MS;
+        while (System.nanoTime() < deadline) {
+            Request request = buildSignedRequest(exchange, "GET", endpoint, "");
+            try (Response response = client.newCall(request).execute()) {
+                JsonNode root = mapper.readTree(response.body().string());
+                if (root.path("retCode").asInt(-1) == 0) {
+                    JsonNode list = root.path("result").path("list");
+                    if (list.isArray() && !list.isEmpty()
+                            && BYBIT_TERMINAL_STATUS.contains(list.get(0).path("orderStatus").asText())) {
+                        return parseBybitOrder(orderId, list.get(0));
+                    }
+                }
+            } catch (Exception e) {
+                BotLogger.warn("⚠️ Sondeo de fill " + orderId + ": " + e.getMessage());
+            }
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            pause = Math.min(pause * 2, FILL_POLL_MAX_MS);
+        }
+        return fetchOrderResult(exchange, orderId, pair);
+    }
+
     /**
      * Consulta el estado post-mortem de la orden para llenar el certificado.
      * Versión 5.0: Soporte completo para Average Price Real.
@@ -202,9 +364,6 @@ public class ExchangeConnector {
     private com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult fetchOrderResult(String exchange, String orderId, String pair) {
         // Implementación BYBIT V5
         if (exchange.startsWith("bybit")) {
-            // Breve espera para propagación en motor de matching
-            try { Thread.sleep(200); } catch (InterruptedException e) {}
-
             String endpoint = "/v5/order/history?category=spot&orderId=" + orderId;
             Request request = buildSignedRequest(exchange, "GET", endpoint, "");
 
@@ -213,29 +372,7 @@ public class ExchangeConnector {
                 if (root.get("retCode").asInt() == 0) {
                     JsonNode list = root.get("result").get("list");
                     if (list.isArray() && list.size() > 0) {
-                        JsonNode order = list.get(0);
-
-                        String status = order.get("orderStatus").asText(); // "Filled", "PartiallyFilled"
-                        double originalQty = Double.parseDouble(order.get("qty").asText());
-                        double execQty = Double.parseDouble(order.get("cumExecQty").asText());
-
-                        // 💰 EL DATO CLAVE: Valor total ejecutado en USDT (Quote Currency)
-                        double execValue = Double.parseDouble(order.get("cumExecValue").asText());
-
-                        double fee = Double.parseDouble(order.get("cumExecFee").asText());
-                        double limitPrice = order.has("price") ? Double.parseDouble(order.get("price").asText()) : 0.0;
-
-                        // Retornamos el nuevo OrderResult de 8 parámetros
-                        return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
-                                orderId,
-                                status,
-                                originalQty,
-                                execQty,
-                                execValue, // <--- Aquí va el cummulativeQuoteQty
-                                limitPrice,
-                                fee,
-                                "UNK" // Fee Asset (Bybit no siempre lo da fácil aquí, lo dejamos UNK)
-                        );
+                        return parseBybitOrder(orderId, list.get(0));
                     }
                 }
             } catch (Exception e) {
@@ -250,63 +387,130 @@ public class ExchangeConnector {
                 orderId, "UNKNOWN", 0, 0, 0, 0, 0, "NONE");
     }
 
-    public Request buildOrderRequest(String exchange, String pair, String side, String type, double qty, double price) {
-        // BYBIT V5 (JSON)
-        if (exchange.toLowerCase().contains("bybit")) {
-            String sideCap = side.equalsIgnoreCase("BUY") ? "Buy" : "Sell";
-            String orderType = type.equalsIgnoreCase("LIMIT") ? "Limit" : "Market";
-            String timeInForce = (type.equalsIgnoreCase("LIMIT")) ? ",\"timeInForce\":\"FOK\"" : "";
-
-            // 🇺🇸 CURA PARA EL VIRUS DE LA COMA: Locale.US
-            String priceStr = String.format(java.util.Locale.US, "%.8f", price);
-            String qtyStr = String.format(java.util.Locale.US, "%.8f", qty);
-
-            // Construcción directa
-            String json = String.format(java.util.Locale.US,
-                    "{\"category\":\"spot\",\"symbol\":\"%s\",\"side\":\"%s\",\"orderType\":\"%s\",\"qty\":\"%s\"%s%s}",
-                    pair.replace("-", "").toUpperCase(),
-                    sideCap,
-                    orderType,
-                    qtyStr,
-                    orderType.equals("Limit") ? ",\"price\":\"" + priceStr + "\"" : "",
-                    timeInForce);
-
-            // 🚀 SIN LOGS, SOLO ACCIÓN
-            return buildSignedRequest(exchange, "POST", "/v5/order/create", json);
+    /**
+     * Orden Bybit V5 (realtime o historial) -> OrderResult con cantidad exacta y moneda de la comisión.
+     * La comisión viene en cumFeeDetail {"BTC":"0.0001"} (cuentas UTA) o en cumExecFee + feeCurrency;
+     * si el exchange no dice la moneda queda "UNK".
+     */
+    static com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult parseBybitOrder(String orderId, JsonNode order) {
+        String status = order.get("orderStatus").asText(); // "Filled", "PartiallyFilled"
+        double originalQty = Double.parseDouble(order.get("qty").asText());
+        FixedDecimal filledQty = FixedDecimal.parse(order.get("cumExecQty").asText());
+
+        // 💰 EL DATO CLAVE: Valor total ejecutado en USDT (Quote Currency)
+        double execValue = Double.parseDouble(order.get("cumExecValue").asText());
+        String price = order.path("price").asText("");
+        double limitPrice = price.isEmpty() ? 0.0 : Double.parseDouble(price);
+
+        double fee = 0.0;
+        String feeAsset = "UNK";
+        JsonNode feeDetail = order.get("cumFeeDetail");
+        if (feeDetail != null && feeDetail.size() == 1) {
+            Map.Entry<String, JsonNode> entry = feeDetail.fields().next();
+            feeAsset = entry.getKey();
+            fee = Double.parseDouble(entry.getValue().asText());
+        } else {
+            String cumFee = order.path("cumExecFee").asText("");
+            if (!cumFee.isEmpty()) fee = Double.parseDouble(cumFee);
+            String currency = order.path("feeCurrency").asText("");
+            if (!currency.isEmpty()) feeAsset = currency;
         }
-        // BINANCE / MEXC (Query String)
-        if (exchange.equalsIgnoreCase("binance") || exchange.equalsIgnoreCase("mexc")) {
-            String cleanPair = pair.replace("-", "").toUpperCase();
 
-            // 🇺🇸 CURA PARA EL VIRUS DE LA COMA
-            String qtyStr = String.format(java.util.Locale.US, "%.8f", qty);
+        return new com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult(
+                orderId,
+                status,
+                originalQty,
+                filledQty.toDouble(),
+                execValue, // <--- Aquí va el cummulativeQuoteQty
+                limitPrice,
+                fee,
+                feeAsset,
+                filledQty
+        );
+    }
+
+    /**
+     * ⚡ Request de orden desde la plantilla pre-serializada de (cuenta, símbolo, lado, tipo).
+     * Si el objetivo no se preparó antes, la plantilla se crea aquí una única vez.
+     */
+    public Request buildOrderRequest(String exchange, String pair, String side, String type, FixedDecimal qty, FixedDecimal price) {
+        OrderTemplate template = orderTemplate(exchange, pair, side.equalsIgnoreCase("BUY"), type.equalsIgnoreCase("LIMIT"));
+        return (template != null) ? template.render(qty, price, System.currentTimeMillis()) : null;
+    }
+
+    // =========================================================================
+    // 📝 PLANTILLAS DE ORDEN (pre-serializadas al activar objetivos)
+    // =========================================================================
 
-            String query = "symbol=" + cleanPair + "&side=" + side.toUpperCase() + "&type=" + type.toUpperCase() + "&quantity=" + qtyStr;
+    private record TemplateKey(String account, String symbol, boolean buy, boolean limit) {}
 
-            if (type.equalsIgnoreCase("LIMIT")) {
-                String priceStr = String.format(java.util.Locale.US, "%.8f", price);
-                query += "&price=" + priceStr + "&timeInForce=GTC";
+    /** Prepara las 4 variantes (BUY/SELL × MARKET/LIMIT) del par: saca la serialización del camino crítico. */
+    public void prepareOrderTemplates(String exchange, String pair) {
+        for (boolean buy : new boolean[]{true, false}) {
+            for (boolean limit : new boolean[]{false, true}) {
+                orderTemplate(exchange, pair, buy, limit);
             }
+        }
+    }
 
-            long timestamp = Instant.now().toEpochMilli();
-            query += "&timestamp=" + timestamp + "&recvWindow=5000";
+    public int orderTemplateCount() {
+        return orderTemplates.size();
+    }
 
-            // Log para verificar que salen puntos
-            BotLogger.info("📤 [" + exchange.toUpperCase() + "] Payload seguro: " + query);
+    private OrderTemplate orderTemplate(String exchange, String pair, boolean buy, boolean limit) {
+        TemplateKey key = new TemplateKey(exchange.toLowerCase(), cleanSymbol(pair), buy, limit);
+        return orderTemplates.computeIfAbsent(key, this::createOrderTemplate);
+    }
 
-            String signature = hmacSha256(query, getApiSecret(exchange));
-            String finalUrl = (exchange.equalsIgnoreCase("binance") ? BINANCE_URL : MEXC_URL)
-                    + "/api/v3/order?" + query + "&signature=" + signature;
+    private OrderTemplate createOrderTemplate(TemplateKey k) {
+        String apiKey = getApiKey(k.account());
+        Mac mac = accountMac(k.account());
+        if (apiKey == null || mac == null) return null; // Sin credenciales: no se cachea
+        if (k.account().contains("bybit")) {
+            return OrderTemplate.bybit(BYBIT_URL + "/v5/order/create", apiKey, mac, k.symbol(), k.buy(), k.limit());
+        }
+        if (k.account().equals("binance")) {
+            return OrderTemplate.queryString(BINANCE_URL + "/api/v3/order", "X-MBX-APIKEY",
+                    apiKey, mac, k.symbol(), k.buy(), k.limit());
+        }
+        if (k.account().equals("mexc")) {
+            return OrderTemplate.mexc(MEXC_URL + "/api/v3/order", apiKey, mac, k.symbol(), k.buy(), k.limit());
+        }
+        return null;
+    }
 
-            return new Request.Builder()
-                    .url(finalUrl)
-                    .header(exchange.equalsIgnoreCase("mexc") ? "X-MEXC-APIKEY" : "X-MBX-APIKEY", getApiKey(exchange))
-                    .post(RequestBody.create("", MediaType.parse("application/x-www-form-urlencoded")))
-                    .build();
+    /** Mac por plantilla clonado de un prototipo por cuenta (la expansión de la clave se hace una vez). */
+    private Mac accountMac(String account) {
+        String secret = getApiSecret(account);
+        if (secret == null) return null;
+        try {
+            Mac proto = macPrototypes.computeIfAbsent(account, a -> {
+                try {
+                    Mac m = Mac.getInstance("HmacSHA256");
+                    m.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                    return m;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            synchronized (proto) {
+                return (Mac) proto.clone();
+            }
+        } catch (Exception e) {
+            BotLogger.error("🔑 HMAC no disponible para " + account + ": " + e.getMessage());
+            return null;
         }
+    }
 
-        return null;
+    // Sin asignación en el caso normal (el par ya llega limpio: SOLUSDT)
+    private static String cleanSymbol(String pair) {
+        for (int i = 0; i < pair.length(); i++) {
+            char c = pair.charAt(i);
+            if (c == '-' || Character.isLowerCase(c)) return pair.replace("-", "").toUpperCase();
+        }
+        return pair;
     }
+
     public double fetchPrice(String exchange, String pair) {
         String cleanPair = pair.replace("-", "").toUpperCase();
         try {
@@ -413,6 +617,15 @@ public class ExchangeConnector {
     // =========================================================================
     // 🕯️ 3. VELAS Y HISTORIAL
     // =========================================================================
+    /**
+     * Ordena velas de la más antigua a la más nueva (Bybit y KuCoin responden al revés).
+     */
+    public static List<double[]> chronological(String exchange, List<double[]> candles) {
+        if (candles == null) return List.of();
+        String ex = exchange.toLowerCase();
+        return (ex.contains("bybit") || ex.equals("kucoin")) ? candles.reversed() : candles;
+    }
+
     public List<double[]> fetchCandles(String exchange, String pair, String interval, int limit) {
         List<double[]> candles = new ArrayList<>();
         String cleanPair = pair.replace("-", "").toUpperCase();
@@ -576,6 +789,67 @@ public class ExchangeConnector {
         }
         return new double[]{0.001, 0.001};
     }
+
+    // =========================================================================
+    // 📦 FEES EN LOTE (1 request por venue)
+    // =========================================================================
+
+    /**
+     * Descarga TODOS los fees maker/taker del venue en una sola llamada.
+     * Bybit y Binance devuelven el fee por símbolo; MEXC y KuCoin solo el tier de la cuenta,
+     * que se devuelve bajo la clave comodín {@link #ALL_SYMBOLS}.
+     * @return Mapa "BTCUSDT" -> {taker, maker}. Vacío si falla (nunca null).
+     */
+    public Map<String, double[]> fetchAllTradingFees(String exchange) {
+        Map<String, double[]> fees = new HashMap<>();
+        try {
+            if (exchange.toLowerCase().contains("bybit")) {
+                // Sin 'symbol' Bybit V5 lista todos los pares spot de la cuenta
+                Request request = buildSignedRequest("bybit_sub1", "GET", "/v5/account/fee-rate?category=spot", "");
+                if (request == null) return fees;
+                try (Response response = executeWithRetry(request)) {
+                    if (!response.isSuccessful()) return fees;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    if (root.path("retCode").asInt() != 0) return fees;
+                    for (JsonNode row : root.path("result").path("list")) {
+                        fees.put(row.path("symbol").asText(), new double[]{
+                                row.path("takerFeeRate").asDouble(0.001),
+                                row.path("makerFeeRate").asDouble(0.001)});
+                    }
+                }
+            } else if (exchange.equalsIgnoreCase("binance")) {
+                // Sin 'symbol' Binance devuelve el array completo
+                Request request = buildBinanceMexcRequest("binance", "/sapi/v1/asset/tradeFee");
+                try (Response response = executeWithRetry(request)) {
+                    if (!response.isSuccessful()) return fees;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    for (JsonNode row : root) {
+                        fees.put(row.path("symbol").asText(), new double[]{
+                                row.path("takerCommission").asDouble(0.001),
+                                row.path("makerCommission").asDouble(0.001)});
+                    }
+                }
+            } else if (exchange.equalsIgnoreCase("mexc")) {
+                fees.put(ALL_SYMBOLS, getMexcTradingFee(ALL_SYMBOLS));
+            } else if (exchange.equalsIgnoreCase("kucoin")) {
+                Request request = buildKucoinRequest("GET", "/api/v1/base-fee", "");
+                try (Response response = client.newCall(request).execute()) {
+                    if (!response.isSuccessful()) return fees;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    if (root.path("code").asText().equals("200000")) {
+                        JsonNode data = root.path("data");
+                        fees.put(ALL_SYMBOLS, new double[]{
+                                data.path("takerFeeRate").asDouble(0.001),
+                                data.path("makerFeeRate").asDouble(0.001)});
+                    }
+                }
+            }
+        } catch (Exception e) {
+            BotLogger.warn("⚠️ Error Fees en Lote (" + exchange + "): " + e.getMessage());
+        }
+        return fees;
+    }
+
     /**
      * Obtiene el Fee de Retiro Real desde la cuenta del usuario.
      */
@@ -597,6 +871,92 @@ public class ExchangeConnector {
         }
     }
 
+    // =========================================================================
+    // 🔗 CATÁLOGO DE REDES EN LOTE (Todas las monedas, 1 request por venue)
+    // =========================================================================
+
+    /**
+     * Descarga la configuración de TODAS las monedas y redes del venue:
+     * fee y mínimo de retiro, habilitación de retiro/depósito y confirmaciones.
+     * @return Mapa "USDT" -> redes. Vacío si falla (nunca null).
+     */
+    public Map<String, List<NetworkInfo>> fetchCoinNetworks(String exchange) {
+        Map<String, List<NetworkInfo>> catalogue = new HashMap<>();
+        try {
+            if (exchange.equalsIgnoreCase("binance") || exchange.equalsIgnoreCase("mexc")) {
+                // Ambos exponen capital/config/getall con el mismo esquema (networkList)
+                String endpoint = exchange.equalsIgnoreCase("binance")
+                        ? "/sapi/v1/capital/config/getall" : "/api/v3/capital/config/getall";
+                Request request = buildBinanceMexcRequest(exchange.toLowerCase(), endpoint);
+                try (Response response = executeWithRetry(request)) {
+                    if (!response.isSuccessful()) return catalogue;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    for (JsonNode asset : root) {
+                        String coin = asset.path("coin").asText();
+                        List<NetworkInfo> nets = new ArrayList<>();
+                        for (JsonNode net : asset.path("networkList")) {
+                            // MEXC trae el código corto en "netWork"; Binance en "network"
+                            String name = net.has("netWork") ? net.path("netWork").asText() : net.path("network").asText();
+                            nets.add(new NetworkInfo(coin, NetworkInfo.canonical(name),
+                                    net.path("withdrawFee").asDouble(-1.0),
+                                    net.path("withdrawMin").asDouble(0.0),
+                                    net.path("withdrawEnable").asBoolean(false),
+                                    net.path("depositEnable").asBoolean(false),
+                                    net.path("minConfirm").asInt(0)));
+                        }
+                        if (!nets.isEmpty()) catalogue.put(coin, List.copyOf(nets));
+                    }
+                }
+            } else if (exchange.toLowerCase().contains("bybit")) {
+                // Sin 'coin' Bybit V5 devuelve todas las monedas
+                Request request = buildSignedRequest("bybit_sub1", "GET", "/v5/asset/coin/query-info", "");
+                if (request == null) return catalogue;
+                try (Response response = executeWithRetry(request)) {
+                    if (!response.isSuccessful()) return catalogue;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    if (root.path("retCode").asInt() != 0) return catalogue;
+                    for (JsonNode row : root.path("result").path("rows")) {
+                        String coin = row.path("coin").asText();
+                        List<NetworkInfo> nets = new ArrayList<>();
+                        for (JsonNode chain : row.path("chains")) {
+                            String fee = chain.path("withdrawFee").asText("");
+                            nets.add(new NetworkInfo(coin, NetworkInfo.canonical(chain.path("chain").asText()),
+                                    fee.isEmpty() ? -1.0 : Double.parseDouble(fee),
+                                    chain.path("withdrawMin").asDouble(0.0),
+                                    "1".equals(chain.path("chainWithdraw").asText()) && !fee.isEmpty(),
+                                    "1".equals(chain.path("chainDeposit").asText()),
+                                    chain.path("confirmation").asInt(0)));
+                        }
+                        if (!nets.isEmpty()) catalogue.put(coin, List.copyOf(nets));
+                    }
+                }
+            } else if (exchange.equalsIgnoreCase("kucoin")) {
+                Request request = new Request.Builder().url(KUCOIN_URL + "/api/v3/currencies").get().build();
+                try (Response response = executeWithRetry(request)) {
+                    if (!response.isSuccessful()) return catalogue;
+                    JsonNode root = mapper.readTree(response.body().string());
+                    if (!root.path("code").asText().equals("200000")) return catalogue;
+                    for (JsonNode currency : root.path("data")) {
+                        String coin = currency.path("currency").asText();
+                        List<NetworkInfo> nets = new ArrayList<>();
+                        for (JsonNode chain : currency.path("chains")) {
+                            nets.add(new NetworkInfo(coin, NetworkInfo.canonical(chain.path("chainName").asText()),
+                                    chain.path("withdrawalMinFee").asDouble(-1.0),
+                                    chain.path("withdrawalMinSize").asDouble(0.0),
+                                    chain.path("isWithdrawEnabled").asBoolean(false),
+                                    chain.path("isDepositEnabled").asBoolean(false),
+                                    chain.path("confirms").asInt(0)));
+                        }
+                        if (!nets.isEmpty()) catalogue.put(coin, List.copyOf(nets));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            BotLogger.warn("⚠️ Error Catálogo de Redes (" + exchange + "): " + e.getMessage());
+        }
+        return catalogue;
+    }
+
     private double getBinanceWithdrawFee(String coin) throws Exception {
         String apiKey = getApiKey("binance");
         String secret = getApiSecret("binance");
@@ -928,6 +1288,60 @@ public class ExchangeConnector {
         }
         return marketPrices;
     }
+    /**
+     * 📋 Ticker 24h de TODOS los pares spot del venue en una sola llamada
+     * (último, mejor bid/ask, máximo/mínimo y volumen cotizado).
+     * @return símbolo normalizado ("BTCUSDT") -> ticker. Vacío si falla.
+     */
+    public Map<String, Ticker24h> fetchAllTickers24h(String exchange) {
+        Map<String, Ticker24h> tickers = new HashMap<>();
+        String ex = exchange.toLowerCase();
+        try {
+            String url;
+            if (ex.equals("binance") || ex.equals("mexc")) {
+                url = (ex.equals("binance") ? BINANCE_URL : MEXC_URL) + "/api/v3/ticker/24hr";
+            } else if (ex.contains("bybit")) {
+                url = BYBIT_URL + "/v5/market/tickers?category=spot";
+            } else if (ex.equals("kucoin")) {
+                url = KUCOIN_URL + "/api/v1/market/allTickers";
+            } else {
+                return tickers;
+            }
+
+            Request request = new Request.Builder().url(url).get().build();
+            try (Response response = executeWithRetry(request)) {
+                if (!response.isSuccessful() || response.body() == null) return tickers;
+                JsonNode root = mapper.readTree(response.body().string());
+
+                if (ex.equals("binance") || ex.equals("mexc")) {
+                    for (JsonNode n : root) {
+                        String symbol = n.path("symbol").asText();
+                        tickers.put(symbol, new Ticker24h(symbol,
+                                n.path("lastPrice").asDouble(), n.path("bidPrice").asDouble(), n.path("askPrice").asDouble(),
+                                n.path("highPrice").asDouble(), n.path("lowPrice").asDouble(), n.path("quoteVolume").asDouble()));
+                    }
+                } else if (ex.contains("bybit")) {
+                    for (JsonNode n : root.path("result").path("list")) {
+                        String symbol = n.path("symbol").asText();
+                        tickers.put(symbol, new Ticker24h(symbol,
+                                n.path("lastPrice").asDouble(), n.path("bid1Price").asDouble(), n.path("ask1Price").asDouble(),
+                                n.path("highPrice24h").asDouble(), n.path("lowPrice24h").asDouble(), n.path("turnover24h").asDouble()));
+                    }
+                } else {
+                    for (JsonNode n : root.path("data").path("ticker")) {
+                        String symbol = n.path("symbol").asText().replace("-", "");
+                        tickers.put(symbol, new Ticker24h(symbol,
+                                n.path("last").asDouble(), n.path("buy").asDouble(), n.path("sell").asDouble(),
+                                n.path("high").asDouble(), n.path("low").asDouble(), n.path("volValue").asDouble()));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            BotLogger.error("⚠️ Error Batch Tickers 24h (" + exchange + "): " + e.getMessage());
+        }
+        return tickers;
+    }
+
     // =========================================================================
     // 🎯 2.6 PRECISIÓN QUIRÚRGICA (BID/ASK INSTANTÁNEO)
     // =========================================================================
@@ -1011,13 +1425,34 @@ public class ExchangeConnector {
      * Ej: Para BTCUSDT en Binance es 0.00001.
      * Si intentas comprar 0.000015, te rechazará. Debes enviar 0.00001 o 0.00002.
      */
-    // Caché en memoria
-    private final Map<String, Double> stepSizeCache = new ConcurrentHashMap<>();
     public double getStepSize(String exchange, String pair) {
+        return getInstrumentRules(exchange, pair).qtyStep().toDouble();
+    }
+
+    /** Cantidad alineada al step del instrumento (floor), en la escala exacta del exchange. */
+    public FixedDecimal normalizeQuantity(String exchange, String pair, double rawQty) {
+        return getInstrumentRules(exchange, pair).quantity(rawQty);
+    }
+
+    // Caché en memoria (step de cantidad + tick de precio por exchange_par)
+    private final Map<String, InstrumentRules> instrumentRulesCache = new ConcurrentHashMap<>();
+
+    /**
+     * Reglas de precisión (step de cantidad y tick de precio) parseadas del texto del exchange,
+     * sin pasar por double. Si la consulta falla se usa el default seguro (sin cachear, se reintenta).
+     */
+    public InstrumentRules getInstrumentRules(String exchange, String pair) {
         String key = exchange + "_" + pair;
-        if (stepSizeCache.containsKey(key)) return stepSizeCache.get(key);
+        InstrumentRules cached = instrumentRulesCache.get(key);
+        if (cached != null) {
+            RULES_HIT.inc();
+            return cached;
+        }
+        RULES_MISS.inc();
+        CacheMissEvent.emit("instrument_rules", key);
 
-        double stepSize = 0.01; // Valor seguro por defecto
+        FixedDecimal stepSize = InstrumentRules.DEFAULT.qtyStep();
+        FixedDecimal tickSize = InstrumentRules.DEFAULT.tickSize();
 
         try {
             String cleanPair = pair.replace("-", "").toUpperCase();
@@ -1045,9 +1480,11 @@ public class ExchangeConnector {
                         JsonNode symbols = root.get("symbols");
                         if (symbols != null && !symbols.isEmpty()) {
                             for (JsonNode f : symbols.get(0).get("filters")) {
-                                if (f.get("filterType").asText().equals("LOT_SIZE")) {
-                                    stepSize = Double.parseDouble(f.get("stepSize").asText());
-                                    break;
+                                String filterType = f.get("filterType").asText();
+                                if (filterType.equals("LOT_SIZE") && f.has("stepSize")) {
+                                    stepSize = decimal(f.get("stepSize"));
+                                } else if (filterType.equals("PRICE_FILTER") && f.has("tickSize")) {
+                                    tickSize = decimal(f.get("tickSize"));
                                 }
                             }
                         }
@@ -1063,13 +1500,16 @@ public class ExchangeConnector {
                                     JsonNode filter = item.get("lotSizeFilter");
                                     // Prioirdad 1: Spot usa 'basePrecision'
                                     if (filter.has("basePrecision")) {
-                                        stepSize = Double.parseDouble(filter.get("basePrecision").asText());
+                                        stepSize = decimal(filter.get("basePrecision"));
                                     }
                                     // Prioridad 2: Futuros usa 'qtyStep' (por si acaso)
                                     else if (filter.has("qtyStep")) {
-                                        stepSize = Double.parseDouble(filter.get("qtyStep").asText());
+                                        stepSize = decimal(filter.get("qtyStep"));
                                     }
                                 }
+                                if (item.has("priceFilter") && item.get("priceFilter").has("tickSize")) {
+                                    tickSize = decimal(item.get("priceFilter").get("tickSize"));
+                                }
                             }
                         }
                     }
@@ -1079,22 +1519,31 @@ public class ExchangeConnector {
                         if (data != null) {
                             JsonNode item = data.isArray() ? data.get(0) : data;
                             if (item.has("baseIncrement")) {
-                                stepSize = Double.parseDouble(item.get("baseIncrement").asText());
+                                stepSize = decimal(item.get("baseIncrement"));
+                            }
+                            if (item.has("priceIncrement")) {
+                                tickSize = decimal(item.get("priceIncrement"));
                             }
                         }
                     }
 
-                    BotLogger.info("📏 StepSize para " + pair
-                            + " en " + exchange + ": " + String.format("%.8f", stepSize));
-                    stepSizeCache.put(key, stepSize);
-                    return stepSize;
+                    InstrumentRules rules = new InstrumentRules(stepSize, tickSize);
+                    BotLogger.info("📏 Precisión para " + pair + " en " + exchange
+                            + ": step=" + stepSize + " tick=" + tickSize);
+                    instrumentRulesCache.put(key, rules);
+                    return rules;
                 }
             }
         } catch (Exception e) {
             BotLogger.warn("⚠️ Error fetch stepSize "
                     + key + ": " + e.getMessage() + ". Usando Default 0.01");
         }
-        return 0.01;
+        return InstrumentRules.DEFAULT;
+    }
+
+    /** "0.00010000" -> 0.0001 (escala 4): los ceros de relleno del exchange no agregan decimales a la orden. */
+    private static FixedDecimal decimal(JsonNode node) {
+        return FixedDecimal.parse(node.asText()).stripTrailingZeros();
     }
 
 // =========================================================================
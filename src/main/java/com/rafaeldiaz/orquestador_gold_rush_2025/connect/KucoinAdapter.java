@@ -118,6 +118,7 @@ public class KucoinAdapter implements ExchangeAdapter {
 
         if (typeLower.equals("limit")) {
             json.append("\"price\":\"").append(price).append("\",");
+            json.append("\"timeInForce\":\"FOK\","); // Por defecto sería GTC: nada queda vivo en el libro
             json.append("\"size\":\"").append(qty).append("\""); // KuCoin usa 'size' para cantidad base
         } else {
             // Market order: size (amount base) or funds (amount quote)
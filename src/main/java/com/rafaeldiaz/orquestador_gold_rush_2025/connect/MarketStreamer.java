@@ -2,6 +2,7 @@ package com.rafaeldiaz.orquestador_gold_rush_2025.connect;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * CONTRATO BASE (Abstract): Define el estándar para cualquier Streamer.
@@ -10,6 +11,7 @@ import java.util.List;
 public abstract class MarketStreamer {
 
     protected final List<PriceListener> listeners = new ArrayList<>();
+    protected final List<MarketDataListener> dataListeners = new CopyOnWriteArrayList<>();
 
     // --- MÉTODOS ABSTRACTOS (El hijo DEBE implementarlos) ---
     public abstract void subscribe(String pair);
@@ -29,7 +31,37 @@ public abstract class MarketStreamer {
         }
     }
 
+    public void addDataListener(MarketDataListener listener) {
+        this.dataListeners.add(listener);
+    }
+
+    protected void notifyKline(String exchange, String pair, String interval,
+                               double high, double low, double close, long startTime, boolean confirmed) {
+        for (MarketDataListener l : dataListeners) l.onKline(exchange, pair, interval, high, low, close, startTime, confirmed);
+    }
+
+    protected void notifyQuote(String exchange, String pair, double bid, double ask, long timestamp) {
+        for (MarketDataListener l : dataListeners) l.onQuote(exchange, pair, bid, ask, timestamp);
+    }
+
+    protected void notifyTicker24h(String exchange, String pair, double lastPrice, double turnoverUsd, long timestamp) {
+        for (MarketDataListener l : dataListeners) l.onTicker24h(exchange, pair, lastPrice, turnoverUsd, timestamp);
+    }
+
     public interface PriceListener {
         void onPriceUpdate(String exchange, String pair, double price, long timestamp);
     }
+
+    /**
+     * 📊 Oyente de datos de mercado enriquecidos (velas, mejor bid/ask, ticker 24h).
+     * Todos los métodos son opcionales: cada consumidor implementa solo lo que usa.
+     */
+    public interface MarketDataListener {
+        default void onKline(String exchange, String pair, String interval,
+                             double high, double low, double close, long startTime, boolean confirmed) {}
+
+        default void onQuote(String exchange, String pair, double bid, double ask, long timestamp) {}
+
+        default void onTicker24h(String exchange, String pair, double lastPrice, double turnoverUsd, long timestamp) {}
+    }
 }
\ No newline at end of file
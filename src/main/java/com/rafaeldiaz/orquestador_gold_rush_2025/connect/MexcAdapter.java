@@ -77,12 +77,13 @@ public class MexcAdapter implements ExchangeAdapter {
         StringBuilder query = new StringBuilder();
         query.append("symbol=").append(pair);
         query.append("&side=").append(sideUpper);
-        query.append("&type=").append(typeUpper);
+        boolean limit = typeUpper.equals("LIMIT");
+        // MEXC no tiene timeInForce: la LIMIT con tope de taker se envía como tipo FILL_OR_KILL
+        query.append("&type=").append(limit ? "FILL_OR_KILL" : typeUpper);
         query.append("&quantity=").append(qty); // Ojo: MEXC usa 'quantity', Bybit usa 'qty'
 
-        if (typeUpper.equals("LIMIT")) {
+        if (limit) {
             query.append("&price=").append(price);
-            query.append("&timeInForce=GTC"); // Good Till Cancel por defecto
         }
 
         // Timestamp es obligatorio para la firma
@@ -0,0 +1,269 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.connect;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 📝 PLANTILLA DE ORDEN PRE-SERIALIZADA
+ * La request de (cuenta, símbolo, lado, tipo) se serializa UNA vez al activar el objetivo.
+ * En el camino crítico solo se parchean in-place los slots de ancho fijo (qty, precio, timestamp, firma)
+ * con {@link FixedDecimal} ya redondeado al step / tick del instrumento (sin String.format ni Locale)
+ * y se firma con un Mac ya inicializado.
+ * - Bybit V5: cuerpo JSON con la escala exacta del instrumento; el relleno son espacios fuera de las comillas.
+ * - Binance / MEXC: query string; 8 decimales fijos y la parte entera con ceros a la izquierda
+ *   (válido en su regex de cantidades ^([0-9]{1,20})(\.[0-9]{1,20})?$).
+ * Thread-safe: el buffer y el Mac se protegen con el monitor de la plantilla.
+ */
+public final class OrderTemplate {
+
+    public enum Dialect { BYBIT_JSON, QUERY_STRING }
+
+    static final int SCALE = 8;                    // Decimales del slot de ancho fijo (query string)
+    private static final long SCALE_FACTOR = 100_000_000L;
+    private static final int INTEGER_DIGITS = 12;
+    static final int DECIMAL_WIDTH = INTEGER_DIGITS + 1 + SCALE;
+    private static final int JSON_DECIMAL_WIDTH = 20; // 19 dígitos de un long + el punto
+    private static final int TIMESTAMP_WIDTH = 13;  // Epoch ms (válido hasta el año 2286)
+    private static final int SIGNATURE_WIDTH = 64;  // HMAC-SHA256 en hex
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final String RECV_WINDOW = "5000";
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final MediaType FORM = MediaType.get("application/x-www-form-urlencoded");
+    private static final RequestBody EMPTY_FORM = RequestBody.create(new byte[0], FORM);
+
+    private final Dialect dialect;
+    private final String endpoint;
+    private final String apiKeyHeader;
+    private final String apiKey;
+    private final Mac mac;
+    private final byte[] buffer;
+    private final int qtyAt;
+    private final int priceAt;       // -1 si la orden es MARKET
+    private final int timestampAt;
+    private final int signatureAt;
+    private final int signedLength;  // Bytes firmados del buffer (query) o todo el cuerpo (JSON)
+
+    // Bybit: la firma es timestamp + apiKey + recvWindow + body, y viaja en headers
+    private final byte[] bybitSignInfix;
+    private final byte[] headerScratch = new byte[Math.max(TIMESTAMP_WIDTH, SIGNATURE_WIDTH)];
+    private final byte[] macOut = new byte[32];
+
+    private OrderTemplate(Dialect dialect, String endpoint, String apiKeyHeader, String apiKey, Mac mac,
+                          byte[] buffer, int qtyAt, int priceAt, int timestampAt, int signatureAt, int signedLength) {
+        this.dialect = dialect;
+        this.endpoint = endpoint;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKey = apiKey;
+        this.mac = mac;
+        this.buffer = buffer;
+        this.qtyAt = qtyAt;
+        this.priceAt = priceAt;
+        this.timestampAt = timestampAt;
+        this.signatureAt = signatureAt;
+        this.signedLength = signedLength;
+        this.bybitSignInfix = (apiKey + RECV_WINDOW).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // =========================================================================
+    // 🏗️ CONSTRUCCIÓN (fuera del camino crítico)
+    // =========================================================================
+
+    /**
+     * Bybit V5 spot: {"category":"spot","symbol":..,"side":"Buy","orderType":"Limit","qty":"..","price":"..","timeInForce":"FOK"}
+     * @param mac HMAC-SHA256 ya inicializado con el secreto de la cuenta (propiedad exclusiva de la plantilla)
+     */
+    public static OrderTemplate bybit(String endpoint, String apiKey, Mac mac, String symbol, boolean buy, boolean limit) {
+        Layout l = new Layout();
+        l.text("{\"category\":\"spot\",\"symbol\":\"").text(symbol)
+                .text("\",\"side\":\"").text(buy ? "Buy" : "Sell")
+                .text("\",\"orderType\":\"").text(limit ? "Limit" : "Market")
+                .text("\",\"qty\":\"");
+        int qtyAt = l.slot(JSON_DECIMAL_WIDTH + 1); // Dígitos + comilla de cierre + relleno
+        int priceAt = -1;
+        if (limit) {
+            l.text(",\"price\":\"");
+            priceAt = l.slot(JSON_DECIMAL_WIDTH + 1);
+            l.text(",\"timeInForce\":\"FOK\"");
+        }
+        l.text("}");
+        byte[] buffer = l.bytes();
+        return new OrderTemplate(Dialect.BYBIT_JSON, endpoint, "X-BAPI-API-KEY", apiKey, mac,
+                buffer, qtyAt, priceAt, -1, -1, buffer.length);
+    }
+
+    /**
+     * Binance spot: symbol=..&side=BUY&type=LIMIT&quantity=..&price=..&timeInForce=FOK&timestamp=..&recvWindow=5000&signature=..
+     * Las LIMIT son FOK como en Bybit: tope de precio de taker, nunca quedan órdenes vivas en el libro.
+     */
+    public static OrderTemplate queryString(String endpoint, String apiKeyHeader, String apiKey, Mac mac,
+                                            String symbol, boolean buy, boolean limit) {
+        return queryString(endpoint, apiKeyHeader, apiKey, mac, symbol, buy, limit, "LIMIT", "&timeInForce=FOK");
+    }
+
+    /** MEXC spot: mismo query string, pero la FOK es un tipo propio (type=FILL_OR_KILL, sin timeInForce). */
+    public static OrderTemplate mexc(String endpoint, String apiKey, Mac mac, String symbol, boolean buy, boolean limit) {
+        return queryString(endpoint, "X-MEXC-APIKEY", apiKey, mac, symbol, buy, limit, "FILL_OR_KILL", "");
+    }
+
+    private static OrderTemplate queryString(String endpoint, String apiKeyHeader, String apiKey, Mac mac,
+                                             String symbol, boolean buy, boolean limit,
+                                             String limitType, String limitSuffix) {
+        Layout l = new Layout();
+        l.text("symbol=").text(symbol)
+                .text("&side=").text(buy ? "BUY" : "SELL")
+                .text("&type=").text(limit ? limitType : "MARKET")
+                .text("&quantity=");
+        int qtyAt = l.slot(DECIMAL_WIDTH);
+        int priceAt = -1;
+        if (limit) {
+            l.text("&price=");
+            priceAt = l.slot(DECIMAL_WIDTH);
+            l.text(limitSuffix);
+        }
+        l.text("&timestamp=");
+        int timestampAt = l.slot(TIMESTAMP_WIDTH);
+        l.text("&recvWindow=" + RECV_WINDOW);
+        int signedLength = l.length();
+        l.text("&signature=");
+        int signatureAt = l.slot(SIGNATURE_WIDTH);
+        return new OrderTemplate(Dialect.QUERY_STRING, endpoint, apiKeyHeader, apiKey, mac,
+                l.bytes(), qtyAt, priceAt, timestampAt, signatureAt, signedLength);
+    }
+
+    // =========================================================================
+    // ⚡ CAMINO CRÍTICO
+    // =========================================================================
+
+    /**
+     * Parchea qty / precio / timestamp, firma y arma la request. Solo copia el buffer final.
+     * Los valores llegan ya alineados al step / tick: aquí no se redondea nada.
+     */
+    public synchronized Request render(FixedDecimal qty, FixedDecimal price, long timestampMs) {
+        if (dialect == Dialect.BYBIT_JSON) {
+            writeJsonDecimal(buffer, qtyAt, checked(qty));
+            if (priceAt >= 0) writeJsonDecimal(buffer, priceAt, checked(price));
+
+            writeDigits(headerScratch, 0, TIMESTAMP_WIDTH, timestampMs);
+            String timestamp = new String(headerScratch, 0, TIMESTAMP_WIDTH, StandardCharsets.US_ASCII);
+            mac.update(headerScratch, 0, TIMESTAMP_WIDTH);
+            mac.update(bybitSignInfix);
+            mac.update(buffer, 0, signedLength);
+            sign(headerScratch, 0);
+            String signature = new String(headerScratch, 0, SIGNATURE_WIDTH, StandardCharsets.US_ASCII);
+
+            return new Request.Builder()
+                    .url(endpoint)
+                    .header(apiKeyHeader, apiKey)
+                    .header("X-BAPI-SIGN", signature)
+                    .header("X-BAPI-TIMESTAMP", timestamp)
+                    .header("X-BAPI-RECV-WINDOW", RECV_WINDOW)
+                    .header("X-BAPI-SIGN-TYPE", "2")
+                    .header("Content-Type", "application/json")
+                    .post(RequestBody.create(Arrays.copyOf(buffer, buffer.length), JSON))
+                    .build();
+        }
+
+        writeFixedDecimal(buffer, qtyAt, toScaled(qty));
+        if (priceAt >= 0) writeFixedDecimal(buffer, priceAt, toScaled(price));
+        writeDigits(buffer, timestampAt, TIMESTAMP_WIDTH, timestampMs);
+        mac.update(buffer, 0, signedLength);
+        sign(buffer, signatureAt);
+
+        return new Request.Builder()
+                .url(endpoint + "?" + new String(buffer, StandardCharsets.US_ASCII))
+                .header(apiKeyHeader, apiKey)
+                .post(EMPTY_FORM)
+                .build();
+    }
+
+    public Dialect dialect() {
+        return dialect;
+    }
+
+    /** Vista del buffer tal como quedó tras el último render (diagnóstico y tests). */
+    synchronized String payload() {
+        return new String(buffer, StandardCharsets.US_ASCII);
+    }
+
+    private void sign(byte[] dst, int at) {
+        try {
+            mac.doFinal(macOut, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < macOut.length; i++) {
+            dst[at + 2 * i] = HEX[(macOut[i] >> 4) & 0x0F];
+            dst[at + 2 * i + 1] = HEX[macOut[i] & 0x0F];
+        }
+    }
+
+    // =========================================================================
+    // 🔢 FORMATEO DE PUNTO FIJO (sin asignaciones)
+    // =========================================================================
+
+    private static FixedDecimal checked(FixedDecimal value) {
+        if (value == null || value.signum() < 0) throw new IllegalArgumentException("Valor fuera de rango: " + value);
+        return value;
+    }
+
+    /**
+     * Unidades a 8 decimales para el slot de ancho fijo. Exacto: un instrumento con más de 8 decimales
+     * lanza ArithmeticException en vez de truncar en silencio.
+     */
+    static long toScaled(FixedDecimal value) {
+        long scaled = checked(value).withScale(SCALE).unscaled();
+        if (scaled >= 1_000_000_000_000L * SCALE_FACTOR) throw new IllegalArgumentException("Valor fuera de rango: " + value);
+        return scaled;
+    }
+
+    /** Ancho fijo con ceros a la izquierda: 000000000012.50000000 */
+    static void writeFixedDecimal(byte[] dst, int at, long scaled) {
+        long frac = scaled % SCALE_FACTOR;
+        long whole = scaled / SCALE_FACTOR;
+        writeDigits(dst, at + INTEGER_DIGITS + 1, SCALE, frac);
+        dst[at + INTEGER_DIGITS] = '.';
+        writeDigits(dst, at, INTEGER_DIGITS, whole);
+    }
+
+    /** Alineado a la izquierda dentro de un string JSON con la escala del instrumento: 12.5" + espacios. */
+    static void writeJsonDecimal(byte[] dst, int at, FixedDecimal value) {
+        int pos = value.writeTo(dst, at);
+        dst[pos++] = '"';
+        Arrays.fill(dst, pos, at + JSON_DECIMAL_WIDTH + 1, (byte) ' ');
+    }
+
+    static void writeDigits(byte[] dst, int at, int width, long value) {
+        FixedDecimal.writeDigits(dst, at, width, value);
+    }
+
+    /** Acumula los tramos fijos y reserva slots (rellenos con espacios) en el orden de la request. */
+    private static final class Layout {
+        private final StringBuilder sb = new StringBuilder(256);
+
+        Layout text(String s) {
+            sb.append(s);
+            return this;
+        }
+
+        int slot(int width) {
+            int at = sb.length();
+            sb.repeat(' ', width);
+            return at;
+        }
+
+        int length() {
+            return sb.length();
+        }
+
+        byte[] bytes() {
+            return sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.ExecutionCoordinator;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 📸 SERVICIO DE SNAPSHOTS DE CUENTAS (FUENTE ÚNICA DE SALDOS)
+ * Refresca TODAS las cuentas en paralelo (hilos virtuales, timeout duro) en un solo calendario
+ * y publica snapshots inmutables versionados por época. Scanner, CFO, reportero y scheduler
+ * leen de aquí en lugar de pedir saldos a la API cada uno por su cuenta.
+ */
+public class AccountSnapshotService {
+
+    /**
+     * Foto inmutable de los saldos de todas las cuentas.
+     * @param epoch         época lógica del refresco que la produjo
+     * @param takenAtMs     reloj de pared (solo informativo / TTL)
+     * @param balances      cuenta -> activo -> cantidad libre
+     * @param accountEpochs cuenta -> época de su última lectura exitosa (si falló, conserva la anterior)
+     */
+    public record AccountSnapshot(long epoch, long takenAtMs,
+                                  Map<String, Map<String, Double>> balances,
+                                  Map<String, Long> accountEpochs) {
+
+        public Map<String, Double> balances(String account) {
+            return balances.getOrDefault(account, Map.of());
+        }
+
+        public double balance(String account, String asset) {
+            return balances(account).getOrDefault(asset, 0.0);
+        }
+
+        public boolean has(String account) {
+            return balances.containsKey(account);
+        }
+
+        /** Época en que se leyó la cuenta (0 = nunca leída). Se compara con ExecutionCoordinator.isSnapshotStale. */
+        public long epochOf(String account) {
+            return accountEpochs.getOrDefault(account, 0L);
+        }
+    }
+
+    private static final AccountSnapshot EMPTY = new AccountSnapshot(0, 0, Map.of(), Map.of());
+
+    // Una instancia por conector: todos los subsistemas que comparten conector comparten saldos
+    private static final Map<ExchangeConnector, AccountSnapshotService> SHARED = new ConcurrentHashMap<>();
+
+    public static AccountSnapshotService shared(ExchangeConnector connector) {
+        return SHARED.computeIfAbsent(connector, AccountSnapshotService::new);
+    }
+
+    private final ExchangeConnector connector;
+    private final List<String> accounts;
+    private volatile AccountSnapshot current = EMPTY;
+    private volatile boolean refreshRequested = false;
+    private volatile long lastRefreshNanos = 0;
+
+    private final ReentrantLock refreshLock = new ReentrantLock(); // Single-flight: un refresco a la vez
+    private final AtomicLong apiCalls = new AtomicLong();
+    private final ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Consumer<AccountSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public AccountSnapshotService(ExchangeConnector connector) {
+        this(connector, allAccounts());
+    }
+
+    public AccountSnapshotService(ExchangeConnector connector, Collection<String> accounts) {
+        this.connector = connector;
+        this.accounts = List.copyOf(new LinkedHashSet<>(accounts));
+    }
+
+    // Unión de todas las listas de cuentas (sin duplicados, orden estable)
+    private static Set<String> allAccounts() {
+        Set<String> all = new LinkedHashSet<>();
+        if (BotConfig.ACTIVE_EXCHANGES != null) all.addAll(BotConfig.ACTIVE_EXCHANGES);
+        if (BotConfig.SPATIAL_ACCOUNTS != null) all.addAll(BotConfig.SPATIAL_ACCOUNTS);
+        if (BotConfig.TRIANGULAR_ACCOUNTS != null) all.addAll(BotConfig.TRIANGULAR_ACCOUNTS);
+        return all;
+    }
+
+    // =========================================================================
+    // ⏰ CALENDARIO ÚNICO
+    // =========================================================================
+
+    /** Arranca el refresco periódico en segundo plano (idempotente). */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "account-snapshots");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::refreshQuietly, 0,
+                BotConfig.ACCOUNT_REFRESH_MS, TimeUnit.MILLISECONDS);
+        BotLogger.info("📸 Snapshots de cuentas: " + accounts + " cada " + BotConfig.ACCOUNT_REFRESH_MS + "ms");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    /**
+     * Pide un refresco anticipado (ej: después de un trade).
+     * Con el calendario activo se ejecuta en segundo plano; si no, en la próxima lectura.
+     */
+    public void requestRefresh() {
+        refreshRequested = true;
+        ScheduledExecutorService s = scheduler;
+        if (s != null) {
+            try {
+                s.execute(this::refreshQuietly);
+            } catch (RejectedExecutionException ignored) { /* Apagando */ }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            BotLogger.warn("⚠️ Refresco de snapshots fallido: " + e.getMessage());
+        }
+    }
+
+    // =========================================================================
+    // 📖 LECTURA
+    // =========================================================================
+
+    /**
+     * Snapshot vigente. Solo bloquea si nunca se cargó, si venció el intervalo
+     * o si alguien pidió refresco (post-trade).
+     */
+    public AccountSnapshot current() {
+        AccountSnapshot snap = current;
+        long ageMs = (System.nanoTime() - lastRefreshNanos) / 1_000_000;
+        if (snap == EMPTY || refreshRequested || ageMs > BotConfig.ACCOUNT_REFRESH_MS) {
+            return refresh();
+        }
+        return snap;
+    }
+
+    /** Última foto publicada, sin disparar I/O (puede estar vacía o vencida). */
+    public AccountSnapshot peek() {
+        return current;
+    }
+
+    public double balance(String account, String asset) {
+        return current().balance(account, asset);
+    }
+
+    public Map<String, Double> balances(String account) {
+        return current().balances(account);
+    }
+
+    public List<String> accounts() {
+        return accounts;
+    }
+
+    /** Aviso de cada foto publicada (en el hilo que refrescó: el oyente debe ser liviano). */
+    public void addListener(Consumer<AccountSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /** Llamadas de saldo emitidas contra la API (métrica de ahorro). */
+    public long apiCalls() {
+        return apiCalls.get();
+    }
+
+    // =========================================================================
+    // 🔄 REFRESCO PARALELO
+    // =========================================================================
+
+    /**
+     * Lee todas las cuentas en paralelo y publica un snapshot nuevo.
+     * Si otro hilo refrescó mientras esperábamos el lock, devuelve ese resultado sin repetir I/O.
+     */
+    public AccountSnapshot refresh() {
+        AccountSnapshot previous = current;
+        AccountSnapshot published = fetchAndPublish();
+        if (published != previous) {
+            for (Consumer<AccountSnapshot> listener : listeners) {
+                try {
+                    listener.accept(published);
+                } catch (RuntimeException e) {
+                    BotLogger.warn("⚠️ Oyente de snapshots falló: " + e.getMessage());
+                }
+            }
+        }
+        return published;
+    }
+
+    private AccountSnapshot fetchAndPublish() {
+        long requestedAt = System.nanoTime();
+        refreshLock.lock();
+        try {
+            if (lastRefreshNanos - requestedAt > 0 && current != EMPTY && !refreshRequested) return current;
+
+            refreshRequested = false;
+            // Época tomada ANTES de leer: un trade marcado durante la lectura queda como obsoleto
+            long epoch = ExecutionCoordinator.nextEpoch();
+
+            Map<String, Future<Map<String, Double>>> pending = new LinkedHashMap<>();
+            for (String account : accounts) {
+                apiCalls.incrementAndGet();
+                pending.put(account, fetchers.submit(() -> connector.fetchBalances(account)));
+            }
+
+            AccountSnapshot previous = current;
+            Map<String, Map<String, Double>> balances = new HashMap<>(previous.balances());
+            Map<String, Long> epochs = new HashMap<>(previous.accountEpochs());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BotConfig.ACCOUNT_REFRESH_TIMEOUT_MS);
+
+            for (Map.Entry<String, Future<Map<String, Double>>> e : pending.entrySet()) {
+                try {
+                    long left = Math.max(0, deadline - System.nanoTime());
+                    Map<String, Double> fresh = e.getValue().get(left, TimeUnit.NANOSECONDS);
+                    // Vacío = error silencioso del conector: conservamos la lectura anterior
+                    if (fresh != null && !fresh.isEmpty()) {
+                        balances.put(e.getKey(), Map.copyOf(fresh));
+                        epochs.put(e.getKey(), epoch);
+                    }
+                } catch (TimeoutException ex) {
+                    e.getValue().cancel(true);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ex) {
+                    // Silencioso: el snapshot conserva el saldo viejo de esa cuenta
+                }
+            }
+
+            current = new AccountSnapshot(epoch, System.currentTimeMillis(), Map.copyOf(balances), Map.copyOf(epochs));
+            lastRefreshNanos = System.nanoTime();
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * ⚖️ TABLA DE BREAK-EVEN PRECALCULADA
+ * Spread bruto mínimo que paga fees taker, retiro (red más barata de la ruta) y el profit exigido por el CFO,
+ * por ruta espacial (compra, venta, activo) y por triángulo (venue, activo, puente).
+ * El detector rechaza un candidato con UNA comparación; la tabla solo se recalcula
+ * cuando cambian fees, directivas o el precio se mueve más de BREAK_EVEN_PRICE_DRIFT.
+ * Escritura: solo el hilo del ciclo de escaneo. Lectura: tareas lanzadas después del refresh.
+ */
+public class BreakEvenTable {
+
+    // Recarga de fees (FeeManager cachea 10 min; aquí re-muestreamos cada minuto)
+    private static final long FEE_RELOAD_MS = 60_000;
+
+    private final FeeManager feeManager;
+    private final List<String> exchanges;
+    private final List<String> bridges;
+    private final double[] capitals;
+
+    private List<String> assets = List.of();
+    private int n = 0;
+    private long lastFeeLoad = 0;
+
+    // --- INSUMOS (exchange-major: e * n + a) ---
+    private double[] takerFees = new double[0];
+    // --- RUTAS ESPACIALES ((a * m + buy) * m + sell) ---
+    private double[] routeWithdrawFees = new double[0]; // Red más barata origen->destino, en unidades del activo
+    private long[] routeSeconds = new long[0];          // Tiempo estimado de abono de esa red (-1 = desconocido)
+    private double[] referencePrices = new double[0];
+    private PortfolioHealthManager.HealthDirective[] directives = new PortfolioHealthManager.HealthDirective[0];
+
+    // --- UMBRALES (ya incluyen MIN_SCAN_SPREAD) ---
+    private double[] spatialThresholds = new double[0];    // (a * m + buy) * m + sell -> spread bruto
+    private double[] triangularThresholds = new double[0]; // (e * n + a) * k + bridge -> crossRate
+
+    public BreakEvenTable(FeeManager feeManager, List<String> exchanges, List<String> bridges, List<Double> testCapitals) {
+        this.feeManager = feeManager;
+        this.exchanges = List.copyOf(exchanges);
+        this.bridges = List.copyOf(bridges);
+        this.capitals = testCapitals.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // =========================================================================
+    // 📐 LAYOUT
+    // =========================================================================
+
+    public boolean sameUniverse(List<String> candidateAssets) {
+        return assets.equals(candidateAssets);
+    }
+
+    public void resize(List<String> newAssets) {
+        this.assets = List.copyOf(newAssets);
+        this.n = assets.size();
+        int m = exchanges.size();
+
+        this.takerFees = new double[m * n];
+        this.routeWithdrawFees = new double[n * m * m];
+        this.routeSeconds = new long[n * m * m];
+        this.referencePrices = new double[n];
+        this.directives = new PortfolioHealthManager.HealthDirective[n];
+        this.spatialThresholds = new double[n * m * m];
+        this.triangularThresholds = new double[m * n * bridges.size()];
+        this.lastFeeLoad = 0; // Fuerza recarga completa en el próximo refresh
+    }
+
+    // =========================================================================
+    // 🔄 REFRESCO INCREMENTAL
+    // =========================================================================
+
+    /**
+     * Recalcula solo lo que cambió: todo si los fees vencieron, o las filas
+     * de los activos cuya directiva cambió o cuyo precio se movió materialmente.
+     * @param cfo CFO (puede ser null: se exige NORMAL_MIN_PROFIT)
+     * @param marketData Snapshot de tickers del ciclo (exchange -> símbolo -> precio)
+     * @param priceOf Precio de referencia por índice de activo (NaN/0 si no hay)
+     * @return true si se recargaron los fees (el llamador puede re-sincronizar sus copias)
+     */
+    public boolean refresh(PortfolioHealthManager cfo, Map<String, Map<String, Double>> marketData,
+                           IntToDoubleFunction priceOf) {
+        boolean feesReloaded = System.currentTimeMillis() - lastFeeLoad > FEE_RELOAD_MS;
+        if (feesReloaded) loadFees(marketData);
+
+        for (int a = 0; a < n; a++) {
+            double price = priceOf.applyAsDouble(a);
+            PortfolioHealthManager.HealthDirective directive = (cfo != null) ? cfo.peekAssetHealth(assets.get(a)) : null;
+
+            boolean directiveChanged = !Objects.equals(directive, directives[a]);
+            boolean priceMoved = price > 0 && (referencePrices[a] <= 0
+                    || Math.abs(price / referencePrices[a] - 1.0) > BotConfig.BREAK_EVEN_PRICE_DRIFT);
+
+            if (feesReloaded || directiveChanged || priceMoved) {
+                if (price > 0) referencePrices[a] = price;
+                directives[a] = directive;
+                recomputeSpatialRow(a, cfo != null);
+            }
+        }
+        if (feesReloaded) {
+            BotLogger.info("⚖️ Break-Even: Tabla recalculada (" + n + " activos x " + exchanges.size() + " venues)");
+        }
+        return feesReloaded;
+    }
+
+    private void loadFees(Map<String, Map<String, Double>> marketData) {
+        int m = exchanges.size();
+        for (int e = 0; e < m; e++) {
+            String ex = exchanges.get(e);
+            for (int a = 0; a < n; a++) {
+                String asset = assets.get(a);
+                takerFees[e * n + a] = feeManager.getTradingFee(ex, asset + "USDT", "TAKER");
+            }
+        }
+        loadRoutes();
+        recomputeTriangular(marketData);
+        lastFeeLoad = System.currentTimeMillis();
+    }
+
+    /** Red más barata por ruta (el activo sale del venue de compra hacia el de venta). */
+    private void loadRoutes() {
+        int m = exchanges.size();
+        WithdrawalCatalogue catalogue = feeManager.getCatalogue();
+        for (int a = 0; a < n; a++) {
+            String asset = assets.get(a);
+            for (int buy = 0; buy < m; buy++) {
+                for (int sell = 0; sell < m; sell++) {
+                    if (buy == sell) continue;
+                    int cell = (a * m + buy) * m + sell;
+                    String from = exchanges.get(buy);
+                    String to = exchanges.get(sell);
+                    WithdrawalCatalogue.RouteQuote quote = catalogue.cheapest(from, to, asset);
+                    routeWithdrawFees[cell] = (quote != null) ? quote.fee() : feeManager.getWithdrawalFee(from, to, asset);
+                    routeSeconds[cell] = (quote != null) ? quote.transferSeconds() : -1;
+                }
+            }
+        }
+    }
+
+    private void recomputeSpatialRow(int a, boolean cfoActive) {
+        int m = exchanges.size();
+        PortfolioHealthManager.HealthDirective directive = directives[a];
+        double price = referencePrices[a];
+
+        for (int buy = 0; buy < m; buy++) {
+            for (int sell = 0; sell < m; sell++) {
+                int cell = (a * m + buy) * m + sell;
+                if (buy == sell || price <= 0) {
+                    spatialThresholds[cell] = Double.POSITIVE_INFINITY;
+                    continue;
+                }
+                double required = requiredProfit(directive, cfoActive, exchanges.get(buy), exchanges.get(sell));
+                // Sin red utilizable el fee es infinito -> la ruta nunca pasa
+                double withdrawUsd = routeWithdrawFees[cell] * price;
+                double breakEven = spatialBreakEven(takerFees[buy * n + a], takerFees[sell * n + a],
+                        withdrawUsd, required, capitals);
+                spatialThresholds[cell] = Math.max(BotConfig.MIN_SCAN_SPREAD, breakEven);
+            }
+        }
+    }
+
+    private void recomputeTriangular(Map<String, Map<String, Double>> marketData) {
+        int m = exchanges.size();
+        int k = bridges.size();
+        for (int e = 0; e < m; e++) {
+            String ex = exchanges.get(e);
+            Map<String, Double> quoted = marketData.getOrDefault(ex, Map.of());
+            for (int b = 0; b < k; b++) {
+                String bridge = bridges.get(b);
+                double fee3 = feeManager.getTradingFee(ex, bridge + "USDT", "TAKER");
+                for (int a = 0; a < n; a++) {
+                    int cell = (e * n + a) * k + b;
+                    String asset = assets.get(a);
+                    if (asset.equals(bridge)) {
+                        triangularThresholds[cell] = Double.POSITIVE_INFINITY;
+                        continue;
+                    }
+                    double fee1 = takerFees[e * n + a];
+                    // Par cruzado no listado en el venue: no consultamos la API (fallaría en cada recarga);
+                    // estimamos con el taker del mismo venue (el detector tampoco lo alcanzará sin precio)
+                    double fee2 = quoted.containsKey(asset + bridge)
+                            ? feeManager.getTradingFee(ex, asset + bridge, "TAKER")
+                            : fee1;
+                    double breakEven = triangularBreakEven(fee1, fee2, fee3, BotConfig.MIN_PROFIT_THRESHOLD, capitals);
+                    triangularThresholds[cell] = Math.max(1.0 + BotConfig.MIN_SCAN_SPREAD, breakEven);
+                }
+            }
+        }
+    }
+
+    /**
+     * Profit exigido igual que el simulador: la directiva del CFO aplica si la ruta
+     * alimenta a una cuenta hambrienta. Sin directiva aún auditada, usamos la cota
+     * optimista (nunca descartamos una ruta que el CFO podría priorizar).
+     */
+    private static double requiredProfit(PortfolioHealthManager.HealthDirective directive, boolean cfoActive,
+                                         String buyEx, String sellEx) {
+        if (!cfoActive) return BotConfig.NORMAL_MIN_PROFIT;
+        if (directive == null) return Math.min(BotConfig.NORMAL_MIN_PROFIT, BotConfig.EMERGENCY_MIN_PROFIT);
+        if (directive.preferredBuyers().contains(buyEx) || directive.preferredSellers().contains(sellEx)) {
+            return directive.minProfitPercent();
+        }
+        return BotConfig.NORMAL_MIN_PROFIT;
+    }
+
+    // =========================================================================
+    // 🧮 FÓRMULAS (puras, en función del capital)
+    // =========================================================================
+
+    /**
+     * Spread bruto g mínimo tal que, para algún capital C:
+     * C * (1 + g) * (1 - feeBuy) * (1 - feeSell) - C - withdrawUsd >= required.
+     */
+    static double spatialBreakEven(double feeBuy, double feeSell, double withdrawUsd,
+                                   double required, double[] capitals) {
+        double keep = (1.0 - feeBuy) * (1.0 - feeSell);
+        double best = Double.POSITIVE_INFINITY;
+        for (double cap : capitals) {
+            if (cap <= 0) continue;
+            best = Math.min(best, (1.0 + (required + withdrawUsd) / cap) / keep - 1.0);
+        }
+        return best;
+    }
+
+    /**
+     * crossRate r mínimo tal que, para algún capital C:
+     * C * r * (1 - f1) * (1 - f2) * (1 - f3) - C >= required.
+     */
+    static double triangularBreakEven(double fee1, double fee2, double fee3,
+                                      double required, double[] capitals) {
+        double keep = (1.0 - fee1) * (1.0 - fee2) * (1.0 - fee3);
+        double best = Double.POSITIVE_INFINITY;
+        for (double cap : capitals) {
+            if (cap <= 0) continue;
+            best = Math.min(best, (1.0 + required / cap) / keep);
+        }
+        return best;
+    }
+
+    // =========================================================================
+    // ⚡ LECTURAS (HOT PATH: sin I/O, sin Strings)
+    // =========================================================================
+
+    /** Spread bruto mínimo para comprar en {@code buy} y vender en {@code sell}. */
+    public double spatialThreshold(int asset, int buy, int sell) {
+        int m = exchanges.size();
+        return spatialThresholds[(asset * m + buy) * m + sell];
+    }
+
+    /** Tiempo estimado (s) para reponer inventario por la red más barata; -1 si se desconoce. */
+    public long spatialTransferSeconds(int asset, int buy, int sell) {
+        int m = exchanges.size();
+        return routeSeconds[(asset * m + buy) * m + sell];
+    }
+
+    /** crossRate mínimo para el triángulo USDT -> activo -> puente -> USDT en el venue. */
+    public double triangularThreshold(int exchange, int asset, int bridge) {
+        return triangularThresholds[(exchange * n + asset) * bridges.size() + bridge];
+    }
+
+    /** Fee taker cargado en el último refresh (para sincronizar la matriz espacial). */
+    public double takerFee(int asset, int exchange) {
+        return takerFees[exchange * n + asset];
+    }
+}
@@ -0,0 +1,209 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.MarketStreamer;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService.AccountSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleConsumer;
+
+/**
+ * 📈 MOTOR DE EQUIDAD A MERCADO (Mark-to-Market en streaming)
+ * Cruza el libro de saldos compartido ({@link AccountSnapshotService}) con los precios que ya
+ * circulan por el sistema (ronda de precios del escáner, quotes del stream) y mantiene la equidad
+ * por cuenta y total de forma INCREMENTAL: un tick de SOL solo toca las cuentas que tienen SOL.
+ *
+ * Escrituras serializadas (ticks y fotos de saldos); lecturas O(1) sin candado para los gates
+ * de riesgo y los reportes. Cada foto nueva recalcula todo desde cero (sin deriva acumulada).
+ *
+ * Un precio de marca por activo (el último que llegó, de cualquier venue). Un activo sin precio
+ * todavía vale 0 hasta su primer tick, igual que en la auditoría del CFO.
+ */
+public class EquityEngine implements MarketStreamer.MarketDataListener {
+
+    // Un motor por servicio de saldos: escáner, CFO y riesgo leen la misma equidad
+    private static final Map<AccountSnapshotService, EquityEngine> SHARED = new ConcurrentHashMap<>();
+
+    public static EquityEngine shared(AccountSnapshotService snapshots) {
+        return SHARED.computeIfAbsent(snapshots, s -> {
+            EquityEngine engine = new EquityEngine();
+            s.addListener(engine::onSnapshot);
+            AccountSnapshot published = s.peek();
+            if (published.epoch() > 0) engine.onSnapshot(published);
+            return engine;
+        });
+    }
+
+    /** Equidad de una cuenta: la escribe solo el motor (bajo el candado), se lee volátil. */
+    private static final class AccountEquity {
+        volatile double equity;
+    }
+
+    private record Position(AccountEquity account, double qty) {}
+
+    private final Object writeLock = new Object();
+    private final Map<String, Double> marks = new ConcurrentHashMap<>();           // activo -> USDT
+    private final Map<String, AccountEquity> accounts = new ConcurrentHashMap<>(); // cuenta -> equidad
+    private final Map<String, List<Position>> holders = new HashMap<>();           // activo -> quién lo tiene (bajo candado)
+    private final List<DoubleConsumer> drawdownListeners = new CopyOnWriteArrayList<>();
+
+    private volatile double total;
+    private volatile double peak;
+    private volatile long snapshotEpoch = -1;
+    private volatile long lastMarkMs;
+
+    // =========================================================================
+    // 📥 ENTRADAS: FOTOS DE SALDOS Y PRECIOS
+    // =========================================================================
+
+    /** Foto nueva de saldos: reconstruye posiciones y recalcula toda la equidad con las marcas vigentes. */
+    public void onSnapshot(AccountSnapshot snapshot) {
+        synchronized (writeLock) {
+            if (snapshot.epoch() <= snapshotEpoch) return; // Foto vieja (llegó tarde)
+            snapshotEpoch = snapshot.epoch();
+            holders.clear();
+            double sum = 0.0;
+            for (Map.Entry<String, Map<String, Double>> acc : snapshot.balances().entrySet()) {
+                AccountEquity equity = accounts.computeIfAbsent(acc.getKey(), k -> new AccountEquity());
+                double value = 0.0;
+                for (Map.Entry<String, Double> bal : acc.getValue().entrySet()) {
+                    String asset = bal.getKey();
+                    double qty = bal.getValue();
+                    if (qty == 0) continue;
+                    if (asset.equals("USDT")) {
+                        value += qty;
+                        continue;
+                    }
+                    holders.computeIfAbsent(asset, k -> new ArrayList<>(2)).add(new Position(equity, qty));
+                    value += qty * marks.getOrDefault(asset, 0.0);
+                }
+                equity.equity = value;
+                sum += value;
+            }
+            publish(sum);
+        }
+        notifyDrawdown();
+    }
+
+    /** Lote de precios de un venue (ej: fetchAllPrices): solo se miran los activos que tenemos. */
+    public void onPrices(Map<String, Double> pairPrices) {
+        if (pairPrices == null || pairPrices.isEmpty()) return;
+        boolean moved = false;
+        synchronized (writeLock) {
+            for (String asset : holders.keySet()) {
+                Double price = pairPrices.get(asset + "USDT");
+                if (price == null) price = pairPrices.get(asset + "-USDT"); // Kucoin
+                if (price != null) moved |= applyMark(asset, price);
+            }
+        }
+        if (moved) notifyDrawdown();
+    }
+
+    /** Un tick de un par contra USDT (otros quotes se ignoran). */
+    public void onPrice(String pair, double price) {
+        if (!pair.endsWith("USDT")) return;
+        String asset = pair.substring(0, pair.length() - 4);
+        if (asset.endsWith("-")) asset = asset.substring(0, asset.length() - 1);
+        boolean moved;
+        synchronized (writeLock) {
+            moved = applyMark(asset, price);
+        }
+        if (moved) notifyDrawdown();
+    }
+
+    @Override
+    public void onQuote(String exchange, String pair, double bid, double ask, long timestamp) {
+        if (bid > 0 && ask > 0) onPrice(pair, (bid + ask) / 2.0);
+    }
+
+    @Override
+    public void onTicker24h(String exchange, String pair, double lastPrice, double turnoverUsd, long timestamp) {
+        onPrice(pair, lastPrice);
+    }
+
+    /** Cada lectura de drawdown a mercado (después de cada cambio de equidad). */
+    public void onDrawdown(DoubleConsumer listener) {
+        drawdownListeners.add(listener);
+    }
+
+    // =========================================================================
+    // 📖 LECTURA O(1)
+    // =========================================================================
+
+    public double totalEquity() {
+        return total;
+    }
+
+    /** @return equidad a mercado de la cuenta (0 si no aparece en la foto de saldos) */
+    public double accountEquity(String account) {
+        AccountEquity equity = accounts.get(account);
+        return (equity == null) ? 0.0 : equity.equity;
+    }
+
+    /** Máximo histórico de la equidad total desde el arranque. */
+    public double peakEquity() {
+        return peak;
+    }
+
+    public double drawdown() {
+        double p = peak;
+        return (p > 0) ? Math.max(0.0, (p - total) / p) : 0.0;
+    }
+
+    /** @return NaN si el activo nunca recibió precio */
+    public double mark(String asset) {
+        return marks.getOrDefault(asset, Double.NaN);
+    }
+
+    /** ¿Hay saldo en activos que todavía no tienen precio? (la equidad está subestimada) */
+    public boolean hasUnmarkedHoldings() {
+        synchronized (writeLock) {
+            for (String asset : holders.keySet()) {
+                if (!marks.containsKey(asset)) return true;
+            }
+            return false;
+        }
+    }
+
+    public long lastMarkMs() {
+        return lastMarkMs;
+    }
+
+    // =========================================================================
+    // ⚙️ INTERNOS (bajo writeLock)
+    // =========================================================================
+
+    /** @return true si la equidad cambió */
+    private boolean applyMark(String asset, double price) {
+        if (!(price > 0)) return false;
+        Double old = marks.put(asset, price);
+        lastMarkMs = System.currentTimeMillis();
+        List<Position> positions = holders.get(asset);
+        if (positions == null) return false;
+        double delta = price - (old == null ? 0.0 : old);
+        if (delta == 0) return false;
+        double sum = 0.0;
+        for (Position p : positions) {
+            double change = p.qty() * delta;
+            p.account().equity += change;
+            sum += change;
+        }
+        publish(total + sum);
+        return true;
+    }
+
+    private void publish(double newTotal) {
+        total = newTotal;
+        if (newTotal > peak) peak = newTotal;
+    }
+
+    private void notifyDrawdown() {
+        if (drawdownListeners.isEmpty()) return;
+        double dd = drawdown();
+        for (DoubleConsumer listener : drawdownListeners) listener.accept(dd);
+    }
+}
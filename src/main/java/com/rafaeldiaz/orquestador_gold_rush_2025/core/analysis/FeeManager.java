@@ -1,24 +1,28 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 💲 GESTOR DE TARIFAS ADAPTATIVO (SMART FEE MANAGER) 💲
  * Autoridad central de costos.
  * Evolución: Inicia con valores pesimistas, pero APRENDE los costos reales
  * y los recuerda para no bloquear operaciones válidas por falta de datos.
+ * v3.0: fees de trading precargados en lote por venue; la lectura nunca hace I/O.
  */
 public class FeeManager {
 
     private final ExchangeConnector connector;
 
-    // --- CACHÉ INTELIGENTE (Versión 2.0) ---
-    // Key: "EXCHANGE_PAIR_TYPE" (ej: "BYBIT_BTCUSDT_TAKER" o "MEXC_WITHDRAW_SOL")
-    private final Map<String, CachedValue> feeCache = new ConcurrentHashMap<>();
+    // --- CATÁLOGO DE REDES (Retiros por red, cargado en lote) ---
+    private final WithdrawalCatalogue catalogue;
 
     // Duración: 10 Minutos (Balance entre frescura y rate limits)
     private static final long CACHE_TTL_MS = 10 * 60 * 1000;
@@ -31,12 +35,45 @@ public class FeeManager {
             "ETH", 0.005, "DOGE", 5.0, "DEFAULT", 1.0
     );
 
-    // Record interno para el caché
-    private record CachedValue(double value, long expiry) {}
+    // --- LIBRO DE FEES PRECARGADO (Versión 3.0: lectura sin I/O) ---
+    // Se refresca en segundo plano ANTES de que venza el TTL (refresh-ahead al 80%)
+    private static final long REFRESH_AHEAD_MS = CACHE_TTL_MS * 8 / 10;
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();  // "BTCUSDT" -> id
+    private final Map<String, Integer> venueIds = new ConcurrentHashMap<>();   // "bybit_sub2" -> id de familia
+    private final List<String> venueFamilies = new ArrayList<>();              // id -> "bybit" / "binance"
+    private volatile FeeBook[] books = new FeeBook[0];                         // Copy-on-write por venue
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fee-refresher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Fees de un venue indexados por ID de símbolo. NaN = símbolo no listado en el venue.
+     * Los defaults son el fee de cuenta (MEXC/KuCoin) o el fallback pesimista.
+     */
+    private record FeeBook(double[] taker, double[] maker, double defaultTaker, double defaultMaker, long loadedAt) {}
+
+    // Una instancia por conector: un solo refresher, un solo catálogo y una sola descarga por venue
+    private static final Map<ExchangeConnector, FeeManager> SHARED = new ConcurrentHashMap<>();
+
+    public static FeeManager shared(ExchangeConnector connector) {
+        return SHARED.computeIfAbsent(connector, FeeManager::new);
+    }
 
     public FeeManager(ExchangeConnector connector) {
         this.connector = connector;
-        BotLogger.info("💲 FeeManager 2.0: Caché Inteligente (10min) INICIADO.");
+        this.catalogue = new WithdrawalCatalogue(connector);
+
+        // Registramos los venues conocidos y precargamos en segundo plano (arranque no bloqueante)
+        Set<String> known = new LinkedHashSet<>(BotConfig.ACTIVE_EXCHANGES);
+        known.addAll(BotConfig.SPATIAL_ACCOUNTS);
+        known.addAll(BotConfig.TRIANGULAR_ACCOUNTS);
+        known.forEach(this::venueId);
+        known.forEach(catalogue::register);
+        refresher.scheduleAtFixedRate(this::refreshAllVenues, REFRESH_AHEAD_MS, REFRESH_AHEAD_MS, TimeUnit.MILLISECONDS);
+
+        BotLogger.info("💲 FeeManager 3.0: Libro de Fees Precargado (refresh-ahead " + (REFRESH_AHEAD_MS / 60_000) + "min) INICIADO.");
     }
 
     // =========================================================================
@@ -71,77 +108,176 @@ public class FeeManager {
     }
 
     /**
-     * Obtiene el % de comisión real.
+     * Obtiene el % de comisión real desde el libro precargado.
+     * NUNCA hace I/O: si el venue aún no cargó, devuelve el fallback pesimista.
      * @param type "MAKER" o "TAKER"
      */
     public double getTradingFee(String exchange, String pair, String type) {
-        String key = (exchange + "_" + pair + "_" + type).toUpperCase();
+        return lookup(venueId(exchange), symbolId(pair), "MAKER".equalsIgnoreCase(type));
+    }
+
+    /** Fee taker por IDs (hot path: sin Strings, sin allocations). */
+    public double getTakerFee(int venueId, int symbolId) {
+        return lookup(venueId, symbolId, false);
+    }
+
+    /** Fee maker por IDs (hot path: sin Strings, sin allocations). */
+    public double getMakerFee(int venueId, int symbolId) {
+        return lookup(venueId, symbolId, true);
+    }
+
+    private double lookup(int venueId, int symbolId, boolean maker) {
+        FeeBook[] snapshot = books;
+        FeeBook book = (venueId >= 0 && venueId < snapshot.length) ? snapshot[venueId] : null;
+        if (book == null) return maker ? DEFAULT_MAKER_FEE : DEFAULT_TAKER_FEE;
 
-        // 1. Consultar Caché
-        CachedValue cached = feeCache.get(key);
-        if (cached != null && System.currentTimeMillis() < cached.expiry) {
-            return cached.value;
+        double[] rates = maker ? book.maker() : book.taker();
+        if (symbolId >= 0 && symbolId < rates.length) {
+            double fee = rates[symbolId];
+            if (!Double.isNaN(fee)) return fee;
         }
+        return maker ? book.defaultMaker() : book.defaultTaker();
+    }
+
+    /** ID estable del símbolo ("BTCUSDT" o "BTC-USDT"), o -1 si ningún venue lo listó aún. */
+    public int symbolId(String pair) {
+        Integer id = symbolIds.get(pair);
+        if (id == null && pair.indexOf('-') >= 0) id = symbolIds.get(pair.replace("-", ""));
+        return (id != null) ? id : -1;
+    }
+
+    /**
+     * ID del venue (las subcuentas de Bybit comparten el libro de la familia "bybit").
+     * Un venue nuevo se registra y se carga en segundo plano; mientras tanto rige el fallback.
+     */
+    public int venueId(String exchange) {
+        Integer id = venueIds.get(exchange);
+        return (id != null) ? id : registerVenue(exchange);
+    }
+
+    private synchronized int registerVenue(String exchange) {
+        Integer existing = venueIds.get(exchange);
+        if (existing != null) return existing;
+
+        String family = exchange.toLowerCase().contains("bybit") ? "bybit" : exchange.toLowerCase();
+        int id = venueFamilies.indexOf(family);
+        if (id < 0) {
+            venueFamilies.add(family);
+            id = venueFamilies.size() - 1;
+            books = Arrays.copyOf(books, venueFamilies.size());
+            final int newId = id;
+            refresher.execute(() -> refreshVenue(newId));
+        }
+        venueIds.put(exchange, id);
+        return id;
+    }
+
+    // =========================================================================
+    // 🔄 PRECARGA EN LOTE (Segundo plano)
+    // =========================================================================
 
-        // 2. Fetch Real (Si caché expiró)
+    private void refreshAllVenues() {
+        int count;
+        synchronized (this) { count = venueFamilies.size(); }
+        for (int v = 0; v < count; v++) refreshVenue(v);
+    }
+
+    /**
+     * Descarga todos los fees del venue en 1 request y publica un libro nuevo.
+     * Si la API falla, se conserva el libro anterior (mejor viejo que inventado).
+     */
+    private void refreshVenue(int venueId) {
+        String family;
+        synchronized (this) { family = venueFamilies.get(venueId); }
         try {
-            double[] fees = connector.fetchDynamicTradingFee(exchange, pair);
-            double taker = (fees[0] < 0 || fees[0] > 0.1) ? DEFAULT_TAKER_FEE : fees[0];
-            double maker = (fees[1] < 0 || fees[1] > 0.1) ? DEFAULT_MAKER_FEE : fees[1];
+            Map<String, double[]> raw = connector.fetchAllTradingFees(family);
+            if (raw == null || raw.isEmpty()) {
+                BotLogger.warn("⚠️ Fees en lote vacíos para " + family + ". Conservando libro anterior.");
+                return;
+            }
+
+            for (String symbol : raw.keySet()) {
+                if (!ExchangeConnector.ALL_SYMBOLS.equals(symbol)) registerSymbol(symbol);
+            }
 
-            // Guardamos ambos en caché
-            long expiry = System.currentTimeMillis() + CACHE_TTL_MS;
-            feeCache.put((exchange + "_" + pair + "_TAKER").toUpperCase(), new CachedValue(taker, expiry));
-            feeCache.put((exchange + "_" + pair + "_MAKER").toUpperCase(), new CachedValue(maker, expiry));
+            int size = symbolIds.size();
+            double[] taker = new double[size];
+            double[] maker = new double[size];
+            Arrays.fill(taker, Double.NaN);
+            Arrays.fill(maker, Double.NaN);
 
-            return type.equalsIgnoreCase("TAKER") ? taker : maker;
+            double defaultTaker = DEFAULT_TAKER_FEE;
+            double defaultMaker = DEFAULT_MAKER_FEE;
+            for (Map.Entry<String, double[]> e : raw.entrySet()) {
+                double t = sanitize(e.getValue()[0], DEFAULT_TAKER_FEE);
+                double m = sanitize(e.getValue()[1], DEFAULT_MAKER_FEE);
+                if (ExchangeConnector.ALL_SYMBOLS.equals(e.getKey())) {
+                    defaultTaker = t;
+                    defaultMaker = m;
+                } else {
+                    int id = symbolIds.get(e.getKey());
+                    if (id < size) {
+                        taker[id] = t;
+                        maker[id] = m;
+                    }
+                }
+            }
 
+            publish(venueId, new FeeBook(taker, maker, defaultTaker, defaultMaker, System.currentTimeMillis()));
+            BotLogger.info("💲 Fees precargados: " + family + " (" + raw.size() + " entradas)");
         } catch (Exception e) {
-            // Si hay dato viejo, úsalo aunque haya expirado (mejor que fallback ciego)
-            if (cached != null) return cached.value;
-            return type.equalsIgnoreCase("MAKER") ? DEFAULT_MAKER_FEE : DEFAULT_TAKER_FEE;
+            BotLogger.warn("⚠️ Error precargando fees de " + family + ": " + e.getMessage());
         }
     }
 
+    private synchronized void registerSymbol(String symbol) {
+        if (!symbolIds.containsKey(symbol)) symbolIds.put(symbol, symbolIds.size());
+    }
+
+    private synchronized void publish(int venueId, FeeBook book) {
+        FeeBook[] next = books.clone();
+        next[venueId] = book;
+        books = next;
+    }
+
+    // Mismo saneamiento que la versión 2.0: valores absurdos -> fallback
+    private static double sanitize(double fee, double fallback) {
+        return (fee < 0 || fee > 0.1) ? fallback : fee;
+    }
+
     // =========================================================================
     // 🚚 2. FEE DE RETIRO (Actualizado 2.0 - Compatible con nuevo Caché)
     // =========================================================================
 
     /**
      * Obtiene el costo fijo de retirar una moneda (en unidades de la moneda).
+     * Lee la red habilitada más barata del catálogo (memoria, sin I/O).
      * @param exchange Exchange origen
      * @param asset Moneda a retirar (ej: SOL, USDT)
      * @return Cantidad a descontar (ej: 0.01)
      */
     public double getWithdrawalFee(String exchange, String asset) {
-        // Usamos una llave única para el caché unificado
-        String key = (exchange + "_WITHDRAW_" + asset).toUpperCase();
+        double fee = catalogue.cheapestWithdrawFee(exchange, asset);
+        if (fee >= 0 && !Double.isInfinite(fee)) return fee;
 
-        // 1. Consultar Caché (El nuevo mapa 'feeCache')
-        CachedValue cached = feeCache.get(key);
-        if (cached != null && System.currentTimeMillis() < cached.expiry) {
-            return cached.value;
-        }
-
-        // 2. Intentar Fetch Real (La Verdad del Mercado)
-        try {
-            double fee = connector.fetchLiveWithdrawalFee(exchange, asset);
-
-            // Si la API responde con un valor válido (> 0)
-            if (fee > 0) {
-                // Guardar en el nuevo caché unificado con TTL de 10 min
-                feeCache.put(key, new CachedValue(fee, System.currentTimeMillis() + CACHE_TTL_MS));
-                return fee;
-            }
-        } catch (Exception e) {
-            BotLogger.warn("⚠️ Withdraw Fetch Fail (" + exchange + "-" + asset + "): " + e.getMessage());
-        }
-
-        // 3. Fallback de Seguridad (Si todo falla)
-        // Si teníamos un dato viejo en caché, úsalo (mejor viejo que inventado)
-        if (cached != null) return cached.value;
+        // Fallback de Seguridad: venue sin catálogo aún, o moneda sin red habilitada
+        return WITHDRAW_FALLBACKS.getOrDefault(asset.toUpperCase(), WITHDRAW_FALLBACKS.get("DEFAULT"));
+    }
 
-        // Si no hay nada, usa la tabla estática de seguridad
+    /**
+     * 🧭 Costo de retiro para una RUTA concreta (red más barata con retiro en origen
+     * y depósito en destino habilitados).
+     * @return Cantidad en monedas; POSITIVE_INFINITY si el catálogo confirma que no hay red
+     *         utilizable (la ruta no puede pagar); fallback estático si aún no hay catálogo.
+     */
+    public double getWithdrawalFee(String fromExchange, String toExchange, String asset) {
+        WithdrawalCatalogue.RouteQuote quote = catalogue.cheapest(fromExchange, toExchange, asset);
+        if (quote != null) return quote.fee();
+        if (catalogue.isListed(fromExchange, asset)) return Double.POSITIVE_INFINITY;
         return WITHDRAW_FALLBACKS.getOrDefault(asset.toUpperCase(), WITHDRAW_FALLBACKS.get("DEFAULT"));
     }
-}
\ No newline at end of file
+
+    public WithdrawalCatalogue getCatalogue() {
+        return catalogue;
+    }
+}
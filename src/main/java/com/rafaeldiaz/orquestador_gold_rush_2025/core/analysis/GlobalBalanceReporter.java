@@ -1,13 +1,10 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
-import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
 import java.text.DecimalFormat;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 
 /**
@@ -16,13 +13,17 @@ import java.util.TreeMap;
  */
 public class GlobalBalanceReporter {
 
-    private final ExchangeConnector connector;
+    private final AccountSnapshotService snapshots;
 
     // Formateador preciso para cripto (hasta 8 decimales para ver el polvo)
     private final DecimalFormat dfQty = new DecimalFormat("###,##0.00000000");
 
     public GlobalBalanceReporter(ExchangeConnector connector) {
-        this.connector = connector;
+        this(AccountSnapshotService.shared(connector));
+    }
+
+    public GlobalBalanceReporter(AccountSnapshotService snapshots) {
+        this.snapshots = snapshots;
     }
 
     public void printReport() {
@@ -41,16 +42,13 @@ public class GlobalBalanceReporter {
         BotLogger.info(C + "╠══════════════════╬══════════╬══════════════════════════╬═════════════════╣" + R);
 
         // 1. RECOLECCIÓN EXHAUSTIVA DE CUENTAS
-        // Combinamos TODAS las listas posibles para no dejar a nadie fuera (MEXC, Kucoin, etc.)
-        Set<String> allAccounts = new HashSet<>();
-        if (BotConfig.ACTIVE_EXCHANGES != null) allAccounts.addAll(BotConfig.ACTIVE_EXCHANGES);
-        if (BotConfig.SPATIAL_ACCOUNTS != null) allAccounts.addAll(BotConfig.SPATIAL_ACCOUNTS);
-        if (BotConfig.TRIANGULAR_ACCOUNTS != null) allAccounts.addAll(BotConfig.TRIANGULAR_ACCOUNTS);
+        // El snapshot compartido ya cubre TODAS las listas (ACTIVE + SPATIAL + TRIANGULAR)
+        AccountSnapshotService.AccountSnapshot snapshot = snapshots.current();
 
-        for (String exchange : allAccounts) {
+        for (String exchange : snapshots.accounts()) {
             try {
-                // Fetch de saldos (Raw)
-                Map<String, Double> balances = connector.fetchBalances(exchange);
+                // Saldos (Raw) del snapshot
+                Map<String, Double> balances = snapshot.balances(exchange);
 
                 // Si la respuesta es nula o vacía, avisamos
                 if (balances == null || balances.isEmpty()) {
@@ -0,0 +1,256 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.MarketStreamer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📈 MOTOR DE INDICADORES EN STREAMING (INCREMENTAL O(1))
+ * Alimentado por velas y cotizaciones del WebSocket. Mantiene por símbolo:
+ * ATR (true range), EMA de tendencia, volatilidad realizada y estadísticas de spread,
+ * todo en ventanas circulares con sumas corridas. El radar lee snapshots sin tocar REST.
+ */
+public class IndicatorEngine implements MarketStreamer.MarketDataListener {
+
+    /** Foto inmutable de los indicadores de un símbolo. NaN = aún sin datos suficientes. */
+    public record IndicatorSnapshot(
+            String pair,
+            double lastPrice,
+            double atrPercent,       // ATR / precio (%)
+            double ema,              // EMA de tendencia (TREND_TIMEFRAME)
+            double trendPercent,     // (precio - EMA) / EMA (%)
+            double realizedVolPercent, // Desviación estándar de retornos log por vela (%)
+            double spreadPercent,    // Spread medio bid/ask en la ventana (%)
+            double turnoverUsd,      // Volumen negociado 24h (USD)
+            int bars,                // Velas cerradas acumuladas (ventana rápida)
+            long updatedAt
+    ) {
+        public boolean isWarm(int period) {
+            return bars >= period && !Double.isNaN(atrPercent);
+        }
+    }
+
+    private final int atrPeriod;
+    private final int emaPeriod;
+    private final int spreadWindow;
+    private final String fastInterval;
+    private final String trendInterval;
+    private final Map<String, SymbolState> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param fastInterval  intervalo de velas para ATR/volatilidad (ej: "1m")
+     * @param trendInterval intervalo de velas para la EMA (ej: "15m")
+     */
+    public IndicatorEngine(int atrPeriod, int emaPeriod, int spreadWindow, String fastInterval, String trendInterval) {
+        this.atrPeriod = atrPeriod;
+        this.emaPeriod = emaPeriod;
+        this.spreadWindow = spreadWindow;
+        this.fastInterval = fastInterval;
+        this.trendInterval = trendInterval;
+    }
+
+    // =========================================================================
+    // 📥 ENTRADAS (Streams)
+    // =========================================================================
+
+    @Override
+    public void onKline(String exchange, String pair, String interval,
+                        double high, double low, double close, long startTime, boolean confirmed) {
+        SymbolState s = state(pair);
+        if (interval.equals(fastInterval)) s.onFastBar(high, low, close, startTime, confirmed);
+        if (interval.equals(trendInterval)) s.onTrendBar(close, startTime, confirmed);
+    }
+
+    @Override
+    public void onQuote(String exchange, String pair, double bid, double ask, long timestamp) {
+        if (bid <= 0 || ask <= 0 || ask < bid) return;
+        state(pair).onQuote(bid, ask, timestamp);
+    }
+
+    @Override
+    public void onTicker24h(String exchange, String pair, double lastPrice, double turnoverUsd, long timestamp) {
+        state(pair).onTicker(lastPrice, turnoverUsd, timestamp);
+    }
+
+    /**
+     * 🔥 Precalentamiento: velas históricas (más antigua primero, formato {high, low, close}).
+     * Se usa una sola vez por símbolo al arrancar; después todo llega por stream.
+     */
+    public void seed(String pair, String interval, List<double[]> candles) {
+        long t = 0;
+        for (double[] c : candles) {
+            if (c == null || c.length < 3) continue;
+            onKline("seed", pair, interval, c[0], c[1], c[2], ++t, true);
+        }
+    }
+
+    // =========================================================================
+    // 📖 LECTURA
+    // =========================================================================
+
+    /** @return null si el símbolo nunca recibió datos. */
+    public IndicatorSnapshot snapshot(String pair) {
+        SymbolState s = states.get(pair);
+        return (s != null) ? s.snapshot(pair) : null;
+    }
+
+    public int trackedSymbols() {
+        return states.size();
+    }
+
+    public int atrPeriod() {
+        return atrPeriod;
+    }
+
+    private SymbolState state(String pair) {
+        return states.computeIfAbsent(pair, k -> new SymbolState(atrPeriod, emaPeriod, spreadWindow));
+    }
+
+    // =========================================================================
+    // 🧮 ESTADO POR SÍMBOLO
+    // =========================================================================
+
+    /** Un escritor (hilo del WebSocket) y lectores ocasionales (radar): monitor sin contención. */
+    private static final class SymbolState {
+        private final RollingWindow trueRanges;
+        private final RollingWindow logReturns;
+        private final RollingWindow spreads;
+        private final double emaAlpha;
+        private final int emaPeriod;
+
+        private long fastBarStart = Long.MIN_VALUE;
+        private double prevClose = Double.NaN;   // Cierre de la última vela confirmada
+        private double lastPrice = Double.NaN;
+
+        private long trendBarStart = Long.MIN_VALUE;
+        private double ema = Double.NaN;
+        private double emaSeedSum = 0;           // La EMA arranca con la SMA de las primeras N velas
+        private int emaSeedCount = 0;
+
+        private double turnoverUsd = Double.NaN;
+        private long updatedAt = 0;
+
+        SymbolState(int atrPeriod, int emaPeriod, int spreadWindow) {
+            this.trueRanges = new RollingWindow(atrPeriod);
+            this.logReturns = new RollingWindow(atrPeriod);
+            this.spreads = new RollingWindow(spreadWindow);
+            this.emaPeriod = emaPeriod;
+            this.emaAlpha = 2.0 / (emaPeriod + 1);
+        }
+
+        synchronized void onFastBar(double high, double low, double close, long start, boolean confirmed) {
+            lastPrice = close;
+            updatedAt = System.currentTimeMillis();
+            // Solo las velas cerradas (o una vela nueva que cierra implícitamente la anterior) entran a la ventana
+            if (!confirmed || start == fastBarStart) return;
+            fastBarStart = start;
+
+            double tr = high - low;
+            if (!Double.isNaN(prevClose)) {
+                tr = Math.max(tr, Math.max(Math.abs(high - prevClose), Math.abs(low - prevClose)));
+                if (prevClose > 0 && close > 0) logReturns.add(Math.log(close / prevClose));
+            }
+            trueRanges.add(tr);
+            prevClose = close;
+        }
+
+        synchronized void onTrendBar(double close, long start, boolean confirmed) {
+            if (!confirmed || start == trendBarStart) return;
+            trendBarStart = start;
+            if (emaSeedCount < emaPeriod) {
+                emaSeedSum += close;
+                if (++emaSeedCount == emaPeriod) ema = emaSeedSum / emaPeriod;
+            } else {
+                ema += emaAlpha * (close - ema);
+            }
+        }
+
+        synchronized void onQuote(double bid, double ask, long ts) {
+            double mid = (bid + ask) / 2.0;
+            spreads.add((ask - bid) / mid * 100.0);
+            lastPrice = mid;
+            updatedAt = ts;
+        }
+
+        synchronized void onTicker(double price, double turnover, long ts) {
+            if (price > 0) lastPrice = price;
+            if (turnover >= 0) turnoverUsd = turnover;
+            updatedAt = ts;
+        }
+
+        synchronized IndicatorSnapshot snapshot(String pair) {
+            double price = lastPrice;
+            double atrPct = (trueRanges.count() > 0 && price > 0) ? trueRanges.mean() / price * 100.0 : Double.NaN;
+            double trend = (!Double.isNaN(ema) && ema > 0 && price > 0) ? (price - ema) / ema * 100.0 : Double.NaN;
+            double vol = (logReturns.count() > 1) ? Math.sqrt(logReturns.variance()) * 100.0 : Double.NaN;
+            double spread = (spreads.count() > 0) ? spreads.mean() : Double.NaN;
+            return new IndicatorSnapshot(pair, price, atrPct, ema, trend, vol, spread,
+                    turnoverUsd, trueRanges.count(), updatedAt);
+        }
+    }
+
+    // =========================================================================
+    // 🔁 VENTANA CIRCULAR CON SUMAS CORRIDAS
+    // =========================================================================
+
+    /**
+     * Buffer circular de tamaño fijo con suma y suma de cuadrados incrementales.
+     * Cada {@code capacity} altas se recalculan las sumas desde cero para cancelar la deriva de punto flotante
+     * (costo amortizado O(1)).
+     */
+    static final class RollingWindow {
+        private final double[] values;
+        private int head = 0;
+        private int count = 0;
+        private int sinceResync = 0;
+        private double sum = 0;
+        private double sumSq = 0;
+
+        RollingWindow(int capacity) {
+            this.values = new double[Math.max(1, capacity)];
+        }
+
+        void add(double x) {
+            if (count == values.length) {
+                double old = values[head];
+                sum -= old;
+                sumSq -= old * old;
+            } else {
+                count++;
+            }
+            values[head] = x;
+            head = (head + 1) % values.length;
+            sum += x;
+            sumSq += x * x;
+            if (++sinceResync >= values.length) resync();
+        }
+
+        private void resync() {
+            double s = 0, sq = 0;
+            for (int i = 0; i < count; i++) {
+                s += values[i];
+                sq += values[i] * values[i];
+            }
+            sum = s;
+            sumSq = sq;
+            sinceResync = 0;
+        }
+
+        int count() {
+            return count;
+        }
+
+        double mean() {
+            return (count > 0) ? sum / count : Double.NaN;
+        }
+
+        /** Varianza muestral (n-1). */
+        double variance() {
+            if (count < 2) return Double.NaN;
+            double m = sum / count;
+            return Math.max(0, (sumSq - count * m * m) / (count - 1));
+        }
+    }
+}
@@ -40,7 +40,7 @@ public class MarketPulseEstimator {
 
     public MarketPulseEstimator(ExchangeConnector connector) {
         this.connector = connector;
-        this.feeManager = new FeeManager(connector);
+        this.feeManager = FeeManager.shared(connector);
         for (double t : thresholds) hits.put(t, new AtomicInteger(0));
     }
 
@@ -6,6 +6,9 @@ import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 🧠 CFO AUTÓNOMO (GERENTE DE SALUD FINANCIERA)
@@ -14,14 +17,21 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PortfolioHealthManager {
 
     private final ExchangeConnector connector;
+    private final AccountSnapshotService snapshots;
     private final List<String> spatialAccounts;
-    private double totalEquityUsdt = 0.0;
-    // Caché de Directivas (Para no saturar la API)
+    private final EquityEngine equity; // Equidad a mercado incremental (saldos compartidos + precios)
+    // Caché de Directivas: se recalculan solo cuando cambia la época del snapshot de saldos
     private final Map<String, HealthDirective> directiveCache = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastUpdateMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> directiveEpoch = new ConcurrentHashMap<>();
 
     public PortfolioHealthManager(ExchangeConnector connector) {
+        this(connector, AccountSnapshotService.shared(connector));
+    }
+
+    public PortfolioHealthManager(ExchangeConnector connector, AccountSnapshotService snapshots) {
         this.connector = connector;
+        this.snapshots = snapshots;
+        this.equity = EquityEngine.shared(snapshots);
         this.spatialAccounts = BotConfig.SPATIAL_ACCOUNTS;
         BotLogger.info("🧠 CFO INICIADO: Gestionando cuentas " + spatialAccounts);
     }
@@ -37,8 +47,10 @@ public class PortfolioHealthManager {
             String exA = spatialAccounts.get(0);
             String exB = spatialAccounts.get(1);
 
-            Map<String, Double> balA = connector.fetchBalances(exA);
-            Map<String, Double> balB = connector.fetchBalances(exB);
+            // Saldos desde el snapshot compartido (cero llamadas extra de balance)
+            AccountSnapshotService.AccountSnapshot snapshot = snapshots.current();
+            Map<String, Double> balA = snapshot.balances(exA);
+            Map<String, Double> balB = snapshot.balances(exB);
 
             Set<String> assetsA = filterDust(exA, balA);
             Set<String> assetsB = filterDust(exB, balB);
@@ -107,15 +119,15 @@ public class PortfolioHealthManager {
      * Compatible con DeepMarketScanner N-Way.
      */
     public HealthDirective getAssetHealth(String asset) {
-        long now = System.currentTimeMillis();
-        long lastTime = lastUpdateMap.getOrDefault(asset, 0L);
+        AccountSnapshotService.AccountSnapshot snapshot = snapshots.current();
 
-        // 1. Check Caché
-        if ((now - lastTime) < (BotConfig.HEALTH_CHECK_INTERVAL * 1000L)) {
-            if (directiveCache.containsKey(asset)) return directiveCache.get(asset);
+        // 1. Check Caché (misma época de saldos = misma directiva)
+        HealthDirective cached = directiveCache.get(asset);
+        if (cached != null && directiveEpoch.getOrDefault(asset, -1L) == snapshot.epoch()) {
+            return cached;
         }
 
-        // 2. Recopilar datos de todo el enjambre
+        // 2. Recopilar datos de todo el enjambre (en memoria)
         Map<String, Double> assetBalances = new HashMap<>();
         Map<String, Double> usdtBalances = new HashMap<>();
 
@@ -123,8 +135,8 @@ public class PortfolioHealthManager {
         double totalUsdt = 0;
 
         for (String ex : spatialAccounts) {
-            double aBal = connector.fetchBalance(ex, asset);
-            double uBal = connector.fetchBalance(ex, "USDT");
+            double aBal = snapshot.balance(ex, asset);
+            double uBal = snapshot.balance(ex, "USDT");
 
             assetBalances.put(ex, aBal);
             usdtBalances.put(ex, uBal);
@@ -161,11 +173,19 @@ public class PortfolioHealthManager {
         HealthDirective directive = new HealthDirective(minProfit, needAsset, needCash, state);
 
         directiveCache.put(asset, directive);
-        lastUpdateMap.put(asset, now);
+        directiveEpoch.put(asset, snapshot.epoch());
 
         return directive;
     }
 
+    /**
+     * 👀 Lectura sin I/O de la última directiva calculada (puede estar vencida).
+     * @return null si el activo aún no fue auditado.
+     */
+    public HealthDirective peekAssetHealth(String asset) {
+        return directiveCache.get(asset);
+    }
+
     // ==========================================
     // 📦 EL RECORD QUE FALTABA (Versión N-Way)
     // ==========================================
@@ -177,47 +197,40 @@ public class PortfolioHealthManager {
     ) {}
     /**
      * Calcula el valor total del portafolio en USDT sumando todas las cuentas.
+     * La equidad ya la mantiene el EquityEngine con cada tick; la auditoría solo fuerza la foto
+     * de saldos y, si algún activo aún no tiene precio, trae los lotes de precios EN PARALELO.
      */
     public void performAudit() {
         BotLogger.info("💰 CFO: Iniciando Auditoría Global de Patrimonio...");
-        double grandTotal = 0.0;
-
-        for (String exchange : spatialAccounts) {
-            try {
-                // 1. Traer saldos
-                Map<String, Double> balances = connector.fetchBalances(exchange);
-                // 2. Traer precios (Batch) para no saturar
-                Map<String, Double> prices = connector.fetchAllPrices(exchange);
-
-                double exchangeTotal = 0.0;
-
-                for (Map.Entry<String, Double> entry : balances.entrySet()) {
-                    String asset = entry.getKey();
-                    double qty = entry.getValue();
-
-                    if (asset.equals("USDT")) {
-                        exchangeTotal += qty;
-                    } else {
-                        // Intentamos buscar el precio
-                        Double price = prices.get(asset + "USDT");
-                        if (price == null) price = prices.get(asset + "-USDT"); // Kucoin fallback
-
-                        if (price != null) {
-                            exchangeTotal += qty * price;
-                        }
-                    }
+        equity.onSnapshot(snapshots.current());
+        if (!equity.hasUnmarkedHoldings()) return;
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<String, Future<Map<String, Double>>> rounds = new LinkedHashMap<>();
+            for (String exchange : spatialAccounts) {
+                rounds.put(exchange, executor.submit(() -> connector.fetchAllPrices(exchange)));
+            }
+            for (Map.Entry<String, Future<Map<String, Double>>> round : rounds.entrySet()) {
+                try {
+                    equity.onPrices(round.getValue().get());
+                } catch (ExecutionException e) {
+                    BotLogger.warn("⚠️ Error auditando " + round.getKey() + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
-                grandTotal += exchangeTotal;
-            } catch (Exception e) {
-                BotLogger.warn("⚠️ Error auditando " + exchange + ": " + e.getMessage());
             }
         }
-
-        this.totalEquityUsdt = grandTotal;
-        // BotLogger.info("💰 Resultado Auditoría: $" + String.format("%.2f", grandTotal));
     }
 
+    /** Suma O(cuentas espaciales) de la equidad a mercado vigente (sin I/O). */
     public double getTotalEquityUsdt() {
-        return totalEquityUsdt;
+        double total = 0.0;
+        for (String exchange : spatialAccounts) total += equity.accountEquity(exchange);
+        return total;
+    }
+
+    public EquityEngine equity() {
+        return equity;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.CsvAppender;
 
 import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 
 /**
  * Task 2.4.3: Contabilidad y Cálculo de Ganancias Diarias.
@@ -16,16 +16,24 @@ public class ProfitAccountant {
     private static final String HISTORY_FILE = "logs/balance_history.csv";
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
 
+    // Historial abierto de por vida; el último saldo vive en memoria (se lee del archivo una vez)
+    private CsvAppender history;
+    private double lastBalance;
+
     public ProfitAccountant() {
-        ensureFileExists();
+        lastBalance = getLastRecordedBalance();
+        try {
+            history = new CsvAppender(HISTORY_FILE, "Date,TotalBalance,DailyProfit", CsvAppender.Policy.JOURNAL);
+        } catch (IOException e) {
+            BotLogger.error("No se pudo crear historial de balances: " + e.getMessage());
+        }
     }
 
     /**
      * Registra el saldo total actual y calcula la ganancia respecto al último registro.
      * @param totalBalance Saldo total sumado de todas las cuentas.
      */
-    public void recordDailySnapshot(double totalBalance) {
-        double lastBalance = getLastRecordedBalance();
+    public synchronized void recordDailySnapshot(double totalBalance) {
         double profit = 0.0;
 
         // Si es la primera vez que corre (lastBalance = -1), no hay profit calculado aún
@@ -48,17 +56,7 @@ public class ProfitAccountant {
 
         // Guardar en CSV
         appendToFile(today, totalBalance, profit);
-    }
-
-    private void ensureFileExists() {
-        File f = new File(HISTORY_FILE);
-        if (!f.exists()) {
-            try (PrintWriter pw = new PrintWriter(new FileWriter(f))) {
-                pw.println("Date,TotalBalance,DailyProfit"); // Header
-            } catch (IOException e) {
-                BotLogger.error("No se pudo crear historial de balances: " + e.getMessage());
-            }
-        }
+        lastBalance = totalBalance;
     }
 
     private double getLastRecordedBalance() {
@@ -88,10 +86,14 @@ public class ProfitAccountant {
     }
 
     private void appendToFile(String date, double balance, double profit) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(HISTORY_FILE, true))) {
-            // FIX: Forzamos Locale.US para que use PUNTO (.) como decimal
-            // Así evitamos romper el formato CSV
-            pw.printf(Locale.US, "%s,%.2f,%.2f%n", date, balance, profit);
+        if (history == null) return;
+        // Punto decimal fijo (equivale a %.2f con Locale.US): no rompe el formato CSV
+        StringBuilder row = new StringBuilder(48).append(date).append(',');
+        CsvAppender.appendFixed(row, balance, 2).append(',');
+        CsvAppender.appendFixed(row, profit, 2);
+        history.appendLine(row);
+        try {
+            history.flush(); // Un registro por día: durable al volver
         } catch (IOException e) {
             BotLogger.error("Error guardando snapshot: " + e.getMessage());
         }
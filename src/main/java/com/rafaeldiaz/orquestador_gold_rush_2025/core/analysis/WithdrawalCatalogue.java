@@ -0,0 +1,160 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.NetworkInfo;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔗 CATÁLOGO DE RETIROS POR RED (NETWORK-AWARE)
+ * Configuración de monedas/redes de cada venue, cargada en lote y refrescada en segundo plano.
+ * Responde desde memoria la red más barata para una ruta (origen -> destino) con su tiempo
+ * estimado de abono, respetando habilitación de retiro en origen y de depósito en destino.
+ */
+public class WithdrawalCatalogue {
+
+    private static final long REFRESH_MS = 15 * 60 * 1000;  // Las configs de red cambian poco
+    private static final long VENUE_OVERHEAD_SECONDS = 120; // Procesamiento interno del venue (retiro + abono)
+
+    // Tiempo de bloque aproximado por red canónica (segundos)
+    private static final Map<String, Double> BLOCK_SECONDS = Map.ofEntries(
+            Map.entry("BTC", 600.0), Map.entry("ETH", 12.0), Map.entry("BSC", 3.0),
+            Map.entry("TRX", 3.0), Map.entry("SOL", 0.4), Map.entry("XRP", 4.0),
+            Map.entry("DOGE", 60.0), Map.entry("LTC", 150.0), Map.entry("ARB", 0.25),
+            Map.entry("OP", 2.0), Map.entry("MATIC", 2.0), Map.entry("AVAXC", 2.0),
+            Map.entry("TON", 5.0), Map.entry("APT", 0.5), Map.entry("SUI", 0.5)
+    );
+    private static final double DEFAULT_BLOCK_SECONDS = 15.0;
+
+    /** Red elegida para una ruta: costo en monedas y tiempo estimado hasta el abono. */
+    public record RouteQuote(String network, double fee, long transferSeconds) {}
+
+    private final ExchangeConnector connector;
+    // familia ("bybit", "binance"...) -> moneda -> redes (listas inmutables, reemplazo atómico por venue)
+    private final Map<String, Map<String, List<NetworkInfo>>> catalogue = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> registered = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "withdraw-catalogue");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public WithdrawalCatalogue(ExchangeConnector connector) {
+        this.connector = connector;
+        refresher.scheduleAtFixedRate(this::refreshAll, REFRESH_MS, REFRESH_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // =========================================================================
+    // 🔄 CARGA EN LOTE
+    // =========================================================================
+
+    /** Registra el venue y dispara su carga en segundo plano (idempotente). */
+    public void register(String exchange) {
+        String family = family(exchange);
+        if (registered.putIfAbsent(family, Boolean.TRUE) == null) {
+            refresher.execute(() -> refreshVenue(family));
+        }
+    }
+
+    private void refreshAll() {
+        registered.keySet().forEach(this::refreshVenue);
+    }
+
+    private void refreshVenue(String family) {
+        Map<String, List<NetworkInfo>> fresh = connector.fetchCoinNetworks(family);
+        if (fresh == null || fresh.isEmpty()) {
+            BotLogger.warn("⚠️ Catálogo de redes vacío para " + family + ". Conservando versión anterior.");
+            return;
+        }
+        catalogue.put(family, Map.copyOf(fresh));
+        BotLogger.info("🔗 Catálogo de redes: " + family + " (" + fresh.size() + " monedas)");
+    }
+
+    public boolean isLoaded(String exchange) {
+        return catalogue.containsKey(family(exchange));
+    }
+
+    // =========================================================================
+    // 🧭 CONSULTAS (Memoria pura)
+    // =========================================================================
+
+    /** Red habilitada más barata para mover {@code coin} de origen a destino, o null si no hay ruta. */
+    public RouteQuote cheapest(String fromEx, String toEx, String coin) {
+        List<NetworkInfo> source = networks(fromEx, coin);
+        if (source == null) return null;
+        // Si el destino aún no cargó, asumimos depósito habilitado (el retiro sí lo conocemos)
+        List<NetworkInfo> target = networks(toEx, coin);
+
+        RouteQuote best = null;
+        for (NetworkInfo out : source) {
+            if (!out.withdrawEnabled() || out.withdrawFee() < 0) continue;
+            int confirmations = out.confirmations();
+            if (target != null) {
+                NetworkInfo in = find(target, out.network());
+                if (in == null || !in.depositEnabled()) continue;
+                confirmations = Math.max(confirmations, in.confirmations());
+            }
+            RouteQuote quote = new RouteQuote(out.network(), out.withdrawFee(), estimateSeconds(out.network(), confirmations));
+            if (best == null || isCheaper(quote, best)) best = quote;
+        }
+        return best;
+    }
+
+    /**
+     * Fee de retiro más barato del venue sin importar el destino.
+     * @return -1 si el venue o la moneda no están en el catálogo;
+     *         POSITIVE_INFINITY si ninguna red permite retirar.
+     */
+    public double cheapestWithdrawFee(String exchange, String coin) {
+        List<NetworkInfo> nets = networks(exchange, coin);
+        if (nets == null) return -1.0;
+        double best = Double.POSITIVE_INFINITY;
+        for (NetworkInfo net : nets) {
+            if (net.withdrawEnabled() && net.withdrawFee() >= 0) best = Math.min(best, net.withdrawFee());
+        }
+        return best;
+    }
+
+    /**
+     * @return true si el origen tiene la moneda catalogada (aunque ninguna red esté habilitada).
+     */
+    public boolean isListed(String exchange, String coin) {
+        return networks(exchange, coin) != null;
+    }
+
+    private static boolean isCheaper(RouteQuote a, RouteQuote b) {
+        return a.fee() < b.fee() || (a.fee() == b.fee() && a.transferSeconds() < b.transferSeconds());
+    }
+
+    private static NetworkInfo find(List<NetworkInfo> nets, String network) {
+        for (NetworkInfo n : nets) if (n.network().equals(network)) return n;
+        return null;
+    }
+
+    private List<NetworkInfo> networks(String exchange, String coin) {
+        Map<String, List<NetworkInfo>> venue = catalogue.get(family(exchange));
+        return (venue != null) ? venue.get(coin.toUpperCase()) : null;
+    }
+
+    // =========================================================================
+    // ⏱️ TIEMPOS DE TRANSFERENCIA
+    // =========================================================================
+
+    /** Estimación: confirmaciones x tiempo de bloque + procesamiento del venue. */
+    long estimateSeconds(String network, int confirmations) {
+        double block = BLOCK_SECONDS.getOrDefault(network, DEFAULT_BLOCK_SECONDS);
+        return Math.round(Math.max(1, confirmations) * block + VENUE_OVERHEAD_SECONDS);
+    }
+
+    // Las subcuentas de Bybit comparten la configuración de redes de la familia
+    private static String family(String exchange) {
+        String lower = exchange.toLowerCase();
+        return lower.contains("bybit") ? "bybit" : lower;
+    }
+}
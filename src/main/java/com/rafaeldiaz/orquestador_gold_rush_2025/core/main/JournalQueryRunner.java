@@ -0,0 +1,176 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.main;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.CsvAppender;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.OpportunityJournal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * 🔎 CONSULTAS OFFLINE SOBRE EL DIARIO BINARIO (logs/opportunities.gjr)
+ * Mapea el archivo en solo lectura y lo recorre una vez, sin parsear texto.
+ *
+ * <pre>
+ * JournalQueryRunner [hourly|summary|csv salida.csv] [--file f.gjr] [--asset SOL] [--route binance->bybit]
+ *                    [--status EXECUTED] [--from 2025-10-19T08:00] [--to 2025-10-19T20:00]
+ * </pre>
+ * hourly (por defecto): distribución del spread neto (net / capital, %) por ruta y hora.
+ * summary: conteos por estado y motivo. csv: exporta al formato de opportunities.csv.
+ */
+public class JournalQueryRunner {
+
+    public static void main(String[] args) throws IOException {
+        String command = "hourly";
+        String output = null;
+        String file = OpportunityJournal.DEFAULT_FILE;
+        Predicate<OpportunityJournal.Cursor> filter = c -> true;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "hourly", "summary" -> command = arg;
+                case "csv" -> {
+                    command = arg;
+                    output = args[++i];
+                }
+                case "--file" -> file = args[++i];
+                case "--asset" -> { String v = args[++i]; filter = filter.and(c -> c.asset().equals(v)); }
+                case "--route" -> { String v = args[++i]; filter = filter.and(c -> c.route().equals(v)); }
+                case "--status" -> { String v = args[++i]; filter = filter.and(c -> c.status().equals(v)); }
+                case "--from" -> { long v = epochMillis(args[++i]); filter = filter.and(c -> c.ts() >= v); }
+                case "--to" -> { long v = epochMillis(args[++i]); filter = filter.and(c -> c.ts() < v); }
+                default -> {
+                    System.out.println("❌ Argumento desconocido: " + arg);
+                    return;
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        long visited;
+        try (OpportunityJournal.Reader reader = new OpportunityJournal.Reader(file)) {
+            switch (command) {
+                case "summary" -> {
+                    Map<String, Long> counts = new TreeMap<>();
+                    Predicate<OpportunityJournal.Cursor> f = filter;
+                    visited = reader.forEach(c -> {
+                        if (f.test(c)) counts.merge(c.status() + " / " + c.reason(), 1L, Long::sum);
+                    });
+                    counts.forEach((k, n) -> System.out.printf(Locale.US, "%-40s %,12d%n", k, n));
+                }
+                case "csv" -> visited = exportCsv(reader, filter, Path.of(output));
+                default -> {
+                    Map<String, NetSpreadStats> groups = new TreeMap<>();
+                    visited = hourly(reader, filter, groups);
+                    groups.forEach((key, s) -> System.out.printf(Locale.US,
+                            "%s | n=%,d | media %.4f%% | p50 %.4f%% | p90 %.4f%% | min %.4f%% | max %.4f%%%n",
+                            key, s.count(), s.mean(), s.percentile(0.5), s.percentile(0.9), s.min(), s.max()));
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.US, "🏁 %,d registros en %.2fs (%,.0f reg/s)%n", visited, seconds, visited / Math.max(seconds, 1e-9));
+    }
+
+    /**
+     * Agrupa el spread neto por "yyyy-MM-dd HH:00 | ACTIVO ruta". Solo registros con capital y neto
+     * (los descartes por slippage no tienen neto).
+     * @return registros recorridos
+     */
+    public static long hourly(OpportunityJournal.Reader reader, Predicate<OpportunityJournal.Cursor> filter,
+                              Map<String, NetSpreadStats> groups) throws IOException {
+        StringBuilder key = new StringBuilder(64);
+        return reader.forEach(c -> {
+            double capital = c.capital();
+            double net = c.net();
+            if (!(capital > 0) || Double.isNaN(net) || !filter.test(c)) return;
+            key.setLength(0);
+            LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(c.ts()), ZoneId.systemDefault());
+            key.append(t.toLocalDate()).append(' ');
+            if (t.getHour() < 10) key.append('0');
+            key.append(t.getHour()).append(":00 | ").append(c.asset()).append(' ').append(c.route());
+            groups.computeIfAbsent(key.toString(), k -> new NetSpreadStats()).add(net / capital * 100.0);
+        });
+    }
+
+    private static long exportCsv(OpportunityJournal.Reader reader, Predicate<OpportunityJournal.Cursor> filter,
+                                  Path out) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("Timestamp,Type,Asset,Route,Capital_USDT,Gross_Gap_Pct,Fees_USDT,Net_Profit_USDT,Status,Reason");
+            writer.newLine();
+            StringBuilder row = new StringBuilder(256);
+            IOException[] failure = new IOException[1];
+            long visited = reader.forEach(c -> {
+                if (failure[0] != null || !filter.test(c)) return;
+                row.setLength(0);
+                CsvAppender.appendTimestamp(row, c.ts()).append(',').append(c.strategy()).append(',')
+                        .append(c.asset()).append(',').append(c.route()).append(',');
+                CsvAppender.appendFixed(row, c.capital(), 2).append(',');
+                CsvAppender.appendFixed(row, c.grossPct(), 4).append(',');
+                CsvAppender.appendFixed(row, c.fees(), 4).append(',');
+                CsvAppender.appendFixed(row, c.net(), 4).append(',').append(c.status()).append(',').append(c.reason());
+                try {
+                    writer.append(row).append('\n');
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            return visited;
+        }
+    }
+
+    private static long epochMillis(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Distribución del spread neto (%) con memoria fija: bins de 0.005% en [-2%, +2%] (los extremos
+     * acumulan lo que cae afuera). Percentiles con la resolución del bin; media, mín y máx exactos.
+     */
+    public static final class NetSpreadStats {
+        private static final double LOW = -2.0, BIN = 0.005;
+        private static final int BINS = 800;
+
+        private final long[] bins = new long[BINS];
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+        public void add(double pct) {
+            int b = (int) Math.floor((pct - LOW) / BIN);
+            bins[Math.max(0, Math.min(BINS - 1, b))]++;
+            count++;
+            sum += pct;
+            min = Math.min(min, pct);
+            max = Math.max(max, pct);
+        }
+
+        public long count() { return count; }
+        public double mean() { return count == 0 ? 0 : sum / count; }
+        public double min() { return min; }
+        public double max() { return max; }
+
+        /** Centro del bin que contiene el cuantil q, acotado a [min, max]. */
+        public double percentile(double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int b = 0; b < BINS; b++) {
+                seen += bins[b];
+                if (seen >= Math.max(rank, 1)) return Math.max(min, Math.min(max, LOW + (b + 0.5) * BIN));
+            }
+            return max;
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.main;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.PortfolioHealthManager;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.ExecutionCoordinator;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner.DeepMarketScanner;
+import com.rafaeldiaz.orquestador_gold_rush_2025.execution.InventoryTriangularExecutor;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.RiskManager;
+import com.rafaeldiaz.orquestador_gold_rush_2025.execution.TradeExecutor;
+import com.rafaeldiaz.orquestador_gold_rush_2025.execution.TradeJournal;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.TriangularExecutor;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.MetricsRegistry;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.MetricsServer;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.SystemDiagnostics;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TelegramDispatcher;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.FlightRecorderSupport;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +66,11 @@ public class Main {
             // -----------------------------------------------------------
             // 1. INFRAESTRUCTURA BASE
             // -----------------------------------------------------------
+            // Grabación JFR continua (antes del conector: cubre también el arranque)
+            if (BotConfig.JFR_ENABLED) {
+                FlightRecorderSupport.startContinuous(BotConfig.JFR_MAX_AGE_MIN, BotConfig.JFR_MAX_SIZE_MB);
+            }
+
             // El Coordinador es el semáforo que evita choques entre estrategias
             ExecutionCoordinator coordinator = new ExecutionCoordinator();
             ExchangeConnector connector = new ExchangeConnector();
@@ -63,19 +78,35 @@ public class Main {
             // Scheduler para la estrategia triangular (hilo dedicado para evitar bloqueos)
             ScheduledExecutorService triangularScheduler = Executors.newSingleThreadScheduledExecutor();
 
+            // Métricas locales (Prometheus): latencias tick -> fill incluidas
+            if (BotConfig.METRICS_PORT > 0) {
+                MetricsRegistry.GLOBAL.collector(TradeTrace::writeMetrics);
+                try {
+                    MetricsServer.start(BotConfig.METRICS_HOST, BotConfig.METRICS_PORT, MetricsRegistry.GLOBAL);
+                } catch (IOException e) {
+                    BotLogger.warn("⚠️ Endpoint de métricas no disponible: " + e.getMessage());
+                }
+            }
+
             BotLogger.info("✅ [1/6] Conector Central y Coordinador: ONLINE");
 
             // -----------------------------------------------------------
             // 2. EL CEREBRO FINANCIERO (CFO)
             // -----------------------------------------------------------
-            PortfolioHealthManager cfo = new PortfolioHealthManager(connector);
+            // Saldos compartidos: UN refresco paralelo para CFO, escáner, reportes y bucle triangular
+            AccountSnapshotService snapshots = AccountSnapshotService.shared(connector);
+            snapshots.start();
+            reconcileOpenTrades(snapshots);
+            PortfolioHealthManager cfo = new PortfolioHealthManager(connector, snapshots);
             BotLogger.info("✅ [2/6] CFO (Gestor de Salud): ONLINE");
 
             // -----------------------------------------------------------
             // 3. INICIALIZACIÓN DE COMPONENTES DE SOPORTE
             // -----------------------------------------------------------
-            FeeManager feeManager = new FeeManager(connector);
-            RiskManager riskManager = new RiskManager(BotConfig.SEED_CAPITAL);
+            FeeManager feeManager = FeeManager.shared(connector);
+            RiskManager riskManager = RiskManager.shared(BotConfig.SEED_CAPITAL);
+            // Drawdown a mercado en tiempo real (inventario incluido), no solo por PnL reportado
+            cfo.equity().onDrawdown(riskManager::onMarkToMarket);
 
             // Sistema Espacial (Arbitraje entre Exchanges)
             DeepMarketScanner scanner = new DeepMarketScanner(connector, coordinator);
@@ -114,6 +145,34 @@ public class Main {
                 BotLogger.info("   ✈️ Escuadrón Desplegado: " + accountName);
             }
 
+            // B.2 Modo inventario: stock permanente por cuenta (objetivos y deriva desde .env)
+            Map<String, InventoryTriangularExecutor> inventoryDesks = new HashMap<>();
+            if (BotConfig.TRIANGULAR_INVENTORY_MODE) {
+                var seed = snapshots.current(); // Stock inicial: sin esto el escritorio está vacío hasta el primer rebalanceo
+                for (String accountName : BotConfig.TRIANGULAR_ACCOUNTS) {
+                    InventoryTriangularExecutor desk = new InventoryTriangularExecutor(connector, accountName,
+                            BotConfig.inventoryTargets(accountName), BotConfig.inventoryDriftLimit(accountName));
+                    desk.setDryRun(BotConfig.DRY_RUN);
+                    desk.syncHoldings(seed.balances(accountName), seed.takenAtMs());
+                    inventoryDesks.put(accountName, desk);
+                    TradeExecutor.registerInventoryDesk(desk); // Los triángulos del detector usan este stock
+                    BotLogger.info("   📦 Inventario " + accountName + ": " + BotConfig.inventoryTargets(accountName)
+                            + " | deriva máx " + BotConfig.inventoryDriftLimit(accountName));
+                }
+                // Rebalanceo perezoso en lote: reconcilia con el snapshot y corrige la deriva acumulada
+                triangularScheduler.scheduleAtFixedRate(() -> {
+                    try {
+                        var snap = snapshots.current();
+                        for (InventoryTriangularExecutor desk : inventoryDesks.values()) {
+                            desk.syncHoldings(snap.balances(desk.account()), snap.takenAtMs());
+                            desk.rebalance();
+                        }
+                    } catch (Exception e) {
+                        BotLogger.error("⚠️ Error en rebalanceo de inventario: " + e.getMessage());
+                    }
+                }, 1, BotConfig.INVENTORY_REBALANCE_MIN, TimeUnit.MINUTES);
+            }
+
             BotLogger.info("🌪️ [6/6] Escáner Triangular: CAZANDO");
 
             // C. Bucle de Patrulla Triangular (Cada 5-10 segundos)
@@ -124,7 +183,7 @@ public class Main {
                         if (executor == null) continue;
 
                         // Chequeo de seguridad de saldo mínimo para no saturar API si está vacía
-                        double realBalance = connector.fetchBalance(accountName, "USDT");
+                        double realBalance = snapshots.balance(accountName, "USDT");
                         if (realBalance < 10.0) continue;
 
                         double tradeSize = realBalance * BotConfig.TRADE_SIZE_PERCENT;
@@ -160,4 +219,25 @@ public class Main {
             e.printStackTrace();
         }
     }
+
+    /**
+     * 📒 RECUPERACIÓN TRAS CAÍDA
+     * El diario de operaciones ya se reconstruyó (snapshot + cola); aquí se cruza con UNA lectura
+     * en lote de todas las cuentas. Lo resuelto se cierra solo; lo que sigue en la cuenta se avisa.
+     */
+    private static void reconcileOpenTrades(AccountSnapshotService snapshots) {
+        TradeJournal journal = TradeJournal.shared();
+        if (journal.openTrades().isEmpty()) return;
+        List<String> pending = journal.reconcile(snapshots.refresh());
+        if (pending.isEmpty()) {
+            BotLogger.info("📒 Diario de operaciones conciliado: sin posiciones colgadas.");
+            return;
+        }
+        StringBuilder alert = new StringBuilder("💀 OPERACIONES PENDIENTES TRAS REINICIO (" + pending.size() + ")");
+        for (String p : pending) {
+            BotLogger.warn("📒 Pendiente: " + p);
+            alert.append("\n").append(p);
+        }
+        BotLogger.sendTelegram(TelegramDispatcher.Priority.CRITICAL, alert.toString());
+    }
 }
\ No newline at end of file
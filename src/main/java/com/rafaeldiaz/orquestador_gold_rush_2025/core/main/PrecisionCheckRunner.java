@@ -1,19 +1,16 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.main;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
-import java.text.DecimalFormat;
-
 /**
  * 📏 DIAGNÓSTICO DE PRECISIÓN (V2: COBERTURA TOTAL)
  * Verifica Binance, Bybit, MEXC y KuCoin.
  */
 public class PrecisionCheckRunner {
 
-    // Variable estática para uso global
-    private static final DecimalFormat df = new DecimalFormat("0.00000000");
-
     public static void main(String[] args) {
         BotLogger.info("🔬 INICIANDO DIAGNÓSTICO DE CALIBRACIÓN (FULL SPECTRUM)...");
 
@@ -52,33 +49,27 @@ public class PrecisionCheckRunner {
             return;
         }
 
-        // 2. Obtener StepSize (La prueba de fuego)
-        double stepSize = connector.getStepSize(exchange, pair);
-        System.out.println("   📏 StepSize (Regla del Exchange): " + df.format(stepSize));
+        // 2. Obtener reglas del instrumento (La prueba de fuego)
+        InstrumentRules rules = connector.getInstrumentRules(exchange, pair);
+        FixedDecimal step = rules.qtyStep();
+        System.out.println("   📏 StepSize (Regla del Exchange): " + step + " | Tick: " + rules.tickSize());
 
         // 3. Simular Cálculo
         double rawQty = capital / price;
         System.out.println("   🧮 Cantidad Cruda: " + rawQty);
 
-        // 4. Normalizar
-        double normalizedQty = normalizeQuantity(rawQty, stepSize);
-        System.out.println("   ✅ Cantidad Normalizada: " + df.format(normalizedQty));
+        // 4. Normalizar (mismo camino que el ejecutor: punto fijo)
+        FixedDecimal normalizedQty = rules.quantity(rawQty);
+        System.out.println("   ✅ Cantidad Normalizada: " + normalizedQty);
 
-        // 5. Validación
-        double residue = normalizedQty % stepSize;
-        // Tolerancia a error de punto flotante (0.00000001)
-        boolean isClean = residue < 0.00000001 || Math.abs(residue - stepSize) < 0.00000001;
+        // 5. Validación exacta (sin tolerancias de punto flotante)
+        int scale = Math.max(normalizedQty.scale(), step.scale());
+        long residue = step.isZero() ? 0 : normalizedQty.unscaledAt(scale) % step.unscaledAt(scale);
 
-        if (normalizedQty > 0 && isClean) {
+        if (!normalizedQty.isZero() && residue == 0) {
             System.out.println("   🟢 PRUEBA: ÉXITO");
         } else {
-            System.out.println("   🔴 PRUEBA: PELIGRO (Residuo: " + df.format(residue) + ")");
+            System.out.println("   🔴 PRUEBA: PELIGRO (Residuo: " + FixedDecimal.of(residue, scale) + ")");
         }
     }
-
-    private static double normalizeQuantity(double rawQty, double stepSize) {
-        if (stepSize == 0) return rawQty;
-        double steps = Math.floor(rawQty / stepSize);
-        return steps * stepSize;
-    }
 }
\ No newline at end of file
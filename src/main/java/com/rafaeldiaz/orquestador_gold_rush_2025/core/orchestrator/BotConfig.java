@@ -4,7 +4,11 @@ import io.github.cdimascio.dotenv.Dotenv;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
@@ -31,9 +35,24 @@ public class BotConfig {
     public static final double MIN_PROFIT_USDT = Double.parseDouble(dotenv.get("MIN_PROFIT_USDT", "0.05").trim());
     // Latencia de Escaneo
     public static final int SCAN_DELAY = Integer.parseInt(dotenv.get("SCAN_INTERVAL_MS", "3000").trim());
+    // ⏱️ Cadencia adaptativa: SCAN_DELAY es el periodo nominal; el planificador se mueve entre estos topes
+    public static final long SCAN_MIN_INTERVAL_MS = Long.parseLong(dotenv.get("SCAN_MIN_INTERVAL_MS", "500").trim());
+    public static final long SCAN_MAX_INTERVAL_MS = Long.parseLong(dotenv.get("SCAN_MAX_INTERVAL_MS", "15000").trim());
+    // Requests REST por segundo que el escáner puede gastar en cada venue (precios + libros)
+    public static final double SCAN_REQUESTS_PER_SEC = Double.parseDouble(dotenv.get("SCAN_REQUESTS_PER_SEC", "5").trim());
+    // ⏳ Deadline global del ciclo y tope del sub-deadline por venue (el resto se deriva del RTT)
+    public static final long SCAN_CYCLE_DEADLINE_MS = Long.parseLong(dotenv.get("SCAN_CYCLE_DEADLINE_MS", "2500").trim());
+    public static final long SCAN_VENUE_DEADLINE_MS = Long.parseLong(dotenv.get("SCAN_VENUE_DEADLINE_MS", "1500").trim());
 
     //  Frecuencia del reporte
     public static final int REPORT_INTERVAL_MIN = Integer.parseInt(dotenv.get("REPORT_INTERVAL_MIN", "5").trim());
+    // 📈 Endpoint Prometheus local (/metrics). Puerto 0 = desactivado
+    public static final String METRICS_HOST = dotenv.get("METRICS_HOST", "127.0.0.1").trim();
+    public static final int METRICS_PORT = Integer.parseInt(dotenv.get("METRICS_PORT", "9464").trim());
+    // 🔭 Grabación JFR continua (perfil jfr/goldrush.jfc). Buffer circular: edad y tamaño máximos
+    public static final boolean JFR_ENABLED = Boolean.parseBoolean(dotenv.get("JFR_ENABLED", "true").trim());
+    public static final int JFR_MAX_AGE_MIN = Integer.parseInt(dotenv.get("JFR_MAX_AGE_MIN", "30").trim());
+    public static final int JFR_MAX_SIZE_MB = Integer.parseInt(dotenv.get("JFR_MAX_SIZE_MB", "100").trim());
 
     // ✅ NUEVOS CONTROLES CENTRALIZADOS
     // Por defecto 500ms si no está en el .env (Bastante permisivo)
@@ -41,6 +60,12 @@ public class BotConfig {
 
     // Por defecto 1% (0.01) si no está en el .env
     public static final double MAX_SLIPPAGE = Double.parseDouble(dotenv.get("MAX_SLIPPAGE", "0.01").trim());
+    // ⚡ Confirmación de fills: tope del sondeo corto sobre la orden viva (antes: sleep fijo de 200ms + historial)
+    public static final long FILL_WAIT_TIMEOUT_MS = Long.parseLong(dotenv.get("FILL_WAIT_TIMEOUT_MS", "3000").trim());
+    // 🧭 Ruteo espacial multi-venue: reparte compra/venta entre todas las cuentas con libro y saldo
+    public static final boolean SMART_ROUTING = Boolean.parseBoolean(dotenv.get("SMART_ROUTING", "true").trim());
+    // Nocional mínimo por orden hija (por debajo, el venue sale de la ruta)
+    public static final double ROUTER_MIN_CHILD_USDT = Double.parseDouble(dotenv.get("ROUTER_MIN_CHILD_USDT", "10").trim());
 
 
     // 1. Exchanges Activos
@@ -77,12 +102,25 @@ public class BotConfig {
     // ✅ CONFIGURACIÓN DEL FILTRO DE TENDENCIA
     public static final int TREND_EMA_PERIOD = Integer.parseInt(dotenv.get("TREND_EMA_PERIOD", "50").trim());
     public static final String TREND_TIMEFRAME = dotenv.get("TREND_TIMEFRAME", "15m").trim();
+    // 📈 RADAR EN STREAMING: ventana ATR/volatilidad (velas 1m), cadencia de lectura y liquidez mínima 24h
+    public static final int RADAR_ATR_PERIOD = Integer.parseInt(dotenv.get("RADAR_ATR_PERIOD", "14").trim());
+    public static final int RADAR_INTERVAL_SEC = Integer.parseInt(dotenv.get("RADAR_INTERVAL_SEC", "30").trim());
+    public static final double RADAR_MIN_TURNOVER_USD = Double.parseDouble(dotenv.get("RADAR_MIN_TURNOVER_USD", "1000000").trim());
+    // 🌍 RADAR DE UNIVERSO: cadencia (min), requests por venue y ciclo, ritmo máximo por venue y tamaño de la watchlist
+    public static final int RADAR_UNIVERSE_MIN = Integer.parseInt(dotenv.get("RADAR_UNIVERSE_MIN", "5").trim());
+    public static final int RADAR_PROBE_BUDGET = Integer.parseInt(dotenv.get("RADAR_PROBE_BUDGET", "61").trim());
+    public static final double RADAR_REQUESTS_PER_SEC = Double.parseDouble(dotenv.get("RADAR_REQUESTS_PER_SEC", "4").trim());
+    public static final int RADAR_WATCHLIST_SIZE = Integer.parseInt(dotenv.get("RADAR_WATCHLIST_SIZE", "50").trim());
 
     // Método auxiliar para saber fácil si es Espacial
     public static boolean isSpatialStrategy() {
         return "SPATIAL".equalsIgnoreCase(STRATEGY_TYPE);
     }
     public static final int BOOK_DEPTH = Integer.parseInt(dotenv.get("BOOK_DEPTH","20").trim());
+    // 🧮 Matriz espacial: kernel SIMD (Vector API). false = fuerza el kernel escalar
+    // ⚖️ Break-Even: movimiento de precio (fracción) que obliga a recalcular la fila del activo
+    public static final double BREAK_EVEN_PRICE_DRIFT = Double.parseDouble(dotenv.get("BREAK_EVEN_PRICE_DRIFT", "0.02").trim());
+    public static final boolean SPATIAL_VECTORIZED = Boolean.parseBoolean(dotenv.get("SPATIAL_VECTORIZED", "true").trim());
     // ==========================================
     // 🆕 NUEVAS CONFIGURACIONES DE AUTONOMÍA
     // ==========================================
@@ -96,12 +134,53 @@ public class BotConfig {
     public static final List<String> FIXED_ASSETS = parseList("FIXED_ASSETS", "WIF,PEPE");
     public static final List<String> TRIANGULAR_ASSETS = parseList("TRIANGULAR_ASSETS", "SOL,XRP,DOGE");
 
+    // 📦 Modo inventario triangular: SEQUENTIAL (patas en cadena) o INVENTORY (3 patas en paralelo sobre stock)
+    public static final boolean TRIANGULAR_INVENTORY_MODE =
+            dotenv.get("TRIANGULAR_MODE", "SEQUENTIAL").trim().equalsIgnoreCase("INVENTORY");
+    // Cada cuánto se corrige (en lote) la deriva de inventario
+    public static final int INVENTORY_REBALANCE_MIN = Integer.parseInt(dotenv.get("INVENTORY_REBALANCE_MIN", "15").trim());
+
+    /**
+     * Pesos objetivo del inventario (valor en USDT) de una cuenta triangular.
+     * INVENTORY_TARGETS_BYBIT_SUB2=USDT:0.4,SOL:0.2,XRP:0.2,WIF:0.1,PEPE:0.1 (o INVENTORY_TARGETS para todas).
+     * Sin configurar: 50% USDT y el resto repartido entre FIXED_ASSETS y TRIANGULAR_ASSETS.
+     */
+    public static Map<String, Double> inventoryTargets(String account) {
+        String raw = dotenv.get("INVENTORY_TARGETS_" + account.toUpperCase(), dotenv.get("INVENTORY_TARGETS", ""));
+        Map<String, Double> weights = new LinkedHashMap<>();
+        if (raw != null && !raw.isBlank()) {
+            for (String entry : raw.split("\\s*,\\s*")) {
+                String[] kv = entry.split(":");
+                if (kv.length == 2) weights.put(kv[0].trim().toUpperCase(), Double.parseDouble(kv[1].trim()));
+            }
+        }
+        if (weights.isEmpty()) {
+            Set<String> coins = new LinkedHashSet<>(FIXED_ASSETS);
+            coins.addAll(TRIANGULAR_ASSETS);
+            coins.remove("USDT");
+            weights.put("USDT", 0.5);
+            for (String coin : coins) weights.put(coin, 0.5 / coins.size());
+        }
+        double sum = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        weights.replaceAll((coin, w) -> w / sum); // Normalizados: suman 1
+        return weights;
+    }
+
+    /** Deriva tolerada (fracción del valor objetivo) antes de rebalancear: INVENTORY_DRIFT_<CUENTA> o INVENTORY_DRIFT_LIMIT. */
+    public static double inventoryDriftLimit(String account) {
+        return Double.parseDouble(dotenv.get("INVENTORY_DRIFT_" + account.toUpperCase(),
+                dotenv.get("INVENTORY_DRIFT_LIMIT", "0.25")).trim());
+    }
+
     // Parámetros del CFO
     public static final double TRADE_SIZE_PERCENT = Double.parseDouble(dotenv.get("TRADE_SIZE_PERCENT", "0.95").trim());
     public static final double IMBALANCE_TOLERANCE = Double.parseDouble(dotenv.get("IMBALANCE_TOLERANCE", "0.20").trim());
     public static final double EMERGENCY_MIN_PROFIT = Double.parseDouble(dotenv.get("EMERGENCY_MIN_PROFIT", "0.05").trim());
     public static final double NORMAL_MIN_PROFIT = Double.parseDouble(dotenv.get("NORMAL_MIN_PROFIT", "0.40").trim());
     public static final int HEALTH_CHECK_INTERVAL = Integer.parseInt(dotenv.get("HEALTH_CHECK_INTERVAL", "10").trim());
+    // 📸 Snapshots de cuentas: intervalo del refresco compartido y timeout duro por ronda
+    public static final long ACCOUNT_REFRESH_MS = Long.parseLong(dotenv.get("ACCOUNT_REFRESH_MS", "30000").trim());
+    public static final long ACCOUNT_REFRESH_TIMEOUT_MS = Long.parseLong(dotenv.get("ACCOUNT_REFRESH_TIMEOUT_MS", "3000").trim());
 
     // Helper para evitar errores de null en split
     private static List<String> parseList(String key, String defaultVal) {
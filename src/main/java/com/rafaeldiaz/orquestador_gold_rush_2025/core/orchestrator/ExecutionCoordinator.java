@@ -1,82 +1,147 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.LockWaitEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * 🚦 ÁRBITRO DE EJECUCIÓN (v3.1 - Configurable vía DotEnv)
+ * 🚦 ÁRBITRO DE EJECUCIÓN (v4.0 - Candados por cuenta, sin monitor global)
  * Gestiona locks y SALUD OPERATIVA por exchange.
- * Parametrización externa para ajustes en caliente sin recompilación.
+ * Cada cuenta tiene su propio slot: el lease se toma por CAS, la cuarentena se lee de un campo
+ * volátil y los leases zombis los expira una rueda de tiempo en segundo plano. Adquirir cuesta
+ * lo mismo con 2 cuentas que con 50, y dos estrategias sobre cuentas distintas nunca se cruzan.
  */
 public class ExecutionCoordinator {
 
     // NOTA: Las constantes hardcoded se han movido a BotConfig
 
-    // Estado de Locks (Concurrencia)
-    private final Map<String, LockLease> activeLocks = new ConcurrentHashMap<>();
+    // Estado por cuenta (lease + salud + época). El mapa solo se escribe la primera vez que aparece la cuenta.
+    private final Map<String, AccountSlot> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger slotOrder = new AtomicInteger();
+    private final long leaseTimeoutMs;
 
-    // Estado de Salud (Circuit Breaker)
-    private final Map<String, AtomicInteger> failureCounts = new ConcurrentHashMap<>();
-    private final Map<String, Long> quarantineUntil = new ConcurrentHashMap<>();
+    // Validación de Snapshots (épocas lógicas, no reloj de pared)
+    private static final AtomicLong EPOCH_CLOCK = new AtomicLong();
 
-    // Validación de Snapshots
-    private final Map<String, Long> lastAccountUpdate = new ConcurrentHashMap<>();
+    // Rueda compartida por todos los coordinadores: un solo hilo virtual para expirar zombis
+    private static final LeaseWheel WHEEL = new LeaseWheel(100, 256);
 
     // --- ESTRUCTURA INTERNA LOCK ---
-    private static class LockLease {
-        final Thread owner;
-        final long expirationTime;
-        LockLease(Thread owner, long expirationTime) { this.owner = owner; this.expirationTime = expirationTime; }
+    private record LockLease(Thread owner, long expirationTime) {}
+
+    /** Todo lo de una cuenta: el candado (CAS), la cuarentena (volátil) y la época de su última escritura. */
+    private static final class AccountSlot {
+        final String account;
+        final int order; // Orden global de adquisición: evita que dos duales se pisen en sentido contrario
+        final AtomicReference<LockLease> lease = new AtomicReference<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong quarantineUntil = new AtomicLong(); // 0 = sana
+        final AtomicLong lastUpdate = new AtomicLong();
+
+        AccountSlot(String account, int order) {
+            this.account = account;
+            this.order = order;
+        }
+    }
+
+    public ExecutionCoordinator() {
+        this(BotConfig.EXECUTION_LOCK_TIMEOUT_MS);
+    }
+
+    /** @param leaseTimeoutMs vida máxima de un candado antes de considerarse zombi */
+    ExecutionCoordinator(long leaseTimeoutMs) {
+        this.leaseTimeoutMs = leaseTimeoutMs;
     }
 
     /**
      * Intenta adquirir acceso. REVISA SI EL EXCHANGE ESTÁ EN CUARENTENA.
+     * No bloquea nunca: un CAS fallido significa que otra estrategia tiene la cuenta.
      */
-    public synchronized boolean tryAcquireLock(String accountName) {
+    public boolean tryAcquireLock(String accountName) {
+        LockWaitEvent event = LockWaitEvent.start();
+        boolean acquired = acquireLock(accountName);
+        event.end(accountName, acquired);
+        return acquired;
+    }
+
+    private boolean acquireLock(String accountName) {
         long now = System.currentTimeMillis();
+        AccountSlot slot = slot(accountName);
 
         // 1. 🏥 CHEQUEO DE SALUD (Circuit Breaker)
-        if (isInQuarantine(accountName, now)) {
+        if (isInQuarantine(slot, now)) {
             return false; // Bloqueado por fallos previos
         }
 
-        // 2. 🔐 LÓGICA DE LOCK
-        LockLease currentLease = activeLocks.get(accountName);
-        if (currentLease == null) {
-            grantLock(accountName, now);
-            return true;
-        }
+        // 2. 🔐 LÓGICA DE LOCK (los zombis los libera la rueda, no el que llega)
+        return grantLock(slot, now);
+    }
 
-        // ZOMBIE CHECK
-        if (now > currentLease.expirationTime) {
-            BotLogger.error("🧟 ZOMBIE LOCK en " + accountName + ". Rompiendo candado.");
-            grantLock(accountName, now);
-            return true;
-        }
-        return false;
+    public boolean tryAcquireDualLock(String accountA, String accountB) {
+        LockWaitEvent event = LockWaitEvent.start();
+        boolean acquired = acquireDualLock(accountA, accountB);
+        event.end(accountA + "+" + accountB, acquired);
+        return acquired;
     }
 
-    public synchronized boolean tryAcquireDualLock(String accountA, String accountB) {
+    private boolean acquireDualLock(String accountA, String accountB) {
         long now = System.currentTimeMillis();
+        AccountSlot a = slot(accountA);
+        AccountSlot b = slot(accountB);
 
         // Chequeo de Salud Dual
-        if (isInQuarantine(accountA, now) || isInQuarantine(accountB, now)) return false;
+        if (isInQuarantine(a, now) || isInQuarantine(b, now)) return false;
 
-        // Chequeo de Locks
-        if (isLocked(accountA, now) || isLocked(accountB, now)) return false;
+        // Siempre en el mismo orden global: A+B y B+A compiten por el mismo primer candado
+        AccountSlot first = (a.order <= b.order) ? a : b;
+        AccountSlot second = (first == a) ? b : a;
+        if (!grantLock(first, now)) return false;
+        if (first == second) return true;
+        if (grantLock(second, now)) return true;
+        release(first); // Todo o nada
+        return false;
+    }
 
-        grantLock(accountA, now);
-        grantLock(accountB, now);
-        return true;
+    /**
+     * Todo o nada sobre N cuentas (ruteo multi-venue): o se toman todas o ninguna.
+     */
+    public boolean tryAcquireLocks(Collection<String> accounts) {
+        LockWaitEvent event = LockWaitEvent.start();
+        boolean acquired = acquireLocks(accounts);
+        event.end(accounts, acquired);
+        return acquired;
     }
 
-    public synchronized void releaseLock(String accountName) {
-        LockLease currentLease = activeLocks.get(accountName);
-        if (currentLease != null && currentLease.owner == Thread.currentThread()) {
-            activeLocks.remove(accountName);
+    private boolean acquireLocks(Collection<String> accounts) {
+        long now = System.currentTimeMillis();
+        List<AccountSlot> ordered = new ArrayList<>(accounts.size());
+        for (String account : accounts) {
+            AccountSlot slot = slot(account);
+            if (isInQuarantine(slot, now)) return false;
+            if (!ordered.contains(slot)) ordered.add(slot);
+        }
+        ordered.sort(Comparator.comparingInt(s -> s.order));
+        for (int i = 0; i < ordered.size(); i++) {
+            if (!grantLock(ordered.get(i), now)) {
+                for (int j = 0; j < i; j++) release(ordered.get(j));
+                return false;
+            }
         }
+        return true;
+    }
+
+    public void releaseLock(String accountName) {
+        AccountSlot slot = slots.get(accountName);
+        if (slot != null) release(slot);
     }
 
     // =========================================================================
@@ -87,8 +152,8 @@ public class ExecutionCoordinator {
      * Reporta que una operación en este exchange FALLÓ.
      */
     public void reportFailure(String accountName) {
-        AtomicInteger counter = failureCounts.computeIfAbsent(accountName, k -> new AtomicInteger(0));
-        int failures = counter.incrementAndGet();
+        AccountSlot slot = slot(accountName);
+        int failures = slot.failures.incrementAndGet();
 
         // ✅ AHORA USAMOS LA CONFIGURACIÓN DINÁMICA
         BotLogger.warn("⚠️ Fallo operativo en " + accountName + ". Strike " + failures + "/" + BotConfig.CB_MAX_CONSECUTIVE_FAILURES);
@@ -96,7 +161,7 @@ public class ExecutionCoordinator {
         if (failures >= BotConfig.CB_MAX_CONSECUTIVE_FAILURES) {
             // ✅ DURACIÓN DINÁMICA DE LA CUARENTENA
             long releaseTime = System.currentTimeMillis() + BotConfig.CB_QUARANTINE_DURATION_MS;
-            quarantineUntil.put(accountName, releaseTime);
+            slot.quarantineUntil.set(releaseTime);
             BotLogger.error("🚨 CIRCUIT BREAKER ACTIVADO: " + accountName + " en cuarentena temporal.");
         }
     }
@@ -105,8 +170,9 @@ public class ExecutionCoordinator {
      * Reporta que una operación fue EXITOSA. Resetea los contadores.
      */
     public void reportSuccess(String accountName) {
-        if (failureCounts.containsKey(accountName) && failureCounts.get(accountName).get() > 0) {
-            failureCounts.get(accountName).set(0);
+        AccountSlot slot = slots.get(accountName);
+        if (slot != null && slot.failures.get() > 0) {
+            slot.failures.set(0);
         }
     }
 
@@ -114,37 +180,133 @@ public class ExecutionCoordinator {
     // 🕵️ HELPERS
     // =========================================================================
 
-    private boolean isInQuarantine(String account, long now) {
-        Long until = quarantineUntil.get(account);
-        if (until == null) return false;
+    private AccountSlot slot(String account) {
+        AccountSlot slot = slots.get(account); // Camino rápido: la cuenta ya existe
+        return (slot != null) ? slot : slots.computeIfAbsent(account, k -> new AccountSlot(k, slotOrder.incrementAndGet()));
+    }
+
+    private boolean isInQuarantine(AccountSlot slot, long now) {
+        long until = slot.quarantineUntil.get(); // Lectura volátil: sin escrituras en el camino sano
+        if (until == 0) return false;
 
         if (now > until) {
-            // La cuarentena expiró
-            quarantineUntil.remove(account);
-            failureCounts.get(account).set(0);
-            BotLogger.info("🟢 LEVANTANDO CUARENTENA de " + account + ". Bienvenido de vuelta.");
+            // La cuarentena expiró: solo quien gana el CAS la levanta (y lo avisa una vez)
+            if (slot.quarantineUntil.compareAndSet(until, 0)) {
+                slot.failures.set(0);
+                BotLogger.info("🟢 LEVANTANDO CUARENTENA de " + slot.account + ". Bienvenido de vuelta.");
+            }
             return false;
         }
         return true; // Sigue castigado
     }
 
+    /**
+     * Reloj lógico compartido por snapshots y escrituras. Monótono, inmune a saltos del reloj de pared.
+     */
+    public static long nextEpoch() {
+        return EPOCH_CLOCK.incrementAndGet();
+    }
+
+    /**
+     * Registra que la cuenta cambió (trade/transferencia). Todo snapshot con época anterior queda obsoleto.
+     */
     public void markAsDirty(String accountName) {
-        lastAccountUpdate.put(accountName, System.currentTimeMillis());
+        long epoch = nextEpoch();
+        slot(accountName).lastUpdate.accumulateAndGet(epoch, Math::max);
     }
 
-    public boolean isSnapshotStale(String accountName, long snapshotTime) {
-        long lastUpdate = lastAccountUpdate.getOrDefault(accountName, 0L);
-        return lastUpdate > snapshotTime;
+    /**
+     * @param snapshotEpoch época de lectura de la cuenta (AccountSnapshot.epochOf)
+     * @return true si la cuenta se modificó después de ser leída
+     */
+    public boolean isSnapshotStale(String accountName, long snapshotEpoch) {
+        AccountSlot slot = slots.get(accountName);
+        return slot != null && slot.lastUpdate.get() > snapshotEpoch;
     }
 
-    private void grantLock(String account, long now) {
+    private boolean grantLock(AccountSlot slot, long now) {
         // ✅ TIMEOUT DINÁMICO
-        activeLocks.put(account, new LockLease(Thread.currentThread(), now + BotConfig.EXECUTION_LOCK_TIMEOUT_MS));
+        LockLease lease = new LockLease(Thread.currentThread(), now + leaseTimeoutMs);
+        if (!slot.lease.compareAndSet(null, lease)) return false;
+        WHEEL.schedule(slot, lease);
+        return true;
     }
 
-    private boolean isLocked(String account, long now) {
-        LockLease lease = activeLocks.get(account);
-        if (lease == null) return false;
-        return now <= lease.expirationTime;
+    /** Solo el dueño suelta su candado (un lease ajeno o ya expirado no se toca). */
+    private static void release(AccountSlot slot) {
+        LockLease lease = slot.lease.get();
+        if (lease != null && lease.owner() == Thread.currentThread()) {
+            slot.lease.compareAndSet(lease, null);
+        }
+    }
+
+    // =========================================================================
+    // 🧟 RUEDA DE EXPIRACIÓN (zombis fuera del camino de adquisición)
+    // =========================================================================
+
+    /**
+     * Rueda de tiempo hasheada: cada lease cae en la casilla de su vencimiento y un hilo virtual
+     * recorre una casilla por tick. Liberar no la toca (cancelación perezosa: al pasar la rueda,
+     * el lease ya no es el vigente y se descarta). Romper un zombi es un CAS contra ESE lease,
+     * así que nunca pisa a quien tomó la cuenta después.
+     */
+    private static final class LeaseWheel {
+        private record Entry(AccountSlot slot, LockLease lease) {}
+
+        private final long tickMs;
+        private final ConcurrentLinkedQueue<Entry>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        LeaseWheel(long tickMs, int size) {
+            this.tickMs = tickMs;
+            this.buckets = new ConcurrentLinkedQueue[size];
+            for (int i = 0; i < size; i++) buckets[i] = new ConcurrentLinkedQueue<>();
+            Thread.ofVirtual().name("Lease-Wheel").start(this::run);
+        }
+
+        void schedule(AccountSlot slot, LockLease lease) {
+            // Casilla del primer tick POSTERIOR al vencimiento: cuando se visita, el lease ya venció
+            buckets[bucketOf(lease.expirationTime() + tickMs)].add(new Entry(slot, lease));
+        }
+
+        private int bucketOf(long millis) {
+            return (int) Math.floorMod(millis / tickMs, (long) buckets.length);
+        }
+
+        private void run() {
+            long tick = System.currentTimeMillis() / tickMs;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    long sleep = (tick + 1) * tickMs - System.currentTimeMillis();
+                    if (sleep > 0) Thread.sleep(sleep);
+                    long now = System.currentTimeMillis();
+                    // Se recorren todas las casillas vencidas desde el último tick (si el hilo se atrasó)
+                    for (long t = tick + 1; t <= now / tickMs; t++) expire(buckets[(int) Math.floorMod(t, (long) buckets.length)], now);
+                    tick = Math.max(tick + 1, now / tickMs);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    BotLogger.error("⚠️ Error en la rueda de leases: " + e.getMessage());
+                }
+            }
+        }
+
+        private void expire(ConcurrentLinkedQueue<Entry> bucket, long now) {
+            List<Entry> later = null;
+            for (int n = bucket.size(); n > 0; n--) {
+                Entry e = bucket.poll();
+                if (e == null) break;
+                if (e.slot().lease.get() != e.lease()) continue; // Ya liberado: cancelación perezosa
+                if (now <= e.lease().expirationTime()) { // Vence en otra vuelta de la rueda
+                    if (later == null) later = new ArrayList<>();
+                    later.add(e);
+                    continue;
+                }
+                if (e.slot().lease.compareAndSet(e.lease(), null)) {
+                    BotLogger.error("🧟 ZOMBIE LOCK en " + e.slot().account + ". Rompiendo candado.");
+                }
+            }
+            if (later != null) bucket.addAll(later);
+        }
     }
-}
\ No newline at end of file
+}
@@ -47,10 +47,10 @@ public class GoldRushOrchestrator implements MarketListener {
         this.strategies = strategies;
 
         // 1. Inicializamos FeeManager PRIMERO (Crítico para que no sea null)
-        this.feeManager = new FeeManager(connector);
+        this.feeManager = FeeManager.shared(connector);
 
         this.profitCalculator = new ProfitCalculator();
-        this.riskManager = new RiskManager(capital);
+        this.riskManager = RiskManager.shared(capital);
 
         // 2. Inicializamos Executor pasándole AMBOS componentes (Corrección aplicada)
         this.executor = new TradeExecutor(connector, this.feeManager);
@@ -1,6 +1,7 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.ProfitAccountant;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
@@ -14,6 +15,8 @@ public class SchedulerManager {
 
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final ExchangeConnector connector;
+    // Snapshot compartido de saldos (null = lectura directa a la API)
+    private final AccountSnapshotService snapshots;
     private final ProfitAccountant accountant = new ProfitAccountant();
     // Umbral de pobreza (700 USD)
     private static final double MIN_BALANCE_THRESHOLD = 700.0;
@@ -22,7 +25,12 @@ public class SchedulerManager {
     private final Map<String, String> accountUids = new HashMap<>();
 
     public SchedulerManager(ExchangeConnector connector) {
+        this(connector, null);
+    }
+
+    public SchedulerManager(ExchangeConnector connector, AccountSnapshotService snapshots) {
         this.connector = connector;
+        this.snapshots = snapshots;
         loadUids();
     }
 
@@ -76,8 +84,11 @@ public class SchedulerManager {
 
     private double getAndLogBalance(String exchangeId) {
         try {
-            // ¡YA NO HAY DUMMIES! Llamada real a la API
-            double balance = connector.fetchBalance(exchangeId, "USDT");            BotLogger.info(String.format("💰 Balance Check [%s]: $%.2f USDT", exchangeId, balance));
+            // Snapshot compartido si existe; si no, llamada real a la API
+            double balance = (snapshots != null)
+                    ? snapshots.balance(exchangeId, "USDT")
+                    : connector.fetchBalance(exchangeId, "USDT");
+            BotLogger.info(String.format("💰 Balance Check [%s]: $%.2f USDT", exchangeId, balance));
 
             if (balance < MIN_BALANCE_THRESHOLD) {
                 BotLogger.warn("⚠️ ALERTA: Saldo BAJO en " + exchangeId);
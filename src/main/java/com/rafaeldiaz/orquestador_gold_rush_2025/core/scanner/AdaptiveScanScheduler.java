@@ -0,0 +1,278 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ⏱️ PLANIFICADOR ADAPTATIVO DEL ESCANEO
+ * Reemplaza el sleep fijo (SCAN_DELAY) por un periodo recalculado al cerrar cada ciclo:
+ * 1. Volatilidad reciente del spread entre venues (ventana corta vs línea base larga): mercado agitado -> más rápido.
+ * 2. Densidad de oportunidades (cruces de break-even por ciclo): hay presas -> más rápido.
+ * 3. Presupuesto de requests por venue: el periodo nunca baja de lo que el venue más cargado puede pagar.
+ * 4. Duración medida del ciclo: se descuenta del periodo; si lo excede, cuenta como deadline perdido.
+ * Por activo: CALIENTE (cada ciclo), TIBIO (cada 2), FRÍO (cada 4) según su actividad relativa.
+ * Un solo hilo (el bucle del escáner) abre y cierra ciclos; las tareas virtuales solo suman contadores.
+ */
+public class AdaptiveScanScheduler {
+
+    public enum Tier {
+        HOT(1), WARM(2), COLD(4);
+
+        final int every;
+
+        Tier(int every) {
+            this.every = every;
+        }
+    }
+
+    /** Foto de telemetría del planificador. */
+    public record Metrics(long cycles, long missedDeadlines, double cyclesPerMinute, double avgCycleMs,
+                          long lastPeriodMs, double budgetUsagePercent, double volatilityRatio,
+                          double opportunityDensity, int hot, int warm, int cold) {}
+
+    private static final double FAST_ALPHA = 0.2;    // ~5 ciclos
+    private static final double SLOW_ALPHA = 0.02;   // ~50 ciclos (línea base del mercado)
+    private static final double HOT_FRACTION = 0.25; // Cuartil superior de actividad
+    private static final double WARM_FRACTION = 0.5;
+    private static final double HOT_HITS = 0.05;     // Un cruce cada ~20 ciclos basta para vigilarlo de cerca
+    private static final int WARMUP_OBSERVATIONS = 3;
+    private static final double MIN_VOL_RATIO = 0.5;
+    private static final double MAX_VOL_RATIO = 4.0;
+
+    private final long basePeriodMs;
+    private final long minPeriodMs;
+    private final long maxPeriodMs;
+    private final double requestsPerSec;
+
+    private final Map<String, AssetActivity> assets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> cycleRequests = new ConcurrentHashMap<>();
+    private final Map<String, Double> requestsPerCycle = new ConcurrentHashMap<>(); // EWMA por venue
+    private final AtomicInteger cycleOpportunities = new AtomicInteger();
+
+    // Estado del bucle (un solo escritor)
+    private long cycle = 0;
+    private long cycleStartNanos = 0;
+    private double fastVol = Double.NaN;
+    private double slowVol = Double.NaN;
+    private double density = 0.0;
+    private double avgCycleMs = Double.NaN;
+    private double avgIntervalMs = Double.NaN;
+    private long missedDeadlines = 0;
+    private volatile Metrics metrics = new Metrics(0, 0, 0, 0, 0, 0, 1.0, 0, 0, 0, 0);
+
+    public AdaptiveScanScheduler(long basePeriodMs, long minPeriodMs, long maxPeriodMs, double requestsPerSec) {
+        this.minPeriodMs = Math.max(0, minPeriodMs);
+        this.maxPeriodMs = Math.max(this.minPeriodMs, maxPeriodMs);
+        this.basePeriodMs = Math.clamp(basePeriodMs, this.minPeriodMs, this.maxPeriodMs);
+        this.requestsPerSec = Math.max(0.1, requestsPerSec);
+    }
+
+    // =========================================================================
+    // 🔁 CICLO
+    // =========================================================================
+
+    public void beginCycle() {
+        cycle++;
+        cycleStartNanos = System.nanoTime();
+        cycleOpportunities.set(0);
+        cycleRequests.values().forEach(c -> c.set(0));
+    }
+
+    /**
+     * ¿Toca analizar este activo en el ciclo actual? Los tiers se escalonan por hash
+     * para que los fríos no coincidan todos en el mismo ciclo.
+     */
+    public boolean isDue(String asset) {
+        AssetActivity a = assets.get(asset);
+        if (a == null || a.promoted) return true;
+        int every = a.tier.every;
+        return every == 1 || Math.floorMod(cycle + (asset.hashCode() & 0x7fffffff), every) == 0;
+    }
+
+    /**
+     * Señal de mercado del activo en este ciclo.
+     * @param crossSpreadPercent dispersión de precios entre venues (%)
+     * @param price              precio de referencia (para activos en un solo venue)
+     */
+    public void observe(String asset, double crossSpreadPercent, double price) {
+        assets.computeIfAbsent(asset, k -> new AssetActivity()).observe(crossSpreadPercent, price);
+    }
+
+    /** Un filtro de break-even dejó pasar al activo (seguro desde tareas virtuales). */
+    public void recordOpportunity(String asset) {
+        cycleOpportunities.incrementAndGet();
+        assets.computeIfAbsent(asset, k -> new AssetActivity()).hitsThisCycle.incrementAndGet();
+    }
+
+    /** Requests REST gastadas contra un venue (seguro desde tareas virtuales). */
+    public void recordRequests(String exchange, int count) {
+        cycleRequests.computeIfAbsent(venueOf(exchange), k -> new AtomicInteger()).addAndGet(count);
+    }
+
+    /**
+     * Cierra el ciclo: reclasifica activos, recalcula el periodo y devuelve cuánto dormir (ms).
+     */
+    public long endCycle() {
+        double cycleMs = (System.nanoTime() - cycleStartNanos) / 1e6;
+        avgCycleMs = ewma(avgCycleMs, cycleMs, FAST_ALPHA);
+
+        updateMarketState();
+        updateRequestRates();
+        long period = nextPeriodMs();
+        double budgetUsage = budgetUsagePercent(period);
+        int[] tiers = reclassify();
+
+        long delay = Math.round(period - cycleMs);
+        if (delay < 0) {
+            missedDeadlines++;
+            delay = 0;
+        }
+        avgIntervalMs = ewma(avgIntervalMs, cycleMs + delay, FAST_ALPHA);
+
+        metrics = new Metrics(cycle, missedDeadlines,
+                avgIntervalMs > 0 ? 60_000.0 / avgIntervalMs : 0.0, avgCycleMs, period,
+                budgetUsage, volatilityRatio(), density, tiers[0], tiers[1], tiers[2]);
+        return delay;
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    public String summary() {
+        Metrics m = metrics;
+        return String.format("⏱️ Cadencia: %.1f ciclos/min | Periodo: %dms | Ciclo medio: %.0fms | Deadlines perdidos: %d | " +
+                        "Presupuesto: %.0f%% | Vol: x%.2f | Densidad: %.2f | 🔥%d 🌤️%d ❄️%d",
+                m.cyclesPerMinute(), m.lastPeriodMs(), m.avgCycleMs(), m.missedDeadlines(),
+                m.budgetUsagePercent(), m.volatilityRatio(), m.opportunityDensity(), m.hot(), m.warm(), m.cold());
+    }
+
+    // =========================================================================
+    // 🧮 MODELO
+    // =========================================================================
+
+    private void updateMarketState() {
+        double sum = 0;
+        int n = 0;
+        int hits = cycleOpportunities.get();
+        for (AssetActivity a : assets.values()) {
+            a.closeCycle();
+            if (!Double.isNaN(a.vol)) {
+                sum += a.vol;
+                n++;
+            }
+        }
+        if (n > 0) {
+            fastVol = sum / n;
+            slowVol = ewma(slowVol, fastVol, SLOW_ALPHA);
+        }
+        density = density + FAST_ALPHA * (hits - density);
+    }
+
+    private double volatilityRatio() {
+        if (Double.isNaN(fastVol) || Double.isNaN(slowVol) || slowVol <= 0) return 1.0;
+        return Math.clamp(fastVol / slowVol, MIN_VOL_RATIO, MAX_VOL_RATIO);
+    }
+
+    /** periodo = base / (ratioVol × (1 + densidad)), acotado y nunca por debajo del piso de presupuesto. */
+    private long nextPeriodMs() {
+        double factor = volatilityRatio() * (1.0 + density);
+        long period = Math.clamp(Math.round(basePeriodMs / factor), minPeriodMs, maxPeriodMs);
+        return Math.max(period, budgetFloorMs());
+    }
+
+    /** El venue más cargado manda: requests/ciclo ÷ requests/seg = segundos mínimos por ciclo. */
+    private long budgetFloorMs() {
+        double worst = 0;
+        for (double rpc : requestsPerCycle.values()) worst = Math.max(worst, rpc);
+        return (long) Math.ceil(worst / requestsPerSec * 1000.0);
+    }
+
+    private void updateRequestRates() {
+        for (Map.Entry<String, AtomicInteger> e : cycleRequests.entrySet()) {
+            requestsPerCycle.put(e.getKey(),
+                    ewma(requestsPerCycle.getOrDefault(e.getKey(), Double.NaN), e.getValue().get(), FAST_ALPHA));
+        }
+    }
+
+    /** Uso proyectado del venue más cargado al periodo elegido (100% = justo en el límite). */
+    private double budgetUsagePercent(long periodMs) {
+        double worst = 0;
+        for (double rpc : requestsPerCycle.values()) worst = Math.max(worst, rpc);
+        double seconds = Math.max(periodMs, 1) / 1000.0;
+        return worst / seconds / requestsPerSec * 100.0;
+    }
+
+    /** Ranking por actividad: cuartil superior caliente, mitad tibia, resto frío. Nuevos y con cruces: calientes. */
+    private int[] reclassify() {
+        List<Map.Entry<String, AssetActivity>> ranked = new ArrayList<>(assets.entrySet());
+        ranked.sort(Comparator.comparingDouble((Map.Entry<String, AssetActivity> e) -> e.getValue().heat()).reversed());
+        int[] counts = new int[3];
+        for (int i = 0; i < ranked.size(); i++) {
+            AssetActivity a = ranked.get(i).getValue();
+            double rank = (double) i / ranked.size();
+            Tier tier;
+            if (a.observations < WARMUP_OBSERVATIONS || a.hits >= HOT_HITS || rank < HOT_FRACTION) tier = Tier.HOT;
+            else if (rank < WARM_FRACTION) tier = Tier.WARM;
+            else tier = Tier.COLD;
+            a.tier = tier;
+            counts[tier.ordinal()]++;
+        }
+        return counts;
+    }
+
+    Tier tierOf(String asset) {
+        AssetActivity a = assets.get(asset);
+        return (a != null) ? a.tier : Tier.HOT;
+    }
+
+    // Las subcuentas de Bybit comparten el límite del venue
+    private static String venueOf(String exchange) {
+        String ex = exchange.toLowerCase();
+        return ex.contains("bybit") ? "bybit" : ex;
+    }
+
+    private static double ewma(double current, double sample, double alpha) {
+        return Double.isNaN(current) ? sample : current + alpha * (sample - current);
+    }
+
+    // =========================================================================
+    // 📊 ACTIVIDAD POR ACTIVO
+    // =========================================================================
+
+    private static final class AssetActivity {
+        final AtomicInteger hitsThisCycle = new AtomicInteger();
+        double lastSpread = Double.NaN;
+        double lastPrice = Double.NaN;
+        double vol = Double.NaN;  // EWMA de |Δspread| + |Δln precio| (puntos %)
+        double hits = 0;          // EWMA de cruces por ciclo
+        int observations = 0;
+        volatile boolean promoted = false;
+        volatile Tier tier = Tier.HOT;
+
+        void observe(double spread, double price) {
+            if (!Double.isNaN(lastSpread) && !Double.isNaN(spread) && lastPrice > 0 && price > 0) {
+                double move = Math.abs(spread - lastSpread) + Math.abs(Math.log(price / lastPrice)) * 100.0;
+                vol = ewma(vol, move, FAST_ALPHA);
+            }
+            lastSpread = spread;
+            lastPrice = price;
+            observations++;
+        }
+
+        void closeCycle() {
+            int h = hitsThisCycle.getAndSet(0);
+            hits = hits + FAST_ALPHA * (h - hits);
+            // Un cruce en un activo que no tocaba: se confirma en el próximo ciclo sin esperar su turno
+            promoted = h > 0;
+        }
+
+        double heat() {
+            return Double.isNaN(vol) ? Double.MAX_VALUE : vol;
+        }
+    }
+}
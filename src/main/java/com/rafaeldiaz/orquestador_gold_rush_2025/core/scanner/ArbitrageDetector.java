@@ -5,6 +5,7 @@ import com.rafaeldiaz.orquestador_gold_rush_2025.connect.MarketStreamer;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.TradeExecutor;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,7 +31,7 @@ public class ArbitrageDetector implements MarketStreamer.PriceListener {
         this.connector = connector;
 
         // 1. Inicializamos FeeManager PRIMERO (Requisito del Executor)
-        this.feeManager = new FeeManager(connector);
+        this.feeManager = FeeManager.shared(connector);
 
         // 2. Inicializamos TradeExecutor pasándole ambas dependencias
         this.executor = new TradeExecutor(connector, this.feeManager);
@@ -38,6 +39,7 @@ public class ArbitrageDetector implements MarketStreamer.PriceListener {
 
     @Override
     public void onPriceUpdate(String exchange, String pair, double price, long timestamp) {
+        long tickNanos = System.nanoTime(); // ⏱️ Origen de la traza si este tick dispara
         // 1. Guardar precio (ej. "PEPEUSDT" -> 0.000015)
         priceCache.put(pair, price);
 
@@ -45,14 +47,14 @@ public class ArbitrageDetector implements MarketStreamer.PriceListener {
         // Asumimos estructura: COIN + USDT (ej. PEPE + USDT)
         if (pair.endsWith("USDT")) {
             String coinA = pair.replace("USDT", ""); // PEPE
-            checkTriangularArbitrage(coinA, price);
+            checkTriangularArbitrage(coinA, price, tickNanos);
         }
     }
 
     /**
      * Evalúa la ruta: USDT -> CoinA -> BTC -> USDT
      */
-    private void checkTriangularArbitrage(String coinA, double priceA_USDT) {
+    private void checkTriangularArbitrage(String coinA, double priceA_USDT, long tickNanos) {
         String coinB = "BTC"; // Pivote estándar (Podría ser ETH o SOL en el futuro)
 
         // Necesitamos 3 precios:
@@ -103,16 +105,27 @@ public class ArbitrageDetector implements MarketStreamer.PriceListener {
         double netPercent = (netProfitUSD / capitalInicial) * 100.0;
 
         // Logueamos el "Pulso" si es interesante
-        BotLogger.info(String.format("🔺 TRIÁNGULO [%s]: Bruto: %.3f%% | Fees: $%.2f | Neto: %.3f%%",
-                coinA, grossPercent, totalFees, netPercent));
+        BotLogger.info("🔺 TRIÁNGULO [%s]: Bruto: %.3f%% | Fees: $%.2f | Neto: %.3f%%",
+                coinA, grossPercent, totalFees, netPercent);
 
         // --- DISPARO ---
         if (netPercent > MIN_NET_PROFIT) {
             BotLogger.warn("🚀 OPORTUNIDAD TRIANGULAR REAL: " + coinA + " Neto: " + netPercent + "%");
 
-            // CORRECCIÓN AQUÍ: Agregamos el exchange "bybit" al inicio
-            // Firma: executeTriangular(String exchange, String asset, String bridge, double capital)
-            executor.executeTriangular("bybit", coinA, coinB, 20.0);
+            // Precios ya validados en caché: el ejecutor no vuelve a consultar el libro
+            TradeTrace trace = TradeTrace.start("TRIANGULAR bybit " + coinA + "/" + coinB, tickNanos)
+                    .mark(TradeTrace.Stage.DETECTED)
+                    .mark(TradeTrace.Stage.VALIDATED);
+            try {
+                TradeTrace.callWith(trace, () -> {
+                    executor.executeTriangular("bybit", coinA, coinB, 20.0, priceA_USDT, priceA_B, priceB_USDT);
+                    return null;
+                });
+            } catch (Exception e) {
+                BotLogger.error("❌ Error en disparo triangular: " + e.getMessage());
+            } finally {
+                trace.finish();
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.function.Function;
+
+/**
+ * ⏳ ABANICOS CON DEADLINE (Structured Concurrency, JDK 25 preview)
+ * Cada llamada corre en su propio hilo virtual con un sub-deadline (por venue) y todas bajo un deadline global.
+ * Lo que no respondió a tiempo se cancela (el interrupt cierra el socket del hilo virtual) y se reporta como tardío:
+ * el ciclo sigue con lo que llegó. Latencia acotada aunque un venue cuelgue hasta el read-timeout.
+ */
+final class DeadlineScope {
+
+    /** Resultado parcial: lo que respondió, lo que llegó tarde y lo que falló. */
+    record Outcome<K, V>(Map<K, V> answered, Set<K> late, Set<K> failed, long elapsedMs) {
+        boolean complete() {
+            return late.isEmpty() && failed.isEmpty();
+        }
+    }
+
+    private enum Status { OK, LATE, FAILED }
+
+    private record Keyed<K, V>(K key, V value, Status status) {}
+
+    private DeadlineScope() {}
+
+    /**
+     * Lanza una llamada por clave y espera hasta el deadline global.
+     * @param subDeadline deadline propio de cada clave (se recorta al global)
+     */
+    static <K, V> Outcome<K, V> fanOut(Map<K, Callable<V>> calls, Duration global,
+                                       Function<K, Duration> subDeadline) throws InterruptedException {
+        long start = System.nanoTime();
+        Collector<K, V> collector = new Collector<>();
+
+        try (var scope = StructuredTaskScope.open(collector, cfg -> cfg.withTimeout(global))) {
+            for (Map.Entry<K, Callable<V>> e : calls.entrySet()) {
+                K key = e.getKey();
+                Duration sub = min(subDeadline.apply(key), global);
+                scope.fork(() -> {
+                    try {
+                        return new Keyed<>(key, within(sub, e.getValue()), Status.OK);
+                    } catch (StructuredTaskScope.TimeoutException late) {
+                        return new Keyed<K, V>(key, null, Status.LATE);
+                    } catch (StructuredTaskScope.FailedException failed) {
+                        return new Keyed<K, V>(key, null, Status.FAILED);
+                    }
+                });
+            }
+            scope.join();
+        } catch (StructuredTaskScope.TimeoutException expired) {
+            // Deadline global: lo pendiente ya fue cancelado al cerrar el scope
+        }
+
+        Map<K, V> answered = new LinkedHashMap<>();
+        Set<K> late = new LinkedHashSet<>();
+        Set<K> failed = new LinkedHashSet<>();
+        for (K key : calls.keySet()) {
+            Keyed<K, V> r = collector.results.get(key);
+            if (r == null || r.status() == Status.LATE) late.add(key);
+            else if (r.status() == Status.FAILED) failed.add(key);
+            else answered.put(key, r.value());
+        }
+        return new Outcome<>(Collections.unmodifiableMap(answered), Collections.unmodifiableSet(late),
+                Collections.unmodifiableSet(failed), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Una llamada bloqueante con deadline propio.
+     * @throws StructuredTaskScope.TimeoutException si no respondió a tiempo
+     * @throws StructuredTaskScope.FailedException  si la llamada lanzó una excepción
+     */
+    static <V> V within(Duration timeout, Callable<V> call) throws InterruptedException {
+        try (var scope = StructuredTaskScope.open(Joiner.<Optional<V>>anySuccessfulResultOrThrow(),
+                cfg -> cfg.withTimeout(timeout))) {
+            scope.fork(() -> Optional.ofNullable(call.call()));
+            return scope.join().orElse(null);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return (a == null || a.compareTo(b) > 0) ? b : a;
+    }
+
+    /** Recolecta cada resultado al completarse: sobrevive al timeout global del scope. */
+    private static final class Collector<K, V> implements Joiner<Keyed<K, V>, Void> {
+        final Map<K, Keyed<K, V>> results = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean onComplete(Subtask<? extends Keyed<K, V>> subtask) {
+            if (subtask.state() == Subtask.State.SUCCESS) {
+                Keyed<K, V> r = subtask.get();
+                results.put(r.key(), r);
+            }
+            return false;
+        }
+
+        @Override
+        public Void result() {
+            return null;
+        }
+    }
+}
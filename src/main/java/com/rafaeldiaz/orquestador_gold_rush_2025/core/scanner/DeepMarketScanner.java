@@ -1,6 +1,10 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService.AccountSnapshot;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.BreakEvenTable;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.EquityEngine;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.GlobalBalanceReporter;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.PortfolioHealthManager;
@@ -8,15 +12,24 @@ import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.ExecutionCoordinator;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.CrossTradeExecutor;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.RiskManager;
+import com.rafaeldiaz.orquestador_gold_rush_2025.execution.SmartOrderRouter;
 import com.rafaeldiaz.orquestador_gold_rush_2025.execution.TradeExecutor;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.LatencyHistogram;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.MetricsRegistry;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.OpportunityJournal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.CacheMissEvent;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr.ScanCycleEvent;
 
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.DoubleAdder;
 import java.util.concurrent.CopyOnWriteArrayList;
 /**
@@ -34,8 +47,11 @@ public class DeepMarketScanner implements MarketListener {
     private final CrossTradeExecutor crossExecutor;
     private static final boolean AUTO_EXECUTE_ENABLED = false;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final ExecutorService virtualExecutor = Executors.newVirtualThreadPerTaskExecutor();
-    private final ExecutorService balanceExecutor = Executors.newFixedThreadPool(4);
+    // ⏳ Ciclo con deadline (Structured Concurrency): el hilo del bucle es dueño de todos los scopes
+    private volatile Thread scanThread;
+    private final Set<String> staleVenues = ConcurrentHashMap.newKeySet();
+    private static final long MIN_VENUE_DEADLINE_MS = 250;
+    private static final int VENUE_DEADLINE_RTT_FACTOR = 4;
     // 🔧 CONFIGURACIÓN CIENTÍFICA
     // Simularemos todos estos escenarios simultáneamente con el mismo Order Book
     private final List<Double> testCapitals;
@@ -46,6 +62,16 @@ public class DeepMarketScanner implements MarketListener {
 
     private final DynamicPairSelector pairSelector;
 
+    // 🧮 MATRIZ ESPACIAL (activos × exchanges, kernel SIMD con fallback escalar)
+    private final SpatialSpreadMatrix spatialMatrix = new SpatialSpreadMatrix(exchanges, BotConfig.SPATIAL_VECTORIZED);
+    // ⚖️ Umbrales de break-even por ruta (se construye con feeManager en el constructor)
+    private final BreakEvenTable breakEvenTable;
+    // ⏱️ Cadencia adaptativa (reemplaza el sleep fijo de SCAN_DELAY)
+    private final AdaptiveScanScheduler scanScheduler = new AdaptiveScanScheduler(
+            BotConfig.SCAN_DELAY, BotConfig.SCAN_MIN_INTERVAL_MS, BotConfig.SCAN_MAX_INTERVAL_MS,
+            BotConfig.SCAN_REQUESTS_PER_SEC);
+    private static final long CADENCE_LOG_MS = 60_000;
+
 
     private final List<String> huntingGrounds = new CopyOnWriteArrayList<>(BotConfig.HUNTING_GROUNDS_SEED);
     private com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.PortfolioHealthManager cfo; // ✅ NUEVO
@@ -54,19 +80,37 @@ public class DeepMarketScanner implements MarketListener {
     // METRICS
     private final DoubleAdder totalPotentialProfit = new DoubleAdder();
     private final AtomicLong tradesCount = new AtomicLong(0);
-    private final Map<String, AtomicLong> rejectionReasons = new ConcurrentHashMap<>();
-    // 💾 CACHÉ DE SALDOS (Persistente entre ciclos)
-    private Map<String, Map<String, Double>> cachedBalances = new ConcurrentHashMap<>();
-    private long lastBalanceUpdate = 0;
+    private final AtomicLongArray rejectionWindow = new AtomicLongArray(Rejection.values().length); // Por ordinal
+
+    // 📈 Métricas Prometheus (handles fijos: el camino caliente solo paga el increment)
+    private static final MetricsRegistry METRICS = MetricsRegistry.GLOBAL
+            .describe("goldrush_scan_cycle_seconds", MetricsRegistry.Type.SUMMARY, "Duración de un ciclo de escaneo completo")
+            .describe("goldrush_opportunities_total", MetricsRegistry.Type.COUNTER, "Oportunidades espaciales por etapa del embudo")
+            .describe("goldrush_rejections_total", MetricsRegistry.Type.COUNTER, "Oportunidades descartadas por causa (monótono, no se limpia con el reporte)")
+            .describe("goldrush_cache_requests_total", MetricsRegistry.Type.COUNTER, "Lecturas de caché por resultado (hit/miss)");
+    private static final LatencyHistogram SCAN_CYCLE = METRICS.summary("goldrush_scan_cycle_seconds");
+    private static final MetricsRegistry.Counter OPP_DETECTED = METRICS.counter("goldrush_opportunities_total", "stage", "detected");
+    private static final MetricsRegistry.Counter OPP_VALIDATED = METRICS.counter("goldrush_opportunities_total", "stage", "validated");
+    private static final MetricsRegistry.Counter OPP_EXECUTED = METRICS.counter("goldrush_opportunities_total", "stage", "executed");
+    private static final MetricsRegistry.Counter BOOK_HIT = METRICS.counter("goldrush_cache_requests_total", "cache", "orderbook", "result", "hit");
+    private static final MetricsRegistry.Counter BOOK_MISS = METRICS.counter("goldrush_cache_requests_total", "cache", "orderbook", "result", "miss");
+
+    /** Causas fijas de descarte: cada una resuelve su contador Prometheus una sola vez. */
+    private enum Rejection {
+        DEADLINE_CICLO, VENUE_TARDIO, LIBRO_TARDIO, BAJO_BREAK_EVEN, LATENCIA_ALTA,
+        SLIPPAGE_BUY, SLIPPAGE_SELL, SLIPPAGE_EXCESIVO, FEES_MATAN_PROFIT, SNAPSHOT_OBSOLETO;
+
+        final MetricsRegistry.Counter counter = METRICS.counter("goldrush_rejections_total", "reason", name());
+    }
+    // 📸 SALDOS: snapshot compartido y versionado (un solo refresco paralelo para todo el bot)
+    private final AccountSnapshotService snapshots;
+    private final EquityEngine equity; // La ronda de precios del ciclo remarca la equidad (gratis)
     // 📚 CACHÉ DE ORDERBOOKS (2 segundos de vida)
     private final Map<String, CachedOrderBook> orderBookCache = new ConcurrentHashMap<>();
+    // Llegada (System.nanoTime) del último lote de precios por venue
+    private final Map<String, Long> priceArrivals = new ConcurrentHashMap<>();
     private static final long ORDERBOOK_TTL_MS = 2000; // 2 segundos por meter en botlogger
     private record CachedOrderBook(ExchangeConnector.OrderBook book, long timestamp) {}
-    // Configuración: Refrescar saldos solo cada 60 segundos si no hay trades
-    private static final long BALANCE_TTL_MS = 60_000;
-
-    // Bandera para forzar actualización inmediata (post-trade)
-    private volatile boolean forceBalanceUpdate = true;
     private final DoubleAdder totalSlippageLoss = new DoubleAdder();
     // 🚀 FORMATOS THREAD-SAFE (Cero bloqueos entre hilos)
     private static final ThreadLocal<DecimalFormat>
@@ -85,15 +129,18 @@ public class DeepMarketScanner implements MarketListener {
         this.connector = connector;
         this.coordinator = coordinator; // Guardamos referencia
 
-        this.feeManager = new FeeManager(connector);
-        PortfolioHealthManager cfo = new PortfolioHealthManager(connector);
+        this.snapshots = AccountSnapshotService.shared(connector);
+        this.equity = EquityEngine.shared(snapshots);
+        this.feeManager = FeeManager.shared(connector);
+        this.breakEvenTable = new BreakEvenTable(feeManager, exchanges, BRIDGE_ASSETS, BotConfig.TEST_CAPITALS);
+        PortfolioHealthManager cfo = new PortfolioHealthManager(connector, snapshots);
         this.pairSelector = new DynamicPairSelector(connector, this, feeManager, cfo);
-        this.balanceReporter = new GlobalBalanceReporter(connector);
+        this.balanceReporter = new GlobalBalanceReporter(snapshots);
 
         // ============================================================
         // 🛡️ ARQUITECTURA DE EJECUCIÓN ESPACIAL
         // ============================================================
-        RiskManager riskPolice = new RiskManager(BotConfig.SEED_CAPITAL);
+        RiskManager riskPolice = RiskManager.shared(BotConfig.SEED_CAPITAL);
 
         // ⚠️ CORRECCIÓN CLAVE: Pasamos 'coordinator', NO 'snapshotTimestamp'
         this.crossExecutor = new CrossTradeExecutor(connector, riskPolice, coordinator);
@@ -116,6 +163,11 @@ public class DeepMarketScanner implements MarketListener {
         // usa esta línea temporalmente para forzar la prueba hoy mismo:
         // this.testCapitals = List.of(10.0, 50.0, 100.0, 150.0, 300.0);
 
+        // 📈 Cadencia y presupuesto del escáner: se leen en el scrape, no en el ciclo
+        METRICS.gauge("goldrush_scan_cycles_per_minute", () -> scanScheduler.metrics().cyclesPerMinute());
+        METRICS.gauge("goldrush_scan_budget_usage_ratio", () -> scanScheduler.metrics().budgetUsagePercent() / 100.0);
+        METRICS.gauge("goldrush_scan_missed_deadlines", () -> scanScheduler.metrics().missedDeadlines());
+        METRICS.gauge("goldrush_trades_executed", tradesCount::get);
 
         // ✅ SHUTDOWN HOOK: Si alguien da Ctrl+C o mata el proceso, se ejecuta esto.
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -141,6 +193,7 @@ public class DeepMarketScanner implements MarketListener {
         //BotLogger.info("🛡️ Modo Fuego Real: " + (!BotConfig.DRY_RUN ? "ACTIVADO 🔥" : "DESACTIVADO (Simulación)"));
 
         printHeader();
+        snapshots.start();  // Calendario único de saldos (todas las cuentas en paralelo)
         if (cfo != null) {
             List<String> autoTargets = cfo.discoverTradableAssets();
             this.updateTargets(autoTargets);
@@ -158,19 +211,33 @@ public class DeepMarketScanner implements MarketListener {
                 BotConfig.REPORT_INTERVAL_MIN,
                 TimeUnit.MINUTES
         );
+        // ⏱️ Distribuciones de latencia por ruta y etapa (logs/latency.csv)
+        scheduler.scheduleAtFixedRate(() -> {
+            TradeTrace.report();
+            TradeTrace.exportCsv();
+        }, BotConfig.REPORT_INTERVAL_MIN, BotConfig.REPORT_INTERVAL_MIN, TimeUnit.MINUTES);
 
-        Thread.ofVirtual().start(() -> {
+        scanThread = Thread.ofVirtual().name("Omni-Scan").start(() -> {
             long endTime = System.currentTimeMillis() + (durationMinutes * 60 * 1000L);
+            long nextCadenceLog = System.currentTimeMillis() + CADENCE_LOG_MS;
 
             while (System.currentTimeMillis() < endTime) {
 
                 // 3. Ejecutamos el escaneo normal
+                scanScheduler.beginCycle();
+                long cycleStart = System.nanoTime();
                 scanFullMatrixBatchOptimized();
+                SCAN_CYCLE.record(System.nanoTime() - cycleStart);
+                long delay = scanScheduler.endCycle();
 
+                if (System.currentTimeMillis() >= nextCadenceLog) {
+                    BotLogger.info(scanScheduler.summary());
+                    nextCadenceLog = System.currentTimeMillis() + CADENCE_LOG_MS;
+                }
 
                 try {
-                    // 5. Inyectamos el delay
-                    Thread.sleep(BotConfig.SCAN_DELAY);
+                    // 5. Delay adaptativo (volatilidad, oportunidades, presupuesto y duración del ciclo)
+                    if (delay > 0) Thread.sleep(delay);
                 } catch (InterruptedException e) {
                     break;
                 }
@@ -180,18 +247,53 @@ public class DeepMarketScanner implements MarketListener {
     }
     // ✅ 2. ACTUALIZAR ESTE MÉTODO (Aquí nace el timestamp)
     private void scanFullMatrixBatchOptimized() {
-        refreshBalancesResult(); // 1. Actualizar caché
+        // 🔭 JFR: el ciclo completo con sus fases (los campos son primitivos: gratis si no se graba)
+        ScanCycleEvent event = new ScanCycleEvent();
+        event.begin();
+        try {
+            scanCycle(event);
+        } finally {
+            event.commit();
+        }
+    }
 
-        Map<String, Map<String, Double>> marketData = new ConcurrentHashMap<>();
+    private void scanCycle(ScanCycleEvent event) {
+        // 1. Saldos: snapshot inmutable (la época viaja hasta la validación pre-ejecución)
+        AccountSnapshot balanceSnapshot = snapshots.current();
 
-        // ⏰ TIMESTAMP DE NACIMIENTO (Runtime)
-        long snapshotTimestamp = System.currentTimeMillis();
+        // ⏳ Deadline global del ciclo; cada venue con su sub-deadline (derivado de su RTT)
+        long cycleStart = System.nanoTime();
+        Duration cycleDeadline = Duration.ofMillis(BotConfig.SCAN_CYCLE_DEADLINE_MS);
 
-        exchanges.parallelStream().forEach(ex -> {
-            try {
+        Map<String, Callable<Map<String, Double>>> priceCalls = new LinkedHashMap<>();
+        for (String ex : exchanges) {
+            priceCalls.put(ex, () -> {
+                scanScheduler.recordRequests(ex, 1);
                 Map<String, Double> prices = connector.fetchAllPrices(ex);
-                if (!prices.isEmpty()) marketData.put(ex, prices);
-            } catch (Exception e) { /* Silent fail */ }
+                priceArrivals.put(ex, System.nanoTime()); // ⏱️ Tick: origen de las trazas de latencia
+                return prices;
+            });
+        }
+        DeadlineScope.Outcome<String, Map<String, Double>> priceRound;
+        try {
+            priceRound = DeadlineScope.fanOut(priceCalls, cycleDeadline, ex -> venueDeadline(ex, cycleDeadline));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        updateVenueHealth(priceRound);
+        long pricesDone = System.nanoTime();
+        event.pricesNanos = pricesDone - cycleStart;
+        event.venuesAnswered = priceRound.answered().size();
+        event.venuesLate = priceRound.late().size();
+
+        // El ciclo sigue con los venues que respondieron; los tardíos quedan fuera (obsoletos)
+        Map<String, Map<String, Double>> marketData = new ConcurrentHashMap<>();
+        priceRound.answered().forEach((ex, prices) -> {
+            if (prices != null && !prices.isEmpty()) {
+                marketData.put(ex, prices);
+                equity.onPrices(prices);
+            }
         });
 
         if (marketData.isEmpty()) {
@@ -199,79 +301,184 @@ public class DeepMarketScanner implements MarketListener {
             return;
         }
 
+        // 📐 Universo del ciclo (índices estables para matriz y tabla de break-even)
+        List<String> universe = List.copyOf(huntingGrounds);
+        if (!breakEvenTable.sameUniverse(universe)) {
+            breakEvenTable.resize(universe);
+            spatialMatrix.resize(universe);
+        }
+
+        // ⏱️ Señal de actividad por activo (gratis: sale del lote de precios)
+        for (String asset : universe) observeActivity(asset, marketData);
+
+        // 1. Barrido espacial: UN solo pase SIMD sobre toda la matriz activos × exchanges
+        boolean spatial = BotConfig.isSpatialStrategy();
+        if (spatial) {
+            spatialMatrix.load(marketData);
+            spatialMatrix.compute();
+        }
+
+        // 2. ⚖️ Break-even: solo recalcula lo que cambió (fees / directivas CFO / precio)
+        if (breakEvenTable.refresh(cfo, marketData, spatial ? spatialMatrix::minAsk : a -> 0.0) && spatial) {
+            syncSpatialFees();
+            spatialMatrix.compute();
+        }
+
+        long computeDone = System.nanoTime();
+        event.computeNanos = computeDone - pricesDone;
+
         List<Callable<Void>> tasks = new ArrayList<>();
-        for (String asset : huntingGrounds) {
+
+        // 3. Estrategia Espacial: solo los candidatos que pagan el break-even generan tareas (I/O de OrderBook)
+        if (spatial) {
+            collectSpatialCandidates(balanceSnapshot, tasks);
+        }
+
+        // 4. Estrategia Triangular (por activo y exchange)
+        for (int a = 0; a < universe.size(); a++) {
+            final int assetIdx = a;
+            if (!scanScheduler.isDue(universe.get(a))) continue; // Activo frío: espera su turno
             tasks.add(() -> {
-                // ➡️ Pasamos el timestamp hacia abajo
-                analyzeAssetInMemory(asset, marketData, cachedBalances, snapshotTimestamp);
+                analyzeAssetInMemory(assetIdx, universe.get(assetIdx), marketData);
                 return null;
             });
         }
-        try { virtualExecutor.invokeAll(tasks); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        // 5. Validaciones bajo lo que queda del deadline: las que no terminan se cancelan
+        Duration remaining = cycleDeadline.minusNanos(System.nanoTime() - cycleStart);
+        if (remaining.isNegative()) remaining = Duration.ZERO;
+        Map<Integer, Callable<Void>> indexed = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) indexed.put(i, tasks.get(i));
+        try {
+            Duration budget = remaining;
+            DeadlineScope.Outcome<Integer, Void> done = DeadlineScope.fanOut(indexed, budget, k -> budget);
+            event.tasks = tasks.size();
+            event.tasksLate = done.late().size();
+            event.validationNanos = System.nanoTime() - computeDone;
+            if (!done.late().isEmpty()) {
+                reject(Rejection.DEADLINE_CICLO, done.late().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void analyzeAssetInMemory(String asset, Map<String, Map<String, Double>> marketData,
-                                      Map<String, Map<String, Double>> balanceSnapshot, long snapshotTimestamp) {
+    /** Sub-deadline por venue: múltiplo de su RTT medido, acotado por SCAN_VENUE_DEADLINE_MS y el global. */
+    private Duration venueDeadline(String exchange, Duration cycleDeadline) {
+        long rtt = connector.getRTT(exchange);
+        long ms = (rtt > 0)
+                ? Math.clamp(rtt * VENUE_DEADLINE_RTT_FACTOR, MIN_VENUE_DEADLINE_MS, BotConfig.SCAN_VENUE_DEADLINE_MS)
+                : BotConfig.SCAN_VENUE_DEADLINE_MS;
+        return Duration.ofMillis(Math.min(ms, cycleDeadline.toMillis()));
+    }
 
-        // 1. Estrategia Espacial (Mantiene tu configuración actual)
-        if (BotConfig.isSpatialStrategy()) {
-            analyzeSpatialSpread(asset, marketData, balanceSnapshot, snapshotTimestamp);
+    /** Marca venues tardíos como obsoletos (aviso solo en la transición) y registra su recuperación. */
+    private void updateVenueHealth(DeadlineScope.Outcome<String, Map<String, Double>> round) {
+        for (String ex : exchanges) {
+            boolean answered = round.answered().containsKey(ex);
+            if (!answered && staleVenues.add(ex)) {
+                String why = round.late().contains(ex) ? "sin respuesta en su deadline" : "error de lectura";
+                BotLogger.warn("🐢 VENUE OBSOLETO: " + ex + " (" + why + "). El ciclo sigue sin él.");
+            } else if (answered && staleVenues.remove(ex)) {
+                BotLogger.info("✅ VENUE RECUPERADO: " + ex);
+            }
+        }
+        if (!round.late().isEmpty()) {
+            reject(Rejection.VENUE_TARDIO, round.late().size());
         }
+    }
 
-        // 2. Estrategia Triangular (ACTIVADA DIRECTAMENTE)
-        // Iteramos sobre cada exchange para buscar oportunidades internas
-        marketData.forEach((exchange, prices) -> {
-            // Solo analizamos si el exchange tiene precio para el par base (ej: BTCUSDT)
-            if (prices.containsKey(asset + "USDT")) {
-                analyzeTriangularLoop(exchange, asset, prices);
-            }
-        });
+    public Set<String> getStaleVenues() {
+        return Set.copyOf(staleVenues);
     }
-    // 🌍 LÓGICA DE DETECCIÓN ESPACIAL (NUEVO MOTOR)
-    private void analyzeSpatialSpread(String asset, Map<String, Map<String, Double>> marketData,
-                                      Map<String, Map<String, Double>> balanceSnapshot, long snapshotTimestamp) {
 
-        // ✅ 1. CORRECCIÓN: Definimos la variable 'pair' que faltaba
+    /** Dispersión entre venues (%) y precio de referencia del activo, para el planificador. */
+    private void observeActivity(String asset, Map<String, Map<String, Double>> marketData) {
         String pair = asset + "USDT";
+        double min = Double.MAX_VALUE, max = 0;
+        for (Map<String, Double> prices : marketData.values()) {
+            Double p = prices.get(pair);
+            if (p == null || p <= 0) continue;
+            min = Math.min(min, p);
+            max = Math.max(max, p);
+        }
+        if (max <= 0) return;
+        scanScheduler.observe(asset, (max - min) / min * 100.0, max);
+    }
 
-        String bestBuyEx = null;
-        double minAsk = Double.MAX_VALUE;
-
-        String bestSellEx = null;
-        double maxBid = -1.0;
-
-        // 1. Barrido: Buscar precio mínimo (Ask) y máximo (Bid)
-        for (String ex : exchanges) {
-            Map<String, Double> prices = marketData.get(ex);
+    private void analyzeAssetInMemory(int assetIdx, String asset, Map<String, Map<String, Double>> marketData) {
+        // Estrategia Triangular (ACTIVADA DIRECTAMENTE)
+        // Iteramos sobre cada exchange para buscar oportunidades internas
+        for (int e = 0; e < exchanges.size(); e++) {
+            Map<String, Double> prices = marketData.get(exchanges.get(e));
+            // Solo analizamos si el exchange tiene precio para el par base (ej: BTCUSDT)
+            if (prices != null && prices.containsKey(asset + "USDT")) {
+                analyzeTriangularLoop(e, assetIdx, asset, prices);
+            }
+        }
+    }
 
-            // Ahora 'pair' ya existe y no dará error
-            if (prices == null || !prices.containsKey(pair)) continue;
+    // 🌍 LÓGICA DE DETECCIÓN ESPACIAL (MOTOR MATRICIAL)
+    private void collectSpatialCandidates(AccountSnapshot balanceSnapshot,
+                                          List<Callable<Void>> tasks) {
+        List<SpatialCandidate> candidates = new ArrayList<>();
+        for (int a = 0; a < spatialMatrix.size(); a++) {
+            // ⏱️ Tiering ANTES de detectar (como el triangular): un cruce detectado se valida en este mismo ciclo
+            String assetName = spatialMatrix.asset(a);
+            if (!scanScheduler.isDue(assetName)) continue; // Activo frío: espera su turno
+            int buyIdx = spatialMatrix.bestBuy(a);
+            int sellIdx = spatialMatrix.bestSell(a);
+            if (buyIdx < 0 || sellIdx < 0 || buyIdx == sellIdx) continue;
+
+            // ⚖️ UNA comparación: spread bruto vs break-even de la ruta (incluye MIN_SCAN_SPREAD). NaN nunca pasa.
+            double gross = spatialMatrix.grossSpread(a);
+            double threshold = breakEvenTable.spatialThreshold(a, buyIdx, sellIdx);
+            if (!(gross > threshold)) {
+                if (gross > BotConfig.MIN_SCAN_SPREAD) {
+                    reject(Rejection.BAJO_BREAK_EVEN, 1);
+                }
+                continue;
+            }
 
-            double price = prices.get(pair);
+            scanScheduler.recordOpportunity(assetName); // El cruce calienta el activo
 
-            // Simulamos Ask/Bid (Refinamiento posterior con OrderBook)
-            double estimatedAsk = price;
-            double estimatedBid = price;
+            // 🔄 Rotación de capital: exceso sobre break-even por hora de reposición (red más barata)
+            long seconds = breakEvenTable.spatialTransferSeconds(a, buyIdx, sellIdx);
+            double hours = (seconds > 0) ? seconds / 3600.0 : 1.0;
+            candidates.add(new SpatialCandidate(a, buyIdx, sellIdx, (gross - threshold) / hours));
+        }
 
-            if (estimatedAsk < minAsk) {
-                minAsk = estimatedAsk;
-                bestBuyEx = ex;
-            }
-            if (estimatedBid > maxBid) {
-                maxBid = estimatedBid;
-                bestSellEx = ex;
-            }
+        // Las rutas que rotan el capital más rápido se validan (y bloquean cuentas) primero
+        candidates.sort(Comparator.comparingDouble(SpatialCandidate::turnoverScore).reversed());
+        for (SpatialCandidate c : candidates) {
+            String asset = spatialMatrix.asset(c.asset());
+            String buyEx = spatialMatrix.exchange(c.buy());
+            String sellEx = spatialMatrix.exchange(c.sell());
+            double minAsk = spatialMatrix.minAsk(c.asset());
+            // ⏱️ La traza nace con el tick más reciente de las dos patas y viaja con la validación
+            OPP_DETECTED.inc();
+            TradeTrace trace = TradeTrace.start("SPATIAL " + buyEx + "->" + sellEx,
+                            Math.max(priceArrivals.getOrDefault(buyEx, 0L), priceArrivals.getOrDefault(sellEx, 0L)))
+                    .mark(TradeTrace.Stage.DETECTED);
+            tasks.add(() -> {
+                try {
+                    return TradeTrace.callWith(trace, () -> {
+                        validateSpatialOpportunity(asset, buyEx, sellEx, minAsk, balanceSnapshot);
+                        return null;
+                    });
+                } finally {
+                    trace.finish();
+                }
+            });
         }
+    }
 
-        // 2. Validación Básica
-        if (bestBuyEx != null && bestSellEx != null && !bestBuyEx.equals(bestSellEx)) {
-            // Diferencia Bruta
-            double spread = (maxBid - minAsk) / minAsk;
+    private record SpatialCandidate(int asset, int buy, int sell, double turnoverScore) {}
 
-            // Filtro Rápido (.env)
-            if (spread > BotConfig.MIN_SCAN_SPREAD) {
-                // ✅ 2. CORRECCIÓN: Pasamos el 6to argumento (snapshotTimestamp)
-                validateSpatialOpportunity(asset, bestBuyEx, bestSellEx, minAsk, balanceSnapshot, snapshotTimestamp);
+    /** Copia a la matriz los fees taker que la tabla de break-even acaba de recargar. */
+    private void syncSpatialFees() {
+        for (int a = 0; a < spatialMatrix.size(); a++) {
+            for (int e = 0; e < exchanges.size(); e++) {
+                spatialMatrix.setFee(a, e, breakEvenTable.takerFee(a, e));
             }
         }
     }
@@ -280,8 +487,7 @@ public class DeepMarketScanner implements MarketListener {
     // -------------------------------------------------------------------------
     private void validateSpatialOpportunity(String asset, String buyEx, String sellEx,
                                             double basePrice,
-                                            Map<String, Map<String, Double>> balanceSnapshot,
-                                            long snapshotTimestamp) {
+                                            AccountSnapshot balanceSnapshot) {
         try {
             String pair = asset + "USDT";
 
@@ -299,7 +505,7 @@ public class DeepMarketScanner implements MarketListener {
             long rttB = connector.getRTT(sellEx);
             if (rttA > BotConfig.MAX_LATENCY_MS || rttB > BotConfig.MAX_LATENCY_MS) {
                 // Registramos rechazo una vez y salimos, ahorrando 4 iteraciones
-                rejectionReasons.computeIfAbsent("LATENCIA_ALTA", k -> new AtomicLong()).incrementAndGet();
+                reject(Rejection.LATENCIA_ALTA, 1);
                 return;
             }
 
@@ -313,7 +519,7 @@ public class DeepMarketScanner implements MarketListener {
                 // Sobrecargamos simulateSpatialScenario para aceptar fees y rtt pre-calculados
                 simulateSpatialScenarioOptimized(asset, buyEx, sellEx, testCap,
                         bookBuy, bookSell, basePrice,
-                        balanceSnapshot, snapshotTimestamp,
+                        balanceSnapshot,
                         feeBuy, feeSell); // <--- Pasamos los datos ya masticados
             }
 
@@ -324,8 +530,7 @@ public class DeepMarketScanner implements MarketListener {
     private void simulateSpatialScenario(String asset, String buyEx, String sellEx, double cap,
                                          ExchangeConnector.OrderBook bookBuy, ExchangeConnector.OrderBook bookSell,
                                          double tickerPrice,
-                                         Map<String, Map<String, Double>> balanceSnapshot,
-                                         long snapshotTimestamp) {
+                                         AccountSnapshot balanceSnapshot) {
         // =====================================================================
         // 1. 👮 CONSULTA AL CFO (Inteligencia de Enjambre)
         // =====================================================================
@@ -346,10 +551,7 @@ public class DeepMarketScanner implements MarketListener {
         // =====================================================================
         // 2. ⛽ CHEQUEO DE COMBUSTIBLE EN RAM (Zero-Latency)
         // =====================================================================
-        double realBalanceUsdt = 0.0;
-        if (balanceSnapshot != null && balanceSnapshot.containsKey(buyEx)) {
-            realBalanceUsdt = balanceSnapshot.get(buyEx).getOrDefault("USDT", 0.0);
-        }
+        double realBalanceUsdt = (balanceSnapshot != null) ? balanceSnapshot.balance(buyEx, "USDT") : 0.0;
 
         // Filtro rápido de pobreza
         if (realBalanceUsdt < BotConfig.MIN_ASSET_VALUE_USDT) return;
@@ -364,7 +566,7 @@ public class DeepMarketScanner implements MarketListener {
         long rttA = connector.getRTT(buyEx);
         long rttB = connector.getRTT(sellEx);
         if (rttA > BotConfig.MAX_LATENCY_MS || rttB > BotConfig.MAX_LATENCY_MS) {
-            rejectionReasons.computeIfAbsent("LATENCIA_ALTA", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.LATENCIA_ALTA, 1);
             return;
         }
 
@@ -372,14 +574,14 @@ public class DeepMarketScanner implements MarketListener {
         double qtyAsset = effectiveCap / tickerPrice;
         double realBuyPrice = connector.calculateWeightedPrice(bookBuy, "BUY", qtyAsset);
         if (realBuyPrice == 0 || (realBuyPrice/tickerPrice) > (1.0 + BotConfig.MAX_SLIPPAGE)) {
-            rejectionReasons.computeIfAbsent("SLIPPAGE_BUY", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.SLIPPAGE_BUY, 1);
             return;
         }
 
         // C. Slippage Venta
         double realSellPrice = connector.calculateWeightedPrice(bookSell, "SELL", qtyAsset);
         if (realSellPrice == 0 || (realSellPrice/tickerPrice) < (1.0 - BotConfig.MAX_SLIPPAGE)) {
-            rejectionReasons.computeIfAbsent("SLIPPAGE_SELL", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.SLIPPAGE_SELL, 1);
             return;
         }
 
@@ -409,14 +611,19 @@ public class DeepMarketScanner implements MarketListener {
                 // 🚦 SEMÁFORO: Pedimos permiso al Coordinador
                 if (coordinator != null && coordinator.tryAcquireDualLock(buyEx, sellEx)) {
                     try {
+                        // 🕰️ Época: si alguna cuenta se movió después de leerse, el saldo en RAM no vale
+                        if (isStale(balanceSnapshot, buyEx, sellEx)) {
+                            reject(Rejection.SNAPSHOT_OBSOLETO, 1);
+                            return;
+                        }
                         BotLogger.warn("🚀 EJECUTANDO SECUENCIA ESPACIAL [Cap: $" + effectiveCap + "]");
 
                         // Pasamos Snapshot Y Timestamp para validación final de 'stale data'
                         crossExecutor.executeCrossTrade(buyEx, sellEx, asset + "USDT",
                                 qtyAsset, realBuyPrice, realSellPrice);
 
-                        // Forzamos actualización inmediata de saldos
-                        this.forceBalanceUpdate = true;
+                        // Invalidamos las cuentas tocadas y pedimos refresco inmediato de saldos
+                        markAccountsDirty(buyEx, sellEx);
 
                         // Incrementamos contador para frenar otros trades en este ciclo de escaneo
                         tradesCount.incrementAndGet();
@@ -451,14 +658,16 @@ public class DeepMarketScanner implements MarketListener {
         }
     }
     // 📐 LÓGICA DE DETECCIÓN TRIANGULAR (CON TELEMETRÍA)
-    private void analyzeTriangularLoop(String exchange, String asset, Map<String, Double> prices) {
+    private void analyzeTriangularLoop(int exchangeIdx, int assetIdx, String asset, Map<String, Double> prices) {
+        String exchange = exchanges.get(exchangeIdx);
         String pair1 = asset + "USDT";
         Double price1 = prices.get(pair1);
 
         // Si no hay precio base en USDT, no podemos empezar
         if (price1 == null) return;
 
-        for (String bridge : BRIDGE_ASSETS) {
+        for (int b = 0; b < BRIDGE_ASSETS.size(); b++) {
+            String bridge = BRIDGE_ASSETS.get(b);
             if (bridge.equals(asset)) continue;
 
             String pair2 = asset + bridge; // Ej: WIFBTC
@@ -484,8 +693,9 @@ public class DeepMarketScanner implements MarketListener {
                             exchange, asset, bridge, theoreticalSpread));
                 }
                 */
-                // Filtro "Portero" Original
-                if (crossRate > (1.0 + BotConfig.MIN_SCAN_SPREAD)) {
+                // Filtro "Portero": break-even del triángulo (fees x3 + profit mínimo, incluye MIN_SCAN_SPREAD)
+                if (crossRate > breakEvenTable.triangularThreshold(exchangeIdx, assetIdx, b)) {
+                    scanScheduler.recordOpportunity(asset);
                     validateTriangularOpportunity(exchange, asset, bridge, price1);
                 }
             } else {
@@ -504,9 +714,11 @@ public class DeepMarketScanner implements MarketListener {
             String pair3 = bridge + "USDT";
 
             // Descargamos Order Books UNA SOLA VEZ (Profundidad 10 para aguantar $3000)
-            ExchangeConnector.OrderBook book1 = connector.fetchOrderBook(exchange, pair1, 20);
-            ExchangeConnector.OrderBook book2 = connector.fetchOrderBook(exchange, pair2, 20);
-            ExchangeConnector.OrderBook book3 = connector.fetchOrderBook(exchange, pair3, 20);
+            scanScheduler.recordRequests(exchange, 3);
+            ExchangeConnector.OrderBook book1 = fetchOrderBookBounded(exchange, pair1, 20);
+            ExchangeConnector.OrderBook book2 = fetchOrderBookBounded(exchange, pair2, 20);
+            ExchangeConnector.OrderBook book3 = fetchOrderBookBounded(exchange, pair3, 20);
+            if (book1 == null || book2 == null || book3 == null) return;
 
             // 🔥 BUCLE DE STRESS TEST 🔥
             // Probamos el MISMO momento de mercado con DIFERENTES pesos de capital
@@ -525,7 +737,7 @@ public class DeepMarketScanner implements MarketListener {
         long rtt = connector.getRTT(exchange);
 
         if (rtt > BotConfig.MAX_LATENCY_MS) {
-            rejectionReasons.computeIfAbsent("LATENCIA_ALTA (>" + BotConfig.MAX_LATENCY_MS + "ms)", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.LATENCIA_ALTA, 1);
             return;
         }
 
@@ -537,7 +749,7 @@ public class DeepMarketScanner implements MarketListener {
         double slippageThreshold = 1.0 + BotConfig.MAX_SLIPPAGE;
 
         if (realP1 == 0 || (realP1 / p1Ticker) > slippageThreshold) {
-            rejectionReasons.computeIfAbsent("SLIPPAGE_EXCESIVO (>" + (BotConfig.MAX_SLIPPAGE * 100) + "%)", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.SLIPPAGE_EXCESIVO, 1);
             return;
         }
 
@@ -568,7 +780,7 @@ public class DeepMarketScanner implements MarketListener {
         // 4. 🕵️ DIAGNÓSTICO DE FEES
         // Si perdemos dinero, pero sin fees hubiéramos ganado, culpamos a los fees
         if (netProfit <= 0 && (netProfit + totalFees) > 0) {
-            rejectionReasons.computeIfAbsent("FEES_MATAN_PROFIT", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.FEES_MATAN_PROFIT, 1);
         }
 
         // 5. ✅ ZONA DE ÉXITO Y EJECUCIÓN
@@ -702,7 +914,7 @@ public class DeepMarketScanner implements MarketListener {
         BotLogger.info(C + "╠════════════════════════════════════════════════════════════╣" + R);
         BotLogger.info(String.format(C + "║ 📡  MAX LATENCIA:     " + W + "%-35s " + C + "║" + R, BotConfig.MAX_LATENCY_MS + " ms"));
         BotLogger.info(String.format(C + "║ 📉  MAX SLIPPAGE:     " + W + "%-35s " + C + "║" + R, pct.format(BotConfig.MAX_SLIPPAGE)));
-        BotLogger.info(String.format(C + "║ ⏱️  SCAN INTERVAL:    " + W + "%-35s " + C + "║" + R, BotConfig.SCAN_DELAY + " ms"));
+        BotLogger.info(String.format(C + "║ ⏱️  SCAN INTERVAL:    " + W + "%-35s " + C + "║" + R, BotConfig.SCAN_DELAY + " ms (adaptativo " + BotConfig.SCAN_MIN_INTERVAL_MS + "-" + BotConfig.SCAN_MAX_INTERVAL_MS + ")"));
         BotLogger.info(String.format(C + "║ 🔒  LOCK TIMEOUT:     " + W + "%-35s " + C + "║" + R, BotConfig.EXECUTION_LOCK_TIMEOUT_MS + " ms"));
         BotLogger.info(String.format(C + "║ 😷  CUARENTENA CB:    " + Y + "%-35s " + C + "║" + R, (BotConfig.CB_QUARANTINE_DURATION_MS / 1000) + " seg"));
 
@@ -743,17 +955,22 @@ public class DeepMarketScanner implements MarketListener {
 
             // 🚫 Análisis de Rechazos
             sb.append("🚫 *Causas de No-Trade:*\n");
-            rejectionReasons.forEach((reason, count) ->
-                    sb.append("· ").append(reason).append(": `").append(count.get()).append("`\n")
-            );
+            for (Rejection reason : Rejection.values()) {
+                long count = rejectionWindow.getAndSet(reason.ordinal(), 0); // Se leen y limpian para el próximo reporte
+                if (count > 0) sb.append("· ").append(reason).append(": `").append(count).append("`\n");
+            }
+
+            // ⏱️ Cadencia del escáner
+            AdaptiveScanScheduler.Metrics m = scanScheduler.metrics();
+            sb.append("\n⏱️ *Cadencia:* `").append(String.format("%.1f", m.cyclesPerMinute())).append(" ciclos/min` | ");
+            sb.append("Presupuesto: `").append(String.format("%.0f%%", m.budgetUsagePercent())).append("` | ");
+            sb.append("Deadlines perdidos: `").append(m.missedDeadlines()).append("`\n");
 
             // 💰 Rendimiento y Mejor Presa (Leídos de Atómicos)
             sb.append("\n📈 *Mejor Presa:* \n`").append(bestOpportunityLogRef.get()).append("`\n");
             sb.append("💵 *PnL Acumulado:* `$").append(String.format("%.4f", totalPotentialProfit.sum())).append("`\n");
 
             BotLogger.sendTelegram(sb.toString());
-            // Limpiamos razones para el próximo reporte
-            rejectionReasons.clear();
         } catch (Exception e) {
             BotLogger.error("Error Dashboard: " + e.getMessage());
         }
@@ -769,7 +986,6 @@ public class DeepMarketScanner implements MarketListener {
     }
     private void finalizeScan() {
         scheduler.shutdown();
-        virtualExecutor.shutdown();
         System.out.println("╚══════════╩════════╩═══════════════╩═══════╩════════╩════════╩════════╩════════════╝");
     }
 
@@ -788,62 +1004,58 @@ public class DeepMarketScanner implements MarketListener {
             huntingGrounds.clear();
             huntingGrounds.addAll(cleanTargets);
             BotLogger.info("🎯 OBJETIVOS ACTUALIZADOS POR CEREBRO (" + huntingGrounds.size() + "): " + huntingGrounds);
+            prepareOrderTemplates(cleanTargets);
         }
     }
 
+    /**
+     * 📝 Al activar objetivos se pre-serializan sus órdenes (espacial y patas triangulares)
+     * y se cachean sus reglas de precisión (step / tick), para que la ejecución solo parchee qty / precio / firma.
+     */
+    private void prepareOrderTemplates(List<String> assets) {
+        if (BotConfig.DRY_RUN) return; // En simulación no sale ninguna orden
+        Thread.ofVirtual().name("Order-Templates").start(() -> {
+            Set<String> pairs = new LinkedHashSet<>();
+            for (String asset : assets) {
+                pairs.add(asset + "USDT");
+                for (String bridge : BRIDGE_ASSETS) {
+                    if (bridge.equals(asset)) continue;
+                    pairs.add(asset + bridge);
+                    pairs.add(bridge + "USDT");
+                }
+            }
+            for (String ex : exchanges) {
+                for (String pair : pairs) {
+                    connector.getInstrumentRules(ex, pair);
+                    connector.prepareOrderTemplates(ex, pair);
+                }
+            }
+            BotLogger.info("📝 Plantillas de orden listas: " + connector.orderTemplateCount());
+        });
+    }
+
     public void injectCFO(com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.PortfolioHealthManager cfo) {
         this.cfo = cfo;
     }
+    /** Causa de descarte: ventana del reporte de Telegram + contador monótono para Prometheus. */
+    private void reject(Rejection reason, long n) {
+        rejectionWindow.addAndGet(reason.ordinal(), n);
+        reason.counter.add(n);
+    }
+
     /**
-     * 🔄 GESTIÓN DE SALDOS
-     * REFRESH PARALELO CON RATE LIMITING INTELIGENTE
+     * 🕰️ VALIDACIÓN DE SNAPSHOT POR ÉPOCAS
+     * Compara la época de lectura de cada cuenta con su última escritura registrada.
      */
-// ✅
-    private void refreshBalancesResult() {
-        long now = System.currentTimeMillis();
-
-        // Solo entramos si toca actualizar
-        if (!forceBalanceUpdate && (now - lastBalanceUpdate) < BALANCE_TTL_MS) {
-            return;
-        }
-
-        BotLogger.info("🌐 Refrescando saldos (Modo Paralelo Real)...");
-
-        List<CompletableFuture<Void>> futures = exchanges.stream()
-                .map(ex -> CompletableFuture.runAsync(() -> {
-                            try {
-                                // 1. Sin synchronized. El conector ya es thread-safe.
-                                // 2. Sin sleep artificial. Si queremos velocidad, pedimos velocidad.
-                                //    El ExchangeConnector ya tiene lógica de reintentos si falla.
-
-                                Map<String, Double> balances = connector.fetchBalances(ex);
-
-                                if (balances != null && !balances.isEmpty()) {
-                                    cachedBalances.put(ex, balances);
-                                    // Opcional: BotLogger.info("💰 " + ex + " actualizado.");
-                                }
-                            } catch (Exception e) {
-                                // Silencioso: Si falla, el Scanner usará el saldo viejo de la caché.
-                                // No detenemos el show.
-                            }
-                        }, balanceExecutor)
-                        .orTimeout(3, TimeUnit.SECONDS) // ⏱️ TIMEOUT DURO: Si tarda > 3s, abortar ese hilo.
-                        .exceptionally(e -> {
-                            // Si ocurre timeout, no imprimimos stacktrace gigante, solo aviso
-                            return null;
-                        }))
-                .toList();
-
-        // Esperamos a todos, pero con un límite máximo global de seguridad
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                    .join(); // Espera a que terminen los 4 hilos (o den timeout)
-        } catch (Exception e) {
-            BotLogger.warn("⚠️ Actualización de saldos incompleta (Continuando scan...)");
-        }
+    private boolean isStale(AccountSnapshot snapshot, String buyEx, String sellEx) {
+        return coordinator.isSnapshotStale(buyEx, snapshot.epochOf(buyEx))
+                || coordinator.isSnapshotStale(sellEx, snapshot.epochOf(sellEx));
+    }
 
-        lastBalanceUpdate = now;
-        forceBalanceUpdate = false;
+    private void markAccountsDirty(String buyEx, String sellEx) {
+        coordinator.markAsDirty(buyEx);
+        coordinator.markAsDirty(sellEx);
+        snapshots.requestRefresh();
     }
     public void injectCoordinator(ExecutionCoordinator coordinator) {
         this.coordinator = coordinator;
@@ -867,11 +1079,15 @@ public class DeepMarketScanner implements MarketListener {
 
         // ✅ Si el caché es fresco (< 2 segundos), reutilizamos
         if (cached != null && (now - cached.timestamp) < ORDERBOOK_TTL_MS) {
+            BOOK_HIT.inc();
             return cached.book;
         }
+        BOOK_MISS.inc();
+        CacheMissEvent.emit("orderbook", key);
 
         // ⚡ Descarga nueva (blocking, pero solo si es necesario)
-        ExchangeConnector.OrderBook fresh = connector.fetchOrderBook(exchange, pair, depth);
+        scanScheduler.recordRequests(exchange, 1);
+        ExchangeConnector.OrderBook fresh = fetchOrderBookBounded(exchange, pair, depth);
 
         if (fresh != null) {
             orderBookCache.put(key, new CachedOrderBook(fresh, now));
@@ -879,12 +1095,27 @@ public class DeepMarketScanner implements MarketListener {
 
         return fresh;
     }
+    /** Descarga de libro con el sub-deadline del venue: un libro colgado no estira el ciclo. */
+    private ExchangeConnector.OrderBook fetchOrderBookBounded(String exchange, String pair, int depth) {
+        try {
+            return DeadlineScope.within(venueDeadline(exchange, Duration.ofMillis(BotConfig.SCAN_CYCLE_DEADLINE_MS)),
+                    () -> connector.fetchOrderBook(exchange, pair, depth));
+        } catch (StructuredTaskScope.TimeoutException e) {
+            reject(Rejection.LIBRO_TARDIO, 1);
+            return null;
+        } catch (StructuredTaskScope.FailedException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     // 🧠 MOTOR DE SIMULACIÓN ESPACIAL OPTIMIZADO (v6.1 - Math Fix)
     private void simulateSpatialScenarioOptimized(String asset, String buyEx, String sellEx, double cap,
                                                   ExchangeConnector.OrderBook bookBuy, ExchangeConnector.OrderBook bookSell,
                                                   double tickerPrice,
-                                                  Map<String, Map<String, Double>> balanceSnapshot,
-                                                  long snapshotTimestamp,
+                                                  AccountSnapshot balanceSnapshot,
                                                   double feeBuy, double feeSell) {
         // 1. 👮 CONSULTA AL CFO
         double requiredProfit = BotConfig.NORMAL_MIN_PROFIT;
@@ -899,8 +1130,7 @@ public class DeepMarketScanner implements MarketListener {
         }
 
         // 2. ⛽ CHEQUEO DE COMBUSTIBLE
-        double realBalanceUsdt = balanceSnapshot != null && balanceSnapshot.containsKey(buyEx)
-                ? balanceSnapshot.get(buyEx).getOrDefault("USDT", 0.0) : 0.0;
+        double realBalanceUsdt = (balanceSnapshot != null) ? balanceSnapshot.balance(buyEx, "USDT") : 0.0;
 
         if (realBalanceUsdt < BotConfig.MIN_ASSET_VALUE_USDT) return;
         double effectiveCap = Math.min(cap, realBalanceUsdt);
@@ -917,7 +1147,8 @@ public class DeepMarketScanner implements MarketListener {
 
         // 🚨 VALIDACIÓN CRÍTICA: Si el precio real dispara el slippage, abortamos
         if (realBuyPrice == 0 || (realBuyPrice / tickerPrice) > (1.0 + BotConfig.MAX_SLIPPAGE)) {
-            rejectionReasons.computeIfAbsent("SLIPPAGE_BUY", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.SLIPPAGE_BUY, 1);
+            journalRejection(asset, buyEx, sellEx, effectiveCap, Double.NaN, Double.NaN, Double.NaN, "SLIPPAGE_BUY");
             return;
         }
 
@@ -929,7 +1160,8 @@ public class DeepMarketScanner implements MarketListener {
         double realSellPrice = connector.calculateWeightedPrice(bookSell, "SELL", realQtyAsset);
 
         if (realSellPrice == 0 || (realSellPrice / tickerPrice) < (1.0 - BotConfig.MAX_SLIPPAGE)) {
-            rejectionReasons.computeIfAbsent("SLIPPAGE_SELL", k -> new AtomicLong()).incrementAndGet();
+            reject(Rejection.SLIPPAGE_SELL, 1);
+            journalRejection(asset, buyEx, sellEx, effectiveCap, Double.NaN, Double.NaN, Double.NaN, "SLIPPAGE_SELL");
             return;
         }
 
@@ -953,6 +1185,8 @@ public class DeepMarketScanner implements MarketListener {
         // =====================================================================
 
         if (netProfit > requiredProfit) {
+            TradeTrace.markCurrent(TradeTrace.Stage.VALIDATED);
+            OPP_VALIDATED.inc();
 
             // Log Visual Consola
             // Calculamos total fees para mostrar en la tabla
@@ -967,18 +1201,29 @@ public class DeepMarketScanner implements MarketListener {
 
             // 🔥 EJECUCIÓN
             if (!BotConfig.DRY_RUN && tradesCount.get() == 0) {
-                if (coordinator != null && coordinator.tryAcquireDualLock(buyEx, sellEx)) {
+                // 🧭 Primero el ruteo multi-venue (capital completo del tier); si no mejora, cruce directo
+                if (BotConfig.SMART_ROUTING && coordinator != null
+                        && executeRoutedSpatial(asset, cap, tickerPrice, balanceSnapshot, requiredProfit)) {
+                    // Ruteado: nada más que hacer en este escenario
+                } else if (coordinator != null && coordinator.tryAcquireDualLock(buyEx, sellEx)) {
                     try {
+                        TradeTrace.markCurrent(TradeTrace.Stage.LOCKED);
+                        // 🕰️ Época: si alguna cuenta se movió después de leerse, el saldo en RAM no vale
+                        if (isStale(balanceSnapshot, buyEx, sellEx)) {
+                            reject(Rejection.SNAPSHOT_OBSOLETO, 1);
+                            return;
+                        }
                         BotLogger.warn("🚀 EJECUTANDO SECUENCIA ESPACIAL [Cap: $" + effectiveCap + "]");
 
                         crossExecutor.executeCrossTrade(buyEx, sellEx, asset + "USDT"
                                 , realQtyAsset, realBuyPrice, realSellPrice);
 
-                        this.forceBalanceUpdate = true;
+                        markAccountsDirty(buyEx, sellEx);
                         tradesCount.incrementAndGet();
+                        OPP_EXECUTED.inc();
 
-                        BotLogger.logOpportunity("SPATIAL", asset, buyEx + "->" + sellEx,
-                                grossSpreadPct, netProfit, "EXECUTED", "PROFITABLE");
+                        BotLogger.logOpportunity("SPATIAL", asset, buyEx + "->" + sellEx, effectiveCap,
+                                grossSpreadPct, totalFees, netProfit, "EXECUTED", "PROFITABLE");
 
                     } catch (Exception e) {
                         BotLogger.error("❌ ERROR CRÍTICO: " + e.getMessage());
@@ -993,8 +1238,8 @@ public class DeepMarketScanner implements MarketListener {
                 // Registro DRY-RUN
                 // 🧹 Filtro de limpieza: Solo loguear si es matemáticamente coherente
                 if (netProfit > -1.0) {
-                    BotLogger.logOpportunity("SPATIAL", asset, buyEx + "->" + sellEx,
-                            grossSpreadPct, netProfit,
+                    BotLogger.logOpportunity("SPATIAL", asset, buyEx + "->" + sellEx, effectiveCap,
+                            grossSpreadPct, totalFees, netProfit,
                             BotConfig.DRY_RUN ? "SIMULATED" : "SKIPPED", "PROFITABLE");
                 }
             }
@@ -1002,7 +1247,84 @@ public class DeepMarketScanner implements MarketListener {
             if (Double.compare(cap, testCapitals.get(0)) == 0) {
                 totalPotentialProfit.add(netProfit);
             }
+        } else {
+            journalRejection(asset, buyEx, sellEx, effectiveCap, grossSpreadPct, costBuyFees + costSellFees, netProfit, "NO_PROFIT");
+        }
+    }
+
+    /** Descarte al diario binario solamente (el CSV queda para lo rentable, como siempre). */
+    private static void journalRejection(String asset, String buyEx, String sellEx, double capital,
+                                         double grossPct, double fees, double net, String reason) {
+        OpportunityJournal journal = OpportunityJournal.global();
+        if (journal != null) {
+            journal.record(System.currentTimeMillis(), "SPATIAL", asset, buyEx + "->" + sellEx,
+                    capital, grossPct, fees, net, "REJECTED", reason);
+        }
+    }
+
+    /**
+     * 🧭 RUTEO ESPACIAL MULTI-VENUE
+     * Arma un venue por cuenta con saldo en el snapshot (libro en caché + fee taker + saldo libre)
+     * y deja que SmartOrderRouter reparta el capital del tier entre todos los libros.
+     * @return true solo si la ruta se envió; false si no supera al umbral, hay candados tomados o
+     *         el saldo de alguna cuenta quedó obsoleto (el llamador sigue con el cruce directo)
+     */
+    private boolean executeRoutedSpatial(String asset, double cap, double tickerPrice,
+                                         AccountSnapshot balanceSnapshot, double requiredProfit) {
+        if (balanceSnapshot == null || tickerPrice <= 0) return false;
+        String pair = asset + "USDT";
+
+        List<SmartOrderRouter.Venue> buyVenues = new ArrayList<>();
+        List<SmartOrderRouter.Venue> sellVenues = new ArrayList<>();
+        for (String ex : exchanges) {
+            if (!balanceSnapshot.has(ex) || connector.getRTT(ex) > BotConfig.MAX_LATENCY_MS) continue;
+            double usdt = balanceSnapshot.balance(ex, "USDT");
+            double stock = balanceSnapshot.balance(ex, asset);
+            if (usdt < BotConfig.ROUTER_MIN_CHILD_USDT && stock * tickerPrice < BotConfig.ROUTER_MIN_CHILD_USDT) continue;
+
+            ExchangeConnector.OrderBook book = fetchOrderBookCached(ex, pair, BotConfig.BOOK_DEPTH);
+            if (book == null) continue;
+            double fee = feeManager.getTradingFee(ex, pair, "TAKER");
+            if (usdt >= BotConfig.ROUTER_MIN_CHILD_USDT) buyVenues.add(new SmartOrderRouter.Venue(ex, book, fee, usdt));
+            if (stock > 0) sellVenues.add(new SmartOrderRouter.Venue(ex, book, fee, stock));
+        }
+
+        SmartOrderRouter.Route route = SmartOrderRouter.route(buyVenues, sellVenues,
+                cap / tickerPrice, BotConfig.ROUTER_MIN_CHILD_USDT, BotConfig.MAX_SLIPPAGE); // Compras LIMIT con ese tope
+        if (route.isEmpty() || route.netPnl() <= requiredProfit) return false;
+
+        // Ruta bloqueada u obsoleta: no se envió nada, el cruce directo todavía puede intentarlo
+        Set<String> accounts = route.accounts();
+        if (!coordinator.tryAcquireLocks(accounts)) {
+            BotLogger.warn("🔒 BLOQUEO ACTIVO EN RUTA " + accounts);
+            return false;
+        }
+        TradeTrace.markCurrent(TradeTrace.Stage.LOCKED);
+        try {
+            for (String account : accounts) {
+                if (coordinator.isSnapshotStale(account, balanceSnapshot.epochOf(account))) {
+                    BotLogger.warn("🕰️ RUTA CON SALDO OBSOLETO EN " + account);
+                    return false; // El finally suelta los candados antes del cruce directo
+                }
+            }
+            BotLogger.warn("🚀 EJECUTANDO RUTA ESPACIAL " + asset + " [Qty: " + route.qty() + " | Venues: " + accounts + "]");
+
+            double pnl = crossExecutor.executeRouted(pair, route);
+
+            accounts.forEach(coordinator::markAsDirty);
+            snapshots.requestRefresh();
+            tradesCount.incrementAndGet();
+            OPP_EXECUTED.inc();
+
+            double spreadPct = (route.sellProceeds() - route.buyCost()) / route.buyCost() * 100;
+            BotLogger.logOpportunity("SPATIAL", asset, String.join("+", accounts), route.buyCost(),
+                    spreadPct, Double.NaN, pnl, "EXECUTED", "ROUTED");
+        } catch (Exception e) {
+            BotLogger.error("❌ ERROR CRÍTICO EN RUTA: " + e.getMessage());
+        } finally {
+            accounts.forEach(coordinator::releaseLock);
         }
+        return true;
     }
 
     public void shutdown() {
@@ -1012,13 +1334,17 @@ public class DeepMarketScanner implements MarketListener {
         scheduler.shutdownNow();
 
         // 2. Detener Hilos de Fuerza
-        virtualExecutor.shutdownNow();
-        balanceExecutor.shutdownNow();
+        // El interrupt cancela los scopes abiertos del ciclo en curso (y sus hilos virtuales)
+        Thread scan = scanThread;
+        if (scan != null) scan.interrupt();
+        snapshots.stop();
 
         // 3. Imprimir Reporte Final
         BotLogger.info("📊 REPORTE FINAL DE SESIÓN:");
         BotLogger.info("   Trades Totales: " + tradesCount.get());
         BotLogger.info("   Profit Potencial: $" + dfUsdt.get().format(totalPotentialProfit.sum()));
+        TradeTrace.report();
+        TradeTrace.exportCsv();
 
         BotLogger.info("👋 Agente Tokio Desconectado. Sayonara.");
     }
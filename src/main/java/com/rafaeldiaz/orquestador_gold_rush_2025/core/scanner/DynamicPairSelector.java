@@ -1,10 +1,13 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
 
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.BybitStreamer;
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.IndicatorEngine;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.PortfolioHealthManager;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TelegramDispatcher;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -13,7 +16,8 @@ import java.util.concurrent.*;
  * 🧠 CEREBRO "DUAL HEARTBEAT" (JAVA 25 OPTIMIZED EDITION)
  * Arquitectura:
  * 1. WATCHDOG (High-Freq): I/O Bloqueante delegada a Virtual Threads.
- * 2. RADAR (Low-Freq): Structured Concurrency para paralelismo masivo.
+ * 2. UNIVERSO (Low-Freq): criba en lote de todos los pares USDT + sondeo presupuestado -> watchlist.
+ * 3. RADAR (Streaming): lee en continuo el motor de indicadores alimentado por WebSocket (cero REST).
  * * Optimizaciones Java 25:
  * - Sequenced Collections (getFirst/getLast).
  * - Virtual Thread per Task Executor (Project Loom).
@@ -30,36 +34,48 @@ public class DynamicPairSelector {
     // Mantenemos el pool pequeño (2) porque su único trabajo es despertar y delegar.
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, Thread.ofPlatform().factory());
 
-    // 🌌 UNIVERSO DE OBSERVACIÓN
-    private static final List<String> CANDIDATE_PAIRS = List.of(
-            "BTCUSDT", "ETHUSDT", "SOLUSDT", "XRPUSDT", "BNBUSDT",
-            "DOGEUSDT", "ADAUSDT", "AVAXUSDT", "SHIBUSDT", "DOTUSDT",
-            "LINKUSDT", "TRXUSDT", "MATICUSDT", "LTCUSDT", "BCHUSDT",
-            "UNIUSDT", "ATOMUSDT", "XLMUSDT", "NEARUSDT", "INJUSDT",
-            "APTUSDT", "FILUSDT", "HBARUSDT", "LDOUSDT", "ARBUSDT",
-            "VETUSDT", "QNTUSDT", "OPUSDT", "MKRUSDT", "GRTUSDT",
-            "RNDRUSDT", "AAVEUSDT", "ALGOUSDT", "STXUSDT", "SANDUSDT",
-            "IMXUSDT", "EOSUSDT", "THETAUSDT", "XTZUSDT", "AXSUSDT",
-            "MANAUSDT", "FTMUSDT", "SUIUSDT", "PEPEUSDT", "WIFUSDT",
-            "BONKUSDT", "SEIUSDT", "ORDIUSDT", "FETUSDT", "FLOKIUSDT"
-    );
+    // 🌌 UNIVERSO DE OBSERVACIÓN: todos los pares spot USDT de todos los venues activos (criba + sondeo)
+    private final UniverseRadar universeRadar;
+    // Watchlist en streaming: franja superior del universo listada en el venue del WebSocket
+    private static final String STREAM_VENUE = "bybit";
+    private volatile List<String> watchlist = List.of();
 
     // Pesos del Radar
     private static final double WEIGHT_ATR = 0.4;
     private static final double WEIGHT_SPREAD = 0.4;
     private static final double WEIGHT_LIQUIDITY = 0.2;
 
+    // 📈 MOTOR DE INDICADORES (velas 1m para ATR/volatilidad, TREND_TIMEFRAME para la EMA)
+    private static final String FAST_INTERVAL = "1m";
+    private static final int SPREAD_WINDOW = 120;                  // Últimas 120 cotizaciones top-of-book
+    private static final double FULL_TURNOVER_USD = 50_000_000.0;  // Liquidez 24h que satura el puntaje
+    private static final long REPORT_EVERY_MS = 5 * 60 * 1000;     // Reporte completo aunque el ranking no cambie
+    private final IndicatorEngine indicators = new IndicatorEngine(BotConfig.RADAR_ATR_PERIOD,
+            BotConfig.TREND_EMA_PERIOD, SPREAD_WINDOW, FAST_INTERVAL, BotConfig.TREND_TIMEFRAME);
+    private BybitStreamer streamer;
+
+    // Alertas por flanco (solo al cruzar el umbral) y reporte solo si cambia el ranking
+    private final Set<String> hotPairs = ConcurrentHashMap.newKeySet();
+    private List<String> lastTop = List.of();
+    private long lastReportAt = 0;
+
     public DynamicPairSelector(ExchangeConnector connector, MarketListener marketListener,
                                FeeManager feeManager, PortfolioHealthManager cfo) {
         this.connector = connector;
         this.marketListener = marketListener;
         this.feeManager = feeManager;
         this.cfo = cfo;
+        this.universeRadar = new UniverseRadar(connector, feeManager, BotConfig.ACTIVE_EXCHANGES);
     }
 
     public void start() {
         BotLogger.info("🧠 CEREBRO DUAL ACTIVADO: Optimizaciones Java 25 cargadas.");
 
+        // 📡 Streams: velas + mejor bid/ask + ticker 24h de la watchlist (un solo socket público)
+        streamer = new BybitStreamer();
+        streamer.addDataListener(indicators);
+        if (cfo != null) streamer.addDataListener(cfo.equity()); // Cada quote remarca la equidad
+
         // 💓 CICLO 1: WATCHDOG (30s)
         // Patrón: "Fire-and-Forget Virtual Thread".
         // El scheduler dispara el evento, pero el trabajo pesado se va a un hilo virtual.
@@ -68,16 +84,21 @@ public class DynamicPairSelector {
                 0, 30, TimeUnit.SECONDS
         );
 
-        // 🔭 CICLO 2: RADAR (5m)
-        // Patrón: "Structured Concurrency Scope".
+        // 🌍 CICLO 2: UNIVERSO (criba en lote + sondeo presupuestado -> watchlist)
         scheduler.scheduleWithFixedDelay(() ->
-                        Thread.ofVirtual().name("Radar-Worker").start(this::executeRadarRoutine),
-                1, 5, TimeUnit.MINUTES
+                        Thread.ofVirtual().name("Universe-Worker").start(this::executeUniverseRoutine),
+                0, BotConfig.RADAR_UNIVERSE_MIN, TimeUnit.MINUTES
+        );
+
+        // 🔭 CICLO 3: RADAR (lectura de memoria, cadencia alta sin costo de API)
+        scheduler.scheduleWithFixedDelay(this::executeRadarRoutine,
+                BotConfig.RADAR_INTERVAL_SEC, BotConfig.RADAR_INTERVAL_SEC, TimeUnit.SECONDS
         );
     }
 
     public void stop() {
         scheduler.shutdownNow();
+        if (streamer != null) streamer.stop();
         BotLogger.info("🧠 Cerebro detenido.");
     }
 
@@ -103,111 +124,155 @@ public class DynamicPairSelector {
     // 📡 RUTINA 2: RADAR (Inteligencia de Mercado)
     // =========================================================================
     private void executeRadarRoutine() {
-        BotLogger.info("🔭 RADAR: Escaneando Universo (" + CANDIDATE_PAIRS.size() + " activos)...");
-        long start = System.currentTimeMillis();
-
-        // 🚀 STRUCTURED CONCURRENCY (Implicit Scope)
-        // try-with-resources garantiza que el Executor se cierre y limpie al terminar el bloque.
-        try (var scope = Executors.newVirtualThreadPerTaskExecutor()) {
-
-            // 1. Scatter (Lanzamiento Masivo)
-            List<Callable<OpportunityScore>> tasks = CANDIDATE_PAIRS.stream()
-                    .map(pair -> (Callable<OpportunityScore>) () -> analyzeMarketCandidate(pair))
-                    .toList();
-
-            // 2. Gather (Recolección Bloqueante Virtual)
-            // invokeAll bloquea el hilo virtual "Radar-Worker", pero NO un hilo del sistema.
-            List<Future<OpportunityScore>> futures = scope.invokeAll(tasks);
-
+        try {
             List<OpportunityScore> scores = new ArrayList<>();
-
-            for (Future<OpportunityScore> f : futures) {
-                try {
-                    // get() lanzaría excepción si la tarea falló, lo capturamos abajo
-                    OpportunityScore res = f.get();
-                    if (res != null && res.score > 0) {
-                        scores.add(res);
-                        // 🔥 Hot Alert
-                        if (res.score > 0.85) {
-                            BotLogger.sendTelegram("🚀 RADAR DETECT: " + res.pair()
-                                    + " | Score: " + String.format("%.2f", res.score()));
-                        }
-                    }
-                } catch (ExecutionException | InterruptedException ignored) {
-                    // Fail-Safe: Si un par falla (timeout/error), ignoramos y seguimos.
-                }
+            for (String pair : watchlist) {
+                OpportunityScore res = analyzeMarketCandidate(pair);
+                if (res == null || res.score() <= 0) continue;
+                scores.add(res);
             }
-
-            // 3. Reporting
-            // Usamos List.sort directo (Java 8+)
             scores.sort(Comparator.comparingDouble(OpportunityScore::score).reversed());
 
-            // Stream con limit para reporte
-            logIntelligenceReport(scores.stream().limit(10).toList());
-
+            // 🔥 Hot Alert (solo al cruzar el umbral, no en cada lectura)
+            Set<String> nowHot = new HashSet<>();
+            for (OpportunityScore res : scores) {
+                if (res.score() <= 0.85) continue;
+                nowHot.add(res.pair());
+                if (hotPairs.add(res.pair())) {
+                    BotLogger.sendTelegram(TelegramDispatcher.Priority.LOW, "🚀 RADAR DETECT: " + res.pair()
+                            + " | Score: " + String.format("%.2f", res.score()));
+                }
+            }
+            hotPairs.retainAll(nowHot);
+
+            // Reporting: solo si cambió el Top 10 o pasó el intervalo largo
+            List<OpportunityScore> top = scores.stream().limit(10).toList();
+            List<String> topPairs = top.stream().map(OpportunityScore::pair).toList();
+            long now = System.currentTimeMillis();
+            if (!topPairs.equals(lastTop) || now - lastReportAt > REPORT_EVERY_MS) {
+                lastTop = topPairs;
+                lastReportAt = now;
+                logIntelligenceReport(top);
+            }
         } catch (Exception e) {
             BotLogger.error("🔭 Error en Radar: " + e.getMessage());
-        } finally {
-            BotLogger.info("⏱️ Radar finalizado en " + (System.currentTimeMillis() - start) + "ms");
         }
     }
 
-    /**
-     * 🔬 ANÁLISIS DE CANDIDATO
-     */
-    private OpportunityScore analyzeMarketCandidate(String pair) {
+    // =========================================================================
+    // 🌍 RUTINA 3: UNIVERSO (Descubrimiento de objetivos)
+    // =========================================================================
+    private void executeUniverseRoutine() {
         try {
-            String refExchange = BotConfig.ADVISOR_REF_EXCHANGE;
-
-            // A. Volatilidad (ATR 1m)
-            List<double[]> candles = connector.fetchCandles(refExchange, pair, "1m", 5);
-
-            // ✅ JAVA 21+: Sequenced Collections check
-            if (candles == null || candles.isEmpty()) return null;
+            UniverseRadar.CycleReport report = universeRadar.scan();
+            universeRadar.logCycle(report);
+            logUniverseReport(report.hits().stream().limit(10).toList());
+            updateWatchlist(report.hits());
+        } catch (Exception e) {
+            BotLogger.error("🌍 Error en Radar de Universo: " + e.getMessage());
+        }
+    }
 
-            // Uso de getLast() en lugar de get(size-1) -> Más limpio y seguro
-            double[] lastCandle = candles.getLast();
+    /**
+     * Recalibra la watchlist del WebSocket con la franja superior del universo.
+     * Solo los pares nuevos se precalientan (velas del sondeo + EMA por REST dentro del presupuesto).
+     */
+    private void updateWatchlist(List<UniverseRadar.RadarHit> hits) throws InterruptedException {
+        Map<String, UniverseRadar.RadarHit> desired = new LinkedHashMap<>();
+        for (UniverseRadar.RadarHit hit : hits) {
+            if (desired.size() >= BotConfig.RADAR_WATCHLIST_SIZE) break;
+            if (!universeRadar.isListed(STREAM_VENUE, hit.symbol())) continue;
+            // Preferimos las velas del propio venue del stream si el par se sondeó allí
+            UniverseRadar.RadarHit prev = desired.get(hit.symbol());
+            if (prev == null || (!prev.venue().equals(STREAM_VENUE) && hit.venue().equals(STREAM_VENUE))) {
+                desired.put(hit.symbol(), hit);
+            }
+        }
+        if (desired.isEmpty()) return; // Ciclo vacío (venues caídos): conservamos la watchlist anterior
 
-            // Fallback índice de cierre (4=Close standard, 2=High fallback)
-            double lastPrice = lastCandle.length > 4 ? lastCandle[4] : lastCandle[2];
+        List<String> current = watchlist;
+        List<String> removed = current.stream().filter(p -> !desired.containsKey(p)).toList();
+        List<UniverseRadar.RadarHit> added = desired.values().stream()
+                .filter(h -> !current.contains(h.symbol())).toList();
 
-            double atrSum = 0;
-            for(double[] c : candles) atrSum += (c[2] - c[3]); // High - Low
-            double atrPercent = ((atrSum/candles.size()) / lastPrice) * 100.0;
+        Set<String> intervals = new LinkedHashSet<>(List.of(FAST_INTERVAL, BotConfig.TREND_TIMEFRAME));
+        if (!removed.isEmpty()) streamer.unsubscribeMarketData(removed, intervals);
+        for (UniverseRadar.RadarHit hit : added) warmUp(hit);
+        streamer.subscribeMarketData(added.stream().map(UniverseRadar.RadarHit::symbol).toList(), intervals);
 
-            if (atrPercent < 0.15) return null; // Dead market check
+        watchlist = List.copyOf(desired.keySet());
+        BotLogger.info("📡 Watchlist: " + watchlist.size() + " pares (+" + added.size() + " / -" + removed.size() + ")");
+    }
 
-            // B. OrderBook Analysis
-            ExchangeConnector.OrderBook book = connector.fetchOrderBook(refExchange, pair, 10);
-            if (book == null || book.bids().isEmpty()) return null;
+    private void warmUp(UniverseRadar.RadarHit hit) throws InterruptedException {
+        VenueBudget budget = universeRadar.budget(STREAM_VENUE);
+        try {
+            List<double[]> fast = hit.candles();
+            if (!hit.venue().equals(STREAM_VENUE)) {
+                budget.acquire(1);
+                fast = ExchangeConnector.chronological(STREAM_VENUE,
+                        connector.fetchCandles(STREAM_VENUE, hit.symbol(), FAST_INTERVAL, BotConfig.RADAR_ATR_PERIOD + 1));
+            }
+            indicators.seed(hit.symbol(), FAST_INTERVAL, fast);
+            if (!BotConfig.TREND_TIMEFRAME.equals(FAST_INTERVAL)) {
+                budget.acquire(1);
+                indicators.seed(hit.symbol(), BotConfig.TREND_TIMEFRAME, ExchangeConnector.chronological(STREAM_VENUE,
+                        connector.fetchCandles(STREAM_VENUE, hit.symbol(), BotConfig.TREND_TIMEFRAME, BotConfig.TREND_EMA_PERIOD)));
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception ignored) {
+            // Fail-Safe: el stream completará la ventana
+        }
+    }
 
-            // ✅ Sequenced Collections: Acceso al mejor Bid/Ask
-            double bestBid = book.bids().getFirst()[0];
-            double bestAsk = book.asks().getFirst()[0];
+    private void logUniverseReport(List<UniverseRadar.RadarHit> top) {
+        if (top.isEmpty()) return;
+        StringBuilder sb = new StringBuilder("\n🌍 TOP DEL UNIVERSO (criba + sondeo):\n");
+        for (int i = 0; i < top.size(); i++) {
+            UniverseRadar.RadarHit h = top.get(i);
+            sb.append(String.format("   🛰️ #%d %-12s @ %-8s | Score: %4.2f | ATR: %4.2f%% | Spread: %5.2f%% | Cruce: %5.2f%% | Prof: $%,.0f\n",
+                    i + 1, h.symbol(), h.venue(), h.score(), h.atrPercent(), h.spreadPercent(),
+                    h.crossSpreadPercent(), h.depthUsd()));
+        }
+        BotLogger.info(sb.toString());
+    }
 
-            double spreadPercent = ((bestAsk - bestBid) / bestBid) * 100.0;
+    /** Motor compartible con otros consumidores (tendencia, volatilidad). */
+    public IndicatorEngine getIndicators() {
+        return indicators;
+    }
 
-            double fee = feeManager.getTradingFee(refExchange, pair, "TAKER");
-            double netSpread = spreadPercent - (fee * 200.0);
+    /**
+     * 🔬 ANÁLISIS DE CANDIDATO (Memoria pura: snapshot del motor de indicadores)
+     */
+    private OpportunityScore analyzeMarketCandidate(String pair) {
+        IndicatorEngine.IndicatorSnapshot snap = indicators.snapshot(pair);
+        if (snap == null || !snap.isWarm(indicators.atrPeriod())) return null;
 
-            // C. Liquidez
-            double liqUSD = 0;
-            for(double[] b : book.bids()) liqUSD += b[0]*b[1];
+        // A. Volatilidad (ATR sobre true range)
+        double atrPercent = snap.atrPercent();
+        if (atrPercent < 0.15) return null; // Dead market check
 
-            if (liqUSD < 15_000) return null;
+        // B. Spread medio top-of-book (ventana rodante)
+        double spreadPercent = snap.spreadPercent();
+        if (Double.isNaN(spreadPercent)) return null;
+        double fee = feeManager.getTradingFee(BotConfig.ADVISOR_REF_EXCHANGE, pair, "TAKER");
+        double netSpread = spreadPercent - (fee * 200.0);
 
-            // Scoring
-            double sVol = Math.min(atrPercent, 5.0) / 5.0;
-            double sSpread = Math.min(Math.max(netSpread, 0), 2.0) / 2.0;
-            double sLiq = Math.min(liqUSD / 500_000.0, 1.0);
+        // C. Liquidez (volumen negociado 24h)
+        double turnover = snap.turnoverUsd();
+        if (Double.isNaN(turnover) || turnover < BotConfig.RADAR_MIN_TURNOVER_USD) return null;
 
-            double finalScore = (sVol * WEIGHT_ATR) + (sSpread * WEIGHT_SPREAD) + (sLiq * WEIGHT_LIQUIDITY);
+        // Scoring
+        double sVol = Math.min(atrPercent, 5.0) / 5.0;
+        double sSpread = Math.min(Math.max(netSpread, 0), 2.0) / 2.0;
+        double sLiq = Math.min(turnover / FULL_TURNOVER_USD, 1.0);
 
-            return new OpportunityScore(pair, finalScore, atrPercent, spreadPercent);
+        double finalScore = (sVol * WEIGHT_ATR) + (sSpread * WEIGHT_SPREAD) + (sLiq * WEIGHT_LIQUIDITY);
 
-        } catch (Exception e) {
-            return null; // El scope general maneja los nulos
-        }
+        return new OpportunityScore(pair, finalScore, atrPercent, spreadPercent,
+                snap.realizedVolPercent(), snap.trendPercent());
     }
 
     private void logIntelligenceReport(List<OpportunityScore> top) {
@@ -217,8 +282,8 @@ public class DynamicPairSelector {
         } else {
             for (int i = 0; i < top.size(); i++) {
                 OpportunityScore s = top.get(i);
-                sb.append(String.format("   💡 #%d %-8s | Score: %4.2f | Spread: %5.2f%% | Vol: %4.2f%%\n",
-                        i + 1, s.pair, s.score, s.spreadPercent, s.atrPercent));
+                sb.append(String.format("   💡 #%d %-8s | Score: %4.2f | Spread: %5.2f%% | ATR: %4.2f%% | σ: %4.2f%% | EMA: %+5.2f%%\n",
+                        i + 1, s.pair, s.score, s.spreadPercent, s.atrPercent, s.realizedVolPercent, s.trendPercent));
             }
             sb.append("\n   👉 Si inyectas saldo en estos activos, el Watchdog los activará en 30s.\n");
         }
@@ -226,5 +291,6 @@ public class DynamicPairSelector {
     }
 
     // ✅ JAVA 16+ RECORD: Inmutabilidad nativa para ZGC
-    private record OpportunityScore(String pair, double score, double atrPercent, double spreadPercent) {}
+    private record OpportunityScore(String pair, double score, double atrPercent, double spreadPercent,
+                                    double realizedVolPercent, double trendPercent) {}
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+/**
+ * 🐢 KERNEL ESCALAR (FALLBACK)
+ * Implementación de referencia del pase min-ask / max-bid.
+ * Se usa cuando la Vector API no está disponible y como oráculo de los tests.
+ */
+final class ScalarSpreadKernel implements SpatialSpreadMatrix.Kernel {
+
+    @Override
+    public String name() {
+        return "SCALAR";
+    }
+
+    @Override
+    public void compute(int assetCount, int exchangeCount, int stride,
+                        double[] asks, double[] bids, double[] fees,
+                        double[] outMinAsk, double[] outMaxBid,
+                        double[] outBuyIdx, double[] outSellIdx,
+                        double[] outGross, double[] outNet) {
+        computeRange(0, assetCount, exchangeCount, stride, asks, bids, fees,
+                outMinAsk, outMaxBid, outBuyIdx, outSellIdx, outGross, outNet);
+    }
+
+    /**
+     * Procesa los activos [from, to). Lo reutiliza el kernel SIMD para la cola
+     * que no llena un vector completo.
+     */
+    static void computeRange(int from, int to, int exchangeCount, int stride,
+                             double[] asks, double[] bids, double[] fees,
+                             double[] outMinAsk, double[] outMaxBid,
+                             double[] outBuyIdx, double[] outSellIdx,
+                             double[] outGross, double[] outNet) {
+        for (int a = from; a < to; a++) {
+            double minAsk = Double.POSITIVE_INFINITY;
+            double maxBid = Double.NEGATIVE_INFINITY;
+            double buyFee = 0.0;
+            double sellFee = 0.0;
+            int buyIdx = -1;
+            int sellIdx = -1;
+
+            for (int e = 0; e < exchangeCount; e++) {
+                int cell = e * stride + a;
+                double ask = asks[cell];
+                double bid = bids[cell];
+                // Comparación estricta: en empate gana el primer exchange (igual que el motor Map)
+                if (ask < minAsk) { minAsk = ask; buyFee = fees[cell]; buyIdx = e; }
+                if (bid > maxBid) { maxBid = bid; sellFee = fees[cell]; sellIdx = e; }
+            }
+
+            outMinAsk[a] = minAsk;
+            outMaxBid[a] = maxBid;
+            outBuyIdx[a] = buyIdx;
+            outSellIdx[a] = sellIdx;
+            outGross[a] = (maxBid - minAsk) / minAsk;
+            outNet[a] = (maxBid * (1.0 - sellFee) - minAsk * (1.0 + buyFee)) / minAsk;
+        }
+    }
+}
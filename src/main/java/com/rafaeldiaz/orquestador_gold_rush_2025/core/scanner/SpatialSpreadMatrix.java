@@ -0,0 +1,192 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🧮 MATRIZ DE SPREAD ESPACIAL (ACTIVOS × EXCHANGES)
+ * Representación densa del mercado para el filtro espacial: un solo pase calcula
+ * min-ask / max-bid y spread neto (después de fees taker) para TODO el universo.
+ * Layout "exchange-major": celda (activo a, exchange e) = e * stride + a,
+ * así cada exchange es una fila contigua que el kernel SIMD recorre por carriles.
+ * NO es thread-safe: la usa únicamente el hilo del ciclo de escaneo.
+ */
+public final class SpatialSpreadMatrix {
+
+    private static final double MISSING_ASK = Double.POSITIVE_INFINITY;
+    private static final double MISSING_BID = Double.NEGATIVE_INFINITY;
+
+    private final List<String> exchanges;
+    private final Kernel kernel;
+
+    private List<String> assets = List.of();
+    private String[] pairKeys = new String[0];
+    private int stride = 0;
+
+    // --- ENTRADAS (exchange-major) ---
+    private double[] asks = new double[0];
+    private double[] bids = new double[0];
+    private double[] fees = new double[0];
+
+    // --- SALIDAS (una celda por activo) ---
+    private double[] minAsk = new double[0];
+    private double[] maxBid = new double[0];
+    private double[] buyIdx = new double[0];
+    private double[] sellIdx = new double[0];
+    private double[] grossSpread = new double[0];
+    private double[] netSpread = new double[0];
+
+    public SpatialSpreadMatrix(List<String> exchanges, boolean vectorized) {
+        this.exchanges = List.copyOf(exchanges);
+        this.kernel = selectKernel(vectorized);
+        BotLogger.info("🧮 Matriz Espacial: Kernel " + kernel.name() + " (" + this.exchanges.size() + " exchanges)");
+    }
+
+    /**
+     * Elige el kernel SIMD si el módulo jdk.incubator.vector está disponible.
+     * Si la JVM arrancó sin "--add-modules jdk.incubator.vector", caemos al escalar.
+     */
+    private static Kernel selectKernel(boolean vectorized) {
+        if (vectorized) {
+            try {
+                return new VectorSpreadKernel();
+            } catch (LinkageError e) {
+                BotLogger.warn("⚠️ Vector API no disponible (" + e.getClass().getSimpleName() + "). Usando kernel escalar.");
+            }
+        }
+        return new ScalarSpreadKernel();
+    }
+
+    // =========================================================================
+    // 📐 LAYOUT DEL UNIVERSO
+    // =========================================================================
+
+    public boolean sameUniverse(List<String> candidateAssets) {
+        return assets.equals(candidateAssets);
+    }
+
+    /**
+     * Reconstruye el layout cuando cambia la lista de activos (Radar / CFO).
+     * Los fees se reinician a 0: el llamador debe recargarlos con {@link #setFee}.
+     */
+    public void resize(List<String> newAssets) {
+        this.assets = List.copyOf(newAssets);
+        this.stride = assets.size();
+        this.pairKeys = new String[stride];
+        for (int a = 0; a < stride; a++) pairKeys[a] = assets.get(a) + "USDT";
+
+        int cells = stride * exchanges.size();
+        this.asks = new double[cells];
+        this.bids = new double[cells];
+        this.fees = new double[cells];
+        this.minAsk = new double[stride];
+        this.maxBid = new double[stride];
+        this.buyIdx = new double[stride];
+        this.sellIdx = new double[stride];
+        this.grossSpread = new double[stride];
+        this.netSpread = new double[stride];
+        clearQuotes();
+    }
+
+    private void clearQuotes() {
+        Arrays.fill(asks, MISSING_ASK);
+        Arrays.fill(bids, MISSING_BID);
+    }
+
+    // =========================================================================
+    // 📥 CARGA DE DATOS
+    // =========================================================================
+
+    /**
+     * Vuelca el snapshot de tickers (exchange -> símbolo -> precio) en la matriz.
+     * Con tickers "last price" el bid y el ask estimados son el mismo valor
+     * (refinamiento posterior con OrderBook, igual que el motor anterior).
+     */
+    public void load(Map<String, Map<String, Double>> marketData) {
+        clearQuotes();
+        for (int e = 0; e < exchanges.size(); e++) {
+            Map<String, Double> prices = marketData.get(exchanges.get(e));
+            if (prices == null) continue;
+            int row = e * stride;
+            for (int a = 0; a < stride; a++) {
+                Double price = prices.get(pairKeys[a]);
+                if (price != null && price > 0) {
+                    asks[row + a] = price;
+                    bids[row + a] = price;
+                }
+            }
+        }
+    }
+
+    public void setQuote(int asset, int exchange, double bid, double ask) {
+        int cell = exchange * stride + asset;
+        asks[cell] = ask > 0 ? ask : MISSING_ASK;
+        bids[cell] = bid > 0 ? bid : MISSING_BID;
+    }
+
+    public void setFee(int asset, int exchange, double takerFee) {
+        fees[exchange * stride + asset] = takerFee;
+    }
+
+    // =========================================================================
+    // ⚡ CÁLCULO (UN SOLO PASE)
+    // =========================================================================
+
+    public void compute() {
+        kernel.compute(stride, exchanges.size(), stride, asks, bids, fees,
+                minAsk, maxBid, buyIdx, sellIdx, grossSpread, netSpread);
+
+        // Activos sin alguna punta cotizada: spread indefinido (nunca pasa el filtro)
+        for (int a = 0; a < stride; a++) {
+            if (buyIdx[a] < 0 || sellIdx[a] < 0) {
+                grossSpread[a] = Double.NaN;
+                netSpread[a] = Double.NaN;
+            }
+        }
+    }
+
+    // =========================================================================
+    // 📤 LECTURA DE RESULTADOS
+    // =========================================================================
+
+    public int size() { return stride; }
+    public String asset(int a) { return assets.get(a); }
+    public String exchange(int e) { return exchanges.get(e); }
+    public String kernelName() { return kernel.name(); }
+
+    /** Índice del exchange con el menor ask, o -1 si nadie cotiza el activo. */
+    public int bestBuy(int a) { return (int) buyIdx[a]; }
+
+    /** Índice del exchange con el mayor bid, o -1 si nadie cotiza el activo. */
+    public int bestSell(int a) { return (int) sellIdx[a]; }
+
+    public double minAsk(int a) { return minAsk[a]; }
+    public double maxBid(int a) { return maxBid[a]; }
+
+    /** (maxBid - minAsk) / minAsk. NaN si falta alguna punta. */
+    public double grossSpread(int a) { return grossSpread[a]; }
+
+    /** Spread después de fees taker de compra y venta. NaN si falta alguna punta. */
+    public double netSpread(int a) { return netSpread[a]; }
+
+    // =========================================================================
+    // 🔧 CONTRATO DE KERNEL
+    // =========================================================================
+
+    /**
+     * Contrato común de los kernels (escalar / SIMD).
+     * Entradas en layout exchange-major; salidas indexadas por activo.
+     */
+    interface Kernel {
+        String name();
+
+        void compute(int assetCount, int exchangeCount, int stride,
+                     double[] asks, double[] bids, double[] fees,
+                     double[] outMinAsk, double[] outMaxBid,
+                     double[] outBuyIdx, double[] outSellIdx,
+                     double[] outGross, double[] outNet);
+    }
+}
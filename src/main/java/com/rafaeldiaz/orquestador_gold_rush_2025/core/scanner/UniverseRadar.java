@@ -0,0 +1,280 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector.Ticker24h;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🌍 RADAR DE UNIVERSO COMPLETO (CRIBA + SONDEO PRESUPUESTADO)
+ * 1. CRIBA: un ticker 24h en lote por venue cubre TODOS los pares spot USDT (miles de símbolos, 1 request).
+ * 2. SELECCIÓN: solo la franja superior de la criba se sondea, limitada por RADAR_PROBE_BUDGET por venue.
+ * 3. SONDEO: libro (profundidad) + velas 1m (ATR) con paralelismo derivado del presupuesto y el RTT.
+ */
+public class UniverseRadar {
+
+    /** Resultado de la criba (memoria pura, sin I/O por símbolo). */
+    public record ScreenEntry(String venue, String symbol, double score,
+                              double rangePercent, double spreadPercent, double turnover, double crossSpreadPercent) {}
+
+    /** Resultado de una sonda de profundidad y volatilidad. Velas en orden cronológico {high, low, close}. */
+    public record RadarHit(String venue, String symbol, double score, double atrPercent,
+                           double spreadPercent, double depthUsd, double crossSpreadPercent, List<double[]> candles) {}
+
+    public record CycleReport(int venues, int screened, int probed, int requests, long elapsedMs, List<RadarHit> hits) {}
+
+    private static final int PROBE_COST = 2;             // Libro + velas
+    private static final int PROBE_DEPTH = 10;
+    private static final long PROBE_DEADLINE_SEC = 90;   // Tope duro del ciclo de sondeo
+    private static final double FULL_TURNOVER_USD = 50_000_000.0;
+    private static final double FULL_DEPTH_USD = 500_000.0;
+
+    // Pesos de la criba (ticker) y del sondeo (libro + velas)
+    private static final double WEIGHT_VOL = 0.4;
+    private static final double WEIGHT_EDGE = 0.4;
+    private static final double WEIGHT_LIQUIDITY = 0.2;
+
+    private final ExchangeConnector connector;
+    private final FeeManager feeManager;
+    private final List<String> venues;
+    private final Map<String, VenueBudget> budgets = new ConcurrentHashMap<>();
+    // venue -> símbolos listados en la última criba
+    private volatile Map<String, Set<String>> listings = Map.of();
+
+    public UniverseRadar(ExchangeConnector connector, FeeManager feeManager, List<String> exchanges) {
+        this.connector = connector;
+        this.feeManager = feeManager;
+        // Las subcuentas de Bybit comparten mercado: un solo venue
+        Set<String> families = new LinkedHashSet<>();
+        for (String ex : exchanges) families.add(ex.toLowerCase().contains("bybit") ? "bybit" : ex.toLowerCase());
+        this.venues = List.copyOf(families);
+        for (String v : venues) budgets.put(v, new VenueBudget(BotConfig.RADAR_REQUESTS_PER_SEC));
+    }
+
+    // =========================================================================
+    // 🔄 CICLO
+    // =========================================================================
+
+    public CycleReport scan() {
+        long start = System.currentTimeMillis();
+        AtomicInteger requests = new AtomicInteger();
+
+        // 1. CRIBA: una llamada en lote por venue (en paralelo)
+        Map<String, Map<String, Ticker24h>> tickers = new ConcurrentHashMap<>();
+        try (var scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String venue : venues) {
+                scope.submit(() -> {
+                    budgets.get(venue).acquire(1);
+                    requests.incrementAndGet();
+                    Map<String, Ticker24h> t = connector.fetchAllTickers24h(venue);
+                    if (!t.isEmpty()) tickers.put(venue, t);
+                    return null;
+                });
+            }
+        }
+        Map<String, Set<String>> listed = new HashMap<>();
+        tickers.forEach((v, t) -> listed.put(v, Set.copyOf(t.keySet())));
+        this.listings = Map.copyOf(listed);
+
+        List<ScreenEntry> screened = screen(tickers, BotConfig.RADAR_MIN_TURNOVER_USD);
+
+        // 2. SELECCIÓN bajo presupuesto
+        int slotsPerVenue = Math.max(0, (BotConfig.RADAR_PROBE_BUDGET - 1) / PROBE_COST);
+        List<ScreenEntry> selected = selectProbes(screened, slotsPerVenue);
+
+        // 3. SONDEO con paralelismo adaptado al presupuesto
+        List<RadarHit> hits = probe(selected, requests);
+        hits.sort(Comparator.comparingDouble(RadarHit::score).reversed());
+
+        return new CycleReport(tickers.size(), screened.size(), selected.size(), requests.get(),
+                System.currentTimeMillis() - start, hits);
+    }
+
+    /** @return true si el símbolo figuraba en la última criba del venue. */
+    public boolean isListed(String venue, String symbol) {
+        return listings.getOrDefault(venue, Set.of()).contains(symbol);
+    }
+
+    /** Presupuesto compartido del venue (otros consumidores REST deben pasar por aquí). */
+    VenueBudget budget(String venue) {
+        return budgets.computeIfAbsent(venue, v -> new VenueBudget(BotConfig.RADAR_REQUESTS_PER_SEC));
+    }
+
+    // =========================================================================
+    // 🧹 CRIBA (Ticker en lote)
+    // =========================================================================
+
+    /**
+     * Puntúa cada par USDT de cada venue con datos del ticker: rango 24h (volatilidad),
+     * diferencial entre venues (mejor bid ajeno vs ask propio y viceversa) y volumen.
+     */
+    static List<ScreenEntry> screen(Map<String, Map<String, Ticker24h>> tickers, double minTurnover) {
+        // Mejor bid / ask por símbolo y venue para el diferencial cruzado
+        Map<String, List<Ticker24h>> bySymbol = new HashMap<>();
+        Map<Ticker24h, String> venueOf = new IdentityHashMap<>();
+        tickers.forEach((venue, map) -> map.values().forEach(t -> {
+            if (!isTradable(t, minTurnover)) return;
+            bySymbol.computeIfAbsent(t.symbol(), k -> new ArrayList<>()).add(t);
+            venueOf.put(t, venue);
+        }));
+
+        List<ScreenEntry> out = new ArrayList<>();
+        for (List<Ticker24h> quotes : bySymbol.values()) {
+            for (Ticker24h t : quotes) {
+                double mid = (t.bid() + t.ask()) / 2.0;
+                double spread = (t.ask() - t.bid()) / mid * 100.0;
+                double range = (t.high() > 0 && t.low() > 0) ? (t.high() - t.low()) / t.last() * 100.0 : 0.0;
+
+                double cross = 0.0;
+                for (Ticker24h other : quotes) {
+                    if (other == t) continue;
+                    cross = Math.max(cross, (other.bid() - t.ask()) / t.ask() * 100.0); // Comprar aquí, vender allá
+                    cross = Math.max(cross, (t.bid() - other.ask()) / other.ask() * 100.0); // Comprar allá, vender aquí
+                }
+
+                double sVol = Math.min(range, 20.0) / 20.0;
+                double sEdge = Math.min(cross, 2.0) / 2.0;
+                double sLiq = liquidityScore(t.turnover(), minTurnover, FULL_TURNOVER_USD);
+                double score = sVol * WEIGHT_VOL + sEdge * WEIGHT_EDGE + sLiq * WEIGHT_LIQUIDITY;
+                out.add(new ScreenEntry(venueOf.get(t), t.symbol(), score, range, spread, t.turnover(), cross));
+            }
+        }
+        out.sort(Comparator.comparingDouble(ScreenEntry::score).reversed());
+        return out;
+    }
+
+    private static boolean isTradable(Ticker24h t, double minTurnover) {
+        String s = t.symbol();
+        if (!s.endsWith("USDT") || s.length() <= 4) return false;
+        String base = s.substring(0, s.length() - 4);
+        // Tokens apalancados: su "volatilidad" es sintética
+        if (base.endsWith("3L") || base.endsWith("3S") || base.endsWith("5L") || base.endsWith("5S")) return false;
+        return t.last() > 0 && t.bid() > 0 && t.ask() >= t.bid() && t.turnover() >= minTurnover;
+    }
+
+    // Escala logarítmica: el volumen tiene cola pesada (de $1M a $10B)
+    private static double liquidityScore(double value, double floor, double full) {
+        if (value <= 0) return 0.0;
+        double lo = Math.log10(Math.max(floor, 1.0));
+        double hi = Math.log10(full);
+        if (hi <= lo) return value >= full ? 1.0 : 0.0;
+        return Math.max(0.0, Math.min(1.0, (Math.log10(value) - lo) / (hi - lo)));
+    }
+
+    /** Franja superior por venue: cada venue gasta como máximo {@code slotsPerVenue} sondas. */
+    static List<ScreenEntry> selectProbes(List<ScreenEntry> ranked, int slotsPerVenue) {
+        Map<String, Integer> used = new HashMap<>();
+        List<ScreenEntry> selected = new ArrayList<>();
+        for (ScreenEntry e : ranked) {
+            int n = used.getOrDefault(e.venue(), 0);
+            if (n >= slotsPerVenue) continue;
+            used.put(e.venue(), n + 1);
+            selected.add(e);
+        }
+        return selected;
+    }
+
+    // =========================================================================
+    // 🔬 SONDEO (Libro + Velas)
+    // =========================================================================
+
+    private List<RadarHit> probe(List<ScreenEntry> selected, AtomicInteger requests) {
+        Map<String, Semaphore> gates = new HashMap<>();
+        for (String venue : venues) {
+            int threads = budget(venue).concurrency(connector.getRTT(venue));
+            gates.put(venue, new Semaphore(threads));
+        }
+
+        List<RadarHit> hits = Collections.synchronizedList(new ArrayList<>());
+        try (var scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ScreenEntry e : selected) {
+                Semaphore gate = gates.computeIfAbsent(e.venue(), v -> new Semaphore(1));
+                futures.add(scope.submit(() -> {
+                    gate.acquire();
+                    try {
+                        budget(e.venue()).acquire(PROBE_COST);
+                        requests.addAndGet(PROBE_COST);
+                        RadarHit hit = probeOne(e);
+                        if (hit != null) hits.add(hit);
+                    } finally {
+                        gate.release();
+                    }
+                    return null;
+                }));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PROBE_DEADLINE_SEC);
+            for (Future<?> f : futures) {
+                try {
+                    f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException ex) {
+                    f.cancel(true);
+                } catch (ExecutionException ignored) {
+                    // Fail-Safe: una sonda fallida no frena el ciclo
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new ArrayList<>(hits);
+    }
+
+    private RadarHit probeOne(ScreenEntry e) {
+        ExchangeConnector.OrderBook book = connector.fetchOrderBook(e.venue(), e.symbol(), PROBE_DEPTH);
+        if (book == null || book.bids().isEmpty() || book.asks().isEmpty()) return null;
+
+        List<double[]> candles = ExchangeConnector.chronological(e.venue(),
+                connector.fetchCandles(e.venue(), e.symbol(), "1m", BotConfig.RADAR_ATR_PERIOD + 1));
+        if (candles.size() > BotConfig.RADAR_ATR_PERIOD + 1) {
+            candles = candles.subList(candles.size() - BotConfig.RADAR_ATR_PERIOD - 1, candles.size());
+        }
+        double atr = atrPercent(candles);
+        if (Double.isNaN(atr) || atr < 0.15) return null; // Dead market check
+
+        double bestBid = book.bids().getFirst()[0];
+        double bestAsk = book.asks().getFirst()[0];
+        double spread = (bestAsk - bestBid) / ((bestAsk + bestBid) / 2.0) * 100.0;
+
+        double depth = 0;
+        for (double[] b : book.bids()) depth += b[0] * b[1];
+        for (double[] a : book.asks()) depth += a[0] * a[1];
+        if (depth < 15_000) return null;
+
+        double fee = feeManager.getTradingFee(e.venue(), e.symbol(), "TAKER");
+        double edge = Math.max(spread, e.crossSpreadPercent()) - fee * 200.0;
+
+        double sVol = Math.min(atr, 5.0) / 5.0;
+        double sEdge = Math.min(Math.max(edge, 0), 2.0) / 2.0;
+        double sLiq = Math.min(depth / FULL_DEPTH_USD, 1.0);
+        double score = sVol * WEIGHT_VOL + sEdge * WEIGHT_EDGE + sLiq * WEIGHT_LIQUIDITY;
+
+        return new RadarHit(e.venue(), e.symbol(), score, atr, spread, depth, e.crossSpreadPercent(), List.copyOf(candles));
+    }
+
+    /** ATR (true range medio) en % del último cierre. Velas cronológicas {high, low, close}. */
+    static double atrPercent(List<double[]> candles) {
+        if (candles == null || candles.size() < 2) return Double.NaN;
+        double sum = 0;
+        for (int i = 1; i < candles.size(); i++) {
+            double[] c = candles.get(i);
+            double prevClose = candles.get(i - 1)[2];
+            sum += Math.max(c[0] - c[1], Math.max(Math.abs(c[0] - prevClose), Math.abs(c[1] - prevClose)));
+        }
+        double last = candles.getLast()[2];
+        return (last > 0) ? sum / (candles.size() - 1) / last * 100.0 : Double.NaN;
+    }
+
+    public List<String> venues() {
+        return venues;
+    }
+
+    void logCycle(CycleReport r) {
+        BotLogger.info("🌍 UNIVERSO: %d pares cribados en %d venues | %d sondeados (%d requests) | %dms",
+                r.screened(), r.venues(), r.probed(), r.requests(), r.elapsedMs());
+    }
+}
@@ -0,0 +1,75 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 🚀 KERNEL SIMD (JDK VECTOR API)
+ * Procesa SPECIES.length() activos por instrucción: cada carril es un activo y
+ * el bucle interno recorre las filas de exchanges con compare + blend (sin ramas).
+ * Requiere "--add-modules jdk.incubator.vector" en compilación y en runtime.
+ */
+final class VectorSpreadKernel implements SpatialSpreadMatrix.Kernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "SIMD-" + SPECIES.vectorBitSize() + "bit";
+    }
+
+    @Override
+    public void compute(int assetCount, int exchangeCount, int stride,
+                        double[] asks, double[] bids, double[] fees,
+                        double[] outMinAsk, double[] outMaxBid,
+                        double[] outBuyIdx, double[] outSellIdx,
+                        double[] outGross, double[] outNet) {
+        int bound = SPECIES.loopBound(assetCount);
+        int a = 0;
+
+        for (; a < bound; a += SPECIES.length()) {
+            DoubleVector minAsk = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+            DoubleVector maxBid = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+            DoubleVector buyFee = DoubleVector.zero(SPECIES);
+            DoubleVector sellFee = DoubleVector.zero(SPECIES);
+            DoubleVector buyIdx = DoubleVector.broadcast(SPECIES, -1.0);
+            DoubleVector sellIdx = DoubleVector.broadcast(SPECIES, -1.0);
+
+            for (int e = 0; e < exchangeCount; e++) {
+                int offset = e * stride + a;
+                DoubleVector ask = DoubleVector.fromArray(SPECIES, asks, offset);
+                DoubleVector bid = DoubleVector.fromArray(SPECIES, bids, offset);
+                DoubleVector fee = DoubleVector.fromArray(SPECIES, fees, offset);
+
+                // Comparación estricta: en empate conserva el primer exchange (paridad con el escalar)
+                VectorMask<Double> cheaper = ask.compare(VectorOperators.LT, minAsk);
+                minAsk = minAsk.blend(ask, cheaper);
+                buyFee = buyFee.blend(fee, cheaper);
+                buyIdx = buyIdx.blend(e, cheaper);
+
+                VectorMask<Double> richer = bid.compare(VectorOperators.GT, maxBid);
+                maxBid = maxBid.blend(bid, richer);
+                sellFee = sellFee.blend(fee, richer);
+                sellIdx = sellIdx.blend(e, richer);
+            }
+
+            DoubleVector gross = maxBid.sub(minAsk).div(minAsk);
+            DoubleVector net = maxBid.mul(sellFee.neg().add(1.0))
+                    .sub(minAsk.mul(buyFee.add(1.0)))
+                    .div(minAsk);
+
+            minAsk.intoArray(outMinAsk, a);
+            maxBid.intoArray(outMaxBid, a);
+            buyIdx.intoArray(outBuyIdx, a);
+            sellIdx.intoArray(outSellIdx, a);
+            gross.intoArray(outGross, a);
+            net.intoArray(outNet, a);
+        }
+
+        // Cola que no llena un vector completo
+        ScalarSpreadKernel.computeRange(a, assetCount, exchangeCount, stride, asks, bids, fees,
+                outMinAsk, outMaxBid, outBuyIdx, outSellIdx, outGross, outNet);
+    }
+}
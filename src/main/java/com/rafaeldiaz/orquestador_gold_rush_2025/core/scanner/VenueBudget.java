@@ -0,0 +1,55 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🚦 PRESUPUESTO DE REQUESTS POR VENUE (Token Bucket con reserva)
+ * Cada llamada reserva su costo; si el balde queda en deuda, el hilo duerme lo justo para pagarla.
+ * El paralelismo se deriva del presupuesto (Ley de Little): hilos = tasa × latencia.
+ */
+final class VenueBudget {
+
+    private static final int MAX_CONCURRENCY = 16;
+    private static final long MIN_LATENCY_MS = 100; // Piso para venues sin RTT medido
+
+    private final double ratePerSec;
+    private final double capacity;
+    private double tokens;
+    private long lastNanos;
+
+    VenueBudget(double ratePerSec) {
+        this.ratePerSec = Math.max(0.1, ratePerSec);
+        this.capacity = Math.max(1.0, this.ratePerSec); // Ráfaga máxima: un segundo de presupuesto
+        this.tokens = capacity;
+        this.lastNanos = System.nanoTime();
+    }
+
+    /** Bloquea (hilo virtual) hasta que el presupuesto cubra {@code cost} requests. */
+    void acquire(int cost) throws InterruptedException {
+        long waitNanos = reserve(cost);
+        if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    /** Reserva el costo y devuelve cuánto hay que esperar (0 si había saldo). */
+    synchronized long reserve(int cost) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastNanos) / 1e9 * ratePerSec);
+        lastNanos = now;
+        tokens -= cost;
+        return (tokens >= 0) ? 0 : (long) (-tokens / ratePerSec * 1e9);
+    }
+
+    /**
+     * Hilos necesarios para consumir el presupuesto sin excederlo.
+     * Una sonda de N requests secuenciales dura N × RTT y se pueden lanzar tasa/N por segundo:
+     * concurrencia = (tasa/N) × (N × RTT) = tasa × RTT.
+     */
+    int concurrency(long rttMs) {
+        double latencySec = Math.max(rttMs, MIN_LATENCY_MS) / 1000.0;
+        return (int) Math.max(1, Math.min(MAX_CONCURRENCY, Math.ceil(ratePerSec * latencySec)));
+    }
+
+    double ratePerSec() {
+        return ratePerSec;
+    }
+}
@@ -1,10 +1,15 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.ExecutionCoordinator;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
 import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -21,6 +26,7 @@ public class CrossTradeExecutor {
     private boolean dryRun = true;
     private final RiskManager riskManager;
     private final ExecutionCoordinator coordinator;
+    private final TradeJournal journal = TradeJournal.shared();
 
     public CrossTradeExecutor(
             ExchangeConnector connector, RiskManager riskManager,
@@ -45,6 +51,11 @@ public class CrossTradeExecutor {
             return;
         }
 
+        String asset = pair.replace("USDT", "").replace("-", "");
+        String tid = journal.open("CROSS", buyExchange + ">" + sellExchange, pair + " qty " + qty);
+        journal.intent(tid, buyExchange, asset, "USDT", "BUY", qty);
+        journal.intent(tid, sellExchange, asset, "USDT", "SELL", qty);
+
         // --- FUEGO PARALELO (ESTÁNDAR JAVA 21+) ---
         // Usamos un Executor efímero que lanza un Hilo Virtual por cada tarea.
         // El try-with-resources asegura que se cierre automáticamente al terminar.
@@ -52,28 +63,141 @@ public class CrossTradeExecutor {
 
             // 1. DISPARAR (FORK)
             // Enviamos las dos balas al mismo tiempo. No bloquea aquí.
-            Future<OrderResult> fBuy = executor.submit(() ->
+            // La traza de latencia viaja a cada hilo virtual (stamps de envío, ack y fill)
+            Future<OrderResult> fBuy = executor.submit(TradeTrace.propagate(() ->
                     connector.placeOrder(buyExchange, pair, "BUY", "MARKET", qty, 0)
-            );
+            ));
 
-            Future<OrderResult> fSell = executor.submit(() ->
+            Future<OrderResult> fSell = executor.submit(TradeTrace.propagate(() ->
                     connector.placeOrder(sellExchange, pair, "SELL", "MARKET", qty, 0)
-            );
+            ));
 
             // 2. RECOLECTAR (JOIN)
             // .get() esperará a que el hilo virtual termine.
             // Si hay error en la red, capturamos la excepción de forma segura.
             OrderResult buyResult = safeGet(fBuy);
             OrderResult sellResult = safeGet(fSell);
+            journal.result(tid, buyExchange, asset, "USDT", "BUY", buyResult);
+            journal.result(tid, sellExchange, asset, "USDT", "SELL", sellResult);
 
             // 3. PROCESAR
-            processResults(buyExchange, buyResult, sellExchange, sellResult, pair, qty);
+            processResults(tid, buyExchange, buyResult, sellExchange, sellResult, pair, qty);
 
         } catch (Exception e) {
             BotLogger.error("🔥 Error Crítico en Executor: " + e.getMessage());
         }
     }
-    private void processResults(String buyEx, OrderResult buyRes, String sellEx, OrderResult sellRes, String pair, double originalQty) {
+    /**
+     * 🧭 EJECUCIÓN RUTEADA (SmartOrderRouter)
+     * Dispara TODAS las órdenes hijas a la vez (un hilo virtual por hija) y cubre al final
+     * el desbalance neto: si se compró más de lo vendido se vende el exceso donde se compró,
+     * y al revés. Devuelve el PnL realizado (0 si no hubo fills).
+     */
+    public double executeRouted(String pair, SmartOrderRouter.Route route) {
+        if (route.isEmpty() || !riskManager.canExecuteTrade()) return 0.0;
+
+        if (dryRun) {
+            BotLogger.info("[DRY-RUN] Cross ruteado " + pair + ": " + route.buys().size() + " compras / "
+                    + route.sells().size() + " ventas | Qty: " + route.qty() + " | PnL est: $" + route.netPnl());
+            return 0.0;
+        }
+
+        List<SmartOrderRouter.Child> children = new ArrayList<>(route.buys());
+        children.addAll(route.sells());
+        List<OrderResult> results = new ArrayList<>(children.size());
+        String asset = pair.replace("USDT", "").replace("-", "");
+        String tid = journal.open("ROUTED", "multi", pair + " " + children.size() + " hijas");
+        for (SmartOrderRouter.Child child : children) {
+            journal.intent(tid, child.account(), asset, "USDT", child.side(), child.qty());
+        }
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // 1. FORK: todas las hijas en vuelo antes de esperar a ninguna
+            // Compras LIMIT FOK con tope de slippage (un Market Buy en Bybit lee la qty en USDT); ventas MARKET en base
+            List<Future<OrderResult>> futures = new ArrayList<>(children.size());
+            for (SmartOrderRouter.Child child : children) {
+                futures.add(executor.submit(TradeTrace.propagate(() -> "BUY".equals(child.side())
+                        ? connector.placeOrder(child.account(), pair, "BUY", "LIMIT", child.qty(), buyCap(child.vwap()))
+                        : connector.placeOrder(child.account(), pair, "SELL", "MARKET", child.qty(), 0))));
+            }
+            // 2. JOIN
+            for (Future<OrderResult> f : futures) results.add(safeGet(f));
+        } catch (Exception e) {
+            BotLogger.error("🔥 Error Crítico en Executor ruteado: " + e.getMessage());
+        }
+
+        // 3. PROCESAR: fills reales por lado
+        double bought = 0, sold = 0, spent = 0, received = 0;
+        OrderResult largestBuy = null, largestSell = null;
+        String largestBuyEx = null, largestSellEx = null;
+        for (int i = 0; i < results.size(); i++) {
+            SmartOrderRouter.Child child = children.get(i);
+            OrderResult res = results.get(i);
+            journal.result(tid, child.account(), asset, "USDT", child.side(), res);
+            boolean ok = (res != null && res.executedQty() > 0);
+            if (!ok) {
+                coordinator.reportFailure(child.account());
+                continue;
+            }
+            coordinator.reportSuccess(child.account());
+            if ("BUY".equals(child.side())) {
+                bought += res.executedQty();
+                spent += res.executedValue();
+                if (largestBuy == null || res.executedQty() > largestBuy.executedQty()) {
+                    largestBuy = res;
+                    largestBuyEx = child.account();
+                }
+            } else {
+                sold += res.executedQty();
+                received += res.executedValue();
+                if (largestSell == null || res.executedQty() > largestSell.executedQty()) {
+                    largestSell = res;
+                    largestSellEx = child.account();
+                }
+            }
+        }
+
+        if (bought == 0 && sold == 0) {
+            BotLogger.error("❌ FALLO TOTAL RUTEADO: Ninguna orden entró. (Sin impacto financiero)");
+            journal.close(tid, "NO_FILL");
+            return 0.0;
+        }
+
+        // 4. COBERTURA del desbalance (steps distintos por venue o hijas caídas)
+        double imbalance = bought - sold;
+        double hedgeValue = 0.0;
+        OrderResult hedge = null;
+        if (imbalance > 0 && largestBuyEx != null) {
+            BotLogger.warn("🔄 COBERTURA: Vendiendo exceso " + imbalance + " en " + largestBuyEx);
+            journal.intent(tid, largestBuyEx, asset, "USDT", "SELL", imbalance);
+            hedge = connector.placeOrder(largestBuyEx, pair, "SELL", "MARKET", imbalance, 0);
+            journal.rollback(tid, largestBuyEx, asset, "USDT", "SELL", hedge);
+            if (hedge != null) hedgeValue = hedge.executedValue();
+        } else if (imbalance < 0 && largestSellEx != null) {
+            BotLogger.warn("🔄 COBERTURA: Re-comprando " + (-imbalance) + " en " + largestSellEx);
+            journal.intent(tid, largestSellEx, asset, "USDT", "BUY", -imbalance);
+            double soldAvg = largestSell.executedValue() / largestSell.executedQty();
+            hedge = connector.placeOrder(largestSellEx, pair, "BUY", "LIMIT", -imbalance, buyCap(soldAvg));
+            journal.rollback(tid, largestSellEx, asset, "USDT", "BUY", hedge);
+            if (hedge != null) hedgeValue = -hedge.executedValue();
+        }
+
+        double pnl = received - spent + hedgeValue;
+        // Cobertura caída o incompleta: la exposición queda abierta en el diario hasta la conciliación
+        if (imbalance == 0 || (hedge != null && hedge.isFilled())) journal.close(tid, "COMPLETE");
+        else journal.stuck(tid, "COBERTURA " + pair);
+        Thread.ofVirtual().start(() -> riskManager.reportTradeResult(pnl));
+        BotLogger.info((pnl >= 0 ? "✅ CROSS RUTEADO WIN" : "⚠️ CROSS RUTEADO LOSS") + ": PnL $" + pnl
+                + " | " + children.size() + " hijas");
+        return pnl;
+    }
+
+    /** Tope de una compra LIMIT: el precio esperado más el slippage máximo tolerado. */
+    private static double buyCap(double expectedPrice) {
+        return expectedPrice * (1 + BotConfig.MAX_SLIPPAGE);
+    }
+
+    private void processResults(String tid, String buyEx, OrderResult buyRes, String sellEx, OrderResult sellRes, String pair, double originalQty) {
         boolean buyOk = (buyRes != null && buyRes.isFilled());
         boolean sellOk = (sellRes != null && sellRes.isFilled());
 
@@ -87,11 +211,12 @@ public class CrossTradeExecutor {
             coordinator.reportSuccess(buyEx);
             coordinator.reportSuccess(sellEx);
             BotLogger.info("✅ CROSS WIN: PnL estimado $" + pnl);
+            journal.close(tid, "COMPLETE");
             return;
         }
 
         // B. FALLO PARCIAL (ROLLBACK)
-        handlePartialFailure(buyEx, buyRes, sellEx, sellRes, pair);
+        handlePartialFailure(tid, buyEx, buyRes, sellEx, sellRes, pair);
     }
     // Método auxiliar para manejar el .get() sin ensuciar la lógica principal con try-catch
     private OrderResult safeGet(Future<OrderResult> future) {
@@ -107,22 +232,34 @@ public class CrossTradeExecutor {
     }
 
 
-    private void handlePartialFailure(String buyEx, OrderResult buyRes, String sellEx, OrderResult sellRes, String pair) {
+    private void handlePartialFailure(String tid, String buyEx, OrderResult buyRes, String sellEx, OrderResult sellRes, String pair) {
         boolean buyOk = (buyRes != null && buyRes.isFilled());
         boolean sellOk = (sellRes != null && sellRes.isFilled());
+        String asset = pair.replace("USDT", "").replace("-", "");
+        OrderResult rollback = null;
 
         if (buyOk && !sellOk) {
             BotLogger.warn("🔄 ROLLBACK: Vendiendo en " + buyEx + " (Fallo venta en " + sellEx + ")");
-            connector.placeOrder(buyEx, pair, "SELL", "MARKET", buyRes.executedQty(), 0);
+            // Cantidad exacta reportada por el exchange: ni polvo residual ni sobreventa
+            journal.intent(tid, buyEx, asset, "USDT", "SELL", buyRes.filledQty().toDouble());
+            rollback = connector.placeOrder(buyEx, pair, "SELL", "MARKET", buyRes.filledQty(), FixedDecimal.ZERO);
+            journal.rollback(tid, buyEx, asset, "USDT", "SELL", rollback);
             coordinator.reportFailure(sellEx);
         }
         else if (!buyOk && sellOk) {
             BotLogger.warn("🔄 ROLLBACK: Re-comprando en " + sellEx + " (Fallo compra en " + buyEx + ")");
-            connector.placeOrder(sellEx, pair, "BUY", "MARKET", sellRes.executedQty(), 0);
+            journal.intent(tid, sellEx, asset, "USDT", "BUY", sellRes.filledQty().toDouble());
+            rollback = connector.placeOrder(sellEx, pair, "BUY", "MARKET", sellRes.filledQty(), FixedDecimal.ZERO);
+            journal.rollback(tid, sellEx, asset, "USDT", "BUY", rollback);
             coordinator.reportFailure(buyEx);
         }
         else {
             BotLogger.error("❌ FALLO TOTAL: Ninguna orden entró. (Sin impacto financiero)");
+            journal.close(tid, "NO_FILL");
+            return;
         }
+        // Si el rollback no llenó, la pata queda abierta en el diario hasta la conciliación
+        if (rollback != null && rollback.isFilled()) journal.close(tid, "ROLLED_BACK");
+        else journal.stuck(tid, "ROLLBACK " + pair);
     }
 }
\ No newline at end of file
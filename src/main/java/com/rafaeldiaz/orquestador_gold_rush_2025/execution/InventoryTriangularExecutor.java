@@ -0,0 +1,285 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TradeTrace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 📦 TRIANGULAR EN MODO INVENTARIO (3 patas en paralelo)
+ * La cuenta mantiene stock de USDT, activos y puentes. Un ciclo detectado no espera fills encadenados:
+ * compra ASSET con USDT, vende ASSET por BRIDGE y vende BRIDGE por USDT AL MISMO TIEMPO,
+ * cada pata contra el stock que ya existe (una ida y vuelta en vez de tres; sin exposición entre patas).
+ * La deriva que dejan fees, fills parciales o patas fallidas se corrige en lote cada
+ * INVENTORY_REBALANCE_MIN, no en el camino crítico.
+ */
+public class InventoryTriangularExecutor {
+
+    /** Resultado de un ciclo: las tres patas y el delta de USDT (venta pata 3 - compra pata 1). */
+    public record CycleResult(OrderResult leg1, OrderResult leg2, OrderResult leg3, double usdtDelta) {
+        public boolean complete() {
+            return leg1.isFilled() && leg2.isFilled() && leg3.isFilled();
+        }
+    }
+
+    /** Orden de rebalanceo contra USDT (qty en unidades de la moneda). */
+    public record Rebalance(String coin, String side, double qty, double valueUsdt) {}
+
+    private final ExchangeConnector connector;
+    private final String account;
+    private final Map<String, Double> targets;   // Moneda -> peso objetivo (suman 1)
+    private final double driftLimit;             // Fracción del valor objetivo tolerada
+    private final TradeJournal journal = TradeJournal.shared();
+    private final Map<String, Double> holdings = new HashMap<>(); // Stock vivo (guardado por el monitor)
+    private long lastFillAtMs = 0;
+    private boolean dryRun = true;
+
+    public InventoryTriangularExecutor(ExchangeConnector connector, String account,
+                                       Map<String, Double> targets, double driftLimit) {
+        this.connector = connector;
+        this.account = account;
+        this.targets = Map.copyOf(targets);
+        this.driftLimit = driftLimit;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    // =========================================================================
+    // 📒 INVENTARIO
+    // =========================================================================
+
+    /**
+     * Reconcilia con un snapshot de saldos. Se ignora si es anterior al último fill aplicado:
+     * pisaría el stock vivo con una foto vieja.
+     */
+    public synchronized void syncHoldings(Map<String, Double> balances, long takenAtMs) {
+        if (takenAtMs < lastFillAtMs) return;
+        holdings.clear();
+        holdings.putAll(balances);
+    }
+
+    public synchronized double holding(String coin) {
+        return holdings.getOrDefault(coin, 0.0);
+    }
+
+    /** ¿Alcanza el stock para las tres patas del plan? (false si el plan no sirve para inventario) */
+    public synchronized boolean covers(TriangularPlan plan) {
+        if (!plan.isExecutable() || plan.expectedBridge() <= 0) return false;
+        return holding("USDT") >= usdtNeeded(plan)
+                && holding(plan.asset()) >= qty2(plan).toDouble()
+                && holding(plan.bridge()) >= qty3(plan).toDouble();
+    }
+
+    /** Reserva el stock de las tres patas; si alguna no alcanza, no reserva nada. */
+    private synchronized boolean reserve(String asset, String bridge, double usdt, double assetQty, double bridgeQty) {
+        if (holding("USDT") < usdt || holding(asset) < assetQty || holding(bridge) < bridgeQty) return false;
+        holdings.merge("USDT", -usdt, Double::sum);
+        holdings.merge(asset, -assetQty, Double::sum);
+        holdings.merge(bridge, -bridgeQty, Double::sum);
+        return true;
+    }
+
+    /** Aplica un fill sobre la reserva: devuelve lo no gastado y acredita lo recibido neto de comisión. */
+    private synchronized void settle(String paid, double reserved, double spent, String received, double gross, OrderResult fill) {
+        holdings.merge(paid, reserved - spent, Double::sum);
+        if (gross > 0) holdings.merge(received, gross - TriangularExecutor.feeIn(fill, received), Double::sum);
+        lastFillAtMs = System.currentTimeMillis();
+    }
+
+    // =========================================================================
+    // ⚡ CICLO CONCURRENTE
+    // =========================================================================
+
+    /**
+     * Dispara las tres patas del plan en paralelo contra el inventario.
+     * Requiere precios de las tres patas en el plan (expectedBridge > 0).
+     * @return null si no hay stock suficiente (no se dispara nada) o en simulación
+     */
+    public CycleResult execute(TriangularPlan plan) {
+        if (!plan.isExecutable() || plan.expectedBridge() <= 0) return null;
+
+        FixedDecimal qty2 = qty2(plan);
+        FixedDecimal qty3 = qty3(plan);
+        double usdtNeeded = usdtNeeded(plan);
+        if (qty2.isZero() || qty3.isZero()) return null;
+
+        if (dryRun) {
+            BotLogger.info("[DRY-RUN] Triangular inventario " + account + ": " + plan.asset() + "-" + plan.bridge()
+                    + " | " + plan.qty1() + " / " + qty2 + " / " + qty3);
+            return null;
+        }
+        if (!reserve(plan.asset(), plan.bridge(), usdtNeeded, qty2.toDouble(), qty3.toDouble())) {
+            BotLogger.warn("📦 Inventario insuficiente en " + account + " para " + plan.asset() + "-" + plan.bridge());
+            return null;
+        }
+
+        // 📒 Las tres intenciones quedan en el diario antes del disparo (una pata parcial deja exposición)
+        String tid = journal.open("TRIANGULAR_INV", account, plan.asset() + "-" + plan.bridge() + " $" + plan.capitalUsdt());
+        journal.intent(tid, account, plan.asset(), "USDT", "BUY", plan.qty1().toDouble());
+        journal.intent(tid, account, plan.asset(), plan.bridge(), "SELL", qty2.toDouble());
+        journal.intent(tid, account, plan.bridge(), "USDT", "SELL", qty3.toDouble());
+
+        OrderResult r1, r2, r3;
+        // --- FUEGO PARALELO: una ida y vuelta para las tres patas ---
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<OrderResult> f1 = executor.submit(TradeTrace.propagate(() ->
+                    connector.placeOrder(account, plan.pair1(), "BUY", "LIMIT", plan.qty1(), plan.limitPrice1())));
+            Future<OrderResult> f2 = executor.submit(TradeTrace.propagate(() ->
+                    connector.placeOrder(account, plan.pair2(), "SELL", "MARKET", qty2, FixedDecimal.ZERO)));
+            Future<OrderResult> f3 = executor.submit(TradeTrace.propagate(() ->
+                    connector.placeOrder(account, plan.pair3(), "SELL", "MARKET", qty3, FixedDecimal.ZERO)));
+            r1 = safeGet(f1);
+            r2 = safeGet(f2);
+            r3 = safeGet(f3);
+        }
+        journal.result(tid, account, plan.asset(), "USDT", "BUY", r1);
+        journal.result(tid, account, plan.asset(), plan.bridge(), "SELL", r2);
+        journal.result(tid, account, plan.bridge(), "USDT", "SELL", r3);
+
+        settle("USDT", usdtNeeded, r1.executedValue(), plan.asset(), r1.executedQty(), r1);
+        settle(plan.asset(), qty2.toDouble(), r2.executedQty(), plan.bridge(), r2.executedValue(), r2);
+        settle(plan.bridge(), qty3.toDouble(), r3.executedQty(), "USDT", r3.executedValue(), r3);
+
+        CycleResult result = new CycleResult(r1, r2, r3,
+                r3.executedValue() - TriangularExecutor.feeIn(r3, "USDT") - r1.executedValue());
+        if (result.complete()) {
+            journal.close(tid, "COMPLETE");
+            BotLogger.logTrade("TRIANGULAR_INV_" + plan.asset() + "_" + plan.bridge(),
+                    result.usdtDelta() >= 0 ? "WIN" : "LOSS", 0, result.usdtDelta());
+        } else {
+            // Sin rollback: la pata que faltó es deriva de inventario y la corrige el rebalanceo en lote.
+            // Queda abierta en el diario: si el proceso cae antes del rebalanceo, la conciliación la ve
+            journal.stuck(tid, "INVENTARIO " + plan.asset() + "-" + plan.bridge());
+            BotLogger.warn("📦 Ciclo parcial en " + account + " (" + r1.status() + "/" + r2.status() + "/" + r3.status()
+                    + "): deriva a corregir en el próximo rebalanceo");
+        }
+        return result;
+    }
+
+    // Patas 2 y 3 dimensionadas desde el plan: se vende lo que la pata 1 repone
+    private static FixedDecimal qty2(TriangularPlan plan) {
+        return plan.rules2().quantity(plan.qty1().toDouble());
+    }
+
+    private static FixedDecimal qty3(TriangularPlan plan) {
+        return plan.rules3().quantity(plan.expectedBridge());
+    }
+
+    private static double usdtNeeded(TriangularPlan plan) {
+        return plan.qty1().toDouble() * plan.limitPrice1().toDouble();
+    }
+
+    private OrderResult safeGet(Future<OrderResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            BotLogger.error("⚠️ Error en pata de inventario: " + e.getCause().getMessage());
+        }
+        return new OrderResult("ERROR", "FAILED", 0, 0, 0, 0, 0, "NONE");
+    }
+
+    // =========================================================================
+    // ⚖️ REBALANCEO PEREZOSO (en lote, fuera del camino crítico)
+    // =========================================================================
+
+    /** Deriva por moneda: (valor actual - valor objetivo) / valor objetivo. */
+    public synchronized Map<String, Double> drift(Map<String, Double> pricesUsdt) {
+        double total = totalValue(pricesUsdt);
+        Map<String, Double> drift = new LinkedHashMap<>();
+        if (total <= 0) return drift;
+        for (Map.Entry<String, Double> t : targets.entrySet()) {
+            double targetValue = t.getValue() * total;
+            if (targetValue <= 0) continue;
+            double value = holding(t.getKey()) * pricesUsdt.getOrDefault(t.getKey(), 0.0);
+            drift.put(t.getKey(), (value - targetValue) / targetValue);
+        }
+        return drift;
+    }
+
+    /**
+     * Órdenes para volver a los pesos objetivo: solo monedas fuera del límite de deriva
+     * y por encima del mínimo operable. Ventas primero (liberan el USDT que usan las compras).
+     */
+    public synchronized List<Rebalance> planRebalance(Map<String, Double> pricesUsdt, double minOrderUsdt) {
+        double total = totalValue(pricesUsdt);
+        List<Rebalance> sells = new ArrayList<>();
+        List<Rebalance> buys = new ArrayList<>();
+        if (total <= 0) return sells;
+        for (Map.Entry<String, Double> t : targets.entrySet()) {
+            String coin = t.getKey();
+            double price = pricesUsdt.getOrDefault(coin, 0.0);
+            if (coin.equals("USDT") || price <= 0) continue;
+            double targetValue = t.getValue() * total;
+            double delta = holding(coin) * price - targetValue;
+            if (Math.abs(delta) <= driftLimit * targetValue || Math.abs(delta) < minOrderUsdt) continue;
+            if (delta > 0) sells.add(new Rebalance(coin, "SELL", delta / price, delta));
+            else buys.add(new Rebalance(coin, "BUY", -delta / price, -delta));
+        }
+        sells.addAll(buys);
+        return sells;
+    }
+
+    /** Un pase de rebalanceo: precios por REST, ventas en paralelo y luego compras en paralelo. */
+    public List<Rebalance> rebalance() {
+        Map<String, Double> prices = new HashMap<>();
+        prices.put("USDT", 1.0);
+        for (String coin : targets.keySet()) {
+            if (!coin.equals("USDT")) prices.put(coin, connector.fetchPrice(account, coin + "USDT"));
+        }
+        List<Rebalance> plan = planRebalance(prices, BotConfig.MIN_ASSET_VALUE_USDT);
+        if (plan.isEmpty()) return plan;
+
+        BotLogger.info("⚖️ Rebalanceo " + account + ": " + plan.size() + " órdenes | deriva " + drift(prices));
+        if (dryRun) return plan;
+
+        fireBatch(plan.stream().filter(r -> r.side().equals("SELL")).toList());
+        fireBatch(plan.stream().filter(r -> r.side().equals("BUY")).toList());
+        return plan;
+    }
+
+    private void fireBatch(List<Rebalance> batch) {
+        if (batch.isEmpty()) return;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<OrderResult>> fills = new ArrayList<>();
+            for (Rebalance r : batch) {
+                // Compras LIMIT (cantidad en base, tope de slippage); ventas MARKET en base
+                fills.add(executor.submit(() -> r.side().equals("BUY")
+                        ? connector.placeOrder(account, r.coin() + "USDT", "BUY", "LIMIT", r.qty(),
+                                (r.valueUsdt() / r.qty()) * (1 + BotConfig.MAX_SLIPPAGE))
+                        : connector.placeOrder(account, r.coin() + "USDT", "SELL", "MARKET", r.qty(), 0)));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Rebalance r = batch.get(i);
+                OrderResult fill = safeGet(fills.get(i));
+                if (!fill.isFilled()) continue;
+                if (r.side().equals("SELL")) settle(r.coin(), 0, fill.executedQty(), "USDT", fill.executedValue(), fill);
+                else settle("USDT", 0, fill.executedValue(), r.coin(), fill.executedQty(), fill);
+            }
+        }
+    }
+
+    private double totalValue(Map<String, Double> pricesUsdt) {
+        double total = 0;
+        for (String coin : targets.keySet()) total += holding(coin) * pricesUsdt.getOrDefault(coin, 0.0);
+        return total;
+    }
+
+    public String account() {
+        return account;
+    }
+}
@@ -0,0 +1,251 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 🧾 WRITE-AHEAD LOG DEL RIESGO (binario, registros de 32 bytes)
+ * Los que reportan PnL solo encolan; un único hilo "committer" junta todo lo que llegó mientras
+ * hacía el fsync anterior y lo baja con UNA escritura y UN force (group commit). Cada tanto
+ * corre el checkpoint del dueño y, con el estado completo ya en disco, trunca el log.
+ *
+ * <pre>
+ * seq i64 | epochMillis i64 | pnl f64 | type i32 | crc32c i32 (de los 28 bytes anteriores)
+ * </pre>
+ * Al abrir, la cola rota (caída a mitad de escritura) se detecta por CRC y se corta.
+ */
+final class RiskJournal implements Closeable {
+
+    static final int RECORD_BYTES = 32;
+    static final int PNL = 1;
+    static final int OVERRIDE = 2;
+    static final int MARK_HALT = 3; // Disyuntor por drawdown a mercado (pnl = drawdown observado)
+
+    record Entry(long seq, long epochMillis, double pnl, int type) {}
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Runnable checkpoint;
+    private final int checkpointEvery;
+    private final long checkpointIntervalMs;
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition committedSignal = lock.newCondition();
+    private volatile long committed;
+    private volatile boolean running = true;
+    private final Thread committer;
+
+    private ByteBuffer batch = ByteBuffer.allocateDirect(64 * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+    private int sinceCheckpoint;
+    private long lastCheckpointMillis = System.currentTimeMillis();
+
+    /**
+     * @param checkpoint corre en el hilo committer; al volver, todo lo registrado debe estar en el checkpoint
+     */
+    RiskJournal(String file, Runnable checkpoint, int checkpointEvery, long checkpointIntervalMs) throws IOException {
+        this.path = Path.of(file);
+        this.checkpoint = checkpoint;
+        this.checkpointEvery = checkpointEvery;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        if (path.toAbsolutePath().getParent() != null) Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.position = validRecords(channel) * RECORD_BYTES;
+        channel.truncate(position); // Cola rota fuera: lo nuevo se escribe a continuación de lo válido
+        this.committer = Thread.ofVirtual().name("Risk-WAL").start(this::commitLoop);
+    }
+
+    /** Encola (no bloquea). La durabilidad llega con el próximo group commit. */
+    void append(long seq, int type, double pnl) {
+        queue.add(new Entry(seq, System.currentTimeMillis(), pnl, type));
+        enqueued.incrementAndGet();
+        lock.lock();
+        try {
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Espera (acotado) a que todo lo encolado hasta ahora esté en disco. */
+    boolean sync(long timeoutMs) {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (committed < target) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || !running) return committed >= target;
+                committedSignal.awaitNanos(left);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // ⚙️ HILO COMMITTER
+    // =========================================================================
+
+    private void commitLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                int n = writeBatch();
+                if (n > 0) {
+                    lock.lock();
+                    try {
+                        committed += n;
+                        committedSignal.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    sinceCheckpoint += n;
+                }
+                if (sinceCheckpoint > 0 && (sinceCheckpoint >= checkpointEvery
+                        || System.currentTimeMillis() - lastCheckpointMillis >= checkpointIntervalMs)) {
+                    checkpointAndTruncate();
+                }
+                if (n == 0) awaitWork();
+            } catch (IOException | RuntimeException e) {
+                BotLogger.error("⚠️ Error escribiendo el log de riesgo (WAL): " + e.getMessage());
+                awaitWork();
+            }
+        }
+    }
+
+    /** Todo lo que se acumuló mientras se hacía el fsync anterior: una escritura y un force. */
+    private int writeBatch() throws IOException {
+        batch.clear();
+        int n = 0;
+        Entry e;
+        while ((e = queue.poll()) != null) {
+            if (batch.remaining() < RECORD_BYTES) {
+                ByteBuffer bigger = ByteBuffer.allocateDirect(batch.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                batch.flip();
+                bigger.put(batch);
+                batch = bigger;
+            }
+            encode(batch, e);
+            n++;
+        }
+        if (n == 0) return 0;
+        batch.flip();
+        while (batch.hasRemaining()) position += channel.write(batch, position);
+        channel.force(false);
+        return n;
+    }
+
+    private void checkpointAndTruncate() throws IOException {
+        checkpoint.run();
+        channel.truncate(0);
+        channel.force(true);
+        position = 0;
+        sinceCheckpoint = 0;
+        lastCheckpointMillis = System.currentTimeMillis();
+    }
+
+    private void awaitWork() {
+        lock.lock();
+        try {
+            if (running && queue.isEmpty()) work.await(checkpointIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Baja lo pendiente, hace el checkpoint final y cierra. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            running = false;
+            work.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (sinceCheckpoint > 0) checkpointAndTruncate();
+        channel.close();
+    }
+
+    // =========================================================================
+    // 📂 FORMATO Y REPLAY
+    // =========================================================================
+
+    private static void encode(ByteBuffer buf, Entry e) {
+        int start = buf.position();
+        buf.putLong(e.seq()).putLong(e.epochMillis()).putDouble(e.pnl()).putInt(e.type());
+        buf.putInt(crc(buf, start));
+    }
+
+    private static int crc(ByteBuffer buf, int start) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.duplicate().position(start).limit(start + RECORD_BYTES - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    /** Registros válidos del archivo, ordenados por seq (se corta en el primer CRC roto). */
+    static List<Entry> read(String file) throws IOException {
+        Path p = Path.of(file);
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(p)) return entries;
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            forEachValid(ch, entries::add);
+        }
+        entries.sort(Comparator.comparingLong(Entry::seq));
+        return entries;
+    }
+
+    private static long validRecords(FileChannel channel) throws IOException {
+        long[] count = {0};
+        forEachValid(channel, e -> count[0]++);
+        return count[0];
+    }
+
+    private static void forEachValid(FileChannel channel, java.util.function.Consumer<Entry> sink) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(channel.size(), 1 << 20) / RECORD_BYTES * RECORD_BYTES + RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long at = 0;
+        while (true) {
+            buf.clear();
+            int read = channel.read(buf, at);
+            if (read < RECORD_BYTES) return;
+            for (int off = 0; off + RECORD_BYTES <= read; off += RECORD_BYTES) {
+                if (buf.getInt(off + RECORD_BYTES - Integer.BYTES) != crc(buf, off)) return;
+                sink.accept(new Entry(buf.getLong(off), buf.getLong(off + 8), buf.getDouble(off + 16), buf.getInt(off + 24)));
+            }
+            at += read / RECORD_BYTES * RECORD_BYTES;
+        }
+    }
+}
@@ -7,8 +7,16 @@ import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.concurrent.CompletableFuture;
+import java.time.ZoneId;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -23,6 +31,14 @@ import java.util.concurrent.atomic.AtomicReference;
  * MODELO MATEMÁTICO:
  * - Daily Stop: PnL_Diario < -(Capital_Inicial * 0.02)
  * - Max Drawdown: (Peak_Capital - Current_Capital) / Peak_Capital > 0.08
+ *   (también a precio de mercado vía {@link #onMarkToMarket}: el inventario cuenta aunque no haya trades)
+ *
+ * CONCURRENCIA:
+ * El estado es un {@link RiskState} inmutable que se reemplaza por CAS: el gate de ejecución es
+ * una lectura volatile y los reportes de PnL no se serializan entre sí. Cada cambio va a un
+ * write-ahead log binario ({@link RiskJournal}, fsync agrupado); el JSON completo es ahora un
+ * checkpoint periódico (cada N registros o T segundos) y al arrancar se reconstruye
+ * checkpoint + replay del log.
  */
 public class RiskManager {
 
@@ -30,19 +46,25 @@ public class RiskManager {
     private static final double MAX_DAILY_LOSS_PERCENT = 0.02; // Límite de pérdida diaria (2%)
     private static final double MAX_DRAWDOWN_PERCENT = 0.08;   // Drawdown Máximo permitido (8%)
     private static final int MAX_CONSECUTIVE_FAILURES = 3;     // Límite de fallos de ejecución consecutivos
-    private static final String STATE_FILE = "financial_state.json"; // Archivo de persistencia
+    private static final String STATE_FILE = "financial_state.json"; // Checkpoint
+    private static final String WAL_FILE = "financial_state.wal";    // Log de PnL desde el último checkpoint
+    private static final int CHECKPOINT_EVERY = 256;                 // Registros de log por checkpoint
+    private static final long CHECKPOINT_INTERVAL_MS = 60_000;       // ...o antigüedad máxima del último
+
+    private static RiskManager shared;
 
-    // --- VARIABLES DE ESTADO (MEMORY HEAP) ---
-    private double initialDailyCapital; // Capital al inicio de la sesión (00:00)
-    private double currentCapital;      // Equity actual (Mark-to-Market)
-    private double peakCapital;         // High-Water Mark (Máximo histórico)
-    private double dailyPnL = 0.0;      // Profit and Loss acumulado del día
+    // --- VARIABLES DE ESTADO ---
+    private final AtomicReference<RiskState> state = new AtomicReference<>();
+    private final String stateFile;
+    private final RiskJournal journal;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
     // Contadores de Desviación
     private final AtomicInteger executionFailures = new AtomicInteger(0);
-    private final AtomicReference<SystemStatus> status = new AtomicReference<>(SystemStatus.OPERATIONAL);
+
+    // Drawdown a mercado: dispara una vez por cruce del umbral (se rearma al recuperarse)
+    private volatile boolean markTripped = false;
 
     // Estados del Autómata Finito
     public enum SystemStatus {
@@ -52,27 +74,96 @@ public class RiskManager {
         HALTED_DRAWDOWN     // Detenido: Violación de Max Drawdown (Requiere auditoría)
     }
 
+    /**
+     * Foto inmutable del estado financiero.
+     * @param seq número del último cambio aplicado (ordena el replay del log)
+     */
+    public record RiskState(LocalDate day, double initialDailyCapital, double currentCapital, double peakCapital,
+                            double dailyPnL, SystemStatus status, long seq) {
+
+        /** Aplica un resultado: rollover si cambió el día contable, equity, HWM y disyuntores. */
+        RiskState apply(double pnlUSD, LocalDate today) {
+            RiskState s = rollover(today);
+            double current = s.currentCapital + pnlUSD;
+            double daily = s.dailyPnL + pnlUSD;
+            double peak = Math.max(s.peakCapital, current);
+
+            SystemStatus next = s.status;
+            // A. Disyuntor Diario (cálculo estricto sobre el capital inicial del día)
+            if (daily < 0 && -daily / s.initialDailyCapital >= MAX_DAILY_LOSS_PERCENT) next = SystemStatus.HALTED_DAILY_LIMIT;
+            // B. Disyuntor de Drawdown (Protección de Capital Base)
+            if ((peak - current) / peak >= MAX_DRAWDOWN_PERCENT) next = SystemStatus.HALTED_DRAWDOWN;
+
+            return new RiskState(s.day, s.initialDailyCapital, current, peak, daily, next, s.seq + 1);
+        }
+
+        /** NUEVA SESIÓN CONTABLE: el cierre de ayer es la apertura de hoy y se restablece la operación. */
+        RiskState rollover(LocalDate today) {
+            if (!today.isAfter(day)) return this;
+            return new RiskState(today, currentCapital, currentCapital, peakCapital, 0.0, SystemStatus.OPERATIONAL, seq);
+        }
+
+        RiskState withStatus(SystemStatus newStatus) {
+            return new RiskState(day, initialDailyCapital, currentCapital, peakCapital, dailyPnL, newStatus, seq + 1);
+        }
+
+        public double dailyLossRatio() {
+            return -dailyPnL / initialDailyCapital;
+        }
+
+        public double drawdown() {
+            return (peakCapital - currentCapital) / peakCapital;
+        }
+    }
+
     public RiskManager(double startCapital) {
-        // Inicialización por defecto
-        this.currentCapital = startCapital;
-        this.initialDailyCapital = startCapital;
-        this.peakCapital = startCapital;
+        this(startCapital, STATE_FILE, WAL_FILE);
+    }
+
+    RiskManager(double startCapital, String stateFile, String walFile) {
+        this.stateFile = stateFile;
 
         BotLogger.info("🛡️ RiskManager: Iniciando secuencia de carga de estado...");
-        loadFinancialState(); // Carga de persistencia
+        state.set(loadFinancialState(startCapital, walFile)); // Checkpoint + replay del log
+
+        RiskJournal opened = null;
+        try {
+            // Compacta: lo recuperado queda en el checkpoint y el log arranca vacío
+            // (si el checkpoint falla, el log viejo se conserva y se sigue agregando)
+            saveCheckpoint();
+            Files.deleteIfExists(Path.of(walFile));
+        } catch (UncheckedIOException | IOException e) { /* Ya logueado */ }
+        try {
+            opened = new RiskJournal(walFile, this::saveCheckpoint, CHECKPOINT_EVERY, CHECKPOINT_INTERVAL_MS);
+        } catch (IOException e) {
+            BotLogger.error("⚠️ Error Crítico I/O: No se pudo abrir el log de riesgo: " + e.getMessage());
+        }
+        this.journal = opened;
 
-        BotLogger.info(String.format("📊 ESTADO FINANCIERO INICIAL: Equity: $%.2f | PnL Diario: $%.2f | High-Water Mark: $%.2f",
-                currentCapital, dailyPnL, peakCapital));
+        RiskState s = state.get();
+        BotLogger.info("📊 ESTADO FINANCIERO INICIAL: Equity: $%.2f | PnL Diario: $%.2f | High-Water Mark: $%.2f",
+                s.currentCapital(), s.dailyPnL(), s.peakCapital());
+        if (s.status() != SystemStatus.OPERATIONAL) announce(s); // Validación inicial pre-arranque
+    }
 
-        validateRiskParameters(); // Validación inicial pre-arranque
+    /** Instancia única del proceso: un solo dueño de financial_state.json y su log. */
+    public static synchronized RiskManager shared(double startCapital) {
+        if (shared == null) {
+            shared = new RiskManager(startCapital);
+            RiskManager instance = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "Risk-Close"));
+        }
+        return shared;
     }
 
     /**
      * Valida si el sistema tiene autorización para operar según los parámetros de riesgo.
+     * Lectura volatile del estado actual: sin candados en el camino de ejecución.
      */
-    public synchronized boolean canExecuteTrade() {
-        if (status.get() != SystemStatus.OPERATIONAL) {
-            BotLogger.warn("⛔ OPERACIÓN DENEGADA. Estatus del Sistema: " + status.get());
+    public boolean canExecuteTrade() {
+        SystemStatus status = state.get().status();
+        if (status != SystemStatus.OPERATIONAL) {
+            BotLogger.warn("⛔ OPERACIÓN DENEGADA. Estatus del Sistema: " + status);
             return false;
         }
         return true;
@@ -82,41 +173,60 @@ public class RiskManager {
      * Registra el resultado matemático de una operación y actualiza la curva de equidad.
      * @param pnlUSD Resultado neto de la operación (Net Profit/Loss)
      */
-// RiskManager.java optimizado
-    public synchronized void reportTradeResult(double pnlUSD) {
-        // 1. Actualización en RAM (Nanosegundos)
-        currentCapital += pnlUSD;
-        dailyPnL += pnlUSD;
-        if (currentCapital > peakCapital) peakCapital = currentCapital;
-
-        // Lógica de circuito (rápida)
-        if (pnlUSD < 0) { /* lógica de fallos */ }
-        validateRiskParameters();
-
-        // 2. Persistencia ASÍNCRONA (Fire & Forget)
-        // No bloqueamos el hilo de trading esperando al disco duro
-        CompletableFuture.runAsync(this::saveFinancialState);
+    public void reportTradeResult(double pnlUSD) {
+        LocalDate today = LocalDate.now();
+        RiskState prev, next;
+        do {
+            prev = state.get();
+            next = prev.apply(pnlUSD, today);
+        } while (!state.compareAndSet(prev, next));
+
+        if (journal != null) journal.append(next.seq(), RiskJournal.PNL, pnlUSD);
+        if (next.status() != prev.status()) announce(next); // Solo en la transición, no en cada trade
     }
+
     /**
-     * Evalúa las condiciones de parada (Circuit Breakers).
+     * Drawdown a precio de mercado (EquityEngine, en cada cambio de equidad). Incluye el inventario
+     * que el PnL reportado no ve; no toca la contabilidad, solo dispara el mismo disyuntor.
+     * El camino normal es una comparación; tras un override no vuelve a disparar hasta que el
+     * drawdown baje del límite y lo cruce de nuevo.
+     * @param drawdown (pico - equidad) / pico, de la equidad total a mercado
      */
-    private void validateRiskParameters() {
-        // A. Disyuntor Diario (Daily Stop Loss)
-        // Cálculo estricto sobre el capital inicial del día
-        double dailyLossRatio = -dailyPnL / initialDailyCapital;
-
-        if (dailyPnL < 0 && dailyLossRatio >= MAX_DAILY_LOSS_PERCENT) {
-            status.set(SystemStatus.HALTED_DAILY_LIMIT);
-            BotLogger.error(String.format("🛑 DISYUNTOR DIARIO ACTIVADO. Pérdida: %.2f%% (Límite: %.2f%%). Ejecución detenida.",
-                    dailyLossRatio * 100, MAX_DAILY_LOSS_PERCENT * 100));
+    public void onMarkToMarket(double drawdown) {
+        if (drawdown < MAX_DRAWDOWN_PERCENT) {
+            markTripped = false;
+            return;
         }
+        if (markTripped) return;
+        markTripped = true;
+
+        LocalDate today = LocalDate.now();
+        RiskState prev, next;
+        do {
+            prev = state.get();
+            if (prev.status() == SystemStatus.HALTED_DRAWDOWN) return;
+            next = prev.rollover(today).withStatus(SystemStatus.HALTED_DRAWDOWN);
+        } while (!state.compareAndSet(prev, next));
+
+        if (journal != null) journal.append(next.seq(), RiskJournal.MARK_HALT, drawdown);
+        BotLogger.error("💀 CRITICAL DRAWDOWN A MERCADO (%.2f%%). Sistema bloqueado por seguridad.", drawdown * 100);
+    }
 
-        // B. Disyuntor de Drawdown (Protección de Capital Base)
-        double currentDrawdown = (peakCapital - currentCapital) / peakCapital;
-        if (currentDrawdown >= MAX_DRAWDOWN_PERCENT) {
-            status.set(SystemStatus.HALTED_DRAWDOWN);
-            BotLogger.error(String.format("💀 CRITICAL DRAWDOWN DETECTADO (%.2f%%). Sistema bloqueado por seguridad.",
-                    currentDrawdown * 100));
+    public RiskState getState() {
+        return state.get();
+    }
+
+    /**
+     * Aviso del disyuntor que disparó.
+     */
+    private void announce(RiskState s) {
+        switch (s.status()) {
+            case HALTED_DAILY_LIMIT -> BotLogger.error("🛑 DISYUNTOR DIARIO ACTIVADO. Pérdida: %.2f%% (Límite: %.2f%%). Ejecución detenida.",
+                    s.dailyLossRatio() * 100, MAX_DAILY_LOSS_PERCENT * 100);
+            case HALTED_DRAWDOWN -> BotLogger.error("💀 CRITICAL DRAWDOWN DETECTADO (%.2f%%). Sistema bloqueado por seguridad.",
+                    s.drawdown() * 100);
+            case PAUSED_DEVIATION -> BotLogger.warn("⏸️ PAUSA TÉCNICA por desvíos consecutivos.");
+            case OPERATIONAL -> { }
         }
     }
 
@@ -124,68 +234,108 @@ public class RiskManager {
     // 💾 CAPA DE PERSISTENCIA (I/O)
     // =========================================================
 
-    private void saveFinancialState() {
+    /** Checkpoint compacto: archivo temporal + fsync + rename atómico (nunca un JSON a medias). */
+    private void saveCheckpoint() {
+        RiskState s = state.get();
         try {
             ObjectNode node = mapper.createObjectNode();
-            node.put("date", LocalDate.now().toString()); // Fecha contable
-            node.put("currentCapital", currentCapital);
-            node.put("initialDailyCapital", initialDailyCapital);
-            node.put("peakCapital", peakCapital);
-            node.put("dailyPnL", dailyPnL);
-            node.put("status", status.get().name());
-
-            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(STATE_FILE), node);
+            node.put("date", s.day().toString()); // Fecha contable
+            node.put("currentCapital", s.currentCapital());
+            node.put("initialDailyCapital", s.initialDailyCapital());
+            node.put("peakCapital", s.peakCapital());
+            node.put("dailyPnL", s.dailyPnL());
+            node.put("status", s.status().name());
+            node.put("seq", s.seq());
+
+            Path target = Path.of(stateFile);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(mapper.writeValueAsBytes(node));
+                while (bytes.hasRemaining()) ch.write(bytes);
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             BotLogger.error("⚠️ Error Crítico I/O: No se pudo persistir el estado financiero: " + e.getMessage());
+            throw new UncheckedIOException(e); // El log no se trunca sin checkpoint
         }
     }
 
-    private void loadFinancialState() {
-        File file = new File(STATE_FILE);
-        if (!file.exists()) return; // Inicialización limpia (Primer despliegue)
-
-        try {
-            JsonNode node = mapper.readTree(file);
-            String savedDate = node.path("date").asText();
-            String today = LocalDate.now().toString();
-
-            // Recuperación de métricas globales
-            this.currentCapital = node.path("currentCapital").asDouble(currentCapital);
-            this.peakCapital = node.path("peakCapital").asDouble(peakCapital);
-
-            if (savedDate.equals(today)) {
-                // CONTINUIDAD DE SESIÓN (Mismo día contable)
-                BotLogger.info("🔄 Sesión recuperada. Manteniendo contabilidad intradiaria.");
-                this.initialDailyCapital = node.path("initialDailyCapital").asDouble(initialDailyCapital);
-                this.dailyPnL = node.path("dailyPnL").asDouble(0.0);
+    private RiskState loadFinancialState(double startCapital, String walFile) {
+        LocalDate today = LocalDate.now();
+        RiskState s = new RiskState(today, startCapital, startCapital, startCapital, 0.0, SystemStatus.OPERATIONAL, 0);
 
-                String savedStatus = node.path("status").asText("OPERATIONAL");
-                this.status.set(SystemStatus.valueOf(savedStatus));
-
-            } else {
-                // NUEVA SESIÓN CONTABLE (Rollover diario)
-                BotLogger.info("☀️ Inicio de Nueva Sesión Contable. Reseteando métricas intradiarias.");
-
-                // El cierre de ayer es la apertura de hoy
-                this.initialDailyCapital = this.currentCapital;
-                this.dailyPnL = 0.0;
-                this.status.set(SystemStatus.OPERATIONAL); // Restablecimiento operativo
-
-                saveFinancialState(); // Inicializar archivo para el nuevo día
+        File file = new File(stateFile);
+        if (file.exists()) {
+            try {
+                JsonNode node = mapper.readTree(file);
+                s = new RiskState(
+                        LocalDate.parse(node.path("date").asText(today.toString())),
+                        node.path("initialDailyCapital").asDouble(startCapital),
+                        node.path("currentCapital").asDouble(startCapital),
+                        node.path("peakCapital").asDouble(startCapital),
+                        node.path("dailyPnL").asDouble(0.0),
+                        SystemStatus.valueOf(node.path("status").asText("OPERATIONAL")),
+                        node.path("seq").asLong(0));
+            } catch (IOException | RuntimeException e) {
+                BotLogger.error("⚠️ Corrupción de datos o error de lectura. Iniciando con parámetros por defecto: " + e.getMessage());
             }
+        }
 
+        // Replay: lo que llegó al log después del checkpoint, en orden de seq y con su día contable
+        int replayed = 0;
+        try {
+            for (RiskJournal.Entry e : RiskJournal.read(walFile)) {
+                if (e.seq() <= s.seq()) continue;
+                LocalDate day = Instant.ofEpochMilli(e.epochMillis()).atZone(ZoneId.systemDefault()).toLocalDate();
+                RiskState applied = switch (e.type()) {
+                    case RiskJournal.OVERRIDE -> s.rollover(day).withStatus(SystemStatus.OPERATIONAL);
+                    case RiskJournal.MARK_HALT -> s.rollover(day).withStatus(SystemStatus.HALTED_DRAWDOWN);
+                    default -> s.apply(e.pnl(), day);
+                };
+                s = new RiskState(applied.day(), applied.initialDailyCapital(), applied.currentCapital(),
+                        applied.peakCapital(), applied.dailyPnL(), applied.status(), e.seq());
+                replayed++;
+            }
         } catch (IOException e) {
-            BotLogger.error("⚠️ Corrupción de datos o error de lectura. Iniciando con parámetros por defecto: " + e.getMessage());
+            BotLogger.error("⚠️ No se pudo leer el log de riesgo: " + e.getMessage());
+        }
+        if (replayed > 0) BotLogger.info("🧾 Replay del log de riesgo: %d cambios posteriores al checkpoint.", replayed);
+
+        if (today.isAfter(s.day())) {
+            BotLogger.info("☀️ Inicio de Nueva Sesión Contable. Reseteando métricas intradiarias.");
+            return s.rollover(today);
         }
+        if (file.exists()) BotLogger.info("🔄 Sesión recuperada. Manteniendo contabilidad intradiaria.");
+        return s;
+    }
+
+    /** Baja el log pendiente y deja el checkpoint final (apagado). */
+    public void close() {
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException | UncheckedIOException e) {
+            BotLogger.error("⚠️ Error cerrando el log de riesgo: " + e.getMessage());
+        }
+    }
+
+    /** Solo tests: espera a que lo reportado esté en disco. */
+    boolean sync(long timeoutMs) {
+        return journal == null || journal.sync(timeoutMs);
     }
 
     /**
      * Intervención humana para restablecer el sistema tras una pausa técnica.
      */
     public void overrideLockdown() {
-        status.set(SystemStatus.OPERATIONAL);
+        RiskState prev, next;
+        do {
+            prev = state.get();
+            next = prev.withStatus(SystemStatus.OPERATIONAL);
+        } while (!state.compareAndSet(prev, next));
         executionFailures.set(0);
         BotLogger.warn("🔓 INTERVENCIÓN MANUAL: Protocolos de bloqueo restablecidos por operador.");
-        saveFinancialState();
+        if (journal != null) journal.append(next.seq(), RiskJournal.OVERRIDE, 0.0);
     }
-}
\ No newline at end of file
+}
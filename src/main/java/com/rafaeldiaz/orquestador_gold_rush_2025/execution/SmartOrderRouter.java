@@ -0,0 +1,231 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 🧭 SMART ORDER ROUTER (Espacial multi-venue)
+ * En vez de comer un solo libro hasta el fondo, reparte la compra y la venta entre todas las
+ * cuentas con inventario: fusiona los niveles de todos los libros por precio efectivo
+ * (ask × (1 + fee) para comprar, bid × (1 − fee) para vender) y llena siempre el nivel más
+ * barato contra el más caro mientras el cruce siga dejando margen.
+ * Cada venue queda topado por su saldo libre (USDT para comprar, activo para vender). Las compras
+ * salen como LIMIT con tope de slippage y el exchange bloquea qty × tope: el saldo se mide a ese precio.
+ * Puro y sin red: el disparo concurrente de las órdenes hijas vive en CrossTradeExecutor.
+ */
+public final class SmartOrderRouter {
+
+    /**
+     * Venue candidato.
+     * @param account   cuenta (ej: binance, bybit_sub1)
+     * @param book      libro vivo del par
+     * @param takerFee  fee taker como fracción (0.001 = 0.1%)
+     * @param available saldo libre: USDT si es venue de compra, activo base si es de venta
+     */
+    public record Venue(String account, ExchangeConnector.OrderBook book, double takerFee, double available) {}
+
+    /**
+     * Orden hija.
+     * @param qty      cantidad de activo base
+     * @param vwap     precio promedio esperado contra el libro
+     * @param notional USDT con fees (costo si es BUY, ingreso neto si es SELL)
+     */
+    public record Child(String account, String side, double qty, double vwap, double notional) {}
+
+    /**
+     * Ruta completa: misma cantidad comprada que vendida.
+     * @param buyCost      USDT pagados (fees incluidos)
+     * @param sellProceeds USDT recibidos (fees descontados)
+     */
+    public record Route(List<Child> buys, List<Child> sells, double qty, double buyCost, double sellProceeds) {
+
+        public static final Route EMPTY = new Route(List.of(), List.of(), 0, 0, 0);
+
+        public double netPnl() {
+            return sellProceeds - buyCost;
+        }
+
+        public boolean isEmpty() {
+            return buys.isEmpty() || sells.isEmpty() || qty <= 0;
+        }
+
+        /** Cuentas tocadas (para candados y épocas), sin duplicados y en orden estable. */
+        public Set<String> accounts() {
+            Set<String> accounts = new LinkedHashSet<>();
+            buys.forEach(c -> accounts.add(c.account()));
+            sells.forEach(c -> accounts.add(c.account()));
+            return accounts;
+        }
+    }
+
+    private SmartOrderRouter() {}
+
+    // =========================================================================
+    // 🧮 RUTEO
+    // =========================================================================
+
+    /**
+     * Reparte hasta {@code targetQty} unidades entre los venues.
+     * Las hijas con menos de {@code minChildUsdt} de nocional (rechazadas por MIN_NOTIONAL y
+     * puro overhead de latencia) excluyen a su venue y se recalcula la ruta sin él.
+     */
+    public static Route route(List<Venue> buyVenues, List<Venue> sellVenues, double targetQty, double minChildUsdt) {
+        return route(buyVenues, sellVenues, targetQty, minChildUsdt, 0.0);
+    }
+
+    /**
+     * @param buyLimitMargin margen del LIMIT de compra sobre el precio del libro (ej: MAX_SLIPPAGE):
+     *                       el saldo de compra debe cubrir qty × precio × (1 + margen) × (1 + fee)
+     */
+    public static Route route(List<Venue> buyVenues, List<Venue> sellVenues, double targetQty, double minChildUsdt,
+                              double buyLimitMargin) {
+        Set<String> excludedBuys = new HashSet<>();
+        Set<String> excludedSells = new HashSet<>();
+
+        // Cada pasada excluye al menos un venue: termina en a lo sumo (compras + ventas) pasadas
+        while (true) {
+            Route route = greedy(buyVenues, sellVenues, targetQty, buyLimitMargin, excludedBuys, excludedSells);
+            if (route.isEmpty()) return Route.EMPTY;
+
+            boolean dropped = false;
+            for (Child c : route.buys()) {
+                if (c.notional() < minChildUsdt) dropped |= excludedBuys.add(c.account());
+            }
+            for (Child c : route.sells()) {
+                if (c.notional() < minChildUsdt) dropped |= excludedSells.add(c.account());
+            }
+            if (!dropped) return route;
+        }
+    }
+
+    // Cursor sobre los niveles de un venue: cuánto queda del nivel actual y del saldo
+    private static final class Cursor {
+        final Venue venue;
+        final List<double[]> levels;
+        final boolean buy;
+        final double lockFactor; // USDT bloqueados por unidad de precio del libro (compras)
+        int level;
+        double levelLeft;
+        double budget;     // USDT (compra) o activo (venta)
+        double qty = 0;
+        double gross = 0;  // Σ qty × precio (sin fees)
+
+        Cursor(Venue venue, boolean buy, double buyLimitMargin) {
+            this.venue = venue;
+            this.buy = buy;
+            this.lockFactor = (1 + buyLimitMargin) * (1 + venue.takerFee());
+            List<double[]> side = buy ? venue.book().asks() : venue.book().bids();
+            this.levels = (side != null) ? side : List.of();
+            this.budget = Math.max(0, venue.available());
+            this.level = -1;
+            nextLevel();
+        }
+
+        // Salta niveles vacíos (libros con qty 0 en snapshots parciales)
+        private void nextLevel() {
+            do {
+                level++;
+                levelLeft = (level < levels.size()) ? levels.get(level)[1] : 0;
+            } while (level < levels.size() && levelLeft <= 1e-12);
+        }
+
+        boolean exhausted() {
+            return level >= levels.size() || budget <= 1e-12;
+        }
+
+        double price() {
+            return levels.get(level)[0];
+        }
+
+        double effectivePrice() {
+            return buy ? price() * (1 + venue.takerFee()) : price() * (1 - venue.takerFee());
+        }
+
+        /** Máximo de activo que este venue puede mover en el nivel actual. */
+        double capacity() {
+            double byBalance = buy ? budget / (price() * lockFactor) : budget;
+            return Math.min(levelLeft, byBalance);
+        }
+
+        void take(double q) {
+            qty += q;
+            gross += q * price();
+            budget -= buy ? q * price() * lockFactor : q;
+            levelLeft -= q;
+            if (levelLeft <= 1e-12) nextLevel();
+        }
+
+        Child toChild() {
+            double fees = gross * venue.takerFee();
+            return new Child(venue.account(), buy ? "BUY" : "SELL", qty, gross / qty, buy ? gross + fees : gross - fees);
+        }
+    }
+
+    private static Route greedy(List<Venue> buyVenues, List<Venue> sellVenues, double targetQty, double buyLimitMargin,
+                                Set<String> excludedBuys, Set<String> excludedSells) {
+        List<Cursor> buys = cursors(buyVenues, true, buyLimitMargin, excludedBuys);
+        List<Cursor> sells = cursors(sellVenues, false, 0.0, excludedSells);
+
+        double filled = 0;
+        while (targetQty - filled > 1e-12) {
+            Cursor ask = best(buys, true);
+            Cursor bid = best(sells, false);
+            if (ask == null || bid == null) break;
+
+            // El cruce marginal ya no paga fees: seguir solo agrandaría la pérdida
+            if (bid.effectivePrice() <= ask.effectivePrice()) break;
+
+            double q = Math.min(targetQty - filled, Math.min(ask.capacity(), bid.capacity()));
+            if (q <= 1e-12) {
+                // Saldo agotado en mitad de un nivel: ese venue ya no aporta
+                if (ask.capacity() <= 1e-12) ask.budget = 0;
+                if (bid.capacity() <= 1e-12) bid.budget = 0;
+                continue;
+            }
+            ask.take(q);
+            bid.take(q);
+            filled += q;
+        }
+
+        if (filled <= 0) return Route.EMPTY;
+
+        List<Child> buyChildren = children(buys);
+        List<Child> sellChildren = children(sells);
+        double cost = buyChildren.stream().mapToDouble(Child::notional).sum();
+        double proceeds = sellChildren.stream().mapToDouble(Child::notional).sum();
+        return new Route(buyChildren, sellChildren, filled, cost, proceeds);
+    }
+
+    private static List<Cursor> cursors(List<Venue> venues, boolean buy, double buyLimitMargin, Set<String> excluded) {
+        List<Cursor> list = new ArrayList<>(venues.size());
+        for (Venue v : venues) {
+            if (v.book() != null && !excluded.contains(v.account())) list.add(new Cursor(v, buy, buyLimitMargin));
+        }
+        return list;
+    }
+
+    private static Cursor best(List<Cursor> cursors, boolean buy) {
+        Cursor best = null;
+        for (Cursor c : cursors) {
+            if (c.exhausted()) continue;
+            if (best == null
+                    || (buy ? c.effectivePrice() < best.effectivePrice() : c.effectivePrice() > best.effectivePrice())) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static List<Child> children(List<Cursor> cursors) {
+        List<Child> list = new ArrayList<>();
+        for (Cursor c : cursors) {
+            if (c.qty > 0) list.add(c.toChild());
+        }
+        return list;
+    }
+}
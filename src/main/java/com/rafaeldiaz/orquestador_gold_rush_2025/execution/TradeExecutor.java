@@ -2,10 +2,14 @@ package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
 import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.FeeManager;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
 import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TelegramDispatcher;
 
 import java.text.DecimalFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ⚔️ TRADE EXECUTOR (VERSIÓN 4.0: PRODUCCIÓN / FUEGO REAL)
@@ -32,109 +36,96 @@ public class TradeExecutor {
     }
 
     // =====================================================================
-    // 🔺 SISTEMA 1: EJECUCIÓN TRIANGULAR (Secuencial Atómica)
+    // 🔺 SISTEMA 1: EJECUCIÓN TRIANGULAR (Pipeline guiado por fills)
     // Ruta: USDT -> COIN (Buy) -> BRIDGE (Sell Coin) -> USDT (Sell Bridge)
     // =====================================================================
-    public void executeTriangular(String exchange, String asset, String bridge, double capitalInput) {
-        String pair1 = asset + "USDT";   // Comprar Asset con USDT
-        String pair2 = asset + bridge;   // Vender Asset por Bridge
-        String pair3 = bridge + "USDT";  // Vender Bridge por USDT
+    private final Map<String, TriangularExecutor> triangularExecutors = new ConcurrentHashMap<>();
 
-        BotLogger.info(String.format("⚡ [EXECUTOR] Triángulo: USDT -> %s -> %s -> USDT (Cap: $%.2f)", asset, bridge, capitalInput));
+    // Registro del proceso: Main arma los escritorios y cualquier TradeExecutor (detector, orquestador) los ve
+    private static final Map<String, InventoryTriangularExecutor> INVENTORY_DESKS = new ConcurrentHashMap<>();
 
-        if (dryRun) {
-            logDryRun(asset, bridge);
-            return;
-        }
+    /** Cuenta en modo inventario: sus triángulos con precios completos se disparan en paralelo sobre stock. */
+    public static void registerInventoryDesk(InventoryTriangularExecutor desk) {
+        INVENTORY_DESKS.put(desk.account(), desk);
+    }
 
-        // --- PASO 1: COMPRAR ACTIVO (USDT -> ASSET) ---
-        double price1 = connector.fetchAsk(exchange, pair1);
-        if (price1 <= 0) {
-            BotLogger.error("❌ Fallo obteniendo precio inicial para " + pair1);
-            return;
+    /**
+     * Cuenta donde corre el triángulo. Los detectores hablan de venues ("bybit"); las órdenes y el
+     * stock viven en las cuentas triangulares (bybit_sub2...). Se prefiere la que tiene escritorio.
+     */
+    static String triangularAccount(String exchange) {
+        if (INVENTORY_DESKS.containsKey(exchange) || BotConfig.TRIANGULAR_ACCOUNTS.contains(exchange)) return exchange;
+        String fallback = null;
+        for (String account : BotConfig.TRIANGULAR_ACCOUNTS) {
+            if (!account.startsWith(exchange)) continue;
+            if (INVENTORY_DESKS.containsKey(account)) return account;
+            if (fallback == null) fallback = account;
         }
+        return (fallback != null) ? fallback : exchange;
+    }
 
-        // 1. Normalizar cantidad de compra
-        double stepSize1 = connector.getStepSize(exchange, pair1);
-        double qty1 = normalizeQuantity(capitalInput / price1, stepSize1);
-
-        if (qty1 <= 0) {
-            BotLogger.error("🚫 Cantidad calculada inválida para " + pair1);
+    /** Sin precios validados: se consulta el ask de la pata 1 (una ida y vuelta extra). */
+    public void executeTriangular(String exchange, String asset, String bridge, double capitalInput) {
+        if (dryRun) {
+            executeTriangular(exchange, asset, bridge, capitalInput, 0, 0, 0);
             return;
         }
-
-        BotLogger.info("🔫 Paso 1: Comprando " + df.format(qty1) + " " + asset);
-        // Limit FOK un 0.5% arriba para asegurar entrada inmediata sin slippage infinito
-        double limitPrice1 = price1 * 1.005;
-
-        OrderResult result1 = connector.placeOrder(exchange, pair1, "BUY", "LIMIT", qty1, limitPrice1);
-
-        if (!result1.isFilled()) {
-            BotLogger.warn("🚫 Paso 1 No Completado (Status: " + result1.status() + "). Abortando operación sin costo.");
+        double price1 = connector.fetchAsk(exchange, asset + "USDT");
+        if (price1 <= 0) {
+            BotLogger.error("❌ Fallo obteniendo precio inicial para " + asset + "USDT");
             return;
         }
-        BotLogger.info("✅ Paso 1 EXITOSO. Obtuvimos: " + df.format(result1.executedQty()) + " " + asset);
+        executeTriangular(exchange, asset, bridge, capitalInput, price1, 0, 0);
+    }
 
-        // --- PASO 2: CAMBIAR A PUENTE (ASSET -> BRIDGE) ---
-        // Usamos la cantidad REAL ejecutada. Restamos un pequeño margen de seguridad (0.2%)
-        // para cubrir fees si se cobraron en el activo base y evitar errores de saldo insuficiente.
-        double qtyOwned = result1.executedQty() * 0.998;
+    private TriangularExecutor triangularFor(String exchange) {
+        return triangularExecutors.computeIfAbsent(exchange, ex -> {
+            TriangularExecutor e = new TriangularExecutor(connector, ex);
+            e.setDryRun(false); // El dry-run se resuelve antes, en este ejecutor
+            return e;
+        });
+    }
 
-        double stepSize2 = connector.getStepSize(exchange, pair2);
-        double qtyToSell = normalizeQuantity(qtyOwned, stepSize2);
+    /**
+     * Con los precios que ya validó el detector: cantidades y límites salen del plan,
+     * cada pata se dimensiona con el fill de la anterior (ver TriangularExecutor).
+     */
+    public void executeTriangular(String exchange, String asset, String bridge, double capitalInput,
+                                  double ask1, double bid2, double bid3) {
+        String pair1 = asset + "USDT";   // Comprar Asset con USDT
+        String pair2 = asset + bridge;   // Vender Asset por Bridge
+        String pair3 = bridge + "USDT";  // Vender Bridge por USDT
 
-        BotLogger.info("🔫 Paso 2: Vendiendo " + df.format(qtyToSell) + " " + asset + " por " + bridge);
-        OrderResult result2 = connector.placeOrder(exchange, pair2, "SELL", "MARKET", qtyToSell, 0);
+        BotLogger.info("⚡ [EXECUTOR] Triángulo: USDT -> %s -> %s -> USDT (Cap: $%.2f)", asset, bridge, capitalInput);
 
-        if (!result2.isFilled()) {
-            // SI FALLA EL PASO 2: Tenemos el activo "caliente". Hay que volver a USDT ya.
-            handleEmergencySell(exchange, pair1, qtyToSell);
+        if (dryRun) {
+            logDryRun(asset, bridge);
             return;
         }
-        BotLogger.info("✅ Paso 2 EXITOSO. Cambiado a Bridge.");
-
-        // --- PASO 3: CERRAR CICLO (BRIDGE -> USDT) ---
-        // Consultamos el balance real del puente para vender absolutamente todo lo que tengamos.
-        // Esto corrige cualquier discrepancia por fees variables.
-        double bridgeBalance = connector.fetchBalance(exchange, bridge);
-        double stepSize3 = connector.getStepSize(exchange, pair3);
-        double qtyBridgeToSell = normalizeQuantity(bridgeBalance * 0.995, stepSize3); // 99.5% para margen de error
-
-        BotLogger.info("🔫 Paso 3: Vendiendo " + df.format(qtyBridgeToSell) + " " + bridge + " por USDT");
-        OrderResult result3 = connector.placeOrder(exchange, pair3, "SELL", "MARKET", qtyBridgeToSell, 0);
 
-        if (!result3.isFilled()) {
-            BotLogger.error("💀 ERROR CRÍTICO PASO 3. Nos quedamos con " + bridge + ". Intervención manual requerida.");
-            BotLogger.sendTelegram("💀 FATAL: Stuck with " + bridge + " in " + exchange);
-            return;
+        String account = triangularAccount(exchange);
+        InventoryTriangularExecutor desk = INVENTORY_DESKS.get(account);
+        TriangularExecutor executor = triangularFor(account);
+        TriangularPlan plan = executor.plan(asset, bridge, pair1, pair2, pair3, capitalInput, ask1, bid2, bid3);
+        if (desk != null && bid2 > 0 && bid3 > 0 && desk.covers(plan)) {
+            InventoryTriangularExecutor.CycleResult cycle = desk.execute(plan);
+            if (cycle != null && cycle.complete()) {
+                // Mismo criterio que el logTrade del escritorio: completo no significa rentable
+                String outcome = (cycle.usdtDelta() >= 0) ? "💎 TRIANGULAR WIN" : "⚠️ TRIANGULAR LOSS";
+                BotLogger.sendTelegram(TelegramDispatcher.Priority.CRITICAL, outcome + " (inventario): " + asset + "-" + bridge
+                        + String.format(" | $%.4f", cycle.usdtDelta()));
+            }
+            if (cycle != null || desk.covers(plan)) return; // Disparado (o en simulación): nada más que hacer
         }
 
-        BotLogger.info("💎 CICLO COMPLETADO. ID Final: " + result3.orderId());
-        BotLogger.sendTelegram("💎 TRIANGULAR WIN: " + asset + "-" + bridge);
-    }
-
-    /**
-     * Ajusta la cantidad al múltiplo exacto permitido por el exchange (StepSize).
-     * Ejemplo: Si raw=1.498 y step=0.1, retorna 1.40 (floor).
-     */
-    private double normalizeQuantity(double rawQty, double stepSize) {
-        if (stepSize == 0) return rawQty;
-        // Usamos Math.floor para redondear hacia abajo y evitar "Insufficient Balance"
-        double steps = Math.floor(rawQty / stepSize);
-        return steps * stepSize;
-    }
-
-    /**
-     * Venta de Pánico: Si falla el paso intermedio, vendemos el activo original contra USDT.
-     */
-    private void handleEmergencySell(String exchange, String pair, double qty) {
-        BotLogger.error("🚨 FALLO PASO 2. INICIANDO VENTA DE EMERGENCIA (A USDT).");
-        OrderResult panicResult = connector.placeOrder(exchange, pair, "SELL", "MARKET", qty, 0);
+        // Sin escritorio o sin stock para este ciclo: pipeline secuencial guiado por fills
+        OrderResult result = executor.execute(plan);
 
-        if (panicResult.isFilled()) {
-            BotLogger.info("✅ Emergencia resuelta. Volvimos a USDT (con pérdida de spread).");
+        if (result != null) {
+            BotLogger.info("💎 CICLO COMPLETADO. ID Final: " + result.orderId());
+            BotLogger.sendTelegram(TelegramDispatcher.Priority.CRITICAL, "💎 TRIANGULAR WIN: " + asset + "-" + bridge);
         } else {
-            BotLogger.error("💀 FATAL: Falló venta de emergencia. Bag holder de " + pair);
+            BotLogger.sendTelegram(TelegramDispatcher.Priority.CRITICAL, "⚠️ Triangular " + asset + "-" + bridge + " no cerró en " + account + ". Revisar saldos.");
         }
     }
 
@@ -201,10 +192,10 @@ public class TradeExecutor {
 
             if (dryRun) {
                 BotLogger.info("💰 [DRY-RUN] Vendiendo a " + liveSellPrice + " en " + sellEx);
-                BotLogger.info(String.format("🏁 RESULTADO FINAL: Capital Inicial: $%.2f | Final: $%.2f | PnL: %s$%.2f",
-                        capitalUsdt, finalUsdt, (pnl >= 0 ? "+" : ""), pnl));
+                BotLogger.info("🏁 RESULTADO FINAL: Capital Inicial: $%.2f | Final: $%.2f | PnL: %s$%.2f",
+                        capitalUsdt, finalUsdt, (pnl >= 0 ? "+" : ""), pnl);
 
-                if (pnl > 0) BotLogger.sendTelegram("💎 SIMULACIÓN EXITOSA: " + asset + " Profit: $" + df.format(pnl));
+                if (pnl > 0) BotLogger.sendTelegram(TelegramDispatcher.Priority.LOW, "💎 SIMULACIÓN EXITOSA: " + asset + " Profit: $" + df.format(pnl));
                 else BotLogger.warn("📉 SIMULACIÓN PÉRDIDA: El slippage o fee de red mató el trade.");
             }
 
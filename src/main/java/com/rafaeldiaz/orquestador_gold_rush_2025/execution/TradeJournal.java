@@ -0,0 +1,359 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService.AccountSnapshot;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * 📒 DIARIO DE OPERACIONES (EVENT SOURCING)
+ * Cada operación multi-pata (cruce, ruta, triángulo) deja su historia en un archivo append-only:
+ * apertura, intención de cada orden ANTES de enviarla, fill/ack/rechazo, reversiones,
+ * transferencias y cierre. De los fills sale la exposición neta por cuenta y activo de cada
+ * operación abierta: si el proceso muere con un triángulo varado en el BRIDGE, al arrancar se
+ * sabe exactamente qué quedó, dónde y cuánto.
+ *
+ * Formato: una línea TSV por evento con CRC32C al final (una línea cortada por la caída se
+ * descarta). Cada {@link #SNAPSHOT_EVERY} eventos se escribe una foto de las operaciones abiertas
+ * (temporal + rename atómico) y el diario se trunca: la recuperación es foto + cola corta.
+ */
+public final class TradeJournal {
+
+    public enum Type { OPEN, INTENT, ACK, FILL, REJECT, ROLLBACK, TRANSFER, STUCK, CLOSE }
+
+    private static final String DEFAULT_FILE = "logs/trades.journal";
+    private static final int SNAPSHOT_EVERY = 500;
+    private static final double DUST = 1e-9;
+
+    /** Operación abierta reconstruida: exposición neta "cuenta:activo" -> cantidad. */
+    public static final class OpenTrade {
+        private final String id;
+        private final String strategy;
+        private final long openedAt;
+        private final String detail;
+        private final Map<String, Double> exposure = new LinkedHashMap<>();
+        private Type lastEvent = Type.OPEN;
+
+        OpenTrade(String id, String strategy, long openedAt, String detail) {
+            this.id = id;
+            this.strategy = strategy;
+            this.openedAt = openedAt;
+            this.detail = detail;
+        }
+
+        public String id() { return id; }
+        public String strategy() { return strategy; }
+        public long openedAt() { return openedAt; }
+        public String detail() { return detail; }
+        public Type lastEvent() { return lastEvent; }
+
+        /** Exposición sin polvo (cuenta:activo -> cantidad; negativo = se vendió de más). */
+        public Map<String, Double> exposure() {
+            Map<String, Double> out = new LinkedHashMap<>();
+            exposure.forEach((k, v) -> { if (Math.abs(v) > DUST) out.put(k, v); });
+            return out;
+        }
+
+        private void add(String account, String asset, double delta) {
+            if (delta != 0) exposure.merge(account + ":" + asset, delta, Double::sum);
+        }
+    }
+
+    private static TradeJournal shared;
+
+    private final Path path;
+    private final Path snapshotPath;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, OpenTrade> open = new LinkedHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private FileChannel channel;
+    private long seq;
+    private int sinceSnapshot;
+
+    public TradeJournal(String file) throws IOException {
+        this.path = Path.of(file);
+        this.snapshotPath = path.resolveSibling(path.getFileName() + ".snapshot");
+        if (path.toAbsolutePath().getParent() != null) Files.createDirectories(path.toAbsolutePath().getParent());
+        long start = System.nanoTime();
+        int replayed = recover();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (replayed > 0 || !open.isEmpty()) {
+            BotLogger.info("📒 Diario recuperado en %.1fms: %d eventos, %d operaciones abiertas.",
+                    (System.nanoTime() - start) / 1e6, replayed, open.size());
+        }
+    }
+
+    /** Diario desactivado: los eventos no hacen nada (si el archivo no se pudo abrir, se opera igual). */
+    private TradeJournal() {
+        this.path = null;
+        this.snapshotPath = null;
+    }
+
+    /** Diario del proceso (logs/trades.journal). */
+    public static synchronized TradeJournal shared() {
+        if (shared == null) {
+            try {
+                shared = new TradeJournal(DEFAULT_FILE);
+                TradeJournal instance = shared;
+                Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown, "Journal-Snapshot"));
+            } catch (IOException | RuntimeException e) {
+                BotLogger.error("⚠️ Diario de operaciones no disponible: " + e.getMessage());
+                shared = new TradeJournal();
+            }
+        }
+        return shared;
+    }
+
+    // =========================================================================
+    // ✍️ EVENTOS (sincrónicos y durables: la intención está en disco antes de la orden)
+    // =========================================================================
+
+    /** @return id de la operación (se pasa a los demás eventos) */
+    public synchronized String open(String strategy, String venue, String detail) {
+        String id = Long.toString(System.currentTimeMillis(), 36) + "-" + ids.incrementAndGet();
+        append(Type.OPEN, id, venue, strategy, "", "", 0, 0, detail);
+        return id;
+    }
+
+    public synchronized void intent(String id, String account, String base, String quote, String side, double qty) {
+        append(Type.INTENT, id, account, base, quote, side, qty, 0, "");
+    }
+
+    /** Resultado de una orden: FILL si algo se ejecutó, ACK si quedó aceptada sin ejecución, REJECT si no. */
+    public synchronized void result(String id, String account, String base, String quote, String side, OrderResult r) {
+        append(typeOf(r), id, account, base, quote, side, executed(r), value(r), status(r));
+    }
+
+    /** Orden de reversión/cobertura (mueve la exposición como un fill). */
+    public synchronized void rollback(String id, String account, String base, String quote, String side, OrderResult r) {
+        append(Type.ROLLBACK, id, account, base, quote, side, executed(r), value(r), status(r));
+    }
+
+    public synchronized void transfer(String id, String fromAccount, String toAccount, String asset, double qty) {
+        append(Type.TRANSFER, id, fromAccount, asset, toAccount, "", qty, 0, "");
+    }
+
+    /** Deja constancia de una operación varada (sigue abierta hasta reconciliarse). */
+    public synchronized void stuck(String id, String detail) {
+        append(Type.STUCK, id, "", "", "", "", 0, 0, detail);
+    }
+
+    public synchronized void close(String id, String outcome) {
+        append(Type.CLOSE, id, "", "", "", "", 0, 0, outcome);
+    }
+
+    public synchronized List<OpenTrade> openTrades() {
+        return List.copyOf(open.values());
+    }
+
+    private static Type typeOf(OrderResult r) {
+        if (r == null) return Type.REJECT;
+        if (r.executedQty() > 0) return Type.FILL;
+        return (r.orderId() != null && !r.orderId().isEmpty() && !r.status().startsWith("REJECT")
+                && !r.status().equals("ERROR") && !r.status().equals("CANCELED")) ? Type.ACK : Type.REJECT;
+    }
+
+    private static double executed(OrderResult r) {
+        return (r == null) ? 0 : r.executedQty();
+    }
+
+    private static double value(OrderResult r) {
+        return (r == null) ? 0 : r.executedValue();
+    }
+
+    private static String status(OrderResult r) {
+        return (r == null) ? "NO_RESPONSE" : r.status();
+    }
+
+    private void append(Type type, String id, String account, String base, String quote, String side,
+                        double qty, double value, String detail) {
+        if (id == null || channel == null) return;
+        long now = System.currentTimeMillis();
+        String body = String.join("\t", Long.toString(++seq), Long.toString(now), type.name(), id, clean(account),
+                clean(base), clean(quote), clean(side), Double.toString(qty), Double.toString(value), clean(detail));
+        apply(seq, now, type, id, account, base, quote, side, qty, value, detail);
+        try {
+            ByteBuffer line = ByteBuffer.wrap((body + "\t" + crcHex(body) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) channel.write(line);
+            channel.force(false);
+            if (++sinceSnapshot >= SNAPSHOT_EVERY) snapshot();
+        } catch (IOException e) {
+            BotLogger.error("⚠️ Error escribiendo el diario de operaciones: " + e.getMessage());
+        }
+    }
+
+    /** Transición del estado (la misma en vivo y en el replay). */
+    private void apply(long eventSeq, long ts, Type type, String id, String account, String base, String quote,
+                       String side, double qty, double value, String detail) {
+        seq = Math.max(seq, eventSeq);
+        if (type == Type.OPEN) {
+            open.put(id, new OpenTrade(id, base, ts, detail));
+            return;
+        }
+        OpenTrade t = open.get(id);
+        if (t == null) return;
+        t.lastEvent = type;
+        switch (type) {
+            case FILL, ROLLBACK -> {
+                double sign = "BUY".equals(side) ? 1 : -1;
+                t.add(account, base, sign * qty);
+                t.add(account, quote, -sign * value);
+            }
+            case TRANSFER -> { // account = origen, quote = destino
+                t.add(account, base, -qty);
+                t.add(quote, base, qty);
+            }
+            case CLOSE -> open.remove(id);
+            default -> { }
+        }
+    }
+
+    // =========================================================================
+    // 📸 FOTO + RECUPERACIÓN
+    // =========================================================================
+
+    private void snapshot() throws IOException {
+        ObjectNode root = mapper.createObjectNode().put("seq", seq);
+        ArrayNode trades = root.putArray("open");
+        for (OpenTrade t : open.values()) {
+            ObjectNode node = trades.addObject().put("id", t.id).put("strategy", t.strategy)
+                    .put("openedAt", t.openedAt).put("detail", t.detail).put("lastEvent", t.lastEvent.name());
+            ObjectNode exp = node.putObject("exposure");
+            t.exposure.forEach(exp::put);
+        }
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(mapper.writeValueAsBytes(root));
+            while (bytes.hasRemaining()) ch.write(bytes);
+            ch.force(true);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.truncate(0); // Todo lo anterior ya vive en la foto
+        channel.force(true);
+        sinceSnapshot = 0;
+    }
+
+    /** Foto (si hay) + eventos posteriores. @return eventos aplicados desde el diario */
+    private int recover() throws IOException {
+        long fromSeq = 0;
+        if (Files.exists(snapshotPath)) {
+            JsonNode root = mapper.readTree(snapshotPath.toFile());
+            fromSeq = root.path("seq").asLong(0);
+            seq = fromSeq;
+            for (JsonNode node : root.path("open")) {
+                OpenTrade t = new OpenTrade(node.path("id").asText(), node.path("strategy").asText(),
+                        node.path("openedAt").asLong(), node.path("detail").asText());
+                t.lastEvent = Type.valueOf(node.path("lastEvent").asText("OPEN"));
+                node.path("exposure").fields().forEachRemaining(e -> t.exposure.put(e.getKey(), e.getValue().asDouble()));
+                open.put(t.id, t);
+            }
+        }
+        if (!Files.exists(path)) return 0;
+
+        int applied = 0;
+        long validBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int cut = line.lastIndexOf('\t');
+                if (cut < 0 || !crcHex(line.substring(0, cut)).equals(line.substring(cut + 1))) break; // Cola rota
+                String[] f = line.substring(0, cut).split("\t", -1);
+                if (f.length != 11) break;
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                long eventSeq = Long.parseLong(f[0]);
+                if (eventSeq <= fromSeq) continue;
+                apply(eventSeq, Long.parseLong(f[1]), Type.valueOf(f[2]), f[3], f[4], f[5], f[6], f[7],
+                        Double.parseDouble(f[8]), Double.parseDouble(f[9]), f[10]);
+                applied++;
+            }
+        }
+        if (validBytes < Files.size(path)) {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(validBytes); // Lo nuevo se agrega detrás de la última línea válida
+            }
+        }
+        return applied;
+    }
+
+    // =========================================================================
+    // 🔎 RECONCILIACIÓN CONTRA SALDOS (una lectura en lote de todas las cuentas)
+    // =========================================================================
+
+    /**
+     * Compara cada operación abierta con la foto de saldos: si la exposición en activos ya no está
+     * en la cuenta (se vendió a mano, la resolvió el exchange) o quedó plana, se cierra sola. Lo que
+     * sigue en la cuenta se marca STUCK y se devuelve para alertar (no se opera automáticamente).
+     * USDT es caja: no cuenta como exposición.
+     * @return descripción de las operaciones que siguen abiertas
+     */
+    public synchronized List<String> reconcile(AccountSnapshot balances) {
+        List<String> pending = new ArrayList<>();
+        for (OpenTrade t : List.copyOf(open.values())) {
+            List<String> held = new ArrayList<>();
+            for (Map.Entry<String, Double> e : t.exposure().entrySet()) {
+                String[] key = e.getKey().split(":", 2);
+                String account = key[0], asset = key[1];
+                double qty = e.getValue();
+                if (asset.equals("USDT") || qty <= 0) continue; // Caja o inventario ya entregado: nada que sostener
+                if (balances.has(account) && balances.balance(account, asset) + DUST < qty) continue; // Ya no está
+                held.add(String.format(Locale.US, "%s %s %.8f (saldo %.8f)", account, asset, qty, balances.balance(account, asset)));
+            }
+            if (held.isEmpty()) {
+                close(t.id, "RECONCILED");
+            } else {
+                String summary = t.strategy + " " + t.id + " [" + t.detail + "]: " + String.join(", ", held);
+                if (t.lastEvent != Type.STUCK) stuck(t.id, "RECOVERY " + String.join(", ", held));
+                pending.add(summary);
+            }
+        }
+        return Collections.unmodifiableList(pending);
+    }
+
+    // =========================================================================
+    // 🧰 AUXILIARES
+    // =========================================================================
+
+    private static String clean(String s) {
+        return (s == null) ? "" : s.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private static String crcHex(String body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    public synchronized void shutdown() {
+        try {
+            if (channel != null) {
+                snapshot();
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            BotLogger.error("⚠️ Error cerrando el diario de operaciones: " + e.getMessage());
+        }
+    }
+}
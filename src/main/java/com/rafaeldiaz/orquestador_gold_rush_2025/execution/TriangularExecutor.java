@@ -1,24 +1,27 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
 
 import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.BotConfig;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
 import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
 import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
 
 /**
- * 📐 TRIANGULAR EXECUTOR (PURE MUSCLE - JAVA 25)
- * Responsabilidad: Ejecución atómica secuencial.
- * Eliminado: Lógica de escaneo, formateo de logs en ruta crítica.
+ * 📐 TRIANGULAR EXECUTOR (PIPELINE GUIADO POR FILLS - JAVA 25)
+ * Responsabilidad: Ejecución atómica secuencial con el mínimo de idas y vueltas.
+ * - Plan pre-calculado (TriangularPlan): cantidades y límites salen de los libros validados y la caché.
+ * - La pata N+1 se dispara apenas llega el reporte de fill de la pata N, dimensionada con la cantidad
+ *   ejecutada y la comisión del propio fill (sin fetchBalance entre patas).
+ * Costo objetivo: ~3 órdenes (envío + confirmación), sin sleeps fijos.
  */
 public class TriangularExecutor {
 
     private final ExchangeConnector connector;
     private final String exchangeName;
+    private final TradeJournal journal = TradeJournal.shared();
     private boolean dryRun = true;
 
-    // Buffers de seguridad (Constants en memoria para evitar accesos a config en hot-path)
-    private static final double BUFFER_ENTRY = 0.995; // 0.5% margen en entrada
-    private static final double BUFFER_EXIT = 0.999;  // 0.1% margen en salida (rounding errors)
-
     public TriangularExecutor(ExchangeConnector connector, String exchangeName) {
         this.connector = connector;
         this.exchangeName = exchangeName;
@@ -28,6 +31,20 @@ public class TriangularExecutor {
         this.dryRun = dryRun;
     }
 
+    /**
+     * Arma el plan con las reglas de precisión en caché (precalentadas al activar objetivos).
+     * @param ask1 Precio de compra validado por el scanner en p1
+     * @param bid2 Precio de venta validado en p2 (0 si no se conoce)
+     * @param bid3 Precio de venta validado en p3 (0 si no se conoce)
+     */
+    public TriangularPlan plan(String asset, String bridge, String p1, String p2, String p3,
+                               double capitalUsdt, double ask1, double bid2, double bid3) {
+        return TriangularPlan.of(asset, bridge, p1, p2, p3, capitalUsdt, ask1, bid2, bid3, BotConfig.MAX_SLIPPAGE,
+                connector.getInstrumentRules(exchangeName, p1),
+                connector.getInstrumentRules(exchangeName, p2),
+                connector.getInstrumentRules(exchangeName, p3));
+    }
+
     /**
      * Ejecuta la triangulación VALIDADA.
      * @param p1 Pair String (ej: "BTCUSDT") - Pre-construido por el Scanner
@@ -37,62 +54,115 @@ public class TriangularExecutor {
      */
     public void executeSequence(String asset, String bridge, String p1, String p2, String p3,
                                 double capitalUsdt, double limitPrice1) {
-
         if (dryRun) {
             BotLogger.info("[DRY-RUN] Triangular ejecutada: " + asset + "-" + bridge);
             return;
         }
+        execute(plan(asset, bridge, p1, p2, p3, capitalUsdt, limitPrice1, 0, 0));
+    }
 
-        // --- PASO 1: ENTRY (USDT -> ASSET) ---
-        // Cálculo puro (nanosegundos)
-        double quantity1 = (capitalUsdt / limitPrice1) * BUFFER_ENTRY;
-
-        // Fuego 1
-        OrderResult r1 = connector.placeOrder(exchangeName, p1, "BUY", "MARKET", quantity1, 0);
+    /**
+     * ⚡ Pipeline: pata 1 LIMIT FOK con el plan; patas 2 y 3 MARKET con lo que realmente entregó el fill anterior.
+     * @return resultado de la pata 3 (null si el triángulo no llegó a cerrarse)
+     */
+    public OrderResult execute(TriangularPlan plan) {
+        if (dryRun) {
+            BotLogger.info("[DRY-RUN] Triangular ejecutada: " + plan.asset() + "-" + plan.bridge());
+            return null;
+        }
+        if (!plan.isExecutable()) {
+            BotLogger.warn("🚫 Triangular sin cantidad ejecutable: " + plan.asset() + "-" + plan.bridge());
+            return null;
+        }
+        long start = System.nanoTime();
+        // 📒 Cada pata queda en el diario (intención antes de enviar, resultado después)
+        String tid = journal.open("TRIANGULAR", exchangeName, plan.asset() + "-" + plan.bridge() + " $" + plan.capitalUsdt());
 
+        // --- PASO 1: ENTRY (USDT -> ASSET) ---
+        journal.intent(tid, exchangeName, plan.asset(), "USDT", "BUY", plan.qty1().toDouble());
+        OrderResult r1 = connector.placeOrder(exchangeName, plan.pair1(), "BUY", "LIMIT", plan.qty1(), plan.limitPrice1());
+        journal.result(tid, exchangeName, plan.asset(), "USDT", "BUY", r1);
         if (!r1.isFilled()) {
-            BotLogger.warn("⚠️ Triangular abortada en P1: " + asset);
-            return;
+            BotLogger.warn("⚠️ Triangular abortada en P1: " + plan.asset() + " (" + r1.status() + ")");
+            journal.close(tid, "ABORTED_P1");
+            return null;
         }
-
-        double acquiredAsset = r1.executedQty();
-
-        // --- PASO 2: BRIDGE (ASSET -> BRIDGE) ---
-        // Fuego 2
-        OrderResult r2 = connector.placeOrder(exchangeName, p2, "SELL", "MARKET", acquiredAsset, 0);
-
-        if (!r2.isFilled()) {
+        long leg1 = System.nanoTime();
+
+        // --- PASO 2: BRIDGE (ASSET -> BRIDGE) --- con el fill de la pata 1
+        FixedDecimal qty2 = netReceived(r1.filledQty().toDouble(), r1, plan.asset(), plan.rules2());
+        OrderResult r2 = null;
+        if (!qty2.isZero()) {
+            journal.intent(tid, exchangeName, plan.asset(), plan.bridge(), "SELL", qty2.toDouble());
+            r2 = connector.placeOrder(exchangeName, plan.pair2(), "SELL", "MARKET", qty2, FixedDecimal.ZERO);
+            journal.result(tid, exchangeName, plan.asset(), plan.bridge(), "SELL", r2);
+        }
+        if (r2 == null || !r2.isFilled()) {
             // CRÍTICO: Fallo en mitad de la operación
-            handleEmergencyExit(asset, p1, acquiredAsset);
-            return;
+            handleEmergencyExit(tid, plan.asset(), plan.pair1(),
+                    netReceived(r1.filledQty().toDouble(), r1, plan.asset(), plan.rules1()));
+            return null;
         }
-
-        double acquiredBridge = r2.executedValue();
-
-        // Safety check (si la API es lenta devolviendo value, consultamos balance)
-        if (acquiredBridge <= 0.0000001) {
-            acquiredBridge = connector.fetchBalance(exchangeName, bridge);
+        long leg2 = System.nanoTime();
+
+        // --- PASO 3: EXIT (BRIDGE -> USDT) --- con el fill de la pata 2
+        FixedDecimal qty3 = netReceived(r2.executedValue(), r2, plan.bridge(), plan.rules3());
+        journal.intent(tid, exchangeName, plan.bridge(), "USDT", "SELL", qty3.toDouble());
+        OrderResult r3 = connector.placeOrder(exchangeName, plan.pair3(), "SELL", "MARKET", qty3, FixedDecimal.ZERO);
+        journal.result(tid, exchangeName, plan.bridge(), "USDT", "SELL", r3);
+        if (!r3.isFilled()) {
+            // Intento final ("Sweep") con la misma cantidad: ya es exacta, no hace falta releer el balance
+            BotLogger.warn("🔁 Reintentando salida " + plan.pair3() + " (" + qty3 + ")");
+            journal.intent(tid, exchangeName, plan.bridge(), "USDT", "SELL", qty3.toDouble());
+            r3 = connector.placeOrder(exchangeName, plan.pair3(), "SELL", "MARKET", qty3, FixedDecimal.ZERO);
+            journal.result(tid, exchangeName, plan.bridge(), "USDT", "SELL", r3);
+            if (!r3.isFilled()) {
+                BotLogger.error("💀 Triangular varada en " + plan.bridge() + ". Intervención manual requerida.");
+                journal.stuck(tid, "BRIDGE " + plan.bridge());
+                return null;
+            }
         }
+        long end = System.nanoTime();
+        journal.close(tid, "COMPLETE");
+
+        double finalUsdt = r3.executedValue() - feeIn(r3, "USDT");
+        double profit = finalUsdt - plan.capitalUsdt();
+        BotLogger.logTrade("TRIANGULAR_" + plan.asset() + "_" + plan.bridge(), profit >= 0 ? "WIN" : "LOSS", 0, profit);
+        BotLogger.info("⚡ Triángulo %s-%s en %dms (P1 %d | P2 %d | P3 %d) | Esperado $%.4f -> Real $%.4f",
+                plan.asset(), plan.bridge(), (end - start) / 1_000_000, (leg1 - start) / 1_000_000,
+                (leg2 - leg1) / 1_000_000, (end - leg2) / 1_000_000, plan.expectedUsdt(), finalUsdt);
+        return r3;
+    }
+
+    /**
+     * Cantidad vendible de {@code coin} tras un fill: lo recibido menos la comisión si se cobró en esa moneda
+     * (o si el exchange no informó la moneda: supuesto conservador), al step de la pata siguiente.
+     */
+    static FixedDecimal netReceived(double received, OrderResult fill, String coin, InstrumentRules next) {
+        return next.quantity(received - feeIn(fill, coin));
+    }
 
-        // --- PASO 3: EXIT (BRIDGE -> USDT) ---
-        // Fuego 3
-        double bridgeToSell = acquiredBridge * BUFFER_EXIT;
-        OrderResult r3 = connector.placeOrder(exchangeName, p3, "SELL", "MARKET", bridgeToSell, 0);
+    static double feeIn(OrderResult fill, String coin) {
+        String feeAsset = fill.feeAsset();
+        boolean unknown = feeAsset == null || feeAsset.equals("UNK") || feeAsset.equals("NONE");
+        return (unknown || feeAsset.equalsIgnoreCase(coin)) ? fill.feePaid() : 0.0;
+    }
 
-        if (r3.isFilled()) {
-            double finalUsdt = r3.executedValue();
-            double profit = finalUsdt - capitalUsdt;
-            // Log asíncrono o simplificado
-            BotLogger.logTrade("TRIANGULAR_" + asset + "_" + bridge, "WIN", 0, profit);
+    private void handleEmergencyExit(String tid, String asset, String pairUsdt, FixedDecimal qty) {
+        BotLogger.error("🚑 EMERGENCY EXIT: Vendiendo " + qty + " " + asset + " a USDT");
+        if (qty.isZero()) { // Polvo bajo el step: nada que vender
+            journal.close(tid, "EMERGENCY_DUST");
+            return;
+        }
+        journal.intent(tid, exchangeName, asset, "USDT", "SELL", qty.toDouble());
+        OrderResult panic = connector.placeOrder(exchangeName, pairUsdt, "SELL", "MARKET", qty, FixedDecimal.ZERO);
+        journal.rollback(tid, exchangeName, asset, "USDT", "SELL", panic);
+        if (panic.isFilled()) {
+            BotLogger.info("✅ Emergencia resuelta. Volvimos a USDT (con pérdida de spread).");
+            journal.close(tid, "EMERGENCY_EXIT");
         } else {
-            // Intento final desesperado ("Sweep")
-            double realBal = connector.fetchBalance(exchangeName, bridge);
-            connector.placeOrder(exchangeName, p3, "SELL", "MARKET", realBal, 0);
+            BotLogger.error("💀 FATAL: Falló venta de emergencia. Bag holder de " + pairUsdt);
+            journal.stuck(tid, "BAG " + pairUsdt);
         }
     }
-
-    private void handleEmergencyExit(String asset, String pairUsdt, double qty) {
-        BotLogger.error("🚑 EMERGENCY EXIT: Vendiendo " + asset + " a USDT");
-        connector.placeOrder(exchangeName, pairUsdt, "SELL", "MARKET", qty, 0);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
+
+/**
+ * 🗺️ PLAN TRIANGULAR PRE-CALCULADO
+ * Todo lo que la ejecución necesita se resuelve ANTES del primer disparo, con los precios
+ * validados por el escáner y las reglas de precisión en caché: ni fetchAsk ni getStepSize
+ * entre patas. Las patas 2 y 3 se dimensionan con el fill real de la anterior.
+ * Ruta: USDT -> ASSET (pair1, BUY) -> BRIDGE (pair2, SELL) -> USDT (pair3, SELL)
+ */
+public record TriangularPlan(
+        String asset,
+        String bridge,
+        String pair1,
+        String pair2,
+        String pair3,
+        double capitalUsdt,
+        InstrumentRules rules1,
+        InstrumentRules rules2,
+        InstrumentRules rules3,
+        FixedDecimal qty1,          // Cantidad de la pata 1 (al step)
+        FixedDecimal limitPrice1,   // Límite FOK de la pata 1 (ask validado + slippage, al tick)
+        double expectedBridge,      // Salida esperada de la pata 2 según el libro (0 si no se conoce)
+        double expectedUsdt         // Salida esperada de la pata 3 según el libro (0 si no se conoce)
+) {
+
+    /**
+     * @param ask1 precio de compra validado de pair1
+     * @param bid2 precio de venta validado de pair2 (0 si no se conoce)
+     * @param bid3 precio de venta validado de pair3 (0 si no se conoce)
+     * @param maxSlippage margen sobre ask1 para el límite FOK (ej: 0.01)
+     */
+    public static TriangularPlan of(String asset, String bridge, String pair1, String pair2, String pair3,
+                                    double capitalUsdt, double ask1, double bid2, double bid3, double maxSlippage,
+                                    InstrumentRules rules1, InstrumentRules rules2, InstrumentRules rules3) {
+        FixedDecimal limit = rules1.price(ask1 * (1 + maxSlippage), true);
+        // Dimensionada contra el límite: aun llenando en el peor precio, el costo no supera el capital
+        FixedDecimal qty = limit.isZero() ? FixedDecimal.ZERO : rules1.quantity(capitalUsdt / limit.toDouble());
+        double expectedBridge = qty.toDouble() * bid2;
+        double expectedUsdt = expectedBridge * bid3;
+        return new TriangularPlan(asset, bridge, pair1, pair2, pair3, capitalUsdt, rules1, rules2, rules3,
+                qty, limit, expectedBridge, expectedUsdt);
+    }
+
+    /** Sin cantidad ejecutable (capital bajo el step o precio inválido): no se dispara nada. */
+    public boolean isExecutable() {
+        return !qty1.isZero() && !limitPrice1.isZero();
+    }
+}
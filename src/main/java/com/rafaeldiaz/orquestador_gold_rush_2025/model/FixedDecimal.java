@@ -0,0 +1,277 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.model;
+
+import java.math.RoundingMode;
+
+/**
+ * 🔢 DECIMAL DE PUNTO FIJO (long escalado)
+ * valor = unscaled / 10^scale. La escala viene del instrumento (step / tick del exchange),
+ * así que "0.0001" como step produce cantidades de 4 decimales exactos: sin "%.8f",
+ * sin basura binaria (0.30000000000000004) y sin rechazos de LOT_SIZE por precisión.
+ * Parseo y formateo sin asignaciones intermedias (sin BigDecimal ni String.format).
+ */
+public record FixedDecimal(long unscaled, int scale) implements Comparable<FixedDecimal> {
+
+    public static final int MAX_SCALE = 12;
+    public static final FixedDecimal ZERO = new FixedDecimal(0, 0);
+
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    // Ruido binario tolerado al convertir un double (ej: 0.3 * 10 = 2.9999999999999996)
+    private static final double SNAP_EPSILON = 1e-9;
+
+    public FixedDecimal {
+        if (scale < 0 || scale > MAX_SCALE) throw new IllegalArgumentException("Escala fuera de rango: " + scale);
+    }
+
+    // =========================================================================
+    // 🏗️ CONSTRUCCIÓN
+    // =========================================================================
+
+    public static FixedDecimal of(long unscaled, int scale) {
+        return new FixedDecimal(unscaled, scale);
+    }
+
+    /**
+     * Parsea "0.00010000", "142.5", "-3", "1e-8" sin pasar por double.
+     * Los ceros a la derecha se conservan (ver {@link #stripTrailingZeros()}).
+     */
+    public static FixedDecimal parse(CharSequence s) {
+        int len = s.length();
+        if (len == 0) throw new NumberFormatException("Decimal vacío");
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long units = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean dot = false;
+        int exponent = 0;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (units > (Long.MAX_VALUE - 9) / 10) throw new NumberFormatException("Desborde: " + s);
+                units = units * 10 + (c - '0');
+                digits++;
+                if (dot) scale++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                exponent = parseExponent(s, i + 1);
+                break;
+            } else {
+                throw new NumberFormatException("Carácter inválido en decimal: " + s);
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("Sin dígitos: " + s);
+
+        scale -= exponent;
+        if (scale < 0) {
+            units = Math.multiplyExact(units, pow10(-scale));
+            scale = 0;
+        }
+        // Ceros a la derecha más allá de la escala máxima no aportan precisión
+        while (scale > MAX_SCALE && units % 10 == 0) {
+            units /= 10;
+            scale--;
+        }
+        if (scale > MAX_SCALE) throw new NumberFormatException("Precisión mayor a " + MAX_SCALE + ": " + s);
+        return new FixedDecimal(negative ? -units : units, scale);
+    }
+
+    private static int parseExponent(CharSequence s, int from) {
+        int i = from;
+        boolean negative = false;
+        if (i < s.length() && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        if (i >= s.length()) throw new NumberFormatException("Exponente vacío: " + s);
+        int exp = 0;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9' || exp > 100) throw new NumberFormatException("Exponente inválido: " + s);
+            exp = exp * 10 + (c - '0');
+        }
+        return negative ? -exp : exp;
+    }
+
+    /**
+     * Convierte un double (cálculo del scanner) a la escala pedida.
+     * Antes de redondear "pega" al entero más cercano si la diferencia es ruido binario,
+     * para que floor(0.3 / 0.1) sea 3 y no 2.
+     */
+    public static FixedDecimal ofDouble(double value, int scale, RoundingMode mode) {
+        if (!Double.isFinite(value)) throw new IllegalArgumentException("Valor no finito: " + value);
+        double scaled = value * pow10(scale);
+        if (Math.abs(scaled) >= 9.0e18) throw new ArithmeticException("Desborde: " + value);
+        double nearest = Math.rint(scaled);
+        if (Math.abs(scaled - nearest) <= SNAP_EPSILON * Math.max(1.0, Math.abs(scaled))) scaled = nearest;
+        long units = switch (mode) {
+            case FLOOR -> (long) Math.floor(scaled);
+            case CEILING -> (long) Math.ceil(scaled);
+            case DOWN -> (long) scaled;
+            case HALF_UP -> (long) Math.signum(scaled) * (long) Math.floor(Math.abs(scaled) + 0.5);
+            default -> throw new IllegalArgumentException("Modo no soportado: " + mode);
+        };
+        return new FixedDecimal(units, scale);
+    }
+
+    // =========================================================================
+    // 📏 STEP / TICK
+    // =========================================================================
+
+    /** Mayor múltiplo de {@code step} menor o igual (cantidades: nunca pedir más de lo que hay). */
+    public FixedDecimal floorToStep(FixedDecimal step) {
+        return toStep(step, false);
+    }
+
+    /** Menor múltiplo de {@code step} mayor o igual. */
+    public FixedDecimal ceilToStep(FixedDecimal step) {
+        return toStep(step, true);
+    }
+
+    private FixedDecimal toStep(FixedDecimal step, boolean up) {
+        if (step == null || step.unscaled <= 0) return this; // Sin restricción
+        int s = Math.max(scale, step.scale);
+        long a = unscaledAt(s);
+        long b = step.unscaledAt(s);
+        long q = up ? Math.ceilDiv(a, b) : Math.floorDiv(a, b);
+        // Múltiplo exacto del step: cabe en la escala del step
+        return new FixedDecimal(q * step.unscaled, step.scale);
+    }
+
+    /** Reescala sin perder dígitos (lanza ArithmeticException si habría que redondear). */
+    public FixedDecimal withScale(int newScale) {
+        if (newScale == scale) return this;
+        if (newScale > scale) return new FixedDecimal(unscaledAt(newScale), newScale);
+        long div = pow10(scale - newScale);
+        if (unscaled % div != 0) throw new ArithmeticException("Pérdida de precisión al reescalar " + this);
+        return new FixedDecimal(unscaled / div, newScale);
+    }
+
+    public FixedDecimal stripTrailingZeros() {
+        long u = unscaled;
+        int s = scale;
+        while (s > 0 && u % 10 == 0) {
+            u /= 10;
+            s--;
+        }
+        return (s == scale) ? this : new FixedDecimal(u, s);
+    }
+
+    /** Unidades a una escala mayor o igual a la propia. */
+    public long unscaledAt(int targetScale) {
+        if (targetScale < scale) throw new ArithmeticException("Escala menor a la propia");
+        return Math.multiplyExact(unscaled, pow10(targetScale - scale));
+    }
+
+    // =========================================================================
+    // 📖 LECTURA
+    // =========================================================================
+
+    public double toDouble() {
+        return (double) unscaled / POW10[scale];
+    }
+
+    public boolean isZero() {
+        return unscaled == 0;
+    }
+
+    public int signum() {
+        return Long.signum(unscaled);
+    }
+
+    @Override
+    public int compareTo(FixedDecimal o) {
+        int s = Math.max(scale, o.scale);
+        return Long.compare(unscaledAt(s), o.unscaledAt(s));
+    }
+
+    /** Igualdad numérica (1.50 == 1.5), a diferencia de equals() del record. */
+    public boolean sameValue(FixedDecimal o) {
+        return compareTo(o) == 0;
+    }
+
+    // =========================================================================
+    // ✍️ FORMATEO (sin asignaciones)
+    // =========================================================================
+
+    /** Escribe la forma plana ("-12.3400") en {@code dst} desde {@code at}; devuelve el offset final. */
+    public int writeTo(byte[] dst, int at) {
+        int pos = at;
+        long u = unscaled;
+        if (u < 0) {
+            dst[pos++] = '-';
+            u = -u;
+        }
+        long whole = u / POW10[scale];
+        long frac = u % POW10[scale];
+        int wholeDigits = digitCount(whole);
+        writeDigits(dst, pos, wholeDigits, whole);
+        pos += wholeDigits;
+        if (scale > 0) {
+            dst[pos++] = '.';
+            writeDigits(dst, pos, scale, frac);
+            pos += scale;
+        }
+        return pos;
+    }
+
+    /** Longitud en bytes de {@link #writeTo}. */
+    public int length() {
+        long u = Math.abs(unscaled);
+        return (unscaled < 0 ? 1 : 0) + digitCount(u / POW10[scale]) + (scale > 0 ? scale + 1 : 0);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb) {
+        long u = unscaled;
+        if (u < 0) {
+            sb.append('-');
+            u = -u;
+        }
+        sb.append(u / POW10[scale]);
+        if (scale > 0) {
+            sb.append('.');
+            long frac = u % POW10[scale];
+            for (int d = scale - 1; d >= 0; d--) sb.append((char) ('0' + (frac / POW10[d]) % 10));
+        }
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    /** Escribe {@code value} (no negativo) en exactamente {@code width} dígitos con ceros a la izquierda. */
+    public static void writeDigits(byte[] dst, int at, int width, long value) {
+        for (int i = at + width - 1; i >= at; i--) {
+            dst[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        if (value != 0) throw new IllegalArgumentException("No cabe en " + width + " dígitos");
+    }
+
+    public static int digitCount(long value) {
+        int n = 1;
+        while (value >= 10) {
+            value /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private static long pow10(int n) {
+        if (n < 0 || n >= POW10.length) throw new ArithmeticException("Potencia fuera de rango: " + n);
+        return POW10[n];
+    }
+}
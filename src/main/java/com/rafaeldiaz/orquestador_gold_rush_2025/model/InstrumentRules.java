@@ -0,0 +1,34 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.model;
+
+import java.math.RoundingMode;
+
+/**
+ * 📏 REGLAS DE PRECISIÓN DE UN INSTRUMENTO (caché de metadatos del exchange)
+ * qtyStep = LOT_SIZE / basePrecision / baseIncrement; tickSize = PRICE_FILTER / priceFilter / priceIncrement.
+ * Se parsean directo del texto del exchange: la escala de cada orden sale de aquí.
+ */
+public record InstrumentRules(FixedDecimal qtyStep, FixedDecimal tickSize) {
+
+    // Mismos valores seguros que antes: step 0.01 y 8 decimales de precio
+    public static final InstrumentRules DEFAULT = new InstrumentRules(FixedDecimal.of(1, 2), FixedDecimal.of(1, 8));
+
+    // Escala usada cuando el exchange no impone step / tick (valor 0)
+    private static final int UNCONSTRAINED_SCALE = 8;
+
+    /** Cantidad al múltiplo inferior del step: nunca pedimos más de lo que hay (evita "Insufficient Balance"). */
+    public FixedDecimal quantity(double rawQty) {
+        if (!(rawQty > 0)) return FixedDecimal.ZERO;
+        return FixedDecimal.ofDouble(rawQty, scaleOf(qtyStep), RoundingMode.FLOOR).floorToStep(qtyStep);
+    }
+
+    /** Precio límite al tick, siempre del lado conservador: compra hacia abajo, venta hacia arriba. */
+    public FixedDecimal price(double rawPrice, boolean buy) {
+        if (!(rawPrice > 0)) return FixedDecimal.ZERO;
+        FixedDecimal p = FixedDecimal.ofDouble(rawPrice, scaleOf(tickSize), buy ? RoundingMode.FLOOR : RoundingMode.CEILING);
+        return buy ? p.floorToStep(tickSize) : p.ceilToStep(tickSize);
+    }
+
+    private static int scaleOf(FixedDecimal step) {
+        return step.isZero() ? UNCONSTRAINED_SCALE : step.scale();
+    }
+}
@@ -0,0 +1,37 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.model;
+
+/**
+ * 🔗 NetworkInfo (Configuración de Red por Moneda y Venue)
+ * Una fila del catálogo de retiros: costo, mínimos, habilitación y confirmaciones
+ * de una red concreta (ej: USDT por TRX en Binance).
+ */
+public record NetworkInfo(
+        String coin,             // "USDT"
+        String network,          // Nombre canónico ("TRX", "BSC", "ETH"...)
+        double withdrawFee,      // En unidades de la moneda
+        double withdrawMin,      // Cantidad mínima de retiro
+        boolean withdrawEnabled,
+        boolean depositEnabled,
+        int confirmations        // Bloques exigidos por el venue para acreditar
+) {
+
+    /**
+     * 🏷️ Normaliza los nombres de red de cada venue al mismo alias
+     * (Binance "BSC", KuCoin "bep20", MEXC "BEP20(BSC)" -> "BSC").
+     */
+    public static String canonical(String raw) {
+        if (raw == null) return "";
+        String n = raw.toUpperCase().replaceAll("[^A-Z0-9]", "");
+        return switch (n) {
+            case "BEP20", "BEP20BSC", "BSCBEP20", "BNBSMARTCHAIN", "BSC" -> "BSC";
+            case "ERC20", "ETHEREUM", "ETHERC20", "ETH" -> "ETH";
+            case "TRC20", "TRON", "TRXTRC20", "TRX" -> "TRX";
+            case "SOLANA", "SPL", "SOL" -> "SOL";
+            case "ARBITRUM", "ARBITRUMONE", "ARBONE", "ARBI", "ARB" -> "ARB";
+            case "POLYGON", "MATICPOLYGON", "POL", "MATIC" -> "MATIC";
+            case "OPTIMISM", "OP" -> "OP";
+            case "AVAXCCHAIN", "CAVAX", "AVAXC" -> "AVAXC";
+            default -> n;
+        };
+    }
+}
@@ -1,8 +1,12 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.model;
 
+import java.math.RoundingMode;
+
 /**
- * 📦 OrderResult (Versión 5.1 - Con Alias Financiero)
+ * 📦 OrderResult (Versión 5.2 - Con Cantidad Exacta)
  * Contiene los datos crudos para calcular el precio promedio real.
+ * filledQty es la cantidad ejecutada tal como la reporta el exchange (sin pasar por double):
+ * es la que se reenvía en reversiones para no dejar polvo ni pedir de más.
  */
 public record OrderResult(
         String orderId,
@@ -12,9 +16,19 @@ public record OrderResult(
         double cummulativeQuoteQty, // 💰 CRÍTICO: Total USDT/Bridge gastado o recibido
         double limitPrice,          // El precio límite (si fue LIMIT, sino 0)
         double feePaid,             // Comisión pagada
-        String feeAsset             // Moneda de la comisión
+        String feeAsset,            // Moneda de la comisión
+        FixedDecimal filledQty      // executedQty exacto (punto fijo)
 ) {
 
+    /** Resultado sin texto exacto del exchange (errores, simulaciones): filledQty se deriva del double. */
+    public OrderResult(String orderId, String status, double originalQty, double executedQty,
+                       double cummulativeQuoteQty, double limitPrice, double feePaid, String feeAsset) {
+        this(orderId, status, originalQty, executedQty, cummulativeQuoteQty, limitPrice, feePaid, feeAsset,
+                executedQty > 0
+                        ? FixedDecimal.ofDouble(executedQty, 8, RoundingMode.HALF_UP).stripTrailingZeros()
+                        : FixedDecimal.ZERO);
+    }
+
     /**
      * ✅ Helper: ¿Se llenó la orden completa?
      */
@@ -1,18 +1,27 @@
 package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
 
 import io.github.cdimascio.dotenv.Dotenv;
-import okhttp3.*;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.logging.*;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
 import java.util.Locale;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * 📝 LOGGER DEL BOT (asíncrono, memoria acotada)
+ * Los productores solo publican referencias en un {@link LogRing} preasignado; el hilo escritor
+ * formatea, arma el lote y hace UNA escritura a bot.log (rotado 10MB x 5) y otra a consola por lote.
+ * Anillo lleno: LOG_OVERFLOW decide (DROP_DEBUG por defecto, BLOCK o COUNT_AND_DROP).
+ * trades.csv y opportunities.csv son {@link CsvAppender} abiertos toda la vida del proceso.
+ */
 public class BotLogger {
 
     // 🎨 PALETA DE COLORES ANSI (Cyberpunk Theme)
@@ -25,88 +34,73 @@ public class BotLogger {
     public static final String CYAN = "\u001B[36m";
     public static final String WHITE_BOLD = "\u001B[1;37m";
 
-    private static final Logger logger = Logger.getLogger("GoldRushBot");
     private static final String LOG_DIR = "logs";
+    private static final String LOG_FILE = LOG_DIR + "/bot.log";
+    private static final long LOG_MAX_BYTES = 10 * 1024 * 1024;
+    private static final int LOG_MAX_FILES = 5;
     private static final String CSV_FILE = "logs/trades.csv";
     private static final String OPPORTUNITY_FILE = "logs/opportunities.csv";
-    private static final OkHttpClient httpClient = new OkHttpClient();
 
     private static final Dotenv dotenv = Dotenv.configure().directory(System.getProperty("user.dir")).ignoreIfMissing().load();
     private static final String TOKEN = dotenv.get("TELEGRAM_BOT_TOKEN");
     private static final String CHAT_ID = dotenv.get("TELEGRAM_CHAT_ID");
 
-    private static final BlockingQueue<Runnable> logTasks = new LinkedBlockingQueue<>();
+    // 📨 Avisos: cola acotada con carriles de prioridad, deduplicación y ritmo por chat
+    private static final TelegramDispatcher TELEGRAM = createDispatcher();
+
+    // 💍 Anillo acotado: capacidad fija, política de desborde explícita (ver LogRing.Overflow)
+    private static final int RING_CAPACITY = Integer.parseInt(dotenv.get("LOG_RING_CAPACITY", "8192").trim());
+    private static final LogRing.Overflow OVERFLOW = parseOverflow(dotenv.get("LOG_OVERFLOW", "DROP_DEBUG"));
+    private static final boolean DEBUG_ENABLED = "DEBUG".equalsIgnoreCase(dotenv.get("LOG_LEVEL", "INFO").trim());
+    private static final int BATCH = 256;
+    private static final LogRing RING = new LogRing(RING_CAPACITY, OVERFLOW);
+
+    // 🗂️ CSVs persistentes (un archivo abierto, bajada por bloque, rotación diaria/por tamaño + gzip)
+    private static final CsvAppender.Policy CSV_POLICY = CsvAppender.Policy.rolling(
+            Long.parseLong(dotenv.get("CSV_MAX_MB", "100").trim()) * 1024 * 1024,
+            Boolean.parseBoolean(dotenv.get("CSV_COMPRESS", "true").trim()),
+            Long.parseLong(dotenv.get("CSV_FLUSH_MS", "1000").trim()),
+            Boolean.parseBoolean(dotenv.get("CSV_MMAP", "false").trim()));
+    private static CsvAppender trades;
+    private static CsvAppender opportunities;
+
+    // --- Estado del consumidor (solo lo toca el hilo escritor) ---
+    private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final StringBuilder fileBatch = new StringBuilder(64 * 1024);
+    private static final StringBuilder consoleBatch = new StringBuilder(64 * 1024);
+    private static final StringBuilder csvRow = new StringBuilder(256);
+    private static OutputStream logOut;
+    private static long logBytes;
+    private static long stampSecond = -1;
+    private static String stamp = "";
 
     static {
         try {
             File dir = new File(LOG_DIR);
             if (!dir.exists()) dir.mkdirs();
+            openLogFile();
+
+            trades = new CsvAppender(CSV_FILE, "Fecha,Par,Tipo,Profit_Percent,Volumen_USDT", CSV_POLICY);
+            opportunities = new CsvAppender(OPPORTUNITY_FILE, "Timestamp,Strategy,Asset,Route,Gross_Spread_Pct,Net_Profit_Usd,Status,Reason", CSV_POLICY);
 
-            // --- 1. FILE HANDLER (Sin colores, solo texto limpio) ---
-            FileHandler fh = new FileHandler(LOG_DIR + "/bot.log", 10 * 1024 * 1024, 5, true);
-            fh.setFormatter(new Formatter() {
-                private static final String STANDARD_FORMAT = "[%1$tT] [%2$-7s] %3$s %n";
-                @Override
-                public synchronized String format(LogRecord lr) {
-                    String msg = lr.getMessage();
-                    // Limpieza simple para el archivo
-                    if (isTableBorder(msg)) {
-                        return msg + "\n";
-                    }
-                    return String.format(STANDARD_FORMAT, new java.util.Date(lr.getMillis()), lr.getLevel().getLocalizedName(), msg);
-                }
-            });
-            logger.addHandler(fh);
-            logger.setLevel(Level.INFO);
-            logger.setUseParentHandlers(false);
-
-            // --- 2. CONSOLE HANDLER (Con Colores y UI) ---
-            ConsoleHandler ch = new ConsoleHandler();
-            ch.setFormatter(new Formatter() {
-                @Override
-                public String format(LogRecord lr) {
-                    String msg = lr.getMessage();
-
-                    // Si es parte de una tabla, imprimir CRUDO (sin fecha ni nivel)
-                    // Usamos .contains para ignorar si empieza con códigos de color
-                    if (isTableBorder(msg)) {
-                        return msg + "\n";
-                    }
-
-                    // Coloreamos el nivel (INFO=Verde, WARN=Amarillo, ERROR=Rojo)
-                    String color = GREEN;
-                    if (lr.getLevel() == Level.WARNING) color = YELLOW;
-                    if (lr.getLevel() == Level.SEVERE) color = RED;
-
-                    // CORRECCIÓN CRÍTICA DE ÍNDICES:
-                    // %1$s = Color
-                    // %2$tT = Fecha (Time)
-                    // %3$s = Reset
-                    // %4$s = Mensaje
-                    return String.format("%1$s[%2$tT]%3$s %4$s %n",
-                            color, new java.util.Date(lr.getMillis()), RESET, msg);
-                }
-            });
-            logger.addHandler(ch);
-
-            initCSV();
-            initOpportunityCSV();
-
-            // --- 3. HILO ASÍNCRONO ---
-            Thread consumerThread = new Thread(() -> {
-                while (true) {
-                    try {
-                        Runnable task = logTasks.take();
-                        task.run();
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    } catch (Exception e) { /* Silent */ }
-                }
-            });
+            // --- HILO ESCRITOR (único consumidor del anillo) ---
+            Thread consumerThread = new Thread(BotLogger::consumeLoop);
             consumerThread.setName("Async-Log-Worker");
             consumerThread.setDaemon(true);
             consumerThread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                flush(2_000);
+                TELEGRAM.drain(2_000); // Lo que quedó en cola (trades primero) sale antes de morir
+            }, "Log-Flush"));
+
+            MetricsRegistry.GLOBAL
+                    .describe("goldrush_log_dropped_total", MetricsRegistry.Type.COUNTER, "Mensajes de log descartados por anillo lleno")
+                    .describe("goldrush_log_backlog", MetricsRegistry.Type.GAUGE, "Eventos de log pendientes en el anillo")
+                    .describe("goldrush_telegram_sent_total", MetricsRegistry.Type.COUNTER, "Mensajes enviados a Telegram")
+                    .describe("goldrush_telegram_coalesced_total", MetricsRegistry.Type.COUNTER, "Avisos fundidos con uno parecido ya en cola")
+                    .describe("goldrush_telegram_dropped_total", MetricsRegistry.Type.COUNTER, "Avisos descartados por cola llena");
+            MetricsRegistry.GLOBAL.gauge("goldrush_log_dropped_total", RING::dropped);
+            MetricsRegistry.GLOBAL.gauge("goldrush_log_backlog", RING::backlog);
 
         } catch (IOException e) {
             System.err.println("FATAL LOG ERROR: " + e.getMessage());
@@ -118,62 +112,221 @@ public class BotLogger {
         return msg.contains("╔") || msg.contains("╚") || msg.contains("╠") || msg.contains("║") || msg.startsWith("\n");
     }
 
+    private static LogRing.Overflow parseOverflow(String value) {
+        try {
+            return LogRing.Overflow.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return LogRing.Overflow.DROP_DEBUG;
+        }
+    }
+
     // --- MÉTODOS PÚBLICOS ---
+    // Con argumentos, el mensaje es una plantilla String.format (Locale.US) que se formatea en el
+    // hilo escritor: el llamador solo paga publicar referencias en el anillo.
 
-    public static void info(String msg) { logTasks.offer(() -> logger.info(msg)); }
-    public static void warn(String msg) { logTasks.offer(() -> logger.warning(msg)); }
-    public static void error(String msg) { logTasks.offer(() -> { logger.severe(msg); sendTelegram("🚨 ERROR: " + msg); }); }
+    public static void debug(String msg) { if (DEBUG_ENABLED) RING.publish(LogRing.Level.DEBUG, false, msg, null, null); }
+    public static void debug(String format, Object... args) { if (DEBUG_ENABLED) RING.publish(LogRing.Level.DEBUG, false, format, args, null); }
+    public static void info(String msg) { RING.publish(LogRing.Level.INFO, false, msg, null, null); }
+    public static void info(String format, Object... args) { RING.publish(LogRing.Level.INFO, false, format, args, null); }
+    public static void warn(String msg) { RING.publish(LogRing.Level.WARN, false, msg, null, null); }
+    public static void warn(String format, Object... args) { RING.publish(LogRing.Level.WARN, false, format, args, null); }
+    public static void error(String msg) { RING.publish(LogRing.Level.ERROR, false, msg, null, null); }
+    public static void error(String format, Object... args) { RING.publish(LogRing.Level.ERROR, false, format, args, null); }
+
+    /** Espera a que todo lo publicado hasta ahora esté escrito (apagado, tests). */
+    public static boolean flush(long timeoutMs) {
+        boolean drained = RING.awaitDrained(timeoutMs);
+        try {
+            if (trades != null) trades.flush();
+            if (opportunities != null) opportunities.flush();
+        } catch (IOException e) {
+            System.err.println("CSV FLUSH ERROR: " + e.getMessage());
+        }
+        return drained;
+    }
+
+    /** Mensajes descartados por anillo lleno desde el arranque. */
+    public static long droppedMessages() {
+        return RING.dropped();
+    }
 
     public static void logTrade(String pair, String type, double profitPercent, double amountUSDT) {
-        logTasks.offer(() -> {
-            initCSV();
-            String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            try (PrintWriter pw = new PrintWriter(new FileWriter(CSV_FILE, true))) {
-                pw.printf(Locale.US, "%s,%s,%s,%.4f,%.2f%n", date, pair, type, profitPercent, amountUSDT);
-            } catch (IOException e) { logger.severe("CSV Error: " + e.getMessage()); }
+        // Crítico y raro: la fila baja a disco en el hilo que opera (durable al volver)
+        if (trades != null) {
+            StringBuilder row = new StringBuilder(96);
+            CsvAppender.appendTimestamp(row, System.currentTimeMillis()).append(',').append(pair).append(',').append(type).append(',');
+            CsvAppender.appendFixed(row, profitPercent, 4).append(',');
+            CsvAppender.appendFixed(row, amountUSDT, 2);
+            trades.appendLine(row);
+            try {
+                trades.flush();
+            } catch (IOException e) { error("CSV Error: " + e.getMessage()); }
+        }
+        // El aviso nunca se descarta: espera lugar en el anillo con cualquier política
+        RING.publish(LogRing.Level.INFO, true, null, null, () -> {
             String msg = String.format(Locale.US, "💰 TRADE: %s | %s | P: %.2f%% | Vol: $%.2f", pair, type, profitPercent, amountUSDT);
-            logger.info(msg);
-            sendTelegram(msg);
+            emit(LogRing.Level.INFO, System.currentTimeMillis(), msg);
+            TELEGRAM.submit(TelegramDispatcher.Priority.CRITICAL, msg);
         });
     }
 
     public static void logOpportunity(String type, String asset, String route, double grossGap, double netProfit, String status, String reason) {
-        logTasks.offer(() -> {
-            String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            try (PrintWriter pw = new PrintWriter(new FileWriter(OPPORTUNITY_FILE, true))) {
-                pw.printf(Locale.US, "%s,%s,%s,%s,%.4f,%.4f,%s,%s%n", date, type, asset, route, grossGap, netProfit, status, reason);
-            } catch (IOException e) { logger.severe("Opp CSV Error: " + e.getMessage()); }
-        });
+        logOpportunity(type, asset, route, Double.NaN, grossGap, Double.NaN, netProfit, status, reason);
     }
 
-    public static void sendTelegram(String message) {
-        if (TOKEN == null || TOKEN.isBlank() || CHAT_ID == null || CHAT_ID.isBlank()) return;
-        Thread.ofVirtual().start(() -> {
-            try {
-                String url = "https://api.telegram.org/bot" + TOKEN.replace("\"", "").trim() + "/sendMessage";
-                String jsonBody = String.format("{\"chat_id\": \"%s\", \"text\": \"%s\"}", CHAT_ID.replace("\"", "").trim(), message);
-                RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
-                Request request = new Request.Builder().url(url).post(body).build();
-                httpClient.newCall(request).execute().close();
-            } catch (Exception e) { /* Silent */ }
+    /**
+     * Registra la oportunidad en el diario binario (en el hilo llamador, sin locks) y en el CSV de
+     * compatibilidad (en el hilo escritor).
+     */
+    public static void logOpportunity(String type, String asset, String route, double capital, double grossGap,
+                                      double fees, double netProfit, String status, String reason) {
+        long millis = System.currentTimeMillis();
+        OpportunityJournal journal = OpportunityJournal.global();
+        if (journal != null) journal.record(millis, type, asset, route, capital, grossGap, fees, netProfit, status, reason);
+        RING.publish(LogRing.Level.INFO, false, null, null, () -> {
+            if (opportunities == null) return;
+            csvRow.setLength(0);
+            CsvAppender.appendTimestamp(csvRow, millis).append(',').append(type).append(',').append(asset).append(',').append(route).append(',');
+            CsvAppender.appendFixed(csvRow, grossGap, 4).append(',');
+            CsvAppender.appendFixed(csvRow, netProfit, 4).append(',').append(status).append(',').append(reason);
+            opportunities.appendLine(csvRow);
         });
     }
 
-    private static void initCSV() {
-        File f = new File(CSV_FILE);
-        if (!f.exists()) {
-            try (PrintWriter pw = new PrintWriter(new FileWriter(f))) {
-                pw.println("Fecha,Par,Tipo,Profit_Percent,Volumen_USDT");
-            } catch (IOException e) { logger.severe("No se pudo crear cabecera CSV"); }
+    // =========================================================================
+    // ✍️ HILO ESCRITOR: drena en lotes, formatea y escribe UNA vez por lote
+    // =========================================================================
+
+    private static void consumeLoop() {
+        int idle = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int n = RING.drain(BotLogger::render, BATCH, BotLogger::writeBatch);
+            if (n > 0) {
+                idle = 0;
+            } else if (++idle < 100) {
+                Thread.onSpinWait();
+            } else {
+                if (idle % 1_000 == 0) maybeFlushCsv(); // En reposo los CSV bajan igual por antigüedad
+                LockSupport.parkNanos(1_000_000); // Sin señales de los productores: sondeo de 1ms en reposo
+            }
+        }
+    }
+
+    private static void render(LogRing.Slot slot) {
+        if (slot.task != null) {
+            slot.task.run();
+            return;
+        }
+        String msg = format(slot.template, slot.args);
+        emit(slot.level, slot.millis, msg);
+        if (slot.level == LogRing.Level.ERROR) {
+            // Los errores críticos/fatales van al carril alto; el resto se deduplica en NORMAL
+            boolean fatal = msg.contains("CRÍTICO") || msg.contains("FATAL");
+            TELEGRAM.submit(fatal ? TelegramDispatcher.Priority.CRITICAL : TelegramDispatcher.Priority.NORMAL, "🚨 ERROR: " + msg);
         }
     }
 
-    private static void initOpportunityCSV() {
-        File f = new File(OPPORTUNITY_FILE);
-        if (!f.exists()) {
-            try (PrintWriter pw = new PrintWriter(new FileWriter(f))) {
-                pw.println("Timestamp,Strategy,Asset,Route,Gross_Spread_Pct,Net_Profit_Usd,Status,Reason");
-            } catch (IOException e) { logger.severe("No se pudo crear cabecera Opportunity CSV"); }
+    private static String format(String template, Object[] args) {
+        if (args == null || args.length == 0) return template;
+        try {
+            return String.format(Locale.US, template, args);
+        } catch (IllegalFormatException e) {
+            return template + " " + Arrays.toString(args);
         }
     }
-}
\ No newline at end of file
+
+    private static void emit(LogRing.Level level, long millis, String msg) {
+        if (isTableBorder(msg)) {
+            // Si es parte de una tabla, imprimir CRUDO (sin fecha ni nivel)
+            fileBatch.append(msg).append('\n');
+            consoleBatch.append(msg).append('\n');
+            return;
+        }
+        String time = clock(millis);
+        fileBatch.append('[').append(time).append("] [").append(level.label);
+        for (int pad = level.label.length(); pad < 7; pad++) fileBatch.append(' ');
+        fileBatch.append("] ").append(msg).append(" \n");
+
+        // Coloreamos el nivel (INFO=Verde, WARN=Amarillo, ERROR=Rojo)
+        String color = switch (level) {
+            case WARN -> YELLOW;
+            case ERROR -> RED;
+            case DEBUG -> CYAN;
+            default -> GREEN;
+        };
+        consoleBatch.append(color).append('[').append(time).append(']').append(RESET).append(' ').append(msg).append(" \n");
+    }
+
+    /** HH:mm:ss recalculado una vez por segundo. */
+    private static String clock(long millis) {
+        long second = millis / 1000;
+        if (second != stampSecond) {
+            stampSecond = second;
+            stamp = LocalTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(CLOCK);
+        }
+        return stamp;
+    }
+
+    /** Fin de lote: una escritura al archivo y una a consola. */
+    private static void writeBatch() {
+        if (!fileBatch.isEmpty()) {
+            byte[] bytes = fileBatch.toString().getBytes(StandardCharsets.UTF_8);
+            fileBatch.setLength(0);
+            try {
+                if (logBytes + bytes.length > LOG_MAX_BYTES) rotateLogFile();
+                logOut.write(bytes);
+                logBytes += bytes.length;
+            } catch (IOException e) {
+                System.err.println("LOG WRITE ERROR: " + e.getMessage());
+            }
+        }
+        if (!consoleBatch.isEmpty()) {
+            System.err.print(consoleBatch);
+            System.err.flush();
+            consoleBatch.setLength(0);
+        }
+        maybeFlushCsv();
+    }
+
+    private static void maybeFlushCsv() {
+        if (trades != null) trades.maybeFlush();
+        if (opportunities != null) opportunities.maybeFlush();
+    }
+
+    private static void openLogFile() throws IOException {
+        File f = new File(LOG_FILE);
+        logBytes = f.length();
+        logOut = new FileOutputStream(f, true);
+    }
+
+    /** bot.log -> bot.log.1 -> ... -> bot.log.(N-1); el más viejo se descarta. */
+    private static void rotateLogFile() throws IOException {
+        logOut.close();
+        new File(LOG_FILE + "." + (LOG_MAX_FILES - 1)).delete();
+        for (int i = LOG_MAX_FILES - 2; i >= 1; i--) {
+            new File(LOG_FILE + "." + i).renameTo(new File(LOG_FILE + "." + (i + 1)));
+        }
+        new File(LOG_FILE).renameTo(new File(LOG_FILE + ".1"));
+        openLogFile();
+    }
+
+    public static void sendTelegram(String message) {
+        TELEGRAM.submit(TelegramDispatcher.Priority.NORMAL, message);
+    }
+
+    /** Aviso con carril explícito: CRITICAL (trades, fallas graves), NORMAL, LOW (radar, simulaciones). */
+    public static void sendTelegram(TelegramDispatcher.Priority priority, String message) {
+        TELEGRAM.submit(priority, message);
+    }
+
+    private static TelegramDispatcher createDispatcher() {
+        boolean configured = TOKEN != null && !TOKEN.isBlank() && CHAT_ID != null && !CHAT_ID.isBlank();
+        TelegramDispatcher dispatcher = new TelegramDispatcher(
+                configured ? TelegramDispatcher.telegram(TOKEN, CHAT_ID) : text -> 0,
+                Integer.parseInt(dotenv.get("TELEGRAM_QUEUE", "256").trim()),
+                Long.parseLong(dotenv.get("TELEGRAM_DEDUP_MS", "60000").trim()),
+                Long.parseLong(dotenv.get("TELEGRAM_MIN_INTERVAL_MS", "1100").trim()),
+                Integer.parseInt(dotenv.get("TELEGRAM_MAX_PER_MIN", "20").trim()));
+        return configured ? dispatcher.start() : dispatcher;
+    }
+}
@@ -0,0 +1,317 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 🗂️ APPENDER CSV PERSISTENTE
+ * Un archivo abierto durante toda la vida del bot: las filas se acumulan en memoria y bajan al disco
+ * en bloque (por tamaño o por tiempo), no con un open/write/close por línea. Rota por tamaño y por
+ * día (el rotado se comprime a .gz en un hilo virtual) y opcionalmente escribe sobre segmentos
+ * mapeados en memoria. Si alguien borra el archivo en caliente, se recrea con cabecera al bajar.
+ */
+public final class CsvAppender implements Closeable {
+
+    private static final long MAPPED_SEGMENT_BYTES = 8L * 1024 * 1024;
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    /**
+     * @param maxBytes        tamaño que dispara la rotación (Long.MAX_VALUE = nunca)
+     * @param rollDaily       rota al cambiar el día local
+     * @param compress        comprime a .gz el archivo rotado
+     * @param flushBytes      filas pendientes que fuerzan la bajada a disco
+     * @param flushIntervalMs antigüedad máxima de lo pendiente (lo aplica {@link #maybeFlush})
+     * @param mapped          escribe sobre segmentos mmap en vez de write() por bloque
+     */
+    public record Policy(long maxBytes, boolean rollDaily, boolean compress, int flushBytes,
+                         long flushIntervalMs, boolean mapped) {
+
+        /** Diario sin rotación ni compresión (historiales chicos que se releen). */
+        public static final Policy JOURNAL = new Policy(Long.MAX_VALUE, false, false, 4 * 1024, 1_000, false);
+
+        public static Policy rolling(long maxBytes, boolean compress, long flushIntervalMs, boolean mapped) {
+            return new Policy(maxBytes, true, compress, 64 * 1024, flushIntervalMs, mapped);
+        }
+    }
+
+    private final Path path;
+    private final String header;
+    private final Policy policy;
+    private final StringBuilder pending = new StringBuilder(64 * 1024);
+
+    private Sink sink;
+    private long openedDay;
+    private long lastFlushMillis = System.currentTimeMillis();
+
+    public CsvAppender(String file, String header, Policy policy) throws IOException {
+        this.path = Path.of(file);
+        this.header = header;
+        this.policy = policy;
+        if (path.toAbsolutePath().getParent() != null) Files.createDirectories(path.toAbsolutePath().getParent());
+        open();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Agrega una fila (sin salto de línea final). Baja a disco si lo pendiente supera flushBytes. */
+    public synchronized void appendLine(CharSequence row) {
+        pending.append(row).append('\n');
+        if (pending.length() >= policy.flushBytes()) flushQuietly();
+    }
+
+    /** Baja lo pendiente si venció el intervalo (llamar desde un hilo periódico o el escritor de logs). */
+    public synchronized void maybeFlush() {
+        if (!pending.isEmpty() && System.currentTimeMillis() - lastFlushMillis >= policy.flushIntervalMs()) {
+            flushQuietly();
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        lastFlushMillis = System.currentTimeMillis();
+        if (!Files.exists(path)) reopen(); // Borrado externo: recrear con cabecera
+        if (pending.isEmpty()) return;
+        byte[] bytes = pending.toString().getBytes(StandardCharsets.UTF_8);
+        pending.setLength(0);
+        if (shouldRotate(bytes.length)) rotate();
+        sink.write(bytes);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("CSV FLUSH ERROR (" + path + "): " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        sink.close();
+    }
+
+    // =========================================================================
+    // 🔄 ROTACIÓN
+    // =========================================================================
+
+    private boolean shouldRotate(int incoming) {
+        long size = sink.size();
+        if (size <= headerBytes()) { // Solo cabecera: nada que archivar, el día arranca acá
+            openedDay = today();
+            return false;
+        }
+        return (policy.rollDaily() && today() != openedDay) || size + incoming > policy.maxBytes();
+    }
+
+    /** opportunities.csv -> opportunities-2025-10-19-1.csv(.gz); el actual se reabre con cabecera. */
+    private void rotate() throws IOException {
+        sink.close();
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = (dot > 0) ? name.substring(0, dot) : name;
+        String ext = (dot > 0) ? name.substring(dot) : "";
+        String day = LocalDate.ofEpochDay(openedDay).toString();
+        Path rolled;
+        int i = 1;
+        do {
+            rolled = path.resolveSibling(stem + "-" + day + "-" + i++ + ext);
+        } while (Files.exists(rolled) || Files.exists(rolled.resolveSibling(rolled.getFileName() + ".gz")));
+        Files.move(path, rolled);
+        if (policy.compress()) compressAsync(rolled);
+        open();
+    }
+
+    private static void compressAsync(Path rolled) {
+        Thread.ofVirtual().name("csv-gzip").start(() -> {
+            Path gz = rolled.resolveSibling(rolled.getFileName() + ".gz");
+            try (InputStream in = Files.newInputStream(rolled);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 64 * 1024)) {
+                in.transferTo(out);
+            } catch (IOException e) {
+                System.err.println("CSV GZIP ERROR (" + rolled + "): " + e.getMessage());
+                return;
+            }
+            try {
+                Files.deleteIfExists(rolled);
+            } catch (IOException e) { /* Silent: queda el original además del .gz */ }
+        });
+    }
+
+    private void open() throws IOException {
+        sink = policy.mapped() ? new MappedSink(path) : new StreamSink(path);
+        openedDay = today();
+        if (sink.size() == 0 && header != null) sink.write((header + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void reopen() throws IOException {
+        sink.close();
+        open();
+    }
+
+    private long headerBytes() {
+        return (header == null) ? 0 : header.length() + 1L;
+    }
+
+    private static long today() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    // =========================================================================
+    // ✍️ DESTINOS: write() por bloque o segmentos mmap
+    // =========================================================================
+
+    private interface Sink {
+        void write(byte[] bytes) throws IOException;
+
+        long size();
+
+        void close() throws IOException;
+    }
+
+    private static final class StreamSink implements Sink {
+        private final FileChannel channel;
+        private long size;
+
+        StreamSink(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            size = channel.size();
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) channel.write(buf);
+            size += bytes.length;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Escribe en un segmento mapeado de 8MB; al llenarse mapea el siguiente. Al cerrar trunca al
+     * tamaño lógico. Tras una caída, los ceros del segmento sin usar se recortan al reabrir.
+     */
+    private static final class MappedSink implements Sink {
+        private final FileChannel channel;
+        private MappedByteBuffer segment;
+        private long segmentStart;
+        private long size;
+
+        MappedSink(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = logicalSize(channel);
+            map(size);
+        }
+
+        private void map(long at) throws IOException {
+            segmentStart = at;
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, at, MAPPED_SEGMENT_BYTES);
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!segment.hasRemaining()) map(segmentStart + MAPPED_SEGMENT_BYTES);
+                int n = Math.min(segment.remaining(), bytes.length - offset);
+                segment.put(bytes, offset, n);
+                offset += n;
+            }
+            size += bytes.length;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            segment.force();
+            channel.truncate(size);
+            channel.close();
+        }
+
+        /** Último byte distinto de cero: descarta la cola del segmento que no llegó a escribirse. */
+        private static long logicalSize(FileChannel channel) throws IOException {
+            long end = channel.size();
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            while (end > 0) {
+                long start = Math.max(0, end - chunk.capacity());
+                chunk.clear().limit((int) (end - start));
+                channel.read(chunk, start);
+                for (int i = chunk.position() - 1; i >= 0; i--) {
+                    if (chunk.get(i) != 0) return start + i + 1;
+                }
+                end = start;
+            }
+            return 0;
+        }
+    }
+
+    // =========================================================================
+    // 🧮 FORMATEO SIN String.format (camino de 100k filas/s)
+    // =========================================================================
+
+    /** Equivalente a %.Nf con Locale.US (N ≤ 8) sin pasar por Formatter. */
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e15) {
+            return sb.append(String.format(java.util.Locale.US, "%." + decimals + "f", value));
+        }
+        long scale = POW10[decimals];
+        long units = Math.round(Math.abs(value) * scale);
+        if (value < 0 && units != 0) sb.append('-');
+        sb.append(units / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            String frac = Long.toString(units % scale);
+            for (int i = frac.length(); i < decimals; i++) sb.append('0');
+            sb.append(frac);
+        }
+        return sb;
+    }
+
+    /** Fecha-hora local ISO con milisegundos (yyyy-MM-ddTHH:mm:ss.SSS). */
+    public static StringBuilder appendTimestamp(StringBuilder sb, long epochMillis) {
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        sb.append(t.getYear()).append('-');
+        pad2(sb, t.getMonthValue()).append('-');
+        pad2(sb, t.getDayOfMonth()).append('T');
+        pad2(sb, t.getHour()).append(':');
+        pad2(sb, t.getMinute()).append(':');
+        pad2(sb, t.getSecond()).append('.');
+        int ms = (int) Math.floorMod(epochMillis, 1000L);
+        if (ms < 100) sb.append('0');
+        if (ms < 10) sb.append('0');
+        return sb.append(ms);
+    }
+
+    private static StringBuilder pad2(StringBuilder sb, int v) {
+        if (v < 10) sb.append('0');
+        return sb.append(v);
+    }
+}
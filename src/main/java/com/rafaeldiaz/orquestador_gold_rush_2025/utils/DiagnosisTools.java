@@ -15,7 +15,7 @@ public class DiagnosisTools {
         BotLogger.info("🧪 INICIANDO PROTOCOLO DE PRUEBAS 2.1...");
 
         ExchangeConnector connector = new ExchangeConnector();
-        FeeManager feeManager = new FeeManager(connector);
+        FeeManager feeManager = FeeManager.shared(connector);
 
         // ---------------------------------------------------------
         // 🔊 PRUEBA 2: EL ECO (CACHE WARM-UP)
@@ -0,0 +1,89 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 📊 HISTOGRAMA DE LATENCIAS (log-lineal, sin locks)
+ * Cada potencia de 2 se parte en 8 sub-buckets: error relativo ≤ 12.5% en todo el rango
+ * (1ns … 2^62ns) con 488 contadores fijos. record() es un incremento atómico: se puede
+ * llamar desde los hilos de ejecución sin frenar el disparo.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) return; // Reloj monótono: negativo = stamps fuera de orden, no se cuenta
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /** Suma de todo lo registrado (ns). */
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return (n == 0) ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Percentil aproximado (punto medio del bucket, acotado por el máximo observado).
+     * @param p fracción en [0, 1] (0.99 = p99)
+     */
+    public long percentile(double p) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(midpoint(i), max.get());
+        }
+        return max.get();
+    }
+
+    // =========================================================================
+    // 🧮 BUCKETS
+    // =========================================================================
+
+    static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int mantissa = (int) (v >>> (exp - SUB_BITS)); // [8, 15]
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << (exp - SUB_BITS);
+    }
+
+    private static long midpoint(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return lowerBound(bucket) + ((1L << (exp - SUB_BITS)) >>> 1);
+    }
+}
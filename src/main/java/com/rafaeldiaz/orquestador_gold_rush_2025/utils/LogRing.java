@@ -0,0 +1,159 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 💍 ANILLO DE LOGS (MPSC acotado, slots preasignados)
+ * Muchos productores (escáner, ejecutores, hilos virtuales) y UN consumidor (el escritor).
+ * Cada slot lleva su propio número de secuencia (esquema de Vyukov): el productor reclama una
+ * posición con un CAS sobre la cola, llena el slot y lo publica escribiendo la secuencia; el
+ * consumidor lo lee y lo devuelve al productor de la siguiente vuelta. Sin locks, sin nodos por
+ * mensaje y con memoria fija: el lleno se resuelve con la política de desborde, nunca creciendo.
+ */
+final class LogRing {
+
+    enum Level {
+        DEBUG("DEBUG"), INFO("INFO"), WARN("WARNING"), ERROR("SEVERE");
+
+        final String label;
+
+        Level(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Qué hace el productor si el anillo está lleno.
+     * DROP_DEBUG: descarta DEBUG/INFO (y los registros no críticos), espera con WARN/ERROR.
+     * BLOCK: siempre espera. COUNT_AND_DROP: nunca espera, descarta y cuenta.
+     * Los registros críticos (trades) esperan con cualquier política.
+     */
+    enum Overflow { DROP_DEBUG, BLOCK, COUNT_AND_DROP }
+
+    /** Slot reutilizable: el productor lo llena, el consumidor lo lee y lo limpia. */
+    static final class Slot {
+        volatile long sequence;
+        Level level;
+        long millis;
+        String template;
+        Object[] args;
+        Runnable task;
+
+        private void clear() {
+            template = null;
+            args = null;
+            task = null;
+        }
+    }
+
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Slot[] slots;
+    private final int mask;
+    private final Overflow overflow;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong(); // Solo lo avanza el consumidor
+    private final LongAdder dropped = new LongAdder();
+
+    /** @param capacity se redondea a potencia de 2 */
+    LogRing(int capacity, Overflow overflow) {
+        int size = (capacity <= 2) ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        this.mask = size - 1;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Publica un evento. El formateo de {@code template} con {@code args} lo hace el consumidor.
+     * @return false si se descartó por desborde
+     */
+    boolean publish(Level level, boolean critical, String template, Object[] args, Runnable task) {
+        boolean droppable = !critical && (overflow == Overflow.COUNT_AND_DROP
+                || (overflow == Overflow.DROP_DEBUG && level.compareTo(Level.WARN) < 0));
+        while (true) {
+            long pos = tail.get();
+            Slot slot = slots[(int) pos & mask];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slot.level = level;
+                    slot.millis = System.currentTimeMillis();
+                    slot.template = template;
+                    slot.args = args;
+                    slot.task = task;
+                    slot.sequence = pos + 1; // Publicación (escritura volatile)
+                    return true;
+                }
+            } else if (diff < 0) {
+                // Lleno: el slot todavía tiene el evento de la vuelta anterior
+                if (droppable) {
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+            // diff > 0: otro productor ganó esta posición, reintento con la cola nueva
+        }
+    }
+
+    /**
+     * Consume hasta {@code max} eventos publicados, en orden. Solo desde el hilo consumidor.
+     * {@code afterBatch} corre antes de avanzar la cabeza: quien espera en {@link #awaitDrained}
+     * ve el lote ya escrito.
+     * @return cuántos eventos se procesaron
+     */
+    int drain(Consumer<Slot> handler, int max, Runnable afterBatch) {
+        long pos = head.get();
+        int n = 0;
+        while (n < max) {
+            Slot slot = slots[(int) pos & mask];
+            if (slot.sequence != pos + 1) break; // Vacío o reclamado pero aún no publicado
+            try {
+                handler.accept(slot);
+            } catch (RuntimeException e) { /* Un evento roto no frena el anillo */ }
+            slot.clear();
+            slot.sequence = pos + slots.length; // Libre para la próxima vuelta
+            pos++;
+            n++;
+        }
+        if (n > 0) {
+            try {
+                afterBatch.run();
+            } catch (RuntimeException e) { /* Silent */ }
+            head.set(pos);
+        }
+        return n;
+    }
+
+    /** Espera (acotado) a que el consumidor alcance todo lo publicado hasta ahora. */
+    boolean awaitDrained(long timeoutMs) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (head.get() < target) {
+            if (System.nanoTime() > deadline) return false;
+            LockSupport.parkNanos(BACKOFF_NANOS);
+        }
+        return true;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** Eventos publicados y aún no consumidos (aproximado). */
+    long backlog() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,200 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 📈 REGISTRO DE MÉTRICAS (exposición Prometheus)
+ * Escritura sin locks: contadores LongAdder e histogramas LatencyHistogram. Cada serie se
+ * resuelve por (nombre, hasta 2 etiquetas) en un ConcurrentHashMap; quien registra en un
+ * camino caliente con etiquetas fijas guarda el handle en un campo y solo paga el increment.
+ * La lectura (scrape) arma el texto bajo demanda, fuera de los hilos de trading.
+ */
+public final class MetricsRegistry {
+
+    public static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    public enum Type { COUNTER, GAUGE, SUMMARY }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private record Family(Type type, String help) {}
+
+    private record Key(String name, String l1, String v1, String l2, String v2) {
+        String labels() {
+            if (l1 == null) return "";
+            StringBuilder sb = new StringBuilder();
+            sb.append(l1).append("=\"").append(escape(v1)).append('"');
+            if (l2 != null) sb.append(',').append(l2).append("=\"").append(escape(v2)).append('"');
+            return sb.toString();
+        }
+    }
+
+    /** Contador monótono. */
+    public static final class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        public void inc() {
+            adder.increment();
+        }
+
+        public void add(long n) {
+            adder.add(n);
+        }
+
+        public long value() {
+            return adder.sum();
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<Key, LatencyHistogram> summaries = new ConcurrentHashMap<>();
+    private final Map<Key, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final List<Consumer<StringBuilder>> collectors = new CopyOnWriteArrayList<>();
+
+    // =========================================================================
+    // 🏷️ REGISTRO
+    // =========================================================================
+
+    /** HELP y TYPE de la familia (opcional: sin describir se expone con TYPE inferido). */
+    public MetricsRegistry describe(String name, Type type, String help) {
+        families.put(name, new Family(type, help));
+        return this;
+    }
+
+    public Counter counter(String name) {
+        return counter(new Key(name, null, null, null, null));
+    }
+
+    public Counter counter(String name, String label, String value) {
+        return counter(new Key(name, label, value, null, null));
+    }
+
+    public Counter counter(String name, String label1, String value1, String label2, String value2) {
+        return counter(new Key(name, label1, value1, label2, value2));
+    }
+
+    private Counter counter(Key key) {
+        Counter c = counters.get(key); // Camino rápido sin bloquear el bin
+        return (c != null) ? c : counters.computeIfAbsent(key, k -> new Counter());
+    }
+
+    /** Histograma en nanosegundos; se expone como summary en segundos. */
+    public LatencyHistogram summary(String name) {
+        return summary(new Key(name, null, null, null, null));
+    }
+
+    public LatencyHistogram summary(String name, String label, String value) {
+        return summary(new Key(name, label, value, null, null));
+    }
+
+    private LatencyHistogram summary(Key key) {
+        LatencyHistogram h = summaries.get(key);
+        return (h != null) ? h : summaries.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    /** Gauge leído en el scrape (sin costo en el camino caliente). */
+    public void gauge(String name, DoubleSupplier supplier) {
+        gauges.put(new Key(name, null, null, null, null), supplier);
+    }
+
+    public void gauge(String name, String label, String value, DoubleSupplier supplier) {
+        gauges.put(new Key(name, label, value, null, null), supplier);
+    }
+
+    /** Colector externo: escribe sus propias familias en el scrape (ej: latencias de TradeTrace). */
+    public void collector(Consumer<StringBuilder> collector) {
+        collectors.add(collector);
+    }
+
+    // =========================================================================
+    // 📤 EXPOSICIÓN (text format 0.0.4)
+    // =========================================================================
+
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        Map<String, List<Map.Entry<Key, ?>>> byName = new TreeMap<>();
+        counters.forEach((k, v) -> byName.computeIfAbsent(k.name(), n -> new ArrayList<>()).add(Map.entry(k, v)));
+        gauges.forEach((k, v) -> byName.computeIfAbsent(k.name(), n -> new ArrayList<>()).add(Map.entry(k, v)));
+        summaries.forEach((k, v) -> byName.computeIfAbsent(k.name(), n -> new ArrayList<>()).add(Map.entry(k, v)));
+
+        byName.forEach((name, series) -> {
+            series.sort(Comparator.comparing(e -> e.getKey().labels()));
+            Object first = series.getFirst().getValue();
+            Type type = (first instanceof Counter) ? Type.COUNTER
+                    : (first instanceof LatencyHistogram) ? Type.SUMMARY : Type.GAUGE;
+            header(sb, name, type);
+            for (Map.Entry<Key, ?> e : series) {
+                String labels = e.getKey().labels();
+                switch (e.getValue()) {
+                    case Counter c -> sample(sb, name, labels, c.value());
+                    case LatencyHistogram h -> appendSummary(sb, name, labels, h);
+                    case DoubleSupplier g -> sample(sb, name, labels, readGauge(g));
+                    default -> { }
+                }
+            }
+        });
+        for (Consumer<StringBuilder> collector : collectors) {
+            try {
+                collector.accept(sb);
+            } catch (Exception e) { /* Un colector roto no tumba el scrape */ }
+        }
+        return sb.toString();
+    }
+
+    private void header(StringBuilder sb, String name, Type inferred) {
+        Family family = families.get(name);
+        if (family != null && family.help() != null) {
+            sb.append("# HELP ").append(name).append(' ').append(family.help()).append('\n');
+        }
+        Type type = (family != null) ? family.type() : inferred;
+        sb.append("# TYPE ").append(name).append(' ').append(type.name().toLowerCase(Locale.ROOT)).append('\n');
+    }
+
+    /** Escribe un summary (cuantiles, _sum y _count) en segundos a partir de un histograma en ns. */
+    public static void appendSummary(StringBuilder sb, String name, String labels, LatencyHistogram h) {
+        String sep = labels.isEmpty() ? "" : labels + ",";
+        for (double q : QUANTILES) {
+            sb.append(name).append('{').append(sep).append("quantile=\"").append(q).append("\"} ")
+                    .append(seconds(h.percentile(q))).append('\n');
+        }
+        sample(sb, name + "_sum", labels, seconds(h.sum()));
+        sample(sb, name + "_count", labels, h.count());
+    }
+
+    public static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) sb.append('{').append(labels).append('}');
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) sb.append((long) value);
+        else sb.append(value);
+        sb.append('\n');
+    }
+
+    public static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static double readGauge(DoubleSupplier g) {
+        try {
+            return g.getAsDouble();
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
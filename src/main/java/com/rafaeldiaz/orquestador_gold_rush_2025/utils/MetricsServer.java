@@ -0,0 +1,58 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * 🛰️ ENDPOINT DE MÉTRICAS (JDK HttpServer, sin dependencias)
+ * GET /metrics devuelve el scrape del registro en formato texto de Prometheus.
+ * Cada scrape corre en su propio hilo virtual: nunca comparte hilo con el escáner.
+ */
+public final class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static MetricsServer start(String host, int port, MetricsRegistry registry) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", exchange -> handle(exchange, registry));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        BotLogger.info("📈 Métricas Prometheus en http://" + host + ":" + server.getAddress().getPort() + "/metrics");
+        return new MetricsServer(server);
+    }
+
+    private static void handle(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try (exchange) {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
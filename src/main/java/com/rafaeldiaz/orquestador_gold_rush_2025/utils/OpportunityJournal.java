@@ -0,0 +1,342 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 📓 DIARIO BINARIO DE OPORTUNIDADES (append-only, ancho fijo)
+ * Cada oportunidad vista (ejecutada, simulada o descartada) es un registro de 64 bytes en un archivo
+ * mapeado en memoria. El escritor reserva su posición con un getAndIncrement y escribe sin locks;
+ * los textos (activo, ruta, estrategia, estado, motivo) viajan como IDs de un diccionario que se
+ * guarda al lado (.dict, una línea por ID nuevo). El lector mapea el archivo y recorre millones de
+ * registros en segundos: ver {@code JournalQueryRunner}.
+ *
+ * <pre>
+ * Cabecera (64B): magic "GRJ1" | version u16 | recordBytes u16 | createdMillis i64 | reservado
+ * Registro (64B, little-endian):
+ *   0 ts i64 | 8 asset i32 | 12 route i32 | 16 strategy u16 | 18 status u16 | 20 reason u16 | 22 -
+ *  24 capital f64 | 32 grossPct f64 | 40 fees f64 | 48 net f64 | 56 reservado
+ * </pre>
+ * El timestamp se escribe al final: un registro reservado pero sin terminar (caída) queda con ts = 0
+ * y el lector lo salta.
+ */
+public final class OpportunityJournal implements Closeable {
+
+    public static final int MAGIC = 0x47524A31; // "GRJ1"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 64;
+    public static final int RECORD_BYTES = 64;
+    public static final String DEFAULT_FILE = "logs/opportunities.gjr";
+
+    static final int OFF_TS = 0, OFF_ASSET = 8, OFF_ROUTE = 12, OFF_STRATEGY = 16, OFF_STATUS = 18, OFF_REASON = 20;
+    static final int OFF_CAPITAL = 24, OFF_GROSS = 32, OFF_FEES = 40, OFF_NET = 48;
+
+    private static final int CHUNK_RECORDS = 1 << 18; // 16MB por segmento mapeado
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_BYTES;
+    private static final int MAX_CHUNKS = 4096;       // 64GB
+
+    private final Path path;
+    private final FileChannel channel;
+    private final AtomicLong next;
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger writers = new AtomicInteger();
+    private volatile boolean closed;
+
+    // Diccionario texto <-> ID (0 = vacío/desconocido)
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId;
+    private final BufferedWriter dict;
+
+    public OpportunityJournal(String file) throws IOException {
+        this.path = Path.of(file);
+        if (path.toAbsolutePath().getParent() != null) Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.next = new AtomicLong(openOrCreate(channel));
+
+        Path dictPath = dictionaryOf(path);
+        List<String> names = loadDictionary(dictPath);
+        for (int id = 1; id < names.size(); id++) ids.put(names.get(id), id);
+        this.nextId = new AtomicInteger(Math.max(1, names.size()));
+        this.dict = Files.newBufferedWriter(dictPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // =========================================================================
+    // 🌍 INSTANCIA COMPARTIDA (logs/opportunities.gjr)
+    // =========================================================================
+
+    private static final class Holder {
+        static final OpportunityJournal GLOBAL = openGlobal();
+
+        private static OpportunityJournal openGlobal() {
+            try {
+                OpportunityJournal journal = new OpportunityJournal(DEFAULT_FILE);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        journal.close();
+                    } catch (IOException e) { /* Silent */ }
+                }, "Journal-Close"));
+                return journal;
+            } catch (IOException e) {
+                System.err.println("JOURNAL DESACTIVADO: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /** Diario global, o null si no se pudo abrir (el bot sigue sin él). */
+    public static OpportunityJournal global() {
+        return Holder.GLOBAL;
+    }
+
+    // =========================================================================
+    // ✍️ ESCRITURA (sin locks)
+    // =========================================================================
+
+    public void record(long tsMillis, String strategy, String asset, String route, double capital,
+                       double grossPct, double fees, double net, String status, String reason) {
+        writers.incrementAndGet();
+        try {
+            if (closed) return;
+            long index = next.getAndIncrement();
+            ByteBuffer chunk = chunk((int) (index / CHUNK_RECORDS));
+            if (chunk == null) return;
+            int at = (int) (index % CHUNK_RECORDS) * RECORD_BYTES;
+            chunk.putInt(at + OFF_ASSET, idOf(asset));
+            chunk.putInt(at + OFF_ROUTE, idOf(route));
+            chunk.putShort(at + OFF_STRATEGY, (short) idOf(strategy));
+            chunk.putShort(at + OFF_STATUS, (short) idOf(status));
+            chunk.putShort(at + OFF_REASON, (short) idOf(reason));
+            chunk.putDouble(at + OFF_CAPITAL, capital);
+            chunk.putDouble(at + OFF_GROSS, grossPct);
+            chunk.putDouble(at + OFF_FEES, fees);
+            chunk.putDouble(at + OFF_NET, net);
+            chunk.putLong(at + OFF_TS, tsMillis); // Último: ts != 0 marca el registro como completo
+        } finally {
+            writers.decrementAndGet();
+        }
+    }
+
+    public long count() {
+        return next.get();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    private ByteBuffer chunk(int i) {
+        if (i >= MAX_CHUNKS) return null;
+        ByteBuffer buf = chunks.get(i);
+        if (buf != null) return buf;
+        synchronized (this) {
+            buf = chunks.get(i);
+            if (buf == null) {
+                try {
+                    buf = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + i * CHUNK_BYTES, CHUNK_BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                } catch (IOException e) {
+                    return null;
+                }
+                chunks.set(i, buf);
+            }
+            return buf;
+        }
+    }
+
+    /** ID estable del texto; los nuevos se agregan al .dict (raro: activos, rutas y motivos son pocos). */
+    private int idOf(String name) {
+        if (name == null || name.isEmpty()) return 0;
+        Integer id = ids.get(name);
+        return (id != null) ? id : register(name);
+    }
+
+    private synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        int fresh = nextId.getAndIncrement();
+        if (fresh > 0xFFFF) return 0; // Fuera del rango u16 de los campos cortos
+        try {
+            dict.write(fresh + "\t" + name.replace('\t', ' ').replace('\n', ' '));
+            dict.newLine();
+            dict.flush();
+        } catch (IOException e) {
+            return 0;
+        }
+        ids.put(name, fresh);
+        return fresh;
+    }
+
+    /** Baja los segmentos a disco y trunca al último registro. Los escritores en vuelo terminan antes. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        while (writers.get() > 0) Thread.onSpinWait();
+        for (int i = 0; i < MAX_CHUNKS; i++) {
+            ByteBuffer buf = chunks.get(i);
+            if (buf == null) break;
+            ((MappedByteBuffer) buf).force();
+        }
+        channel.truncate(HEADER_BYTES + next.get() * RECORD_BYTES);
+        channel.close();
+        dict.close();
+    }
+
+    // =========================================================================
+    // 📂 FORMATO EN DISCO
+    // =========================================================================
+
+    /** @return cantidad de registros completos ya presentes (se sigue escribiendo a continuación) */
+    private static long openOrCreate(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_BYTES).putLong(System.currentTimeMillis());
+            header.clear();
+            channel.truncate(0);
+            channel.write(header, 0);
+            return 0;
+        }
+        checkHeader(channel);
+        // Tras una caída la cola del último segmento quedó en ceros: se retrocede hasta el último ts válido
+        long records = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        ByteBuffer ts = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (records > 0) {
+            ts.clear();
+            channel.read(ts, HEADER_BYTES + (records - 1) * RECORD_BYTES + OFF_TS);
+            if (ts.getLong(0) != 0) break;
+            records--;
+        }
+        return records;
+    }
+
+    static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC) throw new IOException("No es un diario de oportunidades (magic)");
+        if (header.getShort(4) != VERSION) throw new IOException("Versión de diario no soportada: " + header.getShort(4));
+        if (header.getShort(6) != RECORD_BYTES) throw new IOException("Tamaño de registro inesperado: " + header.getShort(6));
+    }
+
+    static Path dictionaryOf(Path journal) {
+        return journal.resolveSibling(journal.getFileName() + ".dict");
+    }
+
+    /** Índice = ID; la posición 0 es el texto vacío. */
+    static List<String> loadDictionary(Path dictPath) throws IOException {
+        List<String> names = new ArrayList<>();
+        names.add("");
+        if (!Files.exists(dictPath)) return names;
+        for (String line : Files.readAllLines(dictPath, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) continue;
+            int id = Integer.parseInt(line.substring(0, tab));
+            while (names.size() <= id) names.add("");
+            names.set(id, line.substring(tab + 1));
+        }
+        return names;
+    }
+
+    // =========================================================================
+    // 🔎 LECTURA (mapeo de solo lectura, sin objetos por registro)
+    // =========================================================================
+
+    /** Vista del registro actual durante un recorrido. */
+    public interface Cursor {
+        long ts();
+
+        String asset();
+
+        String route();
+
+        String strategy();
+
+        String status();
+
+        String reason();
+
+        double capital();
+
+        double grossPct();
+
+        double fees();
+
+        double net();
+    }
+
+    public static final class Reader implements Closeable, Cursor {
+        private static final int READ_CHUNK_RECORDS = 1 << 24; // 1GB por mapeo
+
+        private final FileChannel channel;
+        private final String[] names;
+        private final long records;
+        private ByteBuffer buf;
+        private int at;
+
+        public Reader(String file) throws IOException {
+            Path path = Path.of(file);
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            checkHeader(channel);
+            this.records = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+            this.names = loadDictionary(dictionaryOf(path)).toArray(String[]::new);
+        }
+
+        /** Registros en el archivo (incluye los reservados sin terminar, que el recorrido salta). */
+        public long records() {
+            return records;
+        }
+
+        /** Recorre todos los registros completos; el cursor solo es válido dentro de la llamada. */
+        public long forEach(java.util.function.Consumer<Cursor> visitor) throws IOException {
+            long visited = 0;
+            for (long first = 0; first < records; first += READ_CHUNK_RECORDS) {
+                int n = (int) Math.min(READ_CHUNK_RECORDS, records - first);
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, (long) n * RECORD_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < n; i++) {
+                    at = i * RECORD_BYTES;
+                    if (buf.getLong(at + OFF_TS) == 0) continue;
+                    visitor.accept(this);
+                    visited++;
+                }
+            }
+            buf = null;
+            return visited;
+        }
+
+        private String name(int id) {
+            return (id >= 0 && id < names.length) ? names[id] : "?";
+        }
+
+        @Override public long ts() { return buf.getLong(at + OFF_TS); }
+        @Override public String asset() { return name(buf.getInt(at + OFF_ASSET)); }
+        @Override public String route() { return name(buf.getInt(at + OFF_ROUTE)); }
+        @Override public String strategy() { return name(Short.toUnsignedInt(buf.getShort(at + OFF_STRATEGY))); }
+        @Override public String status() { return name(Short.toUnsignedInt(buf.getShort(at + OFF_STATUS))); }
+        @Override public String reason() { return name(Short.toUnsignedInt(buf.getShort(at + OFF_REASON))); }
+        @Override public double capital() { return buf.getDouble(at + OFF_CAPITAL); }
+        @Override public double grossPct() { return buf.getDouble(at + OFF_GROSS); }
+        @Override public double fees() { return buf.getDouble(at + OFF_FEES); }
+        @Override public double net() { return buf.getDouble(at + OFF_NET); }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 📨 DESPACHADOR DE AVISOS A TELEGRAM
+ * Un solo hilo emisor y un solo socket: los productores solo encolan (cola acotada) y nunca
+ * hablan con la red. Tres carriles (CRITICAL &gt; NORMAL &gt; LOW): cada envío arma un resumen
+ * con lo elegible empezando por el carril más alto, así los trades y los errores críticos salen
+ * primero aunque haya una tormenta de alertas detrás.
+ *
+ * Avisos "parecidos" (mismo texto con los números enmascarados) se funden en uno con contador;
+ * si la misma clave ya salió dentro de la ventana de deduplicación, lo nuevo espera al fin de la
+ * ventana y sale como un único "(xN)". El ritmo respeta los límites por chat de Telegram
+ * (intervalo mínimo y tope por minuto) y el retry_after de un 429.
+ */
+public final class TelegramDispatcher {
+
+    public enum Priority { CRITICAL, NORMAL, LOW }
+
+    private static final Priority[] LANES = Priority.values();
+    private static final int MAX_CHARS = 4_000; // Telegram corta en 4096
+
+    /** Envía un mensaje. @return 0 si salió, ms a esperar si hubo 429, negativo si falló sin reintento. */
+    @FunctionalInterface
+    public interface Transport {
+        long send(String text);
+    }
+
+    /** Aviso pendiente (los de la misma clave se acumulan acá). */
+    private static final class Pending {
+        final String key;
+        String text;
+        int count = 1;
+        long notBefore;
+
+        Pending(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private final Transport transport;
+    private final int capacity;
+    private final long dedupWindowMs;
+    private final long minIntervalMs;
+    private final int maxPerMinute;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    @SuppressWarnings("unchecked")
+    private final LinkedHashMap<String, Pending>[] lanes = new LinkedHashMap[LANES.length];
+    private final Map<String, Long> lastSent = new HashMap<>();
+    private final ArrayDeque<Long> sentTimes = new ArrayDeque<>();
+    private int size;
+    private long sequence;
+    private long nextSendAt;
+    private String retry;
+    private volatile boolean running;
+
+    private final MetricsRegistry.Counter sent = MetricsRegistry.GLOBAL.counter("goldrush_telegram_sent_total");
+    private final MetricsRegistry.Counter coalesced = MetricsRegistry.GLOBAL.counter("goldrush_telegram_coalesced_total");
+    private final MetricsRegistry.Counter dropped = MetricsRegistry.GLOBAL.counter("goldrush_telegram_dropped_total");
+
+    /**
+     * @param capacity      avisos distintos en cola (lo que se funde con uno existente no ocupa lugar)
+     * @param dedupWindowMs ventana en la que una misma clave sale una sola vez
+     * @param minIntervalMs separación mínima entre envíos al chat
+     * @param maxPerMinute  tope de envíos por minuto al chat
+     */
+    public TelegramDispatcher(Transport transport, int capacity, long dedupWindowMs, long minIntervalMs, int maxPerMinute) {
+        this.transport = transport;
+        this.capacity = Math.max(1, capacity);
+        this.dedupWindowMs = dedupWindowMs;
+        this.minIntervalMs = minIntervalMs;
+        this.maxPerMinute = Math.max(1, maxPerMinute);
+        for (int i = 0; i < lanes.length; i++) lanes[i] = new LinkedHashMap<>();
+    }
+
+    /** Arranca el hilo emisor (sin token no se arranca y los avisos solo se acumulan/descartan). */
+    public TelegramDispatcher start() {
+        running = true;
+        Thread.ofVirtual().name("Telegram-Dispatcher").start(this::sendLoop);
+        return this;
+    }
+
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // 📥 ENCOLADO (lo llaman los productores: solo memoria, nunca red)
+    // =========================================================================
+
+    public void submit(Priority priority, String text) {
+        submit(priority, text, System.currentTimeMillis());
+    }
+
+    void submit(Priority priority, String text, long now) {
+        if (text == null || text.isBlank()) return;
+        lock.lock();
+        try {
+            // Los CRITICAL no se deduplican: cada trade es un aviso propio
+            String key = (priority == Priority.CRITICAL) ? "#" + sequence++ : keyOf(text);
+            LinkedHashMap<String, Pending> lane = lanes[priority.ordinal()];
+            Pending existing = lane.get(key);
+            if (existing != null) {
+                existing.count++;
+                existing.text = text; // El más reciente: los números al día
+                coalesced.inc();
+                return;
+            }
+            if (size >= capacity && !evictBelow(priority)) {
+                dropped.inc();
+                return;
+            }
+            Pending p = new Pending(key, text);
+            Long last = lastSent.get(key);
+            p.notBefore = (last == null) ? 0 : last + dedupWindowMs;
+            lane.put(key, p);
+            size++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Cola llena: hace lugar descartando el más viejo de un carril de menor prioridad. */
+    private boolean evictBelow(Priority priority) {
+        for (int i = LANES.length - 1; i > priority.ordinal(); i--) {
+            Iterator<Pending> it = lanes[i].values().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+                size--;
+                dropped.inc();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Clave de "aviso parecido": el texto con cada corrida de dígitos (y decimales) como '#'. */
+    static String keyOf(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean inNumber = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean digit = Character.isDigit(c) || (inNumber && (c == '.' || c == ','));
+            if (!digit) sb.append(c);
+            else if (!inNumber) sb.append('#');
+            inNumber = digit;
+        }
+        return sb.toString();
+    }
+
+    // =========================================================================
+    // 📤 EMISIÓN (un hilo, un mensaje a la vez)
+    // =========================================================================
+
+    private void sendLoop() {
+        lock.lock();
+        try {
+            while (running) {
+                long now = System.currentTimeMillis();
+                long wait = rateWaitMs(now);
+                String message = (wait > 0) ? null : nextMessage(now);
+                if (message == null) {
+                    if (wait <= 0) wait = eligibleInMs(now);
+                    if (wait < 0) changed.await();
+                    else changed.await(Math.max(1, wait), TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                lock.unlock();
+                long result;
+                try {
+                    result = transport.send(message);
+                } finally {
+                    lock.lock();
+                }
+                afterSend(message, result, System.currentTimeMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Arma el próximo envío: un reintento pendiente, o un resumen con los avisos elegibles del
+     * carril más alto hacia abajo. Solo bajo el candado.
+     * @return null si no hay nada elegible ahora
+     */
+    String nextMessage(long now) {
+        if (retry != null) {
+            String r = retry;
+            retry = null;
+            return r;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        int taken = 0;
+        for (LinkedHashMap<String, Pending> lane : lanes) {
+            Iterator<Pending> it = lane.values().iterator();
+            while (it.hasNext()) {
+                Pending p = it.next();
+                if (p.notBefore > now) continue;
+                int extra = p.text.length() + 12;
+                if (taken > 0 && sb.length() + extra > MAX_CHARS) return digest(sb, taken);
+                if (taken > 0) sb.append('\n');
+                sb.append(p.text);
+                if (p.count > 1) sb.append(" (x").append(p.count).append(')');
+                if (!p.key.startsWith("#")) lastSent.put(p.key, now);
+                it.remove();
+                size--;
+                taken++;
+            }
+        }
+        return (taken == 0) ? null : digest(sb, taken);
+    }
+
+    private static String digest(StringBuilder sb, int taken) {
+        if (taken > 1) sb.insert(0, "📦 RESUMEN (" + taken + " avisos)\n");
+        return (sb.length() > MAX_CHARS) ? sb.substring(0, MAX_CHARS) : sb.toString();
+    }
+
+    private void afterSend(String message, long result, long now) {
+        sentTimes.addLast(now);
+        nextSendAt = now + minIntervalMs;
+        if (result > 0) { // 429: se respeta retry_after y el mismo mensaje sale primero
+            nextSendAt = now + result;
+            retry = message;
+        } else if (result == 0) {
+            sent.inc();
+        }
+        pruneLastSent(now);
+    }
+
+    /** Cuánto falta para poder enviar según intervalo mínimo y tope por minuto (0 = ya). */
+    long rateWaitMs(long now) {
+        while (!sentTimes.isEmpty() && sentTimes.peekFirst() <= now - 60_000) sentTimes.pollFirst();
+        long wait = nextSendAt - now;
+        if (sentTimes.size() >= maxPerMinute) wait = Math.max(wait, sentTimes.peekFirst() + 60_000 - now);
+        return Math.max(0, wait);
+    }
+
+    /** ms hasta que el primer aviso retenido por la ventana sea elegible; -1 si la cola está vacía. */
+    private long eligibleInMs(long now) {
+        long earliest = Long.MAX_VALUE;
+        for (LinkedHashMap<String, Pending> lane : lanes) {
+            for (Pending p : lane.values()) earliest = Math.min(earliest, p.notBefore);
+        }
+        return (earliest == Long.MAX_VALUE) ? -1 : Math.max(0, earliest - now);
+    }
+
+    private void pruneLastSent(long now) {
+        if (lastSent.size() < 1_024) return;
+        lastSent.values().removeIf(at -> at < now - dedupWindowMs);
+    }
+
+    /** Avisos distintos en cola. */
+    public int pending() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Espera (acotado) a que la cola se vacíe: apagado. */
+    public void drain(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (running && pending() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // =========================================================================
+    // 🌐 TRANSPORTE HTTP (cliente propio de una conexión: no compite con el trading)
+    // =========================================================================
+
+    public static Transport telegram(String token, String chatId) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(1, 5, TimeUnit.MINUTES))
+                .callTimeout(10, TimeUnit.SECONDS)
+                .build();
+        ObjectMapper mapper = new ObjectMapper();
+        String url = "https://api.telegram.org/bot" + token.replace("\"", "").trim() + "/sendMessage";
+        String chat = chatId.replace("\"", "").trim();
+        MediaType json = MediaType.parse("application/json");
+
+        return text -> {
+            try {
+                ObjectNode payload = mapper.createObjectNode().put("chat_id", chat).put("text", text);
+                Request request = new Request.Builder().url(url)
+                        .post(RequestBody.create(mapper.writeValueAsString(payload), json)).build();
+                try (Response response = client.newCall(request).execute()) {
+                    if (response.isSuccessful()) return 0;
+                    if (response.code() == 429 && response.body() != null) {
+                        JsonNode retryAfter = mapper.readTree(response.body().string()).path("parameters").path("retry_after");
+                        return Math.max(1, retryAfter.asLong(1)) * 1_000;
+                    }
+                    return -1;
+                }
+            } catch (Exception e) {
+                return -1; // Silent: un aviso perdido no frena al bot
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ⏱️ TRAZA DE LATENCIA TICK → FILL
+ * Nace cuando llega el precio y viaja (ScopedValue) por detección, validación, candado del
+ * coordinador, armado del request, envío, ack y fill. Cada etapa guarda un stamp monótono
+ * (System.nanoTime). Al cerrar, la diferencia con la etapa anterior alimenta el histograma
+ * de esa etapa en su ruta: así se ve dónde se van los milisegundos.
+ *
+ * Con varias órdenes por traza (patas o hijas en paralelo) BUILT/SENT/ACKED guardan la
+ * PRIMERA orden y FILLED la ÚLTIMA: primer byte en el cable y operación completa.
+ */
+public final class TradeTrace {
+
+    public enum Stage { TICK, DETECTED, VALIDATED, LOCKED, BUILT, SENT, ACKED, FILLED }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final String LATENCY_FILE = "logs/latency.csv";
+
+    /** Traza activa del hilo (re-enlazada en cada hilo virtual hijo vía {@link #propagate}). */
+    public static final ScopedValue<TradeTrace> CURRENT = ScopedValue.newInstance();
+
+    // Ruta -> histogramas por etapa
+    private static final Map<String, RouteLatency> ROUTES = new ConcurrentHashMap<>();
+
+    private final String route;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAGES.length);
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    private TradeTrace(String route) {
+        this.route = route;
+    }
+
+    /**
+     * @param route     ruta (ej: "SPATIAL binance->bybit", "TRIANGULAR bybit SOL/BTC")
+     * @param tickNanos System.nanoTime() de la llegada del precio que originó la señal
+     */
+    public static TradeTrace start(String route, long tickNanos) {
+        TradeTrace trace = new TradeTrace(route);
+        trace.stamps.set(Stage.TICK.ordinal(), tickNanos);
+        return trace;
+    }
+
+    public String route() {
+        return route;
+    }
+
+    public TradeTrace mark(Stage stage) {
+        long now = System.nanoTime();
+        if (stage == Stage.FILLED) {
+            stamps.accumulateAndGet(stage.ordinal(), now, Math::max);
+        } else {
+            stamps.compareAndSet(stage.ordinal(), 0, now);
+        }
+        return this;
+    }
+
+    /** Stamp de la etapa (0 = no alcanzada). */
+    public long stamp(Stage stage) {
+        return stamps.get(stage.ordinal());
+    }
+
+    // =========================================================================
+    // 🧵 PROPAGACIÓN
+    // =========================================================================
+
+    public static TradeTrace current() {
+        return CURRENT.isBound() ? CURRENT.get() : null;
+    }
+
+    /** Marca la etapa en la traza activa (no-op si el hilo no lleva traza). */
+    public static void markCurrent(Stage stage) {
+        if (CURRENT.isBound()) CURRENT.get().mark(stage);
+    }
+
+    /** Ejecuta {@code task} con {@code trace} como traza activa. */
+    public static <T> T callWith(TradeTrace trace, Callable<T> task) throws Exception {
+        if (trace == null) return task.call();
+        return ScopedValue.where(CURRENT, trace).call(task::call);
+    }
+
+    /**
+     * Captura la traza del hilo que arma la tarea y la re-enlaza en el hilo que la corre
+     * (los ScopedValue no cruzan un submit() a un executor).
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        TradeTrace trace = current();
+        return (trace == null) ? task : () -> callWith(trace, task);
+    }
+
+    // =========================================================================
+    // 📊 CIERRE Y EXPORTACIÓN
+    // =========================================================================
+
+    /** Vuelca los tramos al histograma de la ruta. Idempotente. */
+    public void finish() {
+        if (!finished.compareAndSet(false, true)) return;
+        RouteLatency stats = ROUTES.computeIfAbsent(route, k -> new RouteLatency());
+
+        long tick = stamps.get(Stage.TICK.ordinal());
+        long previous = tick;
+        for (int i = 1; i < STAGES.length; i++) {
+            long at = stamps.get(i);
+            if (at == 0) continue; // Etapa no alcanzada: su tiempo lo absorbe la siguiente
+            if (previous != 0) stats.stage(STAGES[i]).record(at - previous);
+            previous = at;
+        }
+        long filled = stamps.get(Stage.FILLED.ordinal());
+        if (tick != 0 && filled != 0) stats.total().record(filled - tick);
+    }
+
+    /** Histogramas de una ruta: uno por tramo (etapa anterior → etapa) y el total tick → fill. */
+    public static final class RouteLatency {
+        private final EnumMap<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+        private final LatencyHistogram total = new LatencyHistogram();
+
+        RouteLatency() {
+            for (Stage s : STAGES) stages.put(s, new LatencyHistogram()); // Fijo tras construir: lectura sin locks
+        }
+
+        public LatencyHistogram stage(Stage stage) {
+            return stages.get(stage);
+        }
+
+        public LatencyHistogram total() {
+            return total;
+        }
+    }
+
+    public static Map<String, RouteLatency> routes() {
+        return new TreeMap<>(ROUTES);
+    }
+
+    /** Resumen por ruta al log: p50/p99 del total y el tramo más lento en p99. */
+    public static void report() {
+        routes().forEach((route, stats) -> {
+            LatencyHistogram total = stats.total();
+            if (total.count() == 0) return;
+            Stage worst = Stage.DETECTED;
+            for (Stage s : STAGES) {
+                if (stats.stage(s).percentile(0.99) > stats.stage(worst).percentile(0.99)) worst = s;
+            }
+            BotLogger.info("⏱️ %s | n=%d | tick→fill p50 %.2fms p99 %.2fms | cuello: %s p99 %.2fms",
+                    route, total.count(), millis(total.percentile(0.5)), millis(total.percentile(0.99)),
+                    worst, millis(stats.stage(worst).percentile(0.99)));
+        });
+    }
+
+    /** Colector Prometheus: summary por ruta y tramo (MetricsRegistry.collector). */
+    public static void writeMetrics(StringBuilder sb) {
+        Map<String, RouteLatency> routes = routes();
+        if (routes.isEmpty()) return;
+        String name = "goldrush_trade_stage_seconds";
+        sb.append("# HELP ").append(name).append(" Latencia por tramo (etapa anterior -> etapa) y total tick -> fill\n");
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        routes.forEach((route, stats) -> {
+            String routeLabel = "route=\"" + MetricsRegistry.escape(route) + "\"";
+            for (Stage s : STAGES) {
+                LatencyHistogram h = stats.stage(s);
+                if (h.count() > 0) MetricsRegistry.appendSummary(sb, name, routeLabel + ",stage=\"" + s + "\"", h);
+            }
+            if (stats.total().count() > 0) {
+                MetricsRegistry.appendSummary(sb, name, routeLabel + ",stage=\"TOTAL\"", stats.total());
+            }
+        });
+    }
+
+    /** Foto completa (se reescribe entera en cada exportación). */
+    public static void exportCsv() {
+        exportCsv(LATENCY_FILE);
+    }
+
+    public static void exportCsv(String file) {
+        File f = new File(file);
+        if (f.getParentFile() != null) f.getParentFile().mkdirs();
+        try (PrintWriter pw = new PrintWriter(new FileWriter(f, false))) {
+            pw.println("Route,Stage,Count,Mean_Ms,P50_Ms,P90_Ms,P99_Ms,Max_Ms");
+            routes().forEach((route, stats) -> {
+                for (Stage s : STAGES) {
+                    if (s != Stage.TICK) writeRow(pw, route, s.name(), stats.stage(s));
+                }
+                writeRow(pw, route, "TOTAL", stats.total());
+            });
+        } catch (IOException e) {
+            BotLogger.warn("⚠️ No se pudo exportar latencias: " + e.getMessage());
+        }
+    }
+
+    private static void writeRow(PrintWriter pw, String route, String stage, LatencyHistogram h) {
+        if (h.count() == 0) return;
+        pw.printf(Locale.US, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", route, stage, h.count(), h.mean() / 1e6,
+                millis(h.percentile(0.5)), millis(h.percentile(0.9)), millis(h.percentile(0.99)), millis(h.max()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** Solo tests: limpia el registro global. */
+    static void reset() {
+        ROUTES.clear();
+    }
+}
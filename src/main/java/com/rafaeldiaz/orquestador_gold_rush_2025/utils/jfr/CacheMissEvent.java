@@ -0,0 +1,35 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 🔭 JFR: fallo de caché que obliga a salir a la red (libros, reglas de instrumento).
+ * Instantáneo: la llamada que lo resuelve aparece como goldrush.HttpCall justo después.
+ */
+@Name("goldrush.CacheMiss")
+@Label("Cache Miss")
+@Category({"Gold Rush", "Cache"})
+@Description("Lectura de caché sin dato fresco")
+@StackTrace(false)
+public class CacheMissEvent extends Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    public static void emit(String cache, String key) {
+        CacheMissEvent e = new CacheMissEvent();
+        if (e.shouldCommit()) {
+            e.cache = cache;
+            e.key = key;
+            e.commit();
+        }
+    }
+}
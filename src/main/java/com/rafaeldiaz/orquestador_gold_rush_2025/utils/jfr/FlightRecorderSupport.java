@@ -0,0 +1,60 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.BotLogger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 🔭 GRABACIÓN JFR CONTINUA
+ * Arranca una grabación en memoria con el perfil del bot (jfr/goldrush.jfc: eventos goldrush.* más
+ * GC, pinning de hilos virtuales, sockets lentos y muestreo de CPU). Se guarda como buffer circular
+ * (edad y tamaño máximos) y se vuelca a logs/goldrush.jfr al salir; en caliente:
+ * {@code jcmd <pid> JFR.dump name=goldrush filename=...}.
+ */
+public final class FlightRecorderSupport {
+
+    public static final String PROFILE = "/jfr/goldrush.jfc";
+    public static final String RECORDING_NAME = "goldrush";
+    private static final String DUMP_FILE = "logs/goldrush.jfr";
+
+    private FlightRecorderSupport() {}
+
+    /** Perfil empaquetado en el classpath (sin él no hay grabación). */
+    public static Configuration profile() throws Exception {
+        try (InputStream in = FlightRecorderSupport.class.getResourceAsStream(PROFILE)) {
+            if (in == null) throw new IllegalStateException("Perfil JFR no encontrado: " + PROFILE);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        }
+    }
+
+    /** @return la grabación activa, o null si JFR no está disponible (el bot sigue sin ella). */
+    public static Recording startContinuous(int maxAgeMinutes, int maxSizeMb) {
+        try {
+            Recording recording = new Recording(profile());
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            recording.setMaxSize(maxSizeMb * 1024L * 1024L);
+            Path dump = Path.of(DUMP_FILE);
+            Files.createDirectories(dump.toAbsolutePath().getParent());
+            recording.setDestination(dump);
+            recording.setDumpOnExit(true);
+            recording.start();
+            BotLogger.info("🔭 JFR continuo activo (" + maxAgeMinutes + " min / " + maxSizeMb + " MB) -> " + DUMP_FILE);
+            return recording;
+        } catch (Exception e) {
+            BotLogger.warn("⚠️ JFR no disponible: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 🔭 JFR: cada llamada HTTP del conector (emitida desde el interceptor de OkHttp).
+ * La clase de endpoint agrupa rutas con parámetros (orderId, símbolo) en familias estables.
+ */
+@Name("goldrush.HttpCall")
+@Label("Exchange HTTP Call")
+@Category({"Gold Rush", "Network"})
+@Description("Request REST a un exchange: venue, familia de endpoint, status, bytes y latencia")
+@StackTrace(false)
+public class HttpCallEvent extends Event {
+
+    @Label("Exchange")
+    public String exchange;
+
+    @Label("Endpoint Class")
+    public String endpointClass;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    @Description("Código HTTP (0 = fallo de red sin respuesta)")
+    public int status;
+
+    @Label("Response Bytes")
+    @Description("Content-Length de la respuesta (-1 = desconocido)")
+    @DataAmount
+    public long bytes;
+
+    /** Familia del endpoint a partir de la ruta: evita cardinalidad por orderId/símbolo. */
+    public static String endpointClass(String path) {
+        String p = path.toLowerCase();
+        if (p.contains("orderbook") || p.contains("depth") || p.contains("level1")) return "orderbook";
+        if (p.contains("ticker")) return "ticker";
+        if (p.contains("kline") || p.contains("candles")) return "candles";
+        if (p.contains("order")) return "order";
+        if (p.contains("fee")) return "fees";
+        if (p.contains("account") || p.contains("balance") || p.contains("wallet")) return "account";
+        if (p.contains("coin") || p.contains("capital") || p.contains("currencies")) return "assets";
+        if (p.contains("instruments") || p.contains("exchangeinfo") || p.contains("symbols")) return "instruments";
+        return "other";
+    }
+}
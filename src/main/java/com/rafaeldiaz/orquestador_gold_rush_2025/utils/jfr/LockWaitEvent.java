@@ -0,0 +1,48 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Collection;
+
+/**
+ * 🔭 JFR: intento de candado en el ExecutionCoordinator.
+ * Los candados son por cuenta y por CAS: la duración es el intento completo (salud + leases)
+ * y un "acquired=false" indica cuenta ocupada o en cuarentena, no espera.
+ */
+@Name("goldrush.LockWait")
+@Label("Coordinator Lock")
+@Category({"Gold Rush", "Execution"})
+@Description("Intento de candado de cuentas en el coordinador (espera + resultado)")
+@StackTrace(false)
+public class LockWaitEvent extends Event {
+
+    @Label("Accounts")
+    public String accounts;
+
+    @Label("Acquired")
+    public boolean acquired;
+
+    public static LockWaitEvent start() {
+        LockWaitEvent e = new LockWaitEvent();
+        e.begin();
+        return e;
+    }
+
+    public void end(String accounts, boolean acquired) {
+        if (shouldCommit()) {
+            this.accounts = accounts;
+            this.acquired = acquired;
+            commit();
+        }
+    }
+
+    /** Variante multi-cuenta: el join solo se paga si el evento se va a grabar. */
+    public void end(Collection<String> accounts, boolean acquired) {
+        if (shouldCommit()) end(String.join("+", accounts), acquired);
+    }
+}
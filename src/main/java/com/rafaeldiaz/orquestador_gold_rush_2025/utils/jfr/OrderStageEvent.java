@@ -0,0 +1,57 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 🔭 JFR: etapa del ciclo de vida de una orden.
+ * BUILD = armado + firma del request, ACK = envío hasta el orderId, FILL = espera del estado final.
+ * Cada evento dura lo que duró su etapa, así se alinean en la línea de tiempo con GC y pinning.
+ */
+@Name("goldrush.OrderStage")
+@Label("Order Stage")
+@Category({"Gold Rush", "Execution"})
+@Description("Etapa de una orden: BUILD, ACK o FILL")
+@StackTrace(false)
+public class OrderStageEvent extends Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Account")
+    public String account;
+
+    @Label("Pair")
+    public String pair;
+
+    @Label("Side")
+    public String side;
+
+    @Label("Order Id")
+    public String orderId;
+
+    @Label("Status")
+    public String status;
+
+    public static OrderStageEvent start(String stage) {
+        OrderStageEvent e = new OrderStageEvent();
+        e.stage = stage;
+        e.begin();
+        return e;
+    }
+
+    public void end(String account, String pair, String side, String orderId, String status) {
+        if (shouldCommit()) {
+            this.account = account;
+            this.pair = pair;
+            this.side = side;
+            this.orderId = orderId;
+            this.status = status;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 🔭 JFR: un ciclo completo del escáner, con la duración de cada fase.
+ * La duración del evento es el ciclo entero; las fases permiten ver si el tiempo se fue en la
+ * red (precios), en el cómputo (matriz + break-even) o en las validaciones con libros.
+ */
+@Name("goldrush.ScanCycle")
+@Label("Scan Cycle")
+@Category({"Gold Rush", "Scanner"})
+@Description("Ciclo del escáner espacial/triangular con duración por fase")
+@StackTrace(false)
+public class ScanCycleEvent extends Event {
+
+    @Label("Prices Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long pricesNanos;
+
+    @Label("Compute Phase")
+    @Description("Matriz espacial + refresco de break-even")
+    @Timespan(Timespan.NANOSECONDS)
+    public long computeNanos;
+
+    @Label("Validation Phase")
+    @Description("Validaciones con libro (y ejecución) bajo el deadline del ciclo")
+    @Timespan(Timespan.NANOSECONDS)
+    public long validationNanos;
+
+    @Label("Venues Answered")
+    public int venuesAnswered;
+
+    @Label("Venues Late")
+    public int venuesLate;
+
+    @Label("Tasks")
+    public int tasks;
+
+    @Label("Tasks Late")
+    public int tasksLate;
+}
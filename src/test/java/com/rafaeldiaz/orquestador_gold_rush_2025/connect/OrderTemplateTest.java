@@ -0,0 +1,119 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.connect;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTemplateTest {
+
+    private static final String KEY = "key123";
+    private static final String SECRET = "secret456";
+
+    private static Mac mac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac;
+    }
+
+    private static String hmacHex(String data) throws Exception {
+        return HexFormat.of().formatHex(mac().doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String body(Request request) throws Exception {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    @Test
+    void testBybitJsonConSlotsYFirma() throws Exception {
+        OrderTemplate t = OrderTemplate.bybit("https://api.bybit.com/v5/order/create", KEY, mac(), "SOLUSDT", true, true);
+
+        Request r = t.render(dec("0.50"), dec("142.125"), 1_700_000_000_123L);
+        String body = body(r);
+        // Escala exacta del instrumento, sin los 8 decimales fijos del "%.8f"
+        assertEquals("{\"category\":\"spot\",\"symbol\":\"SOLUSDT\",\"side\":\"Buy\",\"orderType\":\"Limit\"," +
+                        "\"qty\":\"0.50\",\"price\":\"142.125\",\"timeInForce\":\"FOK\"}",
+                body.replace(" ", ""));
+        assertEquals("1700000000123", r.header("X-BAPI-TIMESTAMP"));
+        // Se firma exactamente lo que se envía (relleno incluido)
+        assertEquals(hmacHex("1700000000123" + KEY + "5000" + body), r.header("X-BAPI-SIGN"));
+
+        // Re-render más corto: no quedan restos del valor anterior
+        String second = body(t.render(dec("12345"), dec("1.0"), 1_700_000_000_999L));
+        assertTrue(second.replace(" ", "").contains("\"qty\":\"12345\",\"price\":\"1.0\""));
+        assertEquals(body.length(), second.length());
+    }
+
+    @Test
+    void testQueryStringDeAnchoFijo() throws Exception {
+        OrderTemplate t = OrderTemplate.queryString("https://api.binance.com/api/v3/order", "X-MBX-APIKEY",
+                KEY, mac(), "ETHUSDT", false, false);
+
+        Request r = t.render(dec("1.23456789"), FixedDecimal.ZERO, 1_700_000_000_123L);
+        String query = r.url().encodedQuery();
+        String signed = "symbol=ETHUSDT&side=SELL&type=MARKET&quantity=000000000001.23456789" +
+                "&timestamp=1700000000123&recvWindow=5000";
+        assertEquals(signed + "&signature=" + hmacHex(signed), query);
+        assertEquals(KEY, r.header("X-MBX-APIKEY"));
+        assertEquals("POST", r.method());
+    }
+
+    @Test
+    void testLimitesFokEnQueryString() throws Exception {
+        String binance = OrderTemplate.queryString("https://api.binance.com/api/v3/order", "X-MBX-APIKEY",
+                KEY, mac(), "SOLUSDT", true, true).render(dec("0.5"), dec("142.1"), 1_700_000_000_123L).url().encodedQuery();
+        assertTrue(binance.startsWith("symbol=SOLUSDT&side=BUY&type=LIMIT&quantity="));
+        assertTrue(binance.contains("&price=000000000142.10000000&timeInForce=FOK&timestamp="));
+
+        Request mexc = OrderTemplate.mexc("https://api.mexc.com/api/v3/order", KEY, mac(), "SOLUSDT", true, true)
+                .render(dec("0.5"), dec("142.1"), 1_700_000_000_123L);
+        String query = mexc.url().encodedQuery();
+        assertTrue(query.contains("&type=FILL_OR_KILL&quantity="));
+        assertFalse(query.contains("timeInForce"));
+        assertEquals(KEY, mexc.header("X-MEXC-APIKEY"));
+    }
+
+    @Test
+    void testFormateoPuntoFijo() {
+        assertEquals("000000000012.50000000", fixed(dec("12.5")));
+        assertEquals("000000000000.00000001", fixed(dec("0.00000001")));
+        assertThrows(IllegalArgumentException.class, () -> OrderTemplate.toScaled(dec("-1")));
+        // Más de 8 decimales significativos: se rechaza en vez de truncar en silencio
+        assertThrows(ArithmeticException.class, () -> OrderTemplate.toScaled(dec("0.000000001")));
+    }
+
+    private static FixedDecimal dec(String s) {
+        return FixedDecimal.parse(s);
+    }
+
+    private static String fixed(FixedDecimal v) {
+        byte[] buf = new byte[OrderTemplate.DECIMAL_WIDTH];
+        OrderTemplate.writeFixedDecimal(buf, 0, OrderTemplate.toScaled(v));
+        return new String(buf, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testConectorReutilizaPlantillas() {
+        Map<String, String> env = Map.of("BYBIT_SUB1_KEY", KEY, "BYBIT_SUB1_SECRET", SECRET);
+        ExchangeConnector connector = new ExchangeConnector(new OkHttpClient(), env::get);
+
+        connector.prepareOrderTemplates("bybit_sub1", "SOLUSDT");
+        assertEquals(4, connector.orderTemplateCount());
+
+        Request r = connector.buildOrderRequest("bybit_sub1", "sol-usdt", "SELL", "MARKET", dec("3"), FixedDecimal.ZERO);
+        assertNotNull(r);
+        assertEquals(4, connector.orderTemplateCount()); // "sol-usdt" normaliza a SOLUSDT: sin plantilla nueva
+        assertNull(connector.buildOrderRequest("kucoin", "SOLUSDT", "BUY", "MARKET", dec("1"), FixedDecimal.ZERO));
+    }
+}
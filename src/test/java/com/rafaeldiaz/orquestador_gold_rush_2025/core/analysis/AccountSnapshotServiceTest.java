@@ -0,0 +1,98 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator.ExecutionCoordinator;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSnapshotServiceTest {
+
+    /** Conector falso: cada lectura tarda 200ms; "kucoin" puede fallar a demanda. */
+    private static class FakeConnector extends ExchangeConnector {
+        final AtomicInteger calls = new AtomicInteger();
+        final Map<String, Double> usdt = new ConcurrentHashMap<>(Map.of("binance", 500.0, "bybit_sub1", 300.0, "kucoin", 100.0));
+        volatile boolean kucoinDown = false;
+
+        FakeConnector() {
+            super(new OkHttpClient(), key -> null);
+        }
+
+        @Override
+        public Map<String, Double> fetchBalances(String exchange) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return Map.of();
+            }
+            if (exchange.equals("kucoin") && kucoinDown) return Map.of();
+            return Map.of("USDT", usdt.get(exchange), "SOL", 2.0);
+        }
+    }
+
+    @Test
+    void testRefrescoParaleloYLecturasCompartidas() {
+        FakeConnector connector = new FakeConnector();
+        AccountSnapshotService service = new AccountSnapshotService(connector, List.of("binance", "bybit_sub1", "kucoin"));
+
+        long start = System.nanoTime();
+        AccountSnapshotService.AccountSnapshot snap = service.current();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // 3 cuentas x 200ms en paralelo ~ 200ms (secuencial serían 600ms)
+        assertTrue(elapsedMs < 500, "El refresco debe ser paralelo: " + elapsedMs + "ms");
+        assertEquals(500.0, snap.balance("binance", "USDT"), 1e-12);
+        assertEquals(2.0, snap.balance("kucoin", "SOL"), 1e-12);
+
+        // Múltiples consumidores leyendo dentro del intervalo: cero llamadas extra
+        for (int i = 0; i < 50; i++) service.balance("bybit_sub1", "USDT");
+        assertEquals(3, connector.calls.get());
+        assertSame(snap, service.current());
+    }
+
+    @Test
+    void testCuentaCaidaConservaSaldoYEpoca() {
+        FakeConnector connector = new FakeConnector();
+        AccountSnapshotService service = new AccountSnapshotService(connector, List.of("binance", "kucoin"));
+        AccountSnapshotService.AccountSnapshot first = service.current();
+
+        connector.kucoinDown = true;
+        connector.usdt.put("binance", 450.0);
+        service.requestRefresh();
+        AccountSnapshotService.AccountSnapshot second = service.current();
+
+        assertTrue(second.epoch() > first.epoch());
+        assertEquals(450.0, second.balance("binance", "USDT"), 1e-12);
+        // KuCoin falló: saldo viejo y época vieja (no pretende estar fresco)
+        assertEquals(100.0, second.balance("kucoin", "USDT"), 1e-12);
+        assertEquals(first.epochOf("kucoin"), second.epochOf("kucoin"));
+        assertEquals(second.epoch(), second.epochOf("binance"));
+    }
+
+    @Test
+    void testObsolescenciaPorEpocas() {
+        FakeConnector connector = new FakeConnector();
+        AccountSnapshotService service = new AccountSnapshotService(connector, List.of("binance", "bybit_sub1"));
+        ExecutionCoordinator coordinator = new ExecutionCoordinator();
+
+        AccountSnapshotService.AccountSnapshot before = service.current();
+        assertFalse(coordinator.isSnapshotStale("binance", before.epochOf("binance")));
+
+        // Trade en binance: el snapshot previo queda obsoleto solo para esa cuenta
+        coordinator.markAsDirty("binance");
+        assertTrue(coordinator.isSnapshotStale("binance", before.epochOf("binance")));
+        assertFalse(coordinator.isSnapshotStale("bybit_sub1", before.epochOf("bybit_sub1")));
+
+        // Un refresco posterior vuelve a ser válido
+        service.requestRefresh();
+        AccountSnapshotService.AccountSnapshot after = service.current();
+        assertFalse(coordinator.isSnapshotStale("binance", after.epochOf("binance")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreakEvenTableTest {
+
+    private static final double[] CAPITALS = {10.0, 50.0, 100.0, 150.0};
+
+    @Test
+    void testBreakEvenEspacialPagaFeesRetiroYProfit() {
+        double feeBuy = 0.001, feeSell = 0.001;
+        double withdrawUsd = 0.02 * 145.50; // 0.02 SOL de retiro
+        double required = 0.40;
+
+        double g = BreakEvenTable.spatialBreakEven(feeBuy, feeSell, withdrawUsd, required, CAPITALS);
+        System.out.println("⚖️ Break-Even espacial SOL: " + String.format("%.4f%%", g * 100));
+
+        // Con el capital más grande y spread exacto de break-even, el neto iguala lo exigido
+        double cap = 150.0;
+        double net = cap * (1 + g) * (1 - feeBuy) * (1 - feeSell) - cap - withdrawUsd;
+        assertEquals(required, net, 1e-9);
+
+        // Un spread apenas menor no paga en NINGÚN capital
+        for (double c : CAPITALS) {
+            double netBelow = c * (1 + g - 1e-6) * (1 - feeBuy) * (1 - feeSell) - c - withdrawUsd;
+            assertTrue(netBelow < required, "Capital " + c + " no debería pagar bajo el break-even");
+        }
+    }
+
+    @Test
+    void testBreakEvenTriangularConProfitNegativoUsaCapitalMenor() {
+        double fee = 0.001;
+        double required = -0.30; // MIN_PROFIT_THRESHOLD por defecto (tolera pérdida)
+
+        double r = BreakEvenTable.triangularBreakEven(fee, fee, fee, required, CAPITALS);
+        double keep = Math.pow(1 - fee, 3);
+
+        // Con profit negativo, el capital de $10 es el más permisivo
+        assertEquals((1.0 + required / 10.0) / keep, r, 1e-12);
+    }
+
+    @Test
+    void testSinCapitalesValidosNuncaPasa() {
+        double g = BreakEvenTable.spatialBreakEven(0.001, 0.001, 0.0, 0.40, new double[]{0.0});
+        assertTrue(Double.isInfinite(g));
+    }
+}
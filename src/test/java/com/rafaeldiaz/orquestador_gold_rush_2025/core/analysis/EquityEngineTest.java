@@ -0,0 +1,75 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService.AccountSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquityEngineTest {
+
+    private static AccountSnapshot snapshot(long epoch, Map<String, Map<String, Double>> balances) {
+        return new AccountSnapshot(epoch, System.currentTimeMillis(), balances, Map.of());
+    }
+
+    @Test
+    void testTickSoloMueveLasCuentasQueTienenElActivo() {
+        EquityEngine engine = new EquityEngine();
+        engine.onSnapshot(snapshot(1, Map.of(
+                "binance", Map.of("USDT", 100.0, "SOL", 2.0),
+                "kucoin", Map.of("USDT", 50.0, "XRP", 100.0),
+                "bybit_sub1", Map.of("USDT", 10.0))));
+        assertEquals(160.0, engine.totalEquity(), 1e-9);
+        assertTrue(engine.hasUnmarkedHoldings());
+
+        // Lote del escáner (formato Binance y Kucoin): solo se miran los activos en cartera
+        engine.onPrices(Map.of("SOLUSDT", 150.0, "BTCUSDT", 60_000.0));
+        engine.onPrices(Map.of("XRP-USDT", 0.5));
+        assertFalse(engine.hasUnmarkedHoldings());
+        assertEquals(400.0, engine.accountEquity("binance"), 1e-9);
+        assertEquals(100.0, engine.accountEquity("kucoin"), 1e-9);
+        assertEquals(510.0, engine.totalEquity(), 1e-9);
+
+        // Quote del stream: mid = 140
+        engine.onQuote("bybit", "SOLUSDT", 139.0, 141.0, 0);
+        assertEquals(380.0, engine.accountEquity("binance"), 1e-9);
+        assertEquals(100.0, engine.accountEquity("kucoin"), 1e-9);
+        assertEquals(10.0, engine.accountEquity("bybit_sub1"), 1e-9);
+        assertEquals(490.0, engine.totalEquity(), 1e-9);
+        assertEquals(140.0, engine.mark("SOL"), 1e-9);
+    }
+
+    @Test
+    void testFotoNuevaRecalculaConLasMarcasVigentes() {
+        EquityEngine engine = new EquityEngine();
+        engine.onPrice("ETHUSDT", 2_000.0); // Precio antes que saldos: queda como marca
+        engine.onSnapshot(snapshot(5, Map.of("binance", Map.of("ETH", 1.0, "USDT", 500.0))));
+        assertEquals(2_500.0, engine.totalEquity(), 1e-9);
+
+        // Se vendió el ETH: la foto nueva lo refleja y el tick de ETH ya no toca nada
+        engine.onSnapshot(snapshot(6, Map.of("binance", Map.of("USDT", 2_490.0))));
+        engine.onPrice("ETHUSDT", 1_000.0);
+        assertEquals(2_490.0, engine.totalEquity(), 1e-9);
+
+        // Una foto vieja que llega tarde se ignora
+        engine.onSnapshot(snapshot(5, Map.of("binance", Map.of("ETH", 1.0, "USDT", 500.0))));
+        assertEquals(2_490.0, engine.totalEquity(), 1e-9);
+    }
+
+    @Test
+    void testDrawdownSobreElPicoEnCadaTick() {
+        EquityEngine engine = new EquityEngine();
+        List<Double> seen = new ArrayList<>();
+        engine.onDrawdown(seen::add);
+        engine.onSnapshot(snapshot(1, Map.of("mexc", Map.of("USDT", 0.0, "PEPE", 1_000_000.0))));
+        engine.onPrice("PEPEUSDT", 0.001); // Pico: $1000
+        engine.onPrice("PEPEUSDT", 0.0009);
+
+        assertEquals(1_000.0, engine.peakEquity(), 1e-9);
+        assertEquals(0.10, engine.drawdown(), 1e-9);
+        assertEquals(0.10, seen.get(seen.size() - 1), 1e-9);
+    }
+}
@@ -0,0 +1,78 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeManagerTest {
+
+    /** Conector falso: responde el lote de fees sin red y cuenta las llamadas. */
+    private static class FakeConnector extends ExchangeConnector {
+        final AtomicInteger bulkCalls = new AtomicInteger();
+        final AtomicInteger singleCalls = new AtomicInteger();
+
+        FakeConnector() {
+            super(new OkHttpClient(), key -> null);
+        }
+
+        @Override
+        public Map<String, double[]> fetchAllTradingFees(String exchange) {
+            bulkCalls.incrementAndGet();
+            if (exchange.equals("bybit")) {
+                return Map.of("SOLUSDT", new double[]{0.0006, 0.0004}, "XRPUSDT", new double[]{0.0008, 0.0005});
+            }
+            if (exchange.equals("mexc")) {
+                return Map.of(ExchangeConnector.ALL_SYMBOLS, new double[]{0.0005, 0.0});
+            }
+            return Map.of();
+        }
+
+        @Override
+        public double[] fetchDynamicTradingFee(String exchange, String pair) {
+            singleCalls.incrementAndGet();
+            return new double[]{0.5, 0.5};
+        }
+    }
+
+    @Test
+    void testLecturaDesdeLibroPrecargadoSinIO() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        FeeManager feeManager = new FeeManager(connector);
+
+        // Forzamos el registro de los venues y esperamos la precarga en segundo plano
+        feeManager.venueId("bybit_sub2");
+        feeManager.venueId("mexc");
+        long deadline = System.currentTimeMillis() + 3000;
+        while (feeManager.symbolId("SOLUSDT") < 0 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        Thread.sleep(100);
+
+        // Subcuentas de Bybit comparten el libro de la familia
+        assertEquals(0.0006, feeManager.getTradingFee("bybit_sub2", "SOLUSDT", "TAKER"), 1e-12);
+        assertEquals(0.0004, feeManager.getTradingFee("bybit_sub3", "SOL-USDT", "MAKER"), 1e-12);
+
+        // MEXC: fee de cuenta para cualquier par
+        assertEquals(0.0005, feeManager.getTradingFee("mexc", "XRPUSDT", "TAKER"), 1e-12);
+
+        // Par no listado en Bybit -> fallback pesimista (0.1%), nunca I/O
+        assertEquals(0.001, feeManager.getTradingFee("bybit_sub1", "PEPEUSDT", "TAKER"), 1e-12);
+
+        // API por IDs (hot path)
+        int venue = feeManager.venueId("bybit_sub1");
+        int symbol = feeManager.symbolId("XRPUSDT");
+        assertEquals(0.0008, feeManager.getTakerFee(venue, symbol), 1e-12);
+
+        assertEquals(0, connector.singleCalls.get(), "La lectura nunca debe consultar el fee por símbolo");
+    }
+
+    @Test
+    void testVenueDesconocidoDevuelveFallbackInmediato() {
+        FeeManager feeManager = new FeeManager(new FakeConnector());
+        assertEquals(0.001, feeManager.getTradingFee("kraken", "BTCUSDT", "TAKER"), 1e-12);
+        assertEquals(-1, feeManager.symbolId("NOEXISTEUSDT"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorEngineTest {
+
+    private static IndicatorEngine engine() {
+        // ATR/volatilidad en velas 1m (ventana 3), EMA de 3 en 15m, spread sobre 4 cotizaciones
+        return new IndicatorEngine(3, 3, 4, "1m", "15m");
+    }
+
+    @Test
+    void testAtrUsaTrueRangeYVentanaRodante() {
+        IndicatorEngine engine = engine();
+        // {high, low, close}
+        engine.onKline("bybit", "SOLUSDT", "1m", 101, 99, 100, 1, true);   // TR = 2
+        engine.onKline("bybit", "SOLUSDT", "1m", 104, 102, 103, 2, true);  // TR = max(2, |104-100|, |102-100|) = 4
+        engine.onKline("bybit", "SOLUSDT", "1m", 103, 102, 102, 3, true);  // TR = 1
+        // Vela abierta (confirm=false): actualiza precio, no la ventana
+        engine.onKline("bybit", "SOLUSDT", "1m", 110, 90, 100, 4, false);
+
+        IndicatorEngine.IndicatorSnapshot snap = engine.snapshot("SOLUSDT");
+        assertEquals(3, snap.bars());
+        assertEquals((2 + 4 + 1) / 3.0 / 100.0 * 100.0, snap.atrPercent(), 1e-9);
+
+        // Cuarta vela cerrada expulsa la primera (TR=2)
+        engine.onKline("bybit", "SOLUSDT", "1m", 101, 99, 100, 4, true);   // TR = max(2, |101-102|, |99-102|) = 3
+        snap = engine.snapshot("SOLUSDT");
+        assertEquals((4 + 1 + 3) / 3.0, snap.atrPercent(), 1e-9); // precio = 100
+        assertTrue(snap.isWarm(3));
+    }
+
+    @Test
+    void testEmaArrancaConSmaYLuegoSuaviza() {
+        IndicatorEngine engine = engine();
+        List<double[]> trend = new ArrayList<>();
+        trend.add(new double[]{0, 0, 10});
+        trend.add(new double[]{0, 0, 20});
+        trend.add(new double[]{0, 0, 30});
+        engine.seed("ETHUSDT", "15m", trend);
+        assertEquals(20.0, engine.snapshot("ETHUSDT").ema(), 1e-12);
+
+        // alpha = 2 / (3 + 1) = 0.5
+        engine.onKline("bybit", "ETHUSDT", "15m", 0, 0, 40, 1000, true);
+        assertEquals(30.0, engine.snapshot("ETHUSDT").ema(), 1e-12);
+        // Repetición de la misma vela (reenvío del WS) no cuenta dos veces
+        engine.onKline("bybit", "ETHUSDT", "15m", 0, 0, 40, 1000, true);
+        assertEquals(30.0, engine.snapshot("ETHUSDT").ema(), 1e-12);
+    }
+
+    @Test
+    void testSpreadYVolatilidadRealizada() {
+        IndicatorEngine engine = engine();
+        engine.onQuote("bybit", "XRPUSDT", 0.999, 1.001, 1);  // 0.2%
+        engine.onQuote("bybit", "XRPUSDT", 0.9995, 1.0005, 2); // 0.1%
+        engine.onQuote("bybit", "XRPUSDT", 1.001, 0.999, 3);   // Cruzado: ignorado
+        assertEquals(0.15, engine.snapshot("XRPUSDT").spreadPercent(), 1e-9);
+
+        // Retornos log alternados +/- r: desviación estándar conocida
+        double r = Math.log(1.01);
+        engine.onKline("bybit", "XRPUSDT", "1m", 1, 1, 1.0, 1, true);
+        engine.onKline("bybit", "XRPUSDT", "1m", 1, 1, 1.01, 2, true);
+        engine.onKline("bybit", "XRPUSDT", "1m", 1, 1, 1.0, 3, true);
+        // Retornos: +r, -r -> media 0, varianza muestral 2r²
+        assertEquals(Math.sqrt(2 * r * r) * 100.0, engine.snapshot("XRPUSDT").realizedVolPercent(), 1e-9);
+
+        engine.onTicker24h("bybit", "XRPUSDT", 1.0, 2_500_000, 4);
+        assertEquals(2_500_000, engine.snapshot("XRPUSDT").turnoverUsd(), 1e-9);
+        assertNull(engine.snapshot("DOGEUSDT"));
+    }
+
+    @Test
+    void testVentanaSinDerivaTrasMuchasActualizaciones() {
+        IndicatorEngine.RollingWindow window = new IndicatorEngine.RollingWindow(5);
+        for (int i = 0; i < 1_000_000; i++) window.add(1e6 + (i % 7) * 0.1);
+        // Últimos 5 valores: i = 999995..999999 -> residuos mod 7
+        double expected = 0;
+        for (int i = 999_995; i < 1_000_000; i++) expected += 1e6 + (i % 7) * 0.1;
+        assertEquals(expected / 5, window.mean(), 1e-6);
+        assertEquals(5, window.count());
+    }
+}
@@ -0,0 +1,105 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.NetworkInfo;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalCatalogueTest {
+
+    /** Conector falso con configuraciones de red fijas. */
+    private static class FakeConnector extends ExchangeConnector {
+        FakeConnector() {
+            super(new OkHttpClient(), key -> null);
+        }
+
+        @Override
+        public Map<String, List<NetworkInfo>> fetchCoinNetworks(String exchange) {
+            if (exchange.equals("binance")) {
+                return Map.of("USDT", List.of(
+                        new NetworkInfo("USDT", "ETH", 4.0, 10, true, true, 12),
+                        new NetworkInfo("USDT", "TRX", 1.0, 10, true, true, 20),
+                        new NetworkInfo("USDT", "SOL", 1.5, 10, true, true, 1),
+                        new NetworkInfo("USDT", "BSC", 0.1, 10, false, true, 15)  // Retiro suspendido
+                ), "SOL", List.of(
+                        new NetworkInfo("SOL", "SOL", 0.01, 0.1, false, true, 1) // Sin ninguna red habilitada
+                ));
+            }
+            if (exchange.equals("bybit")) {
+                return Map.of("USDT", List.of(
+                        new NetworkInfo("USDT", "ETH", 3.0, 10, true, true, 6),
+                        new NetworkInfo("USDT", "TRX", 1.0, 10, true, false, 20), // Depósito suspendido
+                        new NetworkInfo("USDT", "SOL", 1.0, 10, true, true, 1)
+                ));
+            }
+            return Map.of();
+        }
+
+        @Override
+        public Map<String, double[]> fetchAllTradingFees(String exchange) {
+            return Map.of();
+        }
+    }
+
+    private static WithdrawalCatalogue loaded(ExchangeConnector connector) throws InterruptedException {
+        WithdrawalCatalogue catalogue = new WithdrawalCatalogue(connector);
+        catalogue.register("binance");
+        catalogue.register("bybit_sub1");
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!(catalogue.isLoaded("binance") && catalogue.isLoaded("bybit_sub2"))
+                && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        return catalogue;
+    }
+
+    @Test
+    void testRedMasBarataRespetaRetiroYDeposito() throws Exception {
+        WithdrawalCatalogue catalogue = loaded(new FakeConnector());
+
+        // Binance -> Bybit: BSC tiene retiro suspendido, TRX tiene depósito suspendido en destino
+        WithdrawalCatalogue.RouteQuote cheapest = catalogue.cheapest("binance", "bybit_sub1", "USDT");
+        assertNotNull(cheapest);
+        assertEquals("SOL", cheapest.network());
+        assertEquals(1.5, cheapest.fee(), 1e-12);
+
+        // Sin restricción de destino, el fee de retiro más barato del venue es TRX
+        assertEquals(1.0, catalogue.cheapestWithdrawFee("binance", "USDT"), 1e-12);
+    }
+
+    @Test
+    void testEmpateDeFeeSeDesempataPorTiempoEstimado() throws Exception {
+        WithdrawalCatalogue catalogue = loaded(new FakeConnector());
+
+        // Bybit -> Binance: TRX y SOL cuestan 1 USDT; SOL abona antes (1 conf x 0.4s + 120s del venue)
+        WithdrawalCatalogue.RouteQuote quote = catalogue.cheapest("bybit_sub1", "binance", "USDT");
+        assertEquals("SOL", quote.network());
+        assertEquals(120, quote.transferSeconds());
+    }
+
+    @Test
+    void testRutaSinRedHabilitadaNoPuedePagar() throws Exception {
+        FeeManager feeManager = new FeeManager(new FakeConnector());
+        WithdrawalCatalogue catalogue = feeManager.getCatalogue();
+        catalogue.register("binance");
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!catalogue.isLoaded("binance") && System.currentTimeMillis() < deadline) Thread.sleep(20);
+
+        assertNull(catalogue.cheapest("binance", "bybit_sub1", "SOL"));
+        assertTrue(Double.isInfinite(feeManager.getWithdrawalFee("binance", "bybit_sub1", "SOL")));
+
+        // Moneda fuera del catálogo -> fallback estático
+        assertEquals(5.0, feeManager.getWithdrawalFee("binance", "bybit_sub1", "DOGE"), 1e-12);
+    }
+
+    @Test
+    void testNombresDeRedCanonicos() {
+        assertEquals("BSC", NetworkInfo.canonical("BEP20(BSC)"));
+        assertEquals("TRX", NetworkInfo.canonical("trc20"));
+        assertEquals("ETH", NetworkInfo.canonical("ERC20"));
+        assertEquals("ARB", NetworkInfo.canonical("Arbitrum One"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionCoordinatorTest {
+
+    @Test
+    void testDualesCruzadosNuncaComparten() {
+        ExecutionCoordinator coordinator = new ExecutionCoordinator(60_000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger wins = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 16; t++) {
+                boolean reversed = (t % 2 == 1); // Mitad pide A+B, mitad B+A
+                executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        boolean ok = reversed ? coordinator.tryAcquireDualLock("bybit_sub1", "binance")
+                                : coordinator.tryAcquireDualLock("binance", "bybit_sub1");
+                        if (!ok) continue;
+                        if (inside.incrementAndGet() > 1) overlaps.incrementAndGet();
+                        wins.incrementAndGet();
+                        inside.decrementAndGet();
+                        coordinator.releaseLock("binance");
+                        coordinator.releaseLock("bybit_sub1");
+                    }
+                });
+            }
+        }
+        assertEquals(0, overlaps.get());
+        assertTrue(wins.get() > 0);
+    }
+
+    @Test
+    void testTodoONadaYSoloElDuenoLibera() throws Exception {
+        ExecutionCoordinator coordinator = new ExecutionCoordinator(60_000);
+        assertTrue(coordinator.tryAcquireLock("kucoin"));
+
+        // Otra estrategia no puede tomar un grupo que incluya kucoin, ni soltarlo
+        boolean[] otherGot = {true};
+        Thread other = Thread.ofVirtual().start(() -> {
+            otherGot[0] = coordinator.tryAcquireLocks(List.of("binance", "mexc", "kucoin"));
+            coordinator.releaseLock("kucoin");
+        });
+        other.join();
+        assertFalse(otherGot[0]);
+
+        // El rollback dejó libres binance y mexc
+        assertTrue(coordinator.tryAcquireDualLock("mexc", "binance"));
+        assertFalse(coordinator.tryAcquireLock("kucoin"));
+        coordinator.releaseLock("kucoin");
+        assertTrue(coordinator.tryAcquireLock("kucoin"));
+    }
+
+    @Test
+    void testRuedaExpiraZombisSinQueNadieAdquiera() throws Exception {
+        ExecutionCoordinator coordinator = new ExecutionCoordinator(150);
+        Thread dead = Thread.ofVirtual().start(() -> coordinator.tryAcquireLock("bybit_sub2"));
+        dead.join(); // El dueño murió sin soltar
+
+        assertFalse(coordinator.tryAcquireLock("bybit_sub2"));
+        long deadline = System.currentTimeMillis() + 2_000;
+        boolean reacquired = false;
+        while (!reacquired && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+            reacquired = coordinator.tryAcquireLock("bybit_sub2");
+        }
+        assertTrue(reacquired);
+    }
+
+    @Test
+    void testCuarentenaBloqueaSoloEsaCuenta() {
+        ExecutionCoordinator coordinator = new ExecutionCoordinator(60_000);
+        for (int i = 0; i < BotConfig.CB_MAX_CONSECUTIVE_FAILURES; i++) coordinator.reportFailure("mexc");
+
+        assertFalse(coordinator.tryAcquireLock("mexc"));
+        assertFalse(coordinator.tryAcquireDualLock("binance", "mexc"));
+        assertTrue(coordinator.tryAcquireLock("binance")); // El dual fallido no dejó binance tomado
+    }
+}
@@ -0,0 +1,88 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveScanSchedulerTest {
+
+    @Test
+    void testActivosCalientesSeEscaneanMasSeguido() {
+        AdaptiveScanScheduler scheduler = new AdaptiveScanScheduler(1000, 100, 10_000, 1000);
+        // 8 activos: "A0" muy movido, el resto casi quietos
+        for (int c = 0; c < 10; c++) {
+            scheduler.beginCycle();
+            for (int i = 0; i < 8; i++) {
+                double spread = (i == 0) ? (c % 2) * 0.5 : 0.01 * i;
+                scheduler.observe("A" + i, spread, 100.0);
+            }
+            scheduler.endCycle();
+        }
+        assertEquals(AdaptiveScanScheduler.Tier.HOT, scheduler.tierOf("A0"));
+        assertEquals(AdaptiveScanScheduler.Tier.COLD, scheduler.tierOf("A7"));
+
+        int hotRuns = 0, coldRuns = 0;
+        for (int c = 0; c < 8; c++) {
+            scheduler.beginCycle();
+            if (scheduler.isDue("A0")) hotRuns++;
+            if (scheduler.isDue("A7")) coldRuns++;
+        }
+        assertEquals(8, hotRuns);
+        assertEquals(2, coldRuns); // Frío: 1 de cada 4 ciclos
+        AdaptiveScanScheduler.Metrics m = scheduler.metrics();
+        assertEquals(8, m.hot() + m.warm() + m.cold());
+    }
+
+    @Test
+    void testCruceEnActivoFrioLoPromueveAlSiguienteCiclo() {
+        AdaptiveScanScheduler scheduler = new AdaptiveScanScheduler(1000, 100, 10_000, 1000);
+        for (int c = 0; c < 10; c++) {
+            scheduler.beginCycle();
+            for (int i = 0; i < 8; i++) scheduler.observe("A" + i, (i == 0) ? (c % 2) : 0.0, 100.0);
+            scheduler.endCycle();
+        }
+        assertEquals(AdaptiveScanScheduler.Tier.COLD, scheduler.tierOf("A7"));
+
+        scheduler.beginCycle();
+        scheduler.recordOpportunity("A7");
+        scheduler.endCycle();
+        scheduler.beginCycle();
+        assertTrue(scheduler.isDue("A7"));
+    }
+
+    @Test
+    void testPresupuestoImponePisoYDeadlinesPerdidos() throws InterruptedException {
+        // 2 requests/seg por venue; el ciclo gasta 4 en bybit (subcuentas incluidas) -> periodo mínimo 2s
+        AdaptiveScanScheduler scheduler = new AdaptiveScanScheduler(500, 100, 1000, 2.0);
+        scheduler.beginCycle();
+        scheduler.recordRequests("bybit_sub1", 2);
+        scheduler.recordRequests("bybit_sub2", 2);
+        scheduler.recordRequests("binance", 1);
+        long delay = scheduler.endCycle();
+        assertTrue(delay > 1900 && delay <= 2000, "Delay: " + delay);
+        assertEquals(2000, scheduler.metrics().lastPeriodMs());
+        assertEquals(100.0, scheduler.metrics().budgetUsagePercent(), 1e-9);
+
+        // Un ciclo más largo que su periodo: deadline perdido y sin espera
+        AdaptiveScanScheduler fast = new AdaptiveScanScheduler(100, 100, 100, 1000);
+        fast.beginCycle();
+        Thread.sleep(150);
+        assertEquals(0, fast.endCycle());
+        assertEquals(1, fast.metrics().missedDeadlines());
+    }
+
+    @Test
+    void testOportunidadesAcortanElPeriodo() {
+        AdaptiveScanScheduler scheduler = new AdaptiveScanScheduler(3000, 100, 10_000, 1000);
+        scheduler.beginCycle();
+        scheduler.endCycle();
+        assertEquals(3000, scheduler.metrics().lastPeriodMs());
+
+        for (int c = 0; c < 5; c++) {
+            scheduler.beginCycle();
+            for (int i = 0; i < 5; i++) scheduler.recordOpportunity("SOL");
+            scheduler.endCycle();
+        }
+        assertTrue(scheduler.metrics().lastPeriodMs() < 1000, "Periodo: " + scheduler.metrics().lastPeriodMs());
+    }
+}
@@ -0,0 +1,61 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineScopeTest {
+
+    private static Callable<String> answerAfter(long ms, String value) {
+        return () -> {
+            Thread.sleep(ms);
+            return value;
+        };
+    }
+
+    @Test
+    void testVenueColgadoNoEstiraElCiclo() throws InterruptedException {
+        Map<String, Callable<String>> calls = new LinkedHashMap<>();
+        calls.put("binance", answerAfter(20, "ok-binance"));
+        calls.put("kucoin", answerAfter(5_000, "nunca"));      // Cuelga hasta el read-timeout
+        calls.put("mexc", () -> { throw new IllegalStateException("HTTP 503"); });
+
+        DeadlineScope.Outcome<String, String> out = DeadlineScope.fanOut(calls, Duration.ofMillis(300),
+                ex -> Duration.ofMillis(200));
+
+        assertEquals(Map.of("binance", "ok-binance"), out.answered());
+        assertEquals(Set.of("kucoin"), out.late());
+        assertEquals(Set.of("mexc"), out.failed());
+        assertFalse(out.complete());
+        assertTrue(out.elapsedMs() < 1_000, "Ciclo acotado: " + out.elapsedMs() + "ms");
+    }
+
+    @Test
+    void testSubDeadlinePorVenue() throws InterruptedException {
+        Map<String, Callable<String>> calls = new LinkedHashMap<>();
+        calls.put("binance", answerAfter(150, "a"));
+        calls.put("bybit", answerAfter(150, "b"));
+
+        // Bybit con sub-deadline corto (RTT bajo): llega tarde aunque el global alcance
+        DeadlineScope.Outcome<String, String> out = DeadlineScope.fanOut(calls, Duration.ofMillis(1_000),
+                ex -> ex.equals("bybit") ? Duration.ofMillis(50) : Duration.ofMillis(800));
+
+        assertEquals(Map.of("binance", "a"), out.answered());
+        assertEquals(Set.of("bybit"), out.late());
+    }
+
+    @Test
+    void testLlamadaIndividualConDeadline() throws InterruptedException {
+        assertEquals("x", DeadlineScope.within(Duration.ofMillis(500), answerAfter(10, "x")));
+        assertNull(DeadlineScope.within(Duration.ofMillis(500), () -> null)); // Libro vacío: null, no error
+        assertThrows(StructuredTaskScope.TimeoutException.class,
+                () -> DeadlineScope.within(Duration.ofMillis(50), answerAfter(2_000, "tarde")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialSpreadMatrixTest {
+
+    private static final List<String> EXCHANGES = List.of("binance", "bybit_sub1", "mexc");
+
+    @Test
+    void testMinAskMaxBidYSpreadNeto() {
+        SpatialSpreadMatrix matrix = new SpatialSpreadMatrix(EXCHANGES, true);
+        matrix.resize(List.of("SOL", "XRP"));
+        for (int e = 0; e < EXCHANGES.size(); e++) {
+            matrix.setFee(0, e, 0.001);
+            matrix.setFee(1, e, 0.001);
+        }
+
+        matrix.load(Map.of(
+                "binance", Map.of("SOLUSDT", 145.50, "XRPUSDT", 0.50),
+                "bybit_sub1", Map.of("SOLUSDT", 147.20),
+                "mexc", Map.of("SOLUSDT", 146.00)
+        ));
+        matrix.compute();
+
+        System.out.println("🧮 Kernel: " + matrix.kernelName());
+
+        // SOL: compra en binance (0), vende en bybit (1)
+        assertEquals(0, matrix.bestBuy(0));
+        assertEquals(1, matrix.bestSell(0));
+        assertEquals(145.50, matrix.minAsk(0), 1e-12);
+        assertEquals(147.20, matrix.maxBid(0), 1e-12);
+        assertEquals((147.20 - 145.50) / 145.50, matrix.grossSpread(0), 1e-12);
+        assertEquals((147.20 * 0.999 - 145.50 * 1.001) / 145.50, matrix.netSpread(0), 1e-12);
+
+        // XRP: un solo exchange -> mismo índice en ambas puntas, spread 0
+        assertEquals(matrix.bestBuy(1), matrix.bestSell(1));
+        assertEquals(0.0, matrix.grossSpread(1), 1e-12);
+    }
+
+    @Test
+    void testActivoSinCotizacionNoPasaElFiltro() {
+        SpatialSpreadMatrix matrix = new SpatialSpreadMatrix(EXCHANGES, true);
+        matrix.resize(List.of("PEPE"));
+        matrix.load(Map.of("binance", Map.of("SOLUSDT", 145.50)));
+        matrix.compute();
+
+        assertEquals(-1, matrix.bestBuy(0));
+        assertEquals(-1, matrix.bestSell(0));
+        assertTrue(Double.isNaN(matrix.grossSpread(0)));
+        assertFalse(matrix.grossSpread(0) > 0.0005, "NaN nunca debe superar MIN_SCAN_SPREAD");
+    }
+
+    @Test
+    void testParidadKernelVectorialVsEscalar() {
+        // 37 activos: fuerza bloques SIMD completos + cola escalar
+        int assets = 37;
+        int exchanges = 5;
+        int cells = assets * exchanges;
+        Random rnd = new Random(42);
+
+        double[] asks = new double[cells];
+        double[] bids = new double[cells];
+        double[] fees = new double[cells];
+        for (int i = 0; i < cells; i++) {
+            // Precios discretos para provocar empates entre exchanges
+            double px = 100 + rnd.nextInt(20) * 0.5;
+            boolean missing = rnd.nextInt(10) == 0;
+            asks[i] = missing ? Double.POSITIVE_INFINITY : px;
+            bids[i] = missing ? Double.NEGATIVE_INFINITY : px;
+            fees[i] = 0.0005 + rnd.nextInt(10) * 0.0001;
+        }
+
+        double[][] scalar = run(new ScalarSpreadKernel(), assets, exchanges, asks, bids, fees);
+        double[][] vector = run(new VectorSpreadKernel(), assets, exchanges, asks, bids, fees);
+
+        for (int out = 0; out < scalar.length; out++) {
+            assertArrayEquals(scalar[out], vector[out], 1e-12, "Salida #" + out + " difiere entre kernels");
+        }
+    }
+
+    private double[][] run(SpatialSpreadMatrix.Kernel kernel, int assets, int exchanges,
+                           double[] asks, double[] bids, double[] fees) {
+        double[][] out = new double[6][assets];
+        kernel.compute(assets, exchanges, assets, asks, bids, fees,
+                out[0], out[1], out[2], out[3], out[4], out[5]);
+        return out;
+    }
+}
@@ -0,0 +1,78 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.core.scanner;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector.Ticker24h;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniverseRadarTest {
+
+    private static Ticker24h t(String symbol, double bid, double ask, double turnover) {
+        double last = (bid + ask) / 2.0;
+        return new Ticker24h(symbol, last, bid, ask, last * 1.05, last * 0.95, turnover);
+    }
+
+    @Test
+    void testCribaFiltraUniversoYDetectaCruce() {
+        Map<String, Map<String, Ticker24h>> tickers = Map.of(
+                "binance", Map.of(
+                        "SOLUSDT", t("SOLUSDT", 100.0, 100.1, 20_000_000),
+                        "BTC3LUSDT", t("BTC3LUSDT", 1.0, 1.001, 20_000_000),   // Apalancado: fuera
+                        "ETHBTC", t("ETHBTC", 0.05, 0.0501, 20_000_000),      // No USDT: fuera
+                        "DUSTUSDT", t("DUSTUSDT", 1.0, 1.001, 10_000)),       // Bajo volumen: fuera
+                "kucoin", Map.of(
+                        "SOLUSDT", t("SOLUSDT", 101.0, 101.1, 5_000_000)));
+
+        List<UniverseRadar.ScreenEntry> ranked = UniverseRadar.screen(tickers, 1_000_000);
+
+        assertEquals(2, ranked.size());
+        assertTrue(ranked.stream().allMatch(e -> e.symbol().equals("SOLUSDT")));
+        // Comprar en binance (ask 100.1) y vender en kucoin (bid 101.0)
+        double expectedCross = (101.0 - 100.1) / 100.1 * 100.0;
+        for (UniverseRadar.ScreenEntry e : ranked) assertEquals(expectedCross, e.crossSpreadPercent(), 1e-9);
+        // Mismo rango y cruce: gana el de más volumen
+        assertEquals("binance", ranked.getFirst().venue());
+    }
+
+    @Test
+    void testSondasRepartidasPorVenue() {
+        List<UniverseRadar.ScreenEntry> ranked = List.of(
+                new UniverseRadar.ScreenEntry("binance", "A", 0.9, 0, 0, 0, 0),
+                new UniverseRadar.ScreenEntry("binance", "B", 0.8, 0, 0, 0, 0),
+                new UniverseRadar.ScreenEntry("binance", "C", 0.7, 0, 0, 0, 0),
+                new UniverseRadar.ScreenEntry("mexc", "A", 0.6, 0, 0, 0, 0));
+
+        List<UniverseRadar.ScreenEntry> selected = UniverseRadar.selectProbes(ranked, 2);
+
+        assertEquals(List.of("A", "B", "A"), selected.stream().map(UniverseRadar.ScreenEntry::symbol).toList());
+        assertEquals("mexc", selected.getLast().venue());
+    }
+
+    @Test
+    void testAtrPorcentual() {
+        // {high, low, close}: TR = 2 y luego max(2, |104-100|, |102-100|) = 4
+        List<double[]> candles = List.of(
+                new double[]{101, 99, 100},
+                new double[]{101, 99, 100},
+                new double[]{104, 102, 100});
+        assertEquals(3.0, UniverseRadar.atrPercent(candles), 1e-9);
+        assertTrue(Double.isNaN(UniverseRadar.atrPercent(List.of(new double[]{1, 1, 1}))));
+    }
+
+    @Test
+    void testPresupuestoEnDeudaYConcurrencia() {
+        VenueBudget budget = new VenueBudget(4.0);
+        // Ráfaga de un segundo (4 tokens) sin espera; la quinta request queda en deuda ~250ms
+        for (int i = 0; i < 4; i++) assertEquals(0, budget.reserve(1));
+        long wait = budget.reserve(1);
+        assertTrue(wait > 200_000_000L && wait <= 250_000_000L, "Espera: " + wait);
+
+        // Ley de Little: 4 req/s x 500ms = 2 hilos; piso de latencia y tope
+        assertEquals(2, budget.concurrency(500));
+        assertEquals(1, budget.concurrency(0));
+        assertEquals(16, new VenueBudget(100).concurrency(1000));
+    }
+}
@@ -0,0 +1,131 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryTriangularExecutorTest {
+
+    private static final InstrumentRules SOL_USDT = new InstrumentRules(FixedDecimal.parse("0.001"), FixedDecimal.parse("0.01"));
+    private static final InstrumentRules SOL_BTC = new InstrumentRules(FixedDecimal.parse("0.001"), FixedDecimal.parse("0.0000001"));
+    private static final InstrumentRules BTC_USDT = new InstrumentRules(FixedDecimal.parse("0.000001"), FixedDecimal.parse("0.01"));
+
+    private static final Map<String, Double> TARGETS = Map.of("USDT", 0.5, "SOL", 0.25, "BTC", 0.25);
+
+    /** Las tres patas solo responden cuando las tres están en vuelo: prueba que el disparo es paralelo. */
+    private static class BarrierConnector extends ExchangeConnector {
+        final CountDownLatch inFlight = new CountDownLatch(3);
+        final Set<String> orders = ConcurrentHashMap.newKeySet();
+        final Map<String, OrderResult> fills;
+
+        BarrierConnector(Map<String, OrderResult> fills) {
+            super(new OkHttpClient(), k -> null);
+            this.fills = fills;
+        }
+
+        @Override
+        public OrderResult placeOrder(String exchange, String pair, String side, String type, FixedDecimal qty, FixedDecimal price) {
+            orders.add(pair + " " + side + " " + qty);
+            inFlight.countDown();
+            try {
+                if (!inFlight.await(2, TimeUnit.SECONDS)) return new OrderResult("X", "Cancelled", 0, 0, 0, 0, 0, "NONE");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return fills.get(pair + " " + side);
+        }
+    }
+
+    private static TriangularPlan plan() {
+        return TriangularPlan.of("SOL", "BTC", "SOLUSDT", "SOLBTC", "BTCUSDT",
+                100, 150, 0.0023, 65_000, 0.01, SOL_USDT, SOL_BTC, BTC_USDT);
+    }
+
+    @Test
+    void testTresPatasEnParaleloSobreInventario() {
+        BarrierConnector connector = new BarrierConnector(Map.of(
+                "SOLUSDT BUY", new OrderResult("1", "Filled", 0.66, 0.66, 99.0, 151.5, 0.00066, "SOL"),
+                "SOLBTC SELL", new OrderResult("2", "Filled", 0.66, 0.66, 0.001518, 0, 0.0000015, "BTC"),
+                "BTCUSDT SELL", new OrderResult("3", "Filled", 0.001518, 0.001518, 98.8, 0, 0.1, "USDT")));
+        InventoryTriangularExecutor desk = new InventoryTriangularExecutor(connector, "bybit_sub2", TARGETS, 0.25);
+        desk.setDryRun(false);
+        desk.syncHoldings(Map.of("USDT", 500.0, "SOL", 2.0, "BTC", 0.005), System.currentTimeMillis());
+
+        InventoryTriangularExecutor.CycleResult result = desk.execute(plan());
+
+        assertNotNull(result);
+        assertTrue(result.complete());
+        assertEquals(Set.of("SOLUSDT BUY 0.660", "SOLBTC SELL 0.660", "BTCUSDT SELL 0.001518"), connector.orders);
+        assertEquals(-0.3, result.usdtDelta(), 1e-9);
+        // USDT: -99 + 98.8 - 0.1 | SOL: +0.66 - 0.00066 - 0.66 | BTC: +0.001518 - 0.0000015 - 0.001518
+        assertEquals(499.7, desk.holding("USDT"), 1e-9);
+        assertEquals(2.0 - 0.00066, desk.holding("SOL"), 1e-9);
+        assertEquals(0.005 - 0.0000015, desk.holding("BTC"), 1e-12);
+    }
+
+    @Test
+    void testSinStockNoSeDispara() {
+        BarrierConnector connector = new BarrierConnector(Map.of());
+        InventoryTriangularExecutor desk = new InventoryTriangularExecutor(connector, "bybit_sub2", TARGETS, 0.25);
+        desk.setDryRun(false);
+        desk.syncHoldings(Map.of("USDT", 500.0, "SOL", 0.1, "BTC", 0.005), System.currentTimeMillis());
+
+        assertFalse(desk.covers(plan())); // El ejecutor cae al pipeline secuencial
+        assertNull(desk.execute(plan()));
+        assertTrue(connector.orders.isEmpty());
+        assertEquals(500.0, desk.holding("USDT")); // Nada reservado
+
+        desk.syncHoldings(Map.of("USDT", 500.0, "SOL", 2.0, "BTC", 0.005), System.currentTimeMillis());
+        assertTrue(desk.covers(plan()));
+    }
+
+    @Test
+    void testRebalanceoSoloFueraDelLimiteYVentasPrimero() {
+        InventoryTriangularExecutor desk = new InventoryTriangularExecutor(
+                new BarrierConnector(Map.of()), "bybit_sub2", TARGETS, 0.25);
+        // Total $1000: USDT 400 | SOL 450 (objetivo 250, +80%) | BTC 150 (objetivo 250, -40%)
+        desk.syncHoldings(Map.of("USDT", 400.0, "SOL", 3.0, "BTC", 0.0025), 1);
+        Map<String, Double> prices = Map.of("USDT", 1.0, "SOL", 150.0, "BTC", 60_000.0);
+
+        assertEquals(0.8, desk.drift(prices).get("SOL"), 1e-9);
+        List<InventoryTriangularExecutor.Rebalance> plan = desk.planRebalance(prices, 5.0);
+        assertEquals(2, plan.size());
+        assertEquals("SOL", plan.get(0).coin());
+        assertEquals("SELL", plan.get(0).side());
+        assertEquals(200.0 / 150.0, plan.get(0).qty(), 1e-9);
+        assertEquals("BTC", plan.get(1).coin());
+        assertEquals("BUY", plan.get(1).side());
+
+        // Con un límite más laxo la misma deriva se tolera
+        InventoryTriangularExecutor lax = new InventoryTriangularExecutor(
+                new BarrierConnector(Map.of()), "bybit_sub2", TARGETS, 1.0);
+        lax.syncHoldings(Map.of("USDT", 400.0, "SOL", 3.0, "BTC", 0.0025), 1);
+        assertTrue(lax.planRebalance(prices, 5.0).isEmpty());
+
+        // Sin fills aplicados, cualquier snapshot reconcilia el stock
+        desk.syncHoldings(Map.of("USDT", 1000.0), 2);
+        assertEquals(1000.0, desk.holding("USDT"));
+    }
+
+    @Test
+    void testElVenueDelDetectorResuelveLaCuentaConEscritorio() {
+        TradeExecutor.registerInventoryDesk(new InventoryTriangularExecutor(
+                new BarrierConnector(Map.of()), "bybit_sub3", TARGETS, 0.25));
+
+        assertEquals("bybit_sub3", TradeExecutor.triangularAccount("bybit")); // sub2 sin escritorio: gana sub3
+        assertEquals("bybit_sub2", TradeExecutor.triangularAccount("bybit_sub2"));
+        assertEquals("kucoin", TradeExecutor.triangularAccount("kucoin")); // Sin cuentas triangulares: el venue tal cual
+    }
+}
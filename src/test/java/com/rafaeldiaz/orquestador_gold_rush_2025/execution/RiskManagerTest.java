@@ -0,0 +1,117 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskManagerTest {
+
+    @Test
+    void testReportesConcurrentesSinPerdidasYReplayTrasCaida() throws Exception {
+        Path dir = Files.createTempDirectory("risk");
+        String state = dir.resolve("state.json").toString();
+        String wal = dir.resolve("state.wal").toString();
+
+        RiskManager risk = new RiskManager(1_000.0, state, wal);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) risk.reportTradeResult(0.25);
+                });
+            }
+        }
+        assertEquals(1_000.0 + 8 * 500 * 0.25, risk.getState().currentCapital(), 1e-9);
+        assertEquals(4_000, risk.getState().seq());
+        assertTrue(risk.sync(5_000));
+
+        // "Caída": sin close(). El nuevo arranque reconstruye checkpoint + log
+        RiskManager restarted = new RiskManager(1_000.0, state, wal);
+        assertEquals(2_000.0, restarted.getState().currentCapital(), 1e-9);
+        assertEquals(2_000.0, restarted.getState().peakCapital(), 1e-9);
+        assertEquals(1_000.0, restarted.getState().dailyPnL(), 1e-9);
+        assertTrue(restarted.canExecuteTrade());
+        restarted.close();
+        risk.close();
+    }
+
+    @Test
+    void testDisyuntorYOverrideSobrevivenAlReinicio() throws Exception {
+        Path dir = Files.createTempDirectory("risk");
+        String state = dir.resolve("state.json").toString();
+        String wal = dir.resolve("state.wal").toString();
+
+        RiskManager risk = new RiskManager(100.0, state, wal);
+        risk.reportTradeResult(-1.0);
+        assertTrue(risk.canExecuteTrade());
+        risk.reportTradeResult(-9.0); // -10%: diario (2%) y drawdown (8%)
+        assertEquals(RiskManager.SystemStatus.HALTED_DRAWDOWN, risk.getState().status());
+        assertFalse(risk.canExecuteTrade());
+        assertTrue(risk.sync(5_000));
+
+        RiskManager halted = new RiskManager(100.0, state, wal);
+        assertEquals(RiskManager.SystemStatus.HALTED_DRAWDOWN, halted.getState().status());
+        halted.overrideLockdown();
+        assertTrue(halted.sync(5_000));
+
+        RiskManager resumed = new RiskManager(100.0, state, wal);
+        assertTrue(resumed.canExecuteTrade());
+        assertEquals(90.0, resumed.getState().currentCapital(), 1e-9);
+        resumed.close();
+        halted.close();
+        risk.close();
+    }
+
+    @Test
+    void testDrawdownAMercadoDisparaUnaVezYPersiste() throws Exception {
+        Path dir = Files.createTempDirectory("risk");
+        String state = dir.resolve("state.json").toString();
+        String wal = dir.resolve("state.wal").toString();
+
+        RiskManager risk = new RiskManager(1_000.0, state, wal);
+        risk.onMarkToMarket(0.03);
+        assertTrue(risk.canExecuteTrade());
+        risk.onMarkToMarket(0.09); // Inventario cayó sin ningún trade reportado
+        assertEquals(RiskManager.SystemStatus.HALTED_DRAWDOWN, risk.getState().status());
+        assertEquals(1_000.0, risk.getState().currentCapital(), 1e-9); // La contabilidad no se toca
+
+        // Tras el override, el mismo drawdown no vuelve a bloquear hasta que se recupere y lo cruce otra vez
+        risk.overrideLockdown();
+        risk.onMarkToMarket(0.09);
+        assertTrue(risk.canExecuteTrade());
+        risk.onMarkToMarket(0.01);
+        risk.onMarkToMarket(0.10);
+        assertFalse(risk.canExecuteTrade());
+        assertTrue(risk.sync(5_000));
+
+        RiskManager restarted = new RiskManager(1_000.0, state, wal);
+        assertEquals(RiskManager.SystemStatus.HALTED_DRAWDOWN, restarted.getState().status());
+        restarted.close();
+        risk.close();
+    }
+
+    @Test
+    void testColaRotaDelLogSeDescarta() throws Exception {
+        Path dir = Files.createTempDirectory("risk");
+        String state = dir.resolve("state.json").toString();
+        String wal = dir.resolve("state.wal").toString();
+
+        RiskManager risk = new RiskManager(500.0, state, wal);
+        risk.reportTradeResult(5.0);
+        risk.reportTradeResult(-2.0);
+        assertTrue(risk.sync(5_000));
+        // Registro a medio escribir al final (caída en pleno write)
+        Files.write(Path.of(wal), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20,
+                21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33}, StandardOpenOption.APPEND);
+
+        RiskManager restarted = new RiskManager(500.0, state, wal);
+        assertEquals(503.0, restarted.getState().currentCapital(), 1e-9);
+        assertEquals(505.0, restarted.getState().peakCapital(), 1e-9);
+        restarted.close();
+        risk.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmartOrderRouterTest {
+
+    private static ExchangeConnector.OrderBook book(double[][] bids, double[][] asks) {
+        return new ExchangeConnector.OrderBook(List.of(bids), List.of(asks));
+    }
+
+    private static SmartOrderRouter.Child child(List<SmartOrderRouter.Child> children, String account) {
+        return children.stream().filter(c -> c.account().equals(account)).findFirst().orElse(null);
+    }
+
+    @Test
+    void testRepartePorPrecioEfectivoEntreVenues() {
+        // Dos libros baratos para comprar (10 unidades cada uno), un libro caro para vender
+        var a = book(new double[][]{{99, 50}}, new double[][]{{100, 10}, {102, 50}});
+        var b = book(new double[][]{{99, 50}}, new double[][]{{101, 10}, {103, 50}});
+        var c = book(new double[][]{{105, 30}}, new double[][]{{106, 50}});
+
+        SmartOrderRouter.Route r = SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("a", a, 0, 10_000), new SmartOrderRouter.Venue("b", b, 0, 10_000)),
+                List.of(new SmartOrderRouter.Venue("c", c, 0, 100)),
+                25, 1.0);
+
+        // 10 @100 (a) + 10 @101 (b) + 5 @102 (a): el segundo nivel de "a" le gana a b@103
+        assertEquals(25, r.qty(), 1e-9);
+        assertEquals(15, child(r.buys(), "a").qty(), 1e-9);
+        assertEquals(10, child(r.buys(), "b").qty(), 1e-9);
+        assertEquals(1000 + 1010 + 510, r.buyCost(), 1e-6);
+        assertEquals(25 * 105, r.sellProceeds(), 1e-6);
+        assertEquals(List.of("a", "b", "c"), List.copyOf(r.accounts()));
+    }
+
+    @Test
+    void testRespetaSaldosYFrenaCuandoElCruceNoPagaFees() {
+        var cheap = book(new double[][]{{99, 50}}, new double[][]{{100, 50}});
+        var rich = book(new double[][]{{100.5, 5}, {100.1, 50}}, new double[][]{{101, 50}});
+
+        // Solo 300 USDT en la compra y fees de 0.1% por lado: 100.1*(0.999) < 100*(1.001)
+        SmartOrderRouter.Route r = SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("cheap", cheap, 0.001, 300)),
+                List.of(new SmartOrderRouter.Venue("rich", rich, 0.001, 1_000)),
+                50, 1.0);
+
+        assertEquals(r.buys().getFirst().qty(), r.sells().getFirst().qty(), 1e-9);
+        assertTrue(r.buyCost() <= 300 + 1e-9);
+        assertTrue(r.qty() <= 5 + 1e-9); // Solo el primer nivel del bid cruza con margen
+        assertTrue(r.netPnl() > 0);
+
+        // Venta topada por el inventario del venue
+        SmartOrderRouter.Route capped = SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("cheap", cheap, 0, 10_000)),
+                List.of(new SmartOrderRouter.Venue("rich", rich, 0, 2)),
+                50, 1.0);
+        assertEquals(2, capped.qty(), 1e-9);
+    }
+
+    @Test
+    void testSaldoDeCompraCubreElTopeDelLimit() {
+        var cheap = book(new double[][]{{99, 50}}, new double[][]{{100, 50}});
+        var rich = book(new double[][]{{110, 50}}, new double[][]{{111, 50}});
+
+        // $1000 y LIMIT al 1% sobre el libro con fee 0.1%: el exchange bloquea qty × 101 × 1.001
+        SmartOrderRouter.Route r = SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("cheap", cheap, 0.001, 1_000)),
+                List.of(new SmartOrderRouter.Venue("rich", rich, 0.001, 100)),
+                50, 1.0, 0.01);
+
+        SmartOrderRouter.Child buy = r.buys().getFirst();
+        assertEquals(1_000 / (100 * 1.01 * 1.001), buy.qty(), 1e-9);
+        assertTrue(buy.qty() * buy.vwap() * 1.01 * 1.001 <= 1_000 + 1e-9);
+    }
+
+    @Test
+    void testDescartaHijasDebajoDelMinimo() {
+        var a = book(new double[][]{{99, 50}}, new double[][]{{100, 0.01}, {100.2, 50}});
+        var b = book(new double[][]{{99, 50}}, new double[][]{{100.1, 50}});
+        var c = book(new double[][]{{105, 50}}, new double[][]{{106, 50}});
+
+        // "a" tiene $3 de saldo: su hija quedaría por debajo de $10 y sale de la ruta
+        SmartOrderRouter.Route r = SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("a", a, 0, 3), new SmartOrderRouter.Venue("b", b, 0, 10_000)),
+                List.of(new SmartOrderRouter.Venue("c", c, 0, 100)),
+                1, 10.0);
+
+        assertNull(child(r.buys(), "a"));
+        assertEquals(1, child(r.buys(), "b").qty(), 1e-9);
+
+        // Nada cruza: ruta vacía
+        assertTrue(SmartOrderRouter.route(
+                List.of(new SmartOrderRouter.Venue("c", c, 0, 10_000)),
+                List.of(new SmartOrderRouter.Venue("a", a, 0, 100)),
+                1, 1.0).isEmpty());
+    }
+}
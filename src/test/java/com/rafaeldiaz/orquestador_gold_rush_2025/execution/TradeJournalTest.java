@@ -0,0 +1,93 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.analysis.AccountSnapshotService.AccountSnapshot;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeJournalTest {
+
+    private static OrderResult filled(double qty, double value) {
+        return new OrderResult("ID-" + qty, "FILLED", qty, qty, value, 0, 0, "USDT");
+    }
+
+    @Test
+    void testCaidaEnMitadDeTriangularSeReconstruye() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("trades.journal").toString();
+
+        TradeJournal journal = new TradeJournal(file);
+        String tid = journal.open("TRIANGULAR", "binance", "SOL-BTC");
+        journal.intent(tid, "binance", "SOL", "USDT", "BUY", 2.0);
+        journal.result(tid, "binance", "SOL", "USDT", "BUY", filled(2.0, 300.0));
+        journal.intent(tid, "binance", "SOL", "BTC", "SELL", 2.0);
+        journal.result(tid, "binance", "SOL", "BTC", "SELL", filled(2.0, 0.0045));
+        String done = journal.open("CROSS", "bybit>mexc", "XRPUSDT");
+        journal.close(done, "COMPLETE");
+        // "Caída": sin shutdown(). Quedó varado el BTC de la pata 2
+
+        TradeJournal restarted = new TradeJournal(file);
+        List<TradeJournal.OpenTrade> open = restarted.openTrades();
+        assertEquals(1, open.size());
+        assertEquals(tid, open.get(0).id());
+        assertEquals(TradeJournal.Type.FILL, open.get(0).lastEvent());
+        Map<String, Double> exposure = open.get(0).exposure();
+        assertEquals(0.0045, exposure.get("binance:BTC"), 1e-12);
+        assertEquals(-300.0, exposure.get("binance:USDT"), 1e-9);
+        assertFalse(exposure.containsKey("binance:SOL")); // Entró y salió: sin exposición
+        restarted.shutdown();
+    }
+
+    @Test
+    void testColaRotaSeDescartaYSeSigueEscribiendo() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("trades.journal").toString();
+
+        TradeJournal journal = new TradeJournal(file);
+        String tid = journal.open("CROSS", "bybit>mexc", "PEPEUSDT");
+        journal.result(tid, "bybit", "PEPE", "USDT", "BUY", filled(1_000.0, 10.0));
+        Files.write(Path.of(file), "7\t123\tFILL\tx\tbyb".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        TradeJournal restarted = new TradeJournal(file);
+        assertEquals(1_000.0, restarted.openTrades().get(0).exposure().get("bybit:PEPE"), 1e-9);
+        restarted.close(tid, "COMPLETE");
+
+        TradeJournal again = new TradeJournal(file);
+        assertTrue(again.openTrades().isEmpty());
+        again.shutdown();
+    }
+
+    @Test
+    void testFotoMasColaYConciliacion() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("trades.journal").toString();
+
+        TradeJournal journal = new TradeJournal(file);
+        for (int i = 0; i < 300; i++) { // 600 eventos: fuerza una foto y deja cola detrás
+            journal.close(journal.open("CROSS", "bybit>mexc", "LOOP " + i), "COMPLETE");
+        }
+        String sold = journal.open("CROSS", "bybit>mexc", "SOLUSDT");
+        journal.result(sold, "bybit", "SOL", "USDT", "BUY", filled(1.0, 150.0));
+        String held = journal.open("TRIANGULAR", "kucoin", "ETH-BTC");
+        journal.result(held, "kucoin", "ETH", "USDT", "BUY", filled(0.5, 1_500.0));
+        assertTrue(Files.exists(Path.of(file + ".snapshot")));
+
+        TradeJournal restarted = new TradeJournal(file);
+        assertEquals(2, restarted.openTrades().size());
+
+        // El SOL ya no está en bybit (se vendió a mano); el ETH sigue en kucoin
+        AccountSnapshot balances = new AccountSnapshot(1, System.currentTimeMillis(),
+                Map.of("bybit", Map.of("USDT", 500.0), "kucoin", Map.of("ETH", 0.5)), Map.of());
+        List<String> pending = restarted.reconcile(balances);
+        assertEquals(1, pending.size());
+        assertTrue(pending.get(0).contains("kucoin ETH"));
+        assertEquals(held, restarted.openTrades().get(0).id());
+        assertEquals(TradeJournal.Type.STUCK, restarted.openTrades().get(0).lastEvent());
+        restarted.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.execution;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.connect.ExchangeConnector;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.FixedDecimal;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.InstrumentRules;
+import com.rafaeldiaz.orquestador_gold_rush_2025.model.OrderResult;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriangularExecutorTest {
+
+    private static final InstrumentRules SOL_USDT = new InstrumentRules(FixedDecimal.parse("0.001"), FixedDecimal.parse("0.01"));
+    private static final InstrumentRules SOL_BTC = new InstrumentRules(FixedDecimal.parse("0.01"), FixedDecimal.parse("0.0000001"));
+    private static final InstrumentRules BTC_USDT = new InstrumentRules(FixedDecimal.parse("0.000001"), FixedDecimal.parse("0.01"));
+
+    /** Conector falso: registra cada orden y responde con el fill que indique el test. */
+    private static class ScriptedConnector extends ExchangeConnector {
+        final List<String> orders = new ArrayList<>();
+        final Map<String, OrderResult> fills;
+        int balanceReads = 0;
+
+        ScriptedConnector(Map<String, OrderResult> fills) {
+            super(new OkHttpClient(), k -> null);
+            this.fills = fills;
+        }
+
+        @Override
+        public OrderResult placeOrder(String exchange, String pair, String side, String type, FixedDecimal qty, FixedDecimal price) {
+            orders.add(pair + " " + side + " " + type + " " + qty + (price.isZero() ? "" : " @" + price));
+            return fills.getOrDefault(pair + " " + side,
+                    new OrderResult("X", "Cancelled", 0, 0, 0, 0, 0, "NONE"));
+        }
+
+        @Override
+        public double fetchBalance(String exchange, String asset) {
+            balanceReads++;
+            return 0;
+        }
+    }
+
+    private static TriangularPlan plan() {
+        // $100 a ask 150 con 1% de margen: límite 151.50 -> 0.660 SOL
+        return TriangularPlan.of("SOL", "BTC", "SOLUSDT", "SOLBTC", "BTCUSDT",
+                100, 150, 0.0023, 65_000, 0.01, SOL_USDT, SOL_BTC, BTC_USDT);
+    }
+
+    @Test
+    void testPlanDimensionadoContraElLimite() {
+        TriangularPlan p = plan();
+        assertEquals(FixedDecimal.parse("151.50"), p.limitPrice1());
+        assertEquals(FixedDecimal.parse("0.660"), p.qty1());
+        assertTrue(p.qty1().toDouble() * p.limitPrice1().toDouble() <= 100);
+        assertTrue(p.isExecutable());
+    }
+
+    @Test
+    void testPatasGuiadasPorFillSinReleerBalance() {
+        ScriptedConnector connector = new ScriptedConnector(Map.of(
+                // Fee de la compra cobrado en SOL: 0.66 - 0.00066 = 0.65934 -> step 0.01 = 0.65
+                "SOLUSDT BUY", new OrderResult("1", "Filled", 0.66, 0.66, 99.0, 151.5, 0.00066, "SOL", FixedDecimal.parse("0.660")),
+                // Fee de la venta en BTC: 0.0015 - 0.0000015 = 0.0014985 -> step 0.000001 = 0.001498
+                "SOLBTC SELL", new OrderResult("2", "Filled", 0.65, 0.65, 0.0015, 0, 0.0000015, "BTC"),
+                "BTCUSDT SELL", new OrderResult("3", "Filled", 0.001498, 0.001498, 97.5, 0, 0.0975, "USDT")));
+        TriangularExecutor executor = new TriangularExecutor(connector, "bybit_sub2");
+        executor.setDryRun(false);
+
+        OrderResult last = executor.execute(plan());
+
+        assertNotNull(last);
+        assertEquals(List.of(
+                "SOLUSDT BUY LIMIT 0.660 @151.50",
+                "SOLBTC SELL MARKET 0.65",
+                "BTCUSDT SELL MARKET 0.001498"), connector.orders);
+        assertEquals(0, connector.balanceReads);
+    }
+
+    @Test
+    void testFalloEnPata2DevuelveElActivoExacto() {
+        ScriptedConnector connector = new ScriptedConnector(Map.of(
+                // Fee cobrado en otra moneda (descuento): se vende todo lo recibido
+                "SOLUSDT BUY", new OrderResult("1", "Filled", 0.66, 0.66, 99.0, 151.5, 0.01, "MNT", FixedDecimal.parse("0.660")),
+                "SOLUSDT SELL", new OrderResult("9", "Filled", 0.66, 0.66, 98.5, 0, 0.09, "USDT")));
+        TriangularExecutor executor = new TriangularExecutor(connector, "bybit_sub2");
+        executor.setDryRun(false);
+
+        assertNull(executor.execute(plan()));
+        assertEquals(List.of(
+                "SOLUSDT BUY LIMIT 0.660 @151.50",
+                "SOLBTC SELL MARKET 0.66",
+                "SOLUSDT SELL MARKET 0.660"), connector.orders);
+    }
+}
@@ -0,0 +1,69 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedDecimalTest {
+
+    private static FixedDecimal dec(String s) {
+        return FixedDecimal.parse(s);
+    }
+
+    @Test
+    void testParseoYFormateo() {
+        assertEquals(FixedDecimal.of(10000, 8), dec("0.00010000"));
+        assertEquals(FixedDecimal.of(1, 4), dec("0.00010000").stripTrailingZeros());
+        assertEquals(FixedDecimal.of(-1425, 1), dec("-142.5"));
+        assertEquals(FixedDecimal.of(1, 8), dec("1e-8"));
+        assertEquals(FixedDecimal.of(1200, 0), dec("1.2E3"));
+        assertEquals("-142.5", dec("-142.5").toString());
+        assertEquals("0.00010000", dec("0.00010000").toString());
+
+        byte[] buf = new byte[32];
+        int end = dec("12.0500").writeTo(buf, 3);
+        assertEquals("12.0500", new String(buf, 3, end - 3, StandardCharsets.US_ASCII));
+        assertEquals(end - 3, dec("12.0500").length());
+
+        assertThrows(NumberFormatException.class, () -> dec("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> dec("abc"));
+        assertThrows(NumberFormatException.class, () -> dec("0.0000000000001")); // 13 decimales
+    }
+
+    @Test
+    void testFloorAlStepSinRuidoBinario() {
+        // Math.floor(0.3 / 0.1) * 0.1 = 0.2 con doubles: el bug clásico de LOT_SIZE
+        FixedDecimal step = dec("0.1");
+        assertEquals(dec("0.3"), FixedDecimal.ofDouble(0.3, step.scale(), RoundingMode.FLOOR).floorToStep(step));
+
+        assertEquals(dec("1.4"), dec("1.498").floorToStep(step));
+        assertEquals(dec("1.5"), dec("1.401").ceilToStep(step));
+        assertEquals(dec("15"), dec("17.9").floorToStep(dec("5")));
+        assertEquals(dec("0.0025"), dec("0.00274").floorToStep(dec("0.0005")));
+        assertEquals(dec("1.23"), dec("1.23").floorToStep(FixedDecimal.ZERO)); // Step 0: sin restricción
+    }
+
+    @Test
+    void testReglasDelInstrumento() {
+        InstrumentRules rules = new InstrumentRules(dec("0.001"), dec("0.01"));
+
+        assertEquals(dec("0.735"), rules.quantity(0.7359999));
+        assertTrue(rules.quantity(0.0004).isZero()); // Bajo el step: no hay orden
+        assertEquals(dec("142.31"), rules.price(142.3187, true));   // Compra: hacia abajo
+        assertEquals(dec("142.32"), rules.price(142.3187, false));  // Venta: hacia arriba
+        assertEquals(dec("142.30"), rules.price(142.3, false));     // Ya en el tick: intacto
+    }
+
+    @Test
+    void testComparacionYReescalado() {
+        assertTrue(dec("1.50").sameValue(dec("1.5")));
+        assertNotEquals(dec("1.50"), dec("1.5"));
+        assertTrue(dec("0.0001").compareTo(dec("0.00009")) > 0);
+        assertEquals(dec("1.5000"), dec("1.5").withScale(4));
+        assertThrows(ArithmeticException.class, () -> dec("1.25").withScale(1));
+        assertEquals(0.0001, dec("0.0001").toDouble());
+    }
+}
@@ -0,0 +1,94 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvAppenderTest {
+
+    private final Path dir = createDir();
+
+    private static Path createDir() {
+        try {
+            return Files.createTempDirectory("csv-appender");
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void testFormatoFijo_IgualAStringFormat() {
+        double[] values = {0, 1.5, -2.25, 100.25, 0.00005, -0.00004, 123456.789012, 99.99995};
+        for (double v : values) {
+            for (int d : new int[]{2, 4}) {
+                String expected = String.format(Locale.US, "%." + d + "f", v).replace("-0.0000", "0.0000").replace("-0.00", "0.00");
+                assertEquals(expected, CsvAppender.appendFixed(new StringBuilder(), v, d).toString(), v + " / " + d);
+            }
+        }
+    }
+
+    @Test
+    void testBufferYRotacionComprimida() throws Exception {
+        Path file = dir.resolve("opportunities.csv");
+        CsvAppender.Policy policy = new CsvAppender.Policy(4 * 1024, false, true, 1024, 60_000, false);
+        try (CsvAppender csv = new CsvAppender(file.toString(), "A,B", policy)) {
+            csv.appendLine("1,x");
+            assertEquals(List.of("A,B"), Files.readAllLines(file), "Lo pendiente no baja hasta el flush");
+            for (int i = 0; i < 2_000; i++) csv.appendLine(i + ",fila-de-relleno");
+        }
+
+        assertEquals("A,B", Files.readAllLines(file).getFirst());
+        Thread.sleep(300); // Compresión en hilo virtual
+        List<Path> rolled;
+        try (Stream<Path> files = Files.list(dir)) {
+            rolled = files.filter(p -> p.getFileName().toString().endsWith(".csv.gz")).toList();
+        }
+        assertFalse(rolled.isEmpty(), "Debe haber rotados comprimidos");
+
+        long rows = Files.readAllLines(file).size() - 1;
+        for (Path gz : rolled) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+                List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+                assertEquals("A,B", lines.getFirst(), "Cada rotado conserva la cabecera");
+                rows += lines.size() - 1;
+            }
+        }
+        assertEquals(2_001, rows, "Ninguna fila se pierde al rotar");
+    }
+
+    @Test
+    void testBorradoExterno_SeRecreaConCabecera() throws Exception {
+        Path file = dir.resolve("trades.csv");
+        try (CsvAppender csv = new CsvAppender(file.toString(), "Fecha,Par", CsvAppender.Policy.JOURNAL)) {
+            Files.delete(file);
+            csv.appendLine("hoy,BTCUSDT");
+            csv.flush();
+            assertEquals(List.of("Fecha,Par", "hoy,BTCUSDT"), Files.readAllLines(file));
+        }
+    }
+
+    @Test
+    void testModoMapeado_TruncaYReabreSinCeros() throws Exception {
+        Path file = dir.resolve("mapped.csv");
+        CsvAppender.Policy mapped = new CsvAppender.Policy(Long.MAX_VALUE, false, false, 64 * 1024, 1_000, true);
+        try (CsvAppender csv = new CsvAppender(file.toString(), "H", mapped)) {
+            for (int i = 0; i < 100_000; i++) csv.appendLine("fila," + i);
+        }
+        try (CsvAppender csv = new CsvAppender(file.toString(), "H", mapped)) {
+            csv.appendLine("otra,corrida");
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100_002, lines.size());
+        assertEquals("H", lines.getFirst());
+        assertEquals("otra,corrida", lines.getLast());
+    }
+}
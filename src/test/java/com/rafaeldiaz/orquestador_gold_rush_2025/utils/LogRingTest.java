@@ -0,0 +1,83 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRingTest {
+
+    @Test
+    void testMultiplesProductores_SinPerdidasNiDesorden() throws Exception {
+        LogRing ring = new LogRing(64, LogRing.Overflow.BLOCK);
+        int producers = 8, perProducer = 5_000;
+        long[] lastSeen = new long[producers];
+        java.util.Arrays.fill(lastSeen, -1);
+        long[] consumed = {0};
+        AtomicBoolean orderBroken = new AtomicBoolean(false);
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            while (!done.get() || ring.backlog() > 0) {
+                ring.drain(slot -> {
+                    int p = (Integer) slot.args[0];
+                    long seq = (Long) slot.args[1];
+                    if (seq <= lastSeen[p]) orderBroken.set(true); // FIFO por productor
+                    lastSeen[p] = seq;
+                    consumed[0]++;
+                }, 32, () -> { });
+            }
+        });
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                executor.submit(() -> {
+                    for (long i = 0; i < perProducer; i++) {
+                        ring.publish(LogRing.Level.INFO, false, "%d %d", new Object[]{id, i}, null);
+                    }
+                });
+            }
+        }
+        done.set(true);
+        consumer.join();
+
+        assertEquals((long) producers * perProducer, consumed[0]);
+        assertFalse(orderBroken.get());
+        assertEquals(0, ring.dropped());
+    }
+
+    @Test
+    void testDesborde_DropDebugDescartaInfoPeroNoCriticos() throws Exception {
+        LogRing ring = new LogRing(4, LogRing.Overflow.DROP_DEBUG);
+        for (int i = 0; i < 4; i++) assertTrue(ring.publish(LogRing.Level.INFO, false, "lleno " + i, null, null));
+
+        assertFalse(ring.publish(LogRing.Level.DEBUG, false, "descartado", null, null));
+        assertFalse(ring.publish(LogRing.Level.INFO, false, "descartado", null, null));
+        assertEquals(2, ring.dropped());
+
+        // WARN espera lugar: se libera cuando el consumidor drena
+        Thread warn = Thread.ofVirtual().start(() -> ring.publish(LogRing.Level.WARN, false, "espera", null, null));
+        Thread.sleep(50);
+        assertTrue(warn.isAlive(), "WARN no se descarta: espera");
+
+        List<String> seen = new ArrayList<>();
+        ring.drain(slot -> seen.add(slot.template), 10, () -> { });
+        warn.join(1_000);
+        ring.drain(slot -> seen.add(slot.template), 10, () -> { });
+        assertEquals(List.of("lleno 0", "lleno 1", "lleno 2", "lleno 3", "espera"), seen);
+    }
+
+    @Test
+    void testDesborde_CountAndDropNuncaBloquea() {
+        LogRing ring = new LogRing(2, LogRing.Overflow.COUNT_AND_DROP);
+        ring.publish(LogRing.Level.ERROR, false, "a", null, null);
+        ring.publish(LogRing.Level.ERROR, false, "b", null, null);
+        assertFalse(ring.publish(LogRing.Level.ERROR, false, "c", null, null));
+        assertEquals(1, ring.dropped());
+        assertEquals(2, ring.backlog());
+    }
+}
@@ -0,0 +1,69 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void testExposicionTextoPrometheus() {
+        MetricsRegistry registry = new MetricsRegistry()
+                .describe("goldrush_rejections_total", MetricsRegistry.Type.COUNTER, "Descartes por causa");
+
+        registry.counter("goldrush_rejections_total", "reason", "SLIPPAGE_BUY").add(3);
+        registry.counter("goldrush_rejections_total", "reason", "LATENCIA \"ALTA\"").inc();
+        registry.gauge("goldrush_venue_rtt_seconds", "venue", "bybit", () -> 0.042);
+        registry.summary("goldrush_scan_cycle_seconds").record(250_000_000); // 250ms
+        registry.collector(sb -> sb.append("extra_metric 1\n"));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# HELP goldrush_rejections_total Descartes por causa\n"));
+        assertTrue(text.contains("# TYPE goldrush_rejections_total counter\n"));
+        assertTrue(text.contains("goldrush_rejections_total{reason=\"SLIPPAGE_BUY\"} 3\n"));
+        assertTrue(text.contains("goldrush_rejections_total{reason=\"LATENCIA \\\"ALTA\\\"\"} 1\n"));
+        assertTrue(text.contains("# TYPE goldrush_venue_rtt_seconds gauge\n"));
+        assertTrue(text.contains("goldrush_venue_rtt_seconds{venue=\"bybit\"} 0.042\n"));
+        assertTrue(text.contains("# TYPE goldrush_scan_cycle_seconds summary\n"));
+        assertTrue(text.contains("goldrush_scan_cycle_seconds_count 1\n"));
+        assertTrue(text.contains("goldrush_scan_cycle_seconds_sum 0.25\n"));
+        assertTrue(text.contains("goldrush_scan_cycle_seconds{quantile=\"0.99\"} 0.2")); // ±12.5% del bucket
+        assertTrue(text.endsWith("extra_metric 1\n"));
+    }
+
+    @Test
+    void testContadorConcurrenteSinPerdidas() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) registry.counter("goldrush_orders_total", "account", "bybit_sub1", "outcome", "Filled").inc();
+                });
+            }
+        }
+        assertEquals(80_000, registry.counter("goldrush_orders_total", "account", "bybit_sub1", "outcome", "Filled").value());
+    }
+
+    @Test
+    void testEndpointHttp() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("goldrush_venue_requests_total", "venue", "binance").add(7);
+        MetricsServer server = MetricsServer.start("127.0.0.1", 0, registry);
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+            assertTrue(response.body().contains("goldrush_venue_requests_total{venue=\"binance\"} 7"));
+        } finally {
+            server.stop();
+        }
+    }
+}
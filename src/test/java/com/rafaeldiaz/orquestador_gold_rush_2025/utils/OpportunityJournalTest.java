@@ -0,0 +1,101 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.core.main.JournalQueryRunner;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpportunityJournalTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void testEscrituraConcurrenteYRelectura() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("opps.gjr");
+        long t0 = 1_760_000_000_000L;
+
+        OpportunityJournal journal = new OpportunityJournal(file.toString());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        journal.record(t0 + i, "SPATIAL", "SOL", "binance->bybit", 100.0, 0.25, 0.2, 0.05, "REJECTED", "NO_PROFIT");
+                    }
+                });
+            }
+        }
+        journal.close();
+        assertEquals(OpportunityJournal.HEADER_BYTES + 20_000L * OpportunityJournal.RECORD_BYTES, Files.size(file));
+
+        // Reabrir: sigue agregando al final y el diccionario conserva los IDs
+        OpportunityJournal reopened = new OpportunityJournal(file.toString());
+        assertEquals(20_000, reopened.count());
+        reopened.record(t0 + HOUR, "SPATIAL", "XRP", "mexc->kucoin", 500.0, 0.4, 0.8, 1.2, "EXECUTED", "PROFITABLE");
+        reopened.close();
+
+        List<String> executed = new ArrayList<>();
+        try (OpportunityJournal.Reader reader = new OpportunityJournal.Reader(file.toString())) {
+            long visited = reader.forEach(c -> {
+                if (c.status().equals("EXECUTED")) {
+                    executed.add(c.asset() + " " + c.route() + " " + c.capital() + " " + c.fees() + " " + c.net() + " " + c.reason());
+                } else {
+                    assertEquals("SOL", c.asset());
+                    assertEquals("NO_PROFIT", c.reason());
+                }
+            });
+            assertEquals(20_001, visited);
+        }
+        assertEquals(List.of("XRP mexc->kucoin 500.0 0.8 1.2 PROFITABLE"), executed);
+    }
+
+    @Test
+    void testRecuperaTrasCaidaSinCerrar() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("opps.gjr");
+        OpportunityJournal crashed = new OpportunityJournal(file.toString());
+        for (int i = 0; i < 10; i++) {
+            crashed.record(1_760_000_000_000L + i, "SPATIAL", "SOL", "binance->bybit", 100, 0.1, 0.2, -0.1, "REJECTED", "NO_PROFIT");
+        }
+        // Sin close(): el archivo quedó del tamaño del segmento mapeado, con la cola en ceros
+        assertTrue(Files.size(file) > OpportunityJournal.HEADER_BYTES + 10L * OpportunityJournal.RECORD_BYTES);
+
+        OpportunityJournal recovered = new OpportunityJournal(file.toString());
+        assertEquals(10, recovered.count());
+        recovered.close();
+        try (OpportunityJournal.Reader reader = new OpportunityJournal.Reader(file.toString())) {
+            assertEquals(10, reader.forEach(c -> { }));
+        }
+    }
+
+    @Test
+    void testDistribucionPorRutaYHora() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("opps.gjr");
+        long t0 = 1_760_000_000_000L / HOUR * HOUR;
+        try (OpportunityJournal journal = new OpportunityJournal(file.toString())) {
+            for (int i = 1; i <= 100; i++) { // Spread neto 0.01% .. 1.00%
+                journal.record(t0 + i, "SPATIAL", "SOL", "binance->bybit", 100.0, 1.0, 0.1, i / 100.0, "SIMULATED", "PROFITABLE");
+            }
+            journal.record(t0 + HOUR, "SPATIAL", "SOL", "binance->bybit", 100.0, 1.0, 0.1, -0.5, "REJECTED", "NO_PROFIT");
+            journal.record(t0 + HOUR, "SPATIAL", "SOL", "binance->bybit", 100.0, Double.NaN, Double.NaN, Double.NaN, "REJECTED", "SLIPPAGE_BUY");
+        }
+
+        Map<String, JournalQueryRunner.NetSpreadStats> groups = new TreeMap<>();
+        try (OpportunityJournal.Reader reader = new OpportunityJournal.Reader(file.toString())) {
+            JournalQueryRunner.hourly(reader, c -> true, groups);
+        }
+        assertEquals(2, groups.size()); // Dos horas; el descarte por slippage no tiene neto
+        JournalQueryRunner.NetSpreadStats first = groups.values().iterator().next();
+        assertEquals(100, first.count());
+        assertEquals(0.505, first.mean(), 1e-9);
+        assertEquals(0.5, first.percentile(0.5), 0.005);
+        assertEquals(0.9, first.percentile(0.9), 0.005);
+        assertTrue(groups.keySet().iterator().next().endsWith("| SOL binance->bybit"));
+    }
+}
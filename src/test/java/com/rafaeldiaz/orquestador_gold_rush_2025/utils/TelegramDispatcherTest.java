@@ -0,0 +1,66 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import com.rafaeldiaz.orquestador_gold_rush_2025.utils.TelegramDispatcher.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramDispatcherTest {
+
+    @Test
+    void testTormentaSeFundeEnUnSoloAviso() {
+        TelegramDispatcher dispatcher = new TelegramDispatcher(text -> 0, 256, 60_000, 1_000, 20);
+        for (int i = 0; i < 50; i++) dispatcher.submit(Priority.NORMAL, "🚨 ERROR: Timeout bybit " + (100 + i) + "ms", 1_000);
+        assertEquals(1, dispatcher.pending());
+
+        String message = dispatcher.nextMessage(1_000);
+        assertEquals("🚨 ERROR: Timeout bybit 149ms (x50)", message);
+        assertNull(dispatcher.nextMessage(1_000));
+    }
+
+    @Test
+    void testVentanaDeDeduplicacionYPrioridad() {
+        TelegramDispatcher dispatcher = new TelegramDispatcher(text -> 0, 256, 60_000, 1_000, 20);
+        dispatcher.submit(Priority.LOW, "🚀 RADAR DETECT: SOLUSDT | Score: 0.91", 0);
+        assertNotNull(dispatcher.nextMessage(0));
+
+        // La misma clave dentro de la ventana queda retenida; lo crítico sale igual y primero
+        dispatcher.submit(Priority.LOW, "🚀 RADAR DETECT: SOLUSDT | Score: 0.93", 5_000);
+        dispatcher.submit(Priority.NORMAL, "⚠️ Low Balance: kucoin", 5_000);
+        dispatcher.submit(Priority.CRITICAL, "💰 TRADE: SOLUSDT | BUY", 5_000);
+        assertEquals("📦 RESUMEN (2 avisos)\n💰 TRADE: SOLUSDT | BUY\n⚠️ Low Balance: kucoin", dispatcher.nextMessage(5_000));
+        assertNull(dispatcher.nextMessage(30_000));
+        assertEquals("🚀 RADAR DETECT: SOLUSDT | Score: 0.93", dispatcher.nextMessage(60_000));
+    }
+
+    @Test
+    void testColaLlenaDescartaLoMenosImportante() {
+        TelegramDispatcher dispatcher = new TelegramDispatcher(text -> 0, 2, 60_000, 1_000, 20);
+        dispatcher.submit(Priority.LOW, "radar A", 0);
+        dispatcher.submit(Priority.LOW, "radar B", 0);
+        dispatcher.submit(Priority.CRITICAL, "trade", 0);   // Desaloja "radar A"
+        dispatcher.submit(Priority.LOW, "radar C", 0);      // Sin nada menor que desalojar: se descarta
+        assertEquals("📦 RESUMEN (2 avisos)\ntrade\nradar B", dispatcher.nextMessage(0));
+    }
+
+    @Test
+    void testRitmoYReintentoTras429() throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        long[] answers = {1_000, 0}; // Primero un 429 con retry_after 1s, después OK
+        TelegramDispatcher dispatcher = new TelegramDispatcher(text -> {
+            sent.add(text);
+            return answers[Math.min(sent.size() - 1, 1)];
+        }, 256, 60_000, 10, 20).start();
+        try {
+            dispatcher.submit(Priority.CRITICAL, "💰 TRADE: BTCUSDT", System.currentTimeMillis());
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (sent.size() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        } finally {
+            dispatcher.stop();
+        }
+        assertEquals(List.of("💰 TRADE: BTCUSDT", "💰 TRADE: BTCUSDT"), sent);
+    }
+}
@@ -0,0 +1,99 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeTraceTest {
+
+    @AfterEach
+    void limpiar() {
+        TradeTrace.reset();
+    }
+
+    @Test
+    void testHistogramaPercentilesConErrorAcotado() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long us = 1; us <= 1000; us++) h.record(us * 1_000); // 1µs … 1ms
+
+        assertEquals(1000, h.count());
+        assertEquals(1_000_000, h.max());
+        assertEquals(500_500, h.mean(), 1e-6);
+        assertEquals(500_000, h.percentile(0.5), 500_000 * 0.125);
+        assertEquals(990_000, h.percentile(0.99), 990_000 * 0.125);
+        assertTrue(h.percentile(1.0) <= h.max());
+
+        // Límites de bucket consistentes en todo el rango
+        for (long v : new long[]{0, 7, 8, 15, 16, 1023, 1L << 40, Long.MAX_VALUE}) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(b < LatencyHistogram.BUCKETS);
+            assertTrue(LatencyHistogram.lowerBound(b) <= v);
+        }
+    }
+
+    @Test
+    void testTramosPorEtapaYTotal() throws Exception {
+        long tick = System.nanoTime();
+        TradeTrace trace = TradeTrace.start("SPATIAL a->b", tick).mark(TradeTrace.Stage.DETECTED);
+
+        TradeTrace.callWith(trace, () -> {
+            TradeTrace.markCurrent(TradeTrace.Stage.VALIDATED);
+            TradeTrace.markCurrent(TradeTrace.Stage.LOCKED);
+            TradeTrace.markCurrent(TradeTrace.Stage.SENT); // Sin BUILT: el tramo lo absorbe SENT
+            TradeTrace.markCurrent(TradeTrace.Stage.ACKED);
+            TradeTrace.markCurrent(TradeTrace.Stage.FILLED);
+            return null;
+        });
+        assertNull(TradeTrace.current()); // Fuera del scope no queda traza colgada
+        TradeTrace.markCurrent(TradeTrace.Stage.FILLED); // No-op sin traza
+
+        trace.finish();
+        trace.finish(); // Idempotente
+
+        TradeTrace.RouteLatency stats = TradeTrace.routes().get("SPATIAL a->b");
+        assertEquals(1, stats.stage(TradeTrace.Stage.SENT).count());
+        assertEquals(0, stats.stage(TradeTrace.Stage.BUILT).count());
+        assertEquals(1, stats.total().count());
+        assertEquals(trace.stamp(TradeTrace.Stage.FILLED) - tick, stats.total().max());
+    }
+
+    @Test
+    void testPropagaAHilosVirtualesPrimerEnvioUltimoFill() throws Exception {
+        TradeTrace trace = TradeTrace.start("TRIANGULAR bybit SOL/BTC", System.nanoTime());
+        List<Long> filled;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            filled = TradeTrace.callWith(trace, () -> {
+                Future<Long> slow = executor.submit(TradeTrace.propagate(() -> {
+                    TradeTrace.markCurrent(TradeTrace.Stage.SENT);
+                    Thread.sleep(20);
+                    TradeTrace.markCurrent(TradeTrace.Stage.FILLED);
+                    return TradeTrace.current().stamp(TradeTrace.Stage.FILLED);
+                }));
+                Future<Long> fast = executor.submit(TradeTrace.propagate(() -> {
+                    TradeTrace.markCurrent(TradeTrace.Stage.SENT);
+                    TradeTrace.markCurrent(TradeTrace.Stage.FILLED);
+                    return System.nanoTime();
+                }));
+                return List.of(slow.get(), fast.get());
+            });
+        }
+        // FILLED = la última pata en llenarse
+        assertTrue(trace.stamp(TradeTrace.Stage.FILLED) >= filled.get(0));
+        assertTrue(trace.stamp(TradeTrace.Stage.SENT) < trace.stamp(TradeTrace.Stage.FILLED));
+
+        trace.finish();
+        Path csv = Files.createTempFile("latency", ".csv");
+        TradeTrace.exportCsv(csv.toString());
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("Route,Stage,Count,Mean_Ms,P50_Ms,P90_Ms,P99_Ms,Max_Ms", lines.get(0));
+        assertTrue(lines.stream().anyMatch(l -> l.startsWith("TRIANGULAR bybit SOL/BTC,TOTAL,1,")));
+        Files.deleteIfExists(csv);
+    }
+}
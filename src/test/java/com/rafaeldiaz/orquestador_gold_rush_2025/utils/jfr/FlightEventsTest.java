@@ -0,0 +1,65 @@
+package com.rafaeldiaz.orquestador_gold_rush_2025.utils.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightEventsTest {
+
+    @Test
+    void testPerfilGraba_EventosPropios() throws Exception {
+        Path file = Files.createTempFile("goldrush", ".jfr");
+        try (Recording recording = new Recording(FlightRecorderSupport.profile())) {
+            recording.start();
+
+            CacheMissEvent.emit("orderbook", "bybit_SOLUSDT");
+            LockWaitEvent lock = LockWaitEvent.start();
+            lock.end(List.of("bybit_sub1", "binance"), true);
+            OrderStageEvent ack = OrderStageEvent.start("ACK");
+            ack.end("bybit_sub1", "SOLUSDT", "BUY", "123", "ACKED");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+
+        RecordedEvent miss = only(events, "goldrush.CacheMiss");
+        assertEquals("orderbook", miss.getString("cache"));
+        assertEquals("bybit_SOLUSDT", miss.getString("key"));
+
+        RecordedEvent wait = only(events, "goldrush.LockWait");
+        assertEquals("bybit_sub1+binance", wait.getString("accounts"));
+        assertTrue(wait.getBoolean("acquired"));
+
+        RecordedEvent stage = only(events, "goldrush.OrderStage");
+        assertEquals("ACK", stage.getString("stage"));
+        assertEquals("123", stage.getString("orderId"));
+    }
+
+    @Test
+    void testClaseDeEndpoint_SinCardinalidadPorParametros() {
+        assertEquals("orderbook", HttpCallEvent.endpointClass("/v5/market/orderbook"));
+        assertEquals("orderbook", HttpCallEvent.endpointClass("/api/v3/depth"));
+        assertEquals("ticker", HttpCallEvent.endpointClass("/v5/market/tickers"));
+        assertEquals("order", HttpCallEvent.endpointClass("/v5/order/realtime"));
+        assertEquals("account", HttpCallEvent.endpointClass("/v5/account/wallet-balance"));
+        assertEquals("fees", HttpCallEvent.endpointClass("/v5/account/fee-rate"));
+        assertEquals("instruments", HttpCallEvent.endpointClass("/v5/market/instruments-info"));
+        assertEquals("other", HttpCallEvent.endpointClass("/api/v3/time"));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.getFirst();
+    }
+}